@@ -0,0 +1,53 @@
+package com.formations.favoris.benchmark;
+
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.service.FavoriteService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jeux de données réalistes partagés par les benchmarks JMH
+ */
+final class BenchmarkFixtures {
+
+    static final String USER_ID = "user-000042";
+    static final ContentType[] CONTENT_TYPES = {ContentType.COURSE, ContentType.VIDEO, ContentType.ARTICLE};
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    private BenchmarkFixtures() {
+    }
+
+    static List<Favorite> favorites(int count) {
+        List<Favorite> favorites = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            favorites.add(Favorite.builder()
+                    .id(String.format("6634f1a2b3c4d5e6f7%06x", i))
+                    .userId(USER_ID)
+                    .contentId("content-" + i)
+                    .contentType(CONTENT_TYPES[i % CONTENT_TYPES.length])
+                    .title("Introduction à Spring Boot, partie " + i)
+                    .description("Les bases de la configuration, des starters et de l'auto-configuration")
+                    .thumbnailUrl("https://cdn.formations.com/thumbnails/content-" + i + ".jpg")
+                    .createdAt(NOW.minusMinutes(i))
+                    .updatedAt(NOW.minusMinutes(i))
+                    .build());
+        }
+        return favorites;
+    }
+
+    /**
+     * Liste mutable, comme celles produites par le service et stockées dans les caches
+     */
+    static List<FavoriteDto> favoriteDtos(int count) {
+        List<FavoriteDto> dtos = new ArrayList<>(count);
+        for (Favorite favorite : favorites(count)) {
+            dtos.add(FavoriteService.convertToDto(favorite));
+        }
+        return dtos;
+    }
+}
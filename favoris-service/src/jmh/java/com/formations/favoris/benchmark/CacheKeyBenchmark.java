@@ -0,0 +1,96 @@
+package com.formations.favoris.benchmark;
+
+import com.formations.favoris.config.FavoritesByTypeKeyGenerator;
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.service.FavoriteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de l'interception {@code @Cacheable} sur un cache hit : construction de la clé (SpEL
+ * {@code #userId} ou {@link FavoritesByTypeKeyGenerator}) et proxy, comparés à une lecture directe
+ * du cache avec une clé construite à la main. Le cache local est une map pour isoler ce surcoût.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheKeyBenchmark {
+
+    private static final ContentType CONTENT_TYPE = ContentType.COURSE;
+
+    private AnnotationConfigApplicationContext context;
+    private FavoriteService favoriteService;
+    private Cache favoritesByType;
+    private Cache favorites;
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(CachingConfig.class);
+        favoriteService = context.getBean(FavoriteService.class);
+        CacheManager cacheManager = context.getBean(CacheManager.class);
+        favoritesByType = cacheManager.getCache("favoritesByType");
+        favorites = cacheManager.getCache("favorites");
+
+        List<FavoriteDto> cached = BenchmarkFixtures.favoriteDtos(20);
+        favoritesByType.put(CONTENT_TYPE.cacheKey(BenchmarkFixtures.USER_ID), cached);
+        favorites.put(BenchmarkFixtures.USER_ID, cached);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<FavoriteDto> cacheableByTypeHit() {
+        return favoriteService.getUserFavoritesByType(BenchmarkFixtures.USER_ID, CONTENT_TYPE);
+    }
+
+    @Benchmark
+    public List<FavoriteDto> cacheableUserHit() {
+        return favoriteService.getUserFavorites(BenchmarkFixtures.USER_ID);
+    }
+
+    @Benchmark
+    public Object directByTypeLookup() {
+        return favoritesByType.get(CONTENT_TYPE.cacheKey(BenchmarkFixtures.USER_ID)).get();
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("favorites", "favoritesByType");
+        }
+
+        @Bean(FavoritesByTypeKeyGenerator.BEAN_NAME)
+        FavoritesByTypeKeyGenerator favoritesByTypeKeyGenerator() {
+            return new FavoritesByTypeKeyGenerator();
+        }
+
+        // Aucune dépendance n'est sollicitée sur un cache hit
+        @Bean
+        FavoriteService favoriteService() {
+            return new FavoriteService(null, null, null, null, null, null);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.formations.favoris.benchmark;
+
+import com.formations.favoris.config.FavoritesByTypeKeyGenerator;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.service.FavoriteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Type de contenu en chaîne contre instances partagées de {@link ContentType} : construction de
+ * la clé du cache "favoritesByType" (ancienne expression SpEL contre générateur de clé) et lecture
+ * du type d'un favori relu du cache (nom décodé contre code sur un octet).
+ *
+ * <p>Les octets alloués par opération se lisent dans {@code gc.alloc.rate.norm} du profileur GC :
+ * {@code mvn -Pjmh verify -DskipTests -Djmh.includes=ContentTypeFootprintBenchmark -Djmh.args="-f 1 -wi 3 -i 5 -prof gc"}</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ContentTypeFootprintBenchmark {
+
+    private static final int USERS = 1_000;
+    private static final ContentType[] TYPES = BenchmarkFixtures.CONTENT_TYPES;
+
+    private Method method;
+    private ParameterNameDiscoverer parameterNames;
+    private Expression legacyKey;
+    private KeyGenerator keyGenerator;
+    private Object[][] legacyArgs;
+    private Object[][] args;
+    private byte[][] names;
+    private int next;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        method = FavoriteService.class.getMethod("getUserFavoritesByType", String.class, ContentType.class);
+        parameterNames = new DefaultParameterNameDiscoverer();
+        // Ancienne clé, évaluée à chaque appel par l'intercepteur de cache
+        legacyKey = new SpelExpressionParser().parseExpression("#userId + '_' + #contentType");
+        keyGenerator = new FavoritesByTypeKeyGenerator();
+        legacyArgs = new Object[USERS][];
+        args = new Object[USERS][];
+        for (int i = 0; i < USERS; i++) {
+            legacyArgs[i] = new Object[]{"user-" + i, TYPES[i % TYPES.length].name()};
+            args[i] = new Object[]{"user-" + i, TYPES[i % TYPES.length]};
+        }
+        names = new byte[TYPES.length][];
+        for (int i = 0; i < TYPES.length; i++) {
+            names[i] = TYPES[i].name().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public Object spelKey() {
+        return legacyKey.getValue(new MethodBasedEvaluationContext(null, method, legacyArgs[next()], parameterNames));
+    }
+
+    @Benchmark
+    public Object generatedKey() {
+        return keyGenerator.generate(null, method, args[next()]);
+    }
+
+    @Benchmark
+    public String decodeTypeName() {
+        return new String(names[next() % TYPES.length], StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ContentType decodeTypeCode() {
+        return ContentType.fromCode(TYPES[next() % TYPES.length].getCode());
+    }
+
+    private int next() {
+        int index = next;
+        next = index + 1 == USERS ? 0 : index + 1;
+        return index;
+    }
+}
@@ -0,0 +1,43 @@
+package com.formations.favoris.benchmark;
+
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.service.FavoriteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Conversion entité vers DTO d'une liste complète, telle qu'effectuée à chaque cache miss
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConvertToDtoBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int size;
+
+    private List<Favorite> favorites;
+
+    @Setup
+    public void setUp() {
+        favorites = BenchmarkFixtures.favorites(size);
+    }
+
+    @Benchmark
+    public List<FavoriteDto> convertList() {
+        return favorites.stream()
+                .map(FavoriteService::convertToDto)
+                .collect(Collectors.toList());
+    }
+}
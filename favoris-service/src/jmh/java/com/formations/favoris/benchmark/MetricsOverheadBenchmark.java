@@ -0,0 +1,108 @@
+package com.formations.favoris.benchmark;
+
+import com.formations.favoris.config.ResponseSizeMetricsFilter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de l'instrumentation laissée active en production, par requête : enregistrement d'un
+ * timer à histogramme (comme {@code http.server.requests}), d'une distribution de taille, passage
+ * par {@link ResponseSizeMetricsFilter} pour une réponse de 4 Ko, et coût d'une collecte
+ * Prometheus. Pour inclure la contention sur les compteurs, lancer avec plusieurs threads
+ * ({@code -Djmh.args="-t 4"}) sur une machine multi-cœur.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsOverheadBenchmark {
+
+    private static final byte[] CHUNK = new byte[512];
+
+    private PrometheusMeterRegistry registry;
+    private Timer timer;
+    private DistributionSummary summary;
+    private ResponseSizeMetricsFilter filter;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        timer = Timer.builder("http.server.requests")
+                .tags("method", "GET", "uri", "/api/favorites/user/{userId}", "status", "200", "outcome", "SUCCESS")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry);
+        summary = DistributionSummary.builder("favoris.benchmark.size")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(64.0)
+                .maximumExpectedValue(4.0 * 1024 * 1024)
+                .register(registry);
+        filter = new ResponseSizeMetricsFilter(registry);
+        // Corps de 4 Ko écrit par blocs, comme le convertisseur Jackson
+        chain = (request, response) -> {
+            for (int i = 0; i < 8; i++) {
+                response.getOutputStream().write(CHUNK, 0, CHUNK.length);
+            }
+        };
+    }
+
+    @State(Scope.Thread)
+    public static class Exchange {
+
+        MockHttpServletRequest request;
+
+        @Setup
+        public void setUp() {
+            request = new MockHttpServletRequest("GET", "/api/favorites/user/user123");
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/favorites/user/{userId}");
+        }
+    }
+
+    @Benchmark
+    public void timerRecord() {
+        timer.record(3_500_000, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public void summaryRecord() {
+        summary.record(4096);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestWithoutFilter(Exchange exchange) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        chain.doFilter(exchange.request, response);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestWithFilter(Exchange exchange) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(exchange.request, response, chain);
+        return response;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String scrape() {
+        return registry.scrape();
+    }
+}
@@ -0,0 +1,66 @@
+package com.formations.favoris.benchmark;
+
+import com.formations.favoris.config.FavoriteListRedisSerializer;
+import com.formations.favoris.config.RedisConfig;
+import com.formations.favoris.dto.FavoriteDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation des valeurs des caches Redis {@code favorites} / {@code favoritesByType} : JSON
+ * générique et format binaire de {@link FavoriteListRedisSerializer} (seuil de compression par
+ * défaut)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RedisSerializerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    @Param({"json", "binary"})
+    private String format;
+
+    private RedisSerializer<Object> serializer;
+    private List<FavoriteDto> favorites;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() {
+        serializer = "json".equals(format)
+                ? RedisConfig.jsonValueSerializer()
+                : new FavoriteListRedisSerializer(RedisConfig.jsonValueSerializer(), true, 1024);
+        favorites = BenchmarkFixtures.favoriteDtos(size);
+        serialized = serializer.serialize(favorites);
+        if (!favorites.equals(serializer.deserialize(serialized))) {
+            throw new IllegalStateException("Aller-retour Redis non fidèle");
+        }
+        System.out.printf("%n%d favoris, %s : %d octets sérialisés%n", size, format, serialized.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(favorites);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(serialized);
+    }
+
+    @Benchmark
+    public Object roundTrip() {
+        return serializer.deserialize(serializer.serialize(favorites));
+    }
+}
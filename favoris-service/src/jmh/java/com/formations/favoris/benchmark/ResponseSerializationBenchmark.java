@@ -0,0 +1,55 @@
+package com.formations.favoris.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.dto.FavoritePageDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation JSON des réponses du contrôleur, avec un ObjectMapper configuré comme celui de
+ * Spring Boot (modules JavaTime, dates ISO-8601)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseSerializationBenchmark {
+
+    @Param({"20", "500"})
+    private int size;
+
+    private ObjectWriter writer;
+    private List<FavoriteDto> favorites;
+    private FavoritePageDto page;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        favorites = BenchmarkFixtures.favoriteDtos(size);
+        page = FavoritePageDto.builder()
+                .items(favorites.subList(0, Math.min(20, size)))
+                .nextCursor("MjAyNC0wNS0wMVQwOTo0MDowMHw2NjM0ZjFhMmIzYzRkNWU2ZjcwMDAwMTM")
+                .hasMore(true)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] userFavorites() throws Exception {
+        return writer.writeValueAsBytes(favorites);
+    }
+
+    @Benchmark
+    public byte[] favoritesPage() throws Exception {
+        return writer.writeValueAsBytes(page);
+    }
+}
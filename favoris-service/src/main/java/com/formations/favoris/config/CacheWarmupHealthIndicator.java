@@ -0,0 +1,27 @@
+package com.formations.favoris.config;
+
+import com.formations.favoris.service.CacheWarmupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Instance hors service tant que le préchargement du cache des favoris n'a pas atteint la fraction
+ * configurée ; inclus dans le groupe readiness pour ne recevoir du trafic qu'une fois le cache chaud
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheWarmupHealthIndicator implements HealthIndicator {
+
+    private final CacheWarmupService cacheWarmupService;
+
+    @Override
+    public Health health() {
+        Health.Builder health = cacheWarmupService.isWarm() ? Health.up() : Health.outOfService();
+        return health
+                .withDetail("warmedUsers", cacheWarmupService.getWarmedCount())
+                .withDetail("hotUsers", cacheWarmupService.getStartupTotal())
+                .build();
+    }
+}
@@ -0,0 +1,292 @@
+package com.formations.favoris.config;
+
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.model.ContentType;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Sérialiseur des valeurs de cache Redis : les listes de favoris ({@code favorites},
+ * {@code favoritesByType}, listes légères {@code favoritesIds} et {@code favoritesSummary}) sont encodées dans un format binaire compact, les autres valeurs sont
+ * déléguées au sérialiseur JSON.
+ *
+ * <p>Format binaire : un octet magique, un octet de version et un octet de drapeaux, puis le
+ * corps éventuellement compressé (Deflate, au-delà d'un seuil). Le corps contient l'ID utilisateur
+ * commun à la liste, puis les champs de chaque {@link FavoriteDto} dans un ordre fixe, sans noms
+ * ni métadonnées de type. Les longueurs et les dates sont des entiers à taille variable, le type
+ * de contenu est son code {@link ContentType#getCode()} sur un octet (0 pour null) et est relu
+ * comme l'instance partagée du type.</p>
+ *
+ * <p>Toute modification des champs de {@link FavoriteDto} impose d'incrémenter {@link #VERSION}.
+ * Une valeur d'une version inconnue est lue comme un cache miss ; les valeurs JSON restent
+ * lisibles. Une instance plus ancienne ou plus récente peut donc cohabiter pendant un déploiement
+ * progressif.</p>
+ */
+public class FavoriteListRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xFA;
+    static final byte VERSION = 2; // 2 : type de contenu sur un octet
+    static final byte FLAG_DEFLATE = 1;
+    private static final int HEADER_LENGTH = 3;
+
+    private final RedisSerializer<Object> fallback;
+    private final boolean binaryWrites;
+    private final int compressionThreshold;
+
+    /**
+     * @param fallback Sérialiseur des valeurs qui ne sont pas des listes de favoris
+     * @param binaryWrites {@code false} pour continuer à écrire du JSON (lecture binaire conservée)
+     * @param compressionThreshold Taille du corps en octets au-delà de laquelle il est compressé
+     */
+    public FavoriteListRedisSerializer(RedisSerializer<Object> fallback, boolean binaryWrites, int compressionThreshold) {
+        this.fallback = fallback;
+        this.binaryWrites = binaryWrites;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!binaryWrites || !isFavoriteList(value)) {
+            return fallback.serialize(value);
+        }
+        List<?> favorites = (List<?>) value;
+        Output body = new Output(64 + favorites.size() * 128);
+        writeBody(body, favorites);
+
+        byte flags = 0;
+        byte[] payload = body.toByteArray();
+        if (payload.length > compressionThreshold) {
+            byte[] compressed = deflate(payload);
+            if (compressed.length < payload.length) {
+                payload = compressed;
+                flags |= FLAG_DEFLATE;
+            }
+        }
+        byte[] bytes = new byte[HEADER_LENGTH + payload.length];
+        bytes[0] = MAGIC;
+        bytes[1] = VERSION;
+        bytes[2] = flags;
+        System.arraycopy(payload, 0, bytes, HEADER_LENGTH, payload.length);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH || bytes[1] != VERSION) {
+            // Valeur écrite par une autre version : ignorée, elle sera rechargée
+            return null;
+        }
+        try {
+            byte[] body = (bytes[2] & FLAG_DEFLATE) != 0
+                    ? inflate(bytes, HEADER_LENGTH)
+                    : Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length);
+            return readBody(new Input(body));
+        } catch (DataFormatException | RuntimeException e) {
+            throw new SerializationException("Liste de favoris illisible", e);
+        }
+    }
+
+    private static boolean isFavoriteList(Object value) {
+        if (!(value instanceof List<?> list)) {
+            return false;
+        }
+        for (Object element : list) {
+            if (!(element instanceof FavoriteDto)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeBody(Output out, List<?> favorites) {
+        // Les listes en cache sont celles d'un seul utilisateur : son ID n'est alors écrit qu'une fois
+        String commonUserId = favorites.isEmpty() ? null : ((FavoriteDto) favorites.get(0)).getUserId();
+        boolean sameUser = true;
+        for (Object element : favorites) {
+            sameUser &= Objects.equals(((FavoriteDto) element).getUserId(), commonUserId);
+        }
+        out.write(sameUser ? 1 : 0);
+        out.writeString(commonUserId);
+        out.writeVarLong(favorites.size());
+        for (Object element : favorites) {
+            FavoriteDto favorite = (FavoriteDto) element;
+            if (!sameUser) {
+                out.writeString(favorite.getUserId());
+            }
+            out.writeString(favorite.getId());
+            out.writeString(favorite.getContentId());
+            out.write(favorite.getContentType() != null ? favorite.getContentType().getCode() : 0);
+            out.writeString(favorite.getTitle());
+            out.writeString(favorite.getDescription());
+            out.writeString(favorite.getThumbnailUrl());
+            out.writeDateTime(favorite.getCreatedAt());
+            out.writeDateTime(favorite.getUpdatedAt());
+        }
+    }
+
+    private static List<FavoriteDto> readBody(Input in) {
+        boolean sameUser = in.readByte() == 1;
+        String commonUserId = in.readString();
+        int size = Math.toIntExact(in.readVarLong());
+        // Liste mutable, comme celles produites par le service
+        List<FavoriteDto> favorites = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            favorites.add(FavoriteDto.builder()
+                    .userId(sameUser ? commonUserId : in.readString())
+                    .id(in.readString())
+                    .contentId(in.readString())
+                    .contentType(in.readContentType())
+                    .title(in.readString())
+                    .description(in.readString())
+                    .thumbnailUrl(in.readString())
+                    .createdAt(in.readDateTime())
+                    .updatedAt(in.readDateTime())
+                    .build());
+        }
+        return favorites;
+    }
+
+    private static byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Flux Deflate tronqué");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Tampon d'écriture : chaînes préfixées par leur longueur + 1 et dates par un entier non nul,
+     * 0 représentant null ; entiers en varint
+     */
+    private static final class Output extends ByteArrayOutputStream {
+
+        Output(int size) {
+            super(size);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            write(utf8, 0, utf8.length);
+        }
+
+        void writeDateTime(LocalDateTime value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            long seconds = value.toEpochSecond(ZoneOffset.UTC);
+            writeVarLong(((seconds << 1) ^ (seconds >> 63)) + 1);
+            writeVarLong(value.getNano());
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Entier à taille variable invalide");
+        }
+
+        String readString() {
+            int length = Math.toIntExact(readVarLong());
+            if (length == 0) {
+                return null;
+            }
+            Objects.checkFromIndexSize(position, length - 1, bytes.length);
+            String value = new String(bytes, position, length - 1, StandardCharsets.UTF_8);
+            position += length - 1;
+            return value;
+        }
+
+        byte readByte() {
+            return bytes[position++];
+        }
+
+        ContentType readContentType() {
+            byte code = readByte();
+            return code == 0 ? null : ContentType.fromCode(code);
+        }
+
+        LocalDateTime readDateTime() {
+            long zigzag = readVarLong();
+            if (zigzag == 0) {
+                return null;
+            }
+            zigzag--;
+            long seconds = (zigzag >>> 1) ^ -(zigzag & 1);
+            return LocalDateTime.ofEpochSecond(seconds, (int) readVarLong(), ZoneOffset.UTC);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.formations.favoris.config;
+
+import com.formations.favoris.repository.BucketFavoriteStorage;
+import com.formations.favoris.repository.DocumentFavoriteStorage;
+import com.formations.favoris.repository.FavoriteStorage;
+import com.formations.favoris.repository.MigratingFavoriteStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Choix de la disposition des favoris dans Mongo ({@code favoris.storage.layout}) et, pendant une
+ * migration en ligne ({@code favoris.storage.migration.target}), double écriture vers l'autre disposition.
+ *
+ * <p>Le profil reactive lit et écrit directement la collection des favoris par document, sans
+ * passer par {@link FavoriteStorage} : il refuse de démarrer sur une autre disposition ou pendant
+ * une migration, plutôt que de servir des listes vides et de perdre ses écritures.</p>
+ */
+@Configuration
+@Slf4j
+public class FavoriteStorageConfig {
+
+    @Bean
+    public DocumentFavoriteStorage documentFavoriteStorage(MongoTemplate mongoTemplate) {
+        return new DocumentFavoriteStorage(mongoTemplate);
+    }
+
+    @Bean
+    public BucketFavoriteStorage bucketFavoriteStorage(MongoTemplate mongoTemplate,
+                                                       @Value("${favoris.storage.bucket-size:200}") int bucketSize) {
+        return new BucketFavoriteStorage(mongoTemplate, bucketSize);
+    }
+
+    @Bean
+    @Primary
+    public FavoriteStorage favoriteStorage(DocumentFavoriteStorage documentStorage,
+                                           BucketFavoriteStorage bucketStorage,
+                                           @Value("${favoris.storage.layout:document}") String layout,
+                                           @Value("${favoris.storage.migration.target:}") String migrationTarget,
+                                           Environment environment) {
+        FavoriteStorage storage = layout(layout, documentStorage, bucketStorage);
+        boolean migrating = !migrationTarget.isBlank() && !migrationTarget.equalsIgnoreCase(layout);
+        if (environment.acceptsProfiles(Profiles.of("reactive")) && (storage != documentStorage || migrating)) {
+            throw new IllegalStateException("Le profil reactive n'accède qu'à la disposition par document, "
+                    + "incompatible avec favoris.storage.layout=" + layout
+                    + (migrating ? " et favoris.storage.migration.target=" + migrationTarget : ""));
+        }
+        // L'unicité des contenus d'un utilisateur et les parcours par utilisateur (pages, export)
+        // reposent sur les index de chaque disposition écrite, créés avant la première écriture :
+        // la création automatique des index de Spring Data n'est pas activée
+        if (!migrating) {
+            storage.ensureIndexes();
+            log.info("Disposition des favoris: {}", layout);
+            return storage;
+        }
+        FavoriteStorage target = layout(migrationTarget, documentStorage, bucketStorage);
+        MigratingFavoriteStorage migratingStorage = new MigratingFavoriteStorage(storage, target);
+        migratingStorage.ensureIndexes();
+        log.info("Disposition des favoris: {}, migration en cours vers: {}", layout, migrationTarget);
+        return migratingStorage;
+    }
+
+    private static FavoriteStorage layout(String name, DocumentFavoriteStorage documentStorage,
+                                          BucketFavoriteStorage bucketStorage) {
+        return switch (name.toLowerCase()) {
+            case "document" -> documentStorage;
+            case "bucket" -> bucketStorage;
+            default -> throw new IllegalArgumentException("Disposition des favoris inconnue: " + name);
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.formations.favoris.config;
+
+import com.formations.favoris.model.ContentType;
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+
+/**
+ * Clés du cache "favoritesByType" ({@code userId_TYPE}) pour les méthodes {@code (String userId,
+ * ContentType contentType)}, sans l'évaluation SpEL d'une expression {@code key} à chaque appel :
+ * une seule chaîne allouée, de la taille exacte de la clé (voir {@link ContentType#cacheKey(String)}).
+ */
+public class FavoritesByTypeKeyGenerator implements KeyGenerator {
+
+    public static final String BEAN_NAME = "favoritesByTypeKeyGenerator";
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        return ((ContentType) params[1]).cacheKey((String) params[0]);
+    }
+}
@@ -0,0 +1,35 @@
+package com.formations.favoris.config;
+
+import com.formations.favoris.service.MongoLoadShedder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Délestage des requêtes selon la latence Mongo : événements des clients Mongo (bloquant et
+ * réactif) transmis à {@link MongoLoadShedder}, refus appliqués aux requêtes de l'API
+ */
+@Configuration
+public class LoadSheddingConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer loadSheddingMongoListeners(MongoLoadShedder loadShedder) {
+        return builder -> builder
+                .addCommandListener(loadShedder)
+                .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(loadShedder));
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilter(MongoLoadShedder loadShedder) {
+        FilterRegistrationBean<LoadSheddingFilter> registration =
+                new FilterRegistrationBean<>(new LoadSheddingFilter(loadShedder));
+        registration.addUrlPatterns("/api/*");
+        // Juste après le filtre d'observation de Spring Boot : les refus restent comptés dans http.server.requests
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,37 @@
+package com.formations.favoris.config;
+
+import com.formations.favoris.service.MongoLoadShedder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Refus immédiat (503, Retry-After) des requêtes que {@link MongoLoadShedder} déleste, avant tout
+ * traitement : une requête refusée ne prend ni thread de traitement ni connexion Mongo.
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private final MongoLoadShedder loadShedder;
+
+    public LoadSheddingFilter(MongoLoadShedder loadShedder) {
+        this.loadShedder = loadShedder;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!loadShedder.tryAdmit()) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,33 @@
+package com.formations.favoris.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Instrumentation propre au service, en complément des métriques fournies par Spring Boot
+ * (latence HTTP {@code http.server.requests}, méthodes des repositories
+ * {@code spring.data.repository.invocations}, commandes Mongo {@code mongodb.driver.commands}).
+ * Les histogrammes et l'exposition Prometheus sont configurés dans application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TwoTierCacheMeterBinderProvider twoTierCacheMeterBinderProvider() {
+        return new TwoTierCacheMeterBinderProvider();
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ResponseSizeMetricsFilter> responseSizeMetricsFilter(MeterRegistry registry) {
+        FilterRegistrationBean<ResponseSizeMetricsFilter> registration =
+                new FilterRegistrationBean<>(new ResponseSizeMetricsFilter(registry));
+        // Au plus près du contrôleur, après les filtres de Spring Boot
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+}
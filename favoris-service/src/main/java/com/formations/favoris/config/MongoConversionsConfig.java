@@ -0,0 +1,21 @@
+package com.formations.favoris.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.List;
+
+/**
+ * Conversions Mongo propres au service (clients bloquant et réactif)
+ */
+@Configuration
+public class MongoConversionsConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        // Types stockés avant leur validation : variantes de casse relues, valeurs inconnues lues comme null.
+        // L'écriture reste celle par défaut : le nom du type
+        return new MongoCustomConversions(List.of(new StoredContentTypeConverter()));
+    }
+}
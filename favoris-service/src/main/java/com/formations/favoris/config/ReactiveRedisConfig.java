@@ -0,0 +1,30 @@
+package com.formations.favoris.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+/**
+ * Accès Redis réactif (Lettuce) du profil "reactive". Les clés et la sérialisation sont celles
+ * du {@link org.springframework.data.redis.cache.RedisCacheManager} de {@link RedisConfig}, pour
+ * que les instances MVC et réactives partagent les mêmes entrées de cache.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveRedisConfig {
+
+    @Bean
+    public ReactiveRedisTemplate<String, Object> favoritesReactiveRedisTemplate(ReactiveRedisConnectionFactory connectionFactory,
+                                                                                   RedisSerializer<Object> cacheValueSerializer) {
+        RedisSerializationContext<String, Object> context = RedisSerializationContext
+                .<String, Object>newSerializationContext(new StringRedisSerializer())
+                .value(cacheValueSerializer)
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, context);
+    }
+}
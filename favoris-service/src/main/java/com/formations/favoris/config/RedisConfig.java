@@ -1,13 +1,21 @@
 package com.formations.favoris.config;
 
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.formations.favoris.service.ContentCatalogInvalidator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -17,7 +25,13 @@ import java.time.Duration;
 public class RedisConfig {
 
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                            StringRedisTemplate stringRedisTemplate,
+                                            RedisSerializer<Object> cacheValueSerializer,
+                                            @Value("${favoris.cache.local.maximum-size:10000}") long localMaximumSize,
+                                            @Value("${favoris.cache.local.time-to-live:PT1M}") Duration localTtl,
+                                            @Value("${favoris.cache.lease.time-to-live:PT3S}") Duration leaseTtl,
+                                            @Value("${favoris.cache.early-refresh.beta:1.0}") double earlyRefreshBeta) {
         RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10))  // TTL de 10 minutes
                 .disableCachingNullValues()
@@ -25,20 +39,75 @@ public class RedisConfig {
                         RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer())
                 )
                 .serializeValuesWith(
-                        RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer())
+                        RedisSerializationContext.SerializationPair.fromSerializer(cacheValueSerializer)
                 );
 
-        return RedisCacheManager.builder(connectionFactory)
+        // Les configurations spécifiques héritent des sérialiseurs de la configuration par défaut
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(cacheConfig)
-                .withCacheConfiguration("favorites", 
-                    RedisCacheConfiguration.defaultCacheConfig()
-                        .entryTtl(Duration.ofMinutes(5))  // TTL spécifique pour le cache "favorites"
+                .withCacheConfiguration("favorites",
+                    cacheConfig.entryTtl(Duration.ofMinutes(5))  // TTL spécifique pour le cache "favorites"
                 )
-                .withCacheConfiguration("favoritesByType", 
-                    RedisCacheConfiguration.defaultCacheConfig()
-                        .entryTtl(Duration.ofMinutes(5))  // TTL spécifique pour le cache "favoritesByType"
+                .withCacheConfiguration("favoritesByType",
+                    cacheConfig.entryTtl(Duration.ofMinutes(5))  // TTL spécifique pour le cache "favoritesByType"
+                )
+                .withCacheConfiguration("favoritesHead",
+                    cacheConfig.entryTtl(Duration.ofMinutes(5))  // première page, invalidée à chaque écriture
+                )
+                .withCacheConfiguration("favoritesIds",
+                    cacheConfig.entryTtl(Duration.ofMinutes(5))  // listes légères, invalidées à chaque écriture
+                )
+                .withCacheConfiguration("favoritesSummary",
+                    cacheConfig.entryTtl(Duration.ofMinutes(5))
+                )
+                .withCacheConfiguration("favoritesPages",
+                    cacheConfig.entryTtl(Duration.ofMinutes(1))  // pages suivantes, clé versionnée : non relues après une écriture
                 )
-                .transactionAware()
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // Cache local (L1) devant Redis (L2), invalidé sur toutes les instances par pub/sub,
+        // chargements coalescés par clé et rechargement anticipé des clés lues avant leur expiration
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(
+                redisCacheManager, stringRedisTemplate, localMaximumSize, localTtl, leaseTtl, earlyRefreshBeta);
+        cacheManager.setTransactionAware(true);
+        return cacheManager;
+    }
+
+    @Bean(FavoritesByTypeKeyGenerator.BEAN_NAME)
+    public FavoritesByTypeKeyGenerator favoritesByTypeKeyGenerator() {
+        return new FavoritesByTypeKeyGenerator();
+    }
+
+    /**
+     * Sérialiseur des valeurs en cache, partagé avec le client Redis réactif : listes de favoris
+     * en binaire compact, autres valeurs en JSON
+     */
+    @Bean
+    public RedisSerializer<Object> cacheValueSerializer(
+            @Value("${favoris.cache.binary-values.enabled:true}") boolean binaryValues,
+            @Value("${favoris.cache.binary-values.compression-threshold:1024}") int compressionThreshold) {
+        return new FavoriteListRedisSerializer(jsonValueSerializer(), binaryValues, compressionThreshold);
+    }
+
+    /**
+     * Sérialiseur JSON des valeurs en cache. Le module JavaTime est nécessaire pour les dates
+     * des favoris, écrites au format ISO-8601.
+     */
+    public static GenericJackson2JsonRedisSerializer jsonValueSerializer() {
+        return new GenericJackson2JsonRedisSerializer().configure(mapper -> mapper
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           TwoTierCacheManager cacheManager,
+                                                                           ContentCatalogInvalidator catalogInvalidator) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL));
+        container.addMessageListener(catalogInvalidator, new ChannelTopic(ContentCatalogInvalidator.INVALIDATION_CHANNEL));
+        return container;
     }
-}
\ No newline at end of file
+}
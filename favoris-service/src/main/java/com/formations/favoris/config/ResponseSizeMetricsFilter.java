@@ -0,0 +1,127 @@
+package com.formations.favoris.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Distribution de la taille des corps de réponse par endpoint ({@code http.server.response.size},
+ * en octets, étiquetée par méthode et modèle d'URI comme {@code http.server.requests}).
+ *
+ * <p>Les octets sont comptés au passage, sans copie du corps. Les réponses asynchrones (exports
+ * NDJSON en streaming) et celles écrites via un {@code Writer} ne sont pas mesurées.</p>
+ */
+public class ResponseSizeMetricsFilter extends OncePerRequestFilter {
+
+    static final String METRIC_NAME = "http.server.response.size";
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public ResponseSizeMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CountingResponseWrapper wrapper = new CountingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (request.isAsyncStarted() || wrapper.usedWriter) {
+            return;
+        }
+        // Modèle d'URI (ex. /api/favorites/user/{userId}) pour borner la cardinalité
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+        summaries.computeIfAbsent(request.getMethod() + ' ' + uri, key -> DistributionSummary.builder(METRIC_NAME)
+                        .description("Taille des corps de réponse")
+                        .baseUnit("bytes")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(64.0)
+                        .maximumExpectedValue(4.0 * 1024 * 1024)
+                        .register(registry))
+                .record(wrapper.stream != null ? wrapper.stream.count : 0);
+    }
+
+    private static final class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+        private CountingOutputStream stream;
+        private boolean usedWriter;
+
+        CountingResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                stream = new CountingOutputStream(super.getOutputStream());
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            usedWriter = true;
+            return super.getWriter();
+        }
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private long count;
+
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.formations.favoris.config;
+
+import com.formations.favoris.model.ContentType;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+/**
+ * Lecture des types de contenu stockés dans Mongo, sans tenir compte de la casse ni des espaces.
+ * Une valeur qui ne correspond à aucun type (type retiré, écrit par un autre outil) est lue comme
+ * null au lieu de faire échouer la lecture : une liste ou un export contenant ce favori reste
+ * servi. {@code ContentTypeMigrationService} met ces favoris en quarantaine.
+ */
+@ReadingConverter
+public class StoredContentTypeConverter implements Converter<String, ContentType> {
+
+    @Override
+    public ContentType convert(String source) {
+        return ContentType.parse(source);
+    }
+}
@@ -0,0 +1,20 @@
+package com.formations.favoris.config;
+
+import com.formations.favoris.model.ContentType;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Conversion d'une chaîne en type de contenu sans tenir compte de la casse, comme en JSON
+ * ({@link ContentType#fromValue(String)}) : variables de chemin des contrôleurs (bean enregistré
+ * par Spring Boot), une valeur inconnue étant refusée. Les types lus dans Mongo passent par
+ * {@link StoredContentTypeConverter}.
+ */
+@Component
+public class StringToContentTypeConverter implements Converter<String, ContentType> {
+
+    @Override
+    public ContentType convert(String source) {
+        return ContentType.fromValue(source);
+    }
+}
@@ -0,0 +1,417 @@
+package com.formations.favoris.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache à deux niveaux : un cache local borné (Caffeine, W-TinyLFU) devant le cache Redis partagé.
+ * Les lectures consultent d'abord le niveau local, puis Redis ; les invalidations sont propagées
+ * aux autres instances via {@link TwoTierCacheManager}.
+ *
+ * <p>Les chargements ({@link #get(Object, Callable)}, {@code @Cacheable(sync = true)}) sont
+ * protégés contre les avalanches à l'expiration d'une clé : un seul chargement par clé et par
+ * instance, les autres appelants attendent son résultat ; entre instances, un bail Redis court
+ * désigne celle qui interroge la base pendant que les autres attendent la valeur dans Redis.
+ * Une clé lue peu avant l'expiration de son entrée Redis est rechargée en arrière-plan, avec une
+ * probabilité croissante à l'approche de l'échéance (XFetch) : un seul appelant la recharge et
+ * les autres continuent d'être servis.</p>
+ *
+ * <p>Une valeur lue dans Redis ou chargée n'alimente le cache que si aucune invalidation n'a
+ * touché sa clé pendant la lecture : chaque invalidation incrémente un compteur (par groupe de
+ * clés, et pour le cache entier), relevé avant la lecture et vérifié au moment de l'écriture dans
+ * le niveau local. Sans cela, une lecture de l'ancienne valeur terminée après l'invalidation la
+ * réinstallerait localement jusqu'à l'expiration du niveau local.</p>
+ */
+public class TwoTierCache implements Cache {
+
+    private static final long REMOTE_POLL_INTERVAL_MILLIS = 20;
+    private static final int GENERATION_STRIPES = 1024; // puissance de 2
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Entry> local;
+    private final Cache remote;
+    private final TwoTierCacheManager manager;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+    // Compteurs d'invalidations par groupe de clés et du cache entier
+    private final AtomicLongArray keyGenerations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong clearGeneration = new AtomicLong();
+
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+
+    // Durée moyenne (mobile) d'un chargement, le delta de XFetch
+    private volatile long loadNanosEstimate;
+
+    TwoTierCache(String name,
+                 com.github.benmanes.caffeine.cache.Cache<Object, Entry> local,
+                 Cache remote,
+                 TwoTierCacheManager manager) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.manager = manager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Entry entry = local.getIfPresent(key);
+        if (entry != null) {
+            return new SimpleValueWrapper(entry.value());
+        }
+        return getRemote(key);
+    }
+
+    private ValueWrapper getRemote(Object key) {
+        long generation = generation(key);
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            remoteHits.increment();
+            putLocal(key, wrapper.get(), generation, Entry.UNKNOWN_EXPIRY);
+        } else {
+            remoteMisses.increment();
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("La valeur en cache n'est pas du type attendu [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Entry entry = local.getIfPresent(key);
+        if (entry != null) {
+            if (shouldRefreshEarly(key, entry)) {
+                refreshAsync(key, valueLoader);
+            }
+            return (T) entry.value();
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalescedLoads.increment();
+            return (T) await(key, valueLoader, existing);
+        }
+        try {
+            Object value = loadThroughRemote(key, valueLoader);
+            flight.complete(value);
+            return (T) value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Lit Redis puis, en cas d'absence, charge la valeur sous le bail Redis de la clé. Sans le
+     * bail, attend que l'instance qui le détient publie la valeur ; à l'échéance du bail, charge
+     * elle-même la valeur.
+     */
+    private Object loadThroughRemote(Object key, Callable<?> valueLoader) {
+        ValueWrapper wrapper = getRemote(key);
+        if (wrapper != null && wrapper.get() != null) {
+            return wrapper.get();
+        }
+        String lease = manager.tryAcquireLease(name, key);
+        if (lease == null) {
+            Object value = awaitRemote(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        try {
+            return load(key, valueLoader);
+        } finally {
+            manager.releaseLease(name, key, lease);
+        }
+    }
+
+    private Object awaitRemote(Object key) {
+        long deadline = System.nanoTime() + manager.getLeaseTtl().toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(REMOTE_POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            long generation = generation(key);
+            ValueWrapper wrapper = remote.get(key);
+            if (wrapper != null && wrapper.get() != null) {
+                remoteHits.increment();
+                putLocal(key, wrapper.get(), generation, Entry.UNKNOWN_EXPIRY);
+                return wrapper.get();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Charge la valeur et la met en cache, sauf si la clé a été invalidée pendant le chargement.
+     * Une invalidation survenue pendant l'écriture dans Redis y retire la valeur, chargée avant
+     * l'écriture en base qui a déclenché l'invalidation.
+     */
+    private Object load(Object key, Callable<?> valueLoader) {
+        long generation = generation(key);
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        loads.increment();
+        long elapsed = System.nanoTime() - start;
+        long estimate = loadNanosEstimate;
+        loadNanosEstimate = estimate == 0 ? elapsed : estimate + (elapsed - estimate) / 8;
+        if (value != null && generation(key) == generation) {
+            remote.put(key, value);
+            puts.increment();
+            if (generation(key) == generation) {
+                putLocal(key, value, generation, manager.remoteExpiresAt(remote, key, value));
+            } else {
+                evict(key);
+            }
+        }
+        return value;
+    }
+
+    private Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new ValueRetrievalException(key, valueLoader, cause);
+        }
+    }
+
+    /**
+     * XFetch : rechargement anticipé si {@code maintenant - delta * beta * ln(aléa)} dépasse
+     * l'expiration de l'entrée Redis. L'expiration d'une entrée lue dans Redis n'est demandée
+     * (PTTL) qu'à la première décision qui en a besoin, puis conservée dans l'entrée locale.
+     */
+    private boolean shouldRefreshEarly(Object key, Entry entry) {
+        double beta = manager.getEarlyRefreshBeta();
+        long delta = loadNanosEstimate;
+        if (beta <= 0 || delta == 0) {
+            return false;
+        }
+        long remoteExpiresAt = entry.remoteExpiresAt();
+        if (remoteExpiresAt == Entry.UNKNOWN_EXPIRY) {
+            remoteExpiresAt = manager.fetchRemoteExpiresAt(name, key);
+            local.asMap().replace(key, entry, new Entry(entry.value(), remoteExpiresAt));
+        }
+        if (remoteExpiresAt <= 0) {
+            return false;
+        }
+        double gap = delta * beta * -Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + (long) (gap / 1_000_000) >= remoteExpiresAt;
+    }
+
+    /**
+     * Recharge la clé en arrière-plan, une fois à la fois par clé. Le rechargement n'est pas
+     * enregistré comme chargement en cours : il peut être abandonné (bail détenu par une autre
+     * instance, file pleine) et les appelants qui manquent le niveau local pendant ce temps
+     * chargent la valeur eux-mêmes au lieu de l'attendre.
+     */
+    private void refreshAsync(Object key, Callable<?> valueLoader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            manager.getRefreshExecutor().execute(() -> {
+                try {
+                    // Une autre instance détient le bail : elle rafraîchit l'entrée Redis
+                    String lease = manager.tryAcquireLease(name, key);
+                    if (lease == null) {
+                        return;
+                    }
+                    try {
+                        earlyRefreshes.increment();
+                        load(key, valueLoader);
+                    } finally {
+                        manager.releaseLease(name, key, lease);
+                    }
+                } catch (RuntimeException e) {
+                    // L'entrée en place reste servie jusqu'à son expiration
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        long generation = generation(key);
+        remote.put(key, value);
+        puts.increment();
+        if (value != null) {
+            putLocal(key, value, generation, manager.remoteExpiresAt(remote, key, value));
+        }
+    }
+
+    /**
+     * Écrit dans le niveau local si la clé n'a pas été invalidée depuis le relevé de
+     * {@code generation}. La vérification a lieu dans le calcul de l'entrée, atomique vis-à-vis
+     * de son invalidation : l'entrée écrite avant l'invalidation est retirée par celle-ci, celle
+     * écrite après voit le compteur incrémenté.
+     */
+    private void putLocal(Object key, Object value, long generation, long remoteExpiresAt) {
+        local.asMap().compute(key, (k, current) ->
+                generation(k) == generation ? new Entry(value, remoteExpiresAt) : current);
+    }
+
+    private long generation(Object key) {
+        return keyGenerations.get(stripe(key)) + clearGeneration.get();
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private void nextGeneration(Object key) {
+        keyGenerations.incrementAndGet(stripe(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        inFlight.remove(key);
+        // Compteur incrémenté avant l'éviction Redis (chargements sur le point d'y écrire) et
+        // avant l'invalidation locale (lectures Redis commencées avant l'éviction)
+        nextGeneration(key);
+        remote.evict(key);
+        nextGeneration(key);
+        local.invalidate(key);
+        evictions.increment();
+        manager.publishEviction(name, key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        inFlight.remove(key);
+        nextGeneration(key);
+        boolean present = remote.evictIfPresent(key);
+        nextGeneration(key);
+        local.invalidate(key);
+        evictions.increment();
+        manager.publishEviction(name, key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        inFlight.clear();
+        clearGeneration.incrementAndGet();
+        remote.clear();
+        clearGeneration.incrementAndGet();
+        local.invalidateAll();
+        manager.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        inFlight.clear();
+        clearGeneration.incrementAndGet();
+        boolean notEmpty = remote.invalidate();
+        clearGeneration.incrementAndGet();
+        local.invalidateAll();
+        manager.publishClear(name);
+        return notEmpty;
+    }
+
+    /**
+     * Invalide une entrée du niveau local uniquement (réception d'un message d'une autre instance,
+     * ou version des favoris changée depuis la dernière lecture)
+     */
+    public void evictLocal(Object key) {
+        inFlight.remove(key);
+        nextGeneration(key);
+        local.invalidate(key);
+    }
+
+    /**
+     * Vide le niveau local uniquement (réception d'un message d'une autre instance)
+     */
+    void clearLocal() {
+        inFlight.clear();
+        clearGeneration.incrementAndGet();
+        local.invalidateAll();
+    }
+
+    /**
+     * Statistiques de hit/miss par niveau depuis le démarrage
+     */
+    public TwoTierCacheStats getStatistics() {
+        com.github.benmanes.caffeine.cache.stats.CacheStats localStats = local.stats();
+        return new TwoTierCacheStats(
+                localStats.hitCount(),
+                localStats.missCount(),
+                remoteHits.sum(),
+                remoteMisses.sum(),
+                evictions.sum(),
+                puts.sum(),
+                local.estimatedSize(),
+                loads.sum(),
+                coalescedLoads.sum(),
+                earlyRefreshes.sum());
+    }
+
+    /**
+     * Valeur du niveau local et expiration de son entrée Redis (epoch ms, 0 si aucune,
+     * {@link #UNKNOWN_EXPIRY} si elle reste à demander à Redis)
+     */
+    record Entry(Object value, long remoteExpiresAt) {
+
+        static final long UNKNOWN_EXPIRY = -1;
+    }
+}
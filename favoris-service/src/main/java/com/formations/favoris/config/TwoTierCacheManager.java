@@ -0,0 +1,284 @@
+package com.formations.favoris.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gestionnaire de cache à deux niveaux : chaque cache du gestionnaire distant (Redis) est précédé
+ * d'un cache local Caffeine borné en taille.
+ *
+ * <p>Chaque invalidation (evict/clear) est publiée sur un canal Redis pub/sub afin que toutes les
+ * instances invalident leur niveau local. Les messages émis par l'instance courante sont ignorés
+ * à la réception. Le TTL du niveau local borne la durée de péremption si un message est perdu.</p>
+ *
+ * <p>Le gestionnaire fournit aussi aux caches les baux Redis de chargement (clé
+ * {@code favoris:lease:<cache>::<clé>}, posée avec SET NX PX et libérée uniquement par son
+ * détenteur) et l'expiration des entrées Redis utilisée pour le rechargement anticipé : calculée
+ * localement depuis le TTL du cache pour les valeurs écrites par l'instance, demandée à Redis
+ * pour les valeurs lues. Un bail d'une durée nulle ou un beta nul désactivent respectivement ces
+ * mécanismes.</p>
+ */
+@Slf4j
+public class TwoTierCacheManager extends AbstractTransactionSupportingCacheManager
+        implements MessageListener, DisposableBean {
+
+    public static final String INVALIDATION_CHANNEL = "favoris:cache-invalidation";
+
+    static final String LEASE_KEY_PREFIX = "favoris:lease:";
+    // Jeton des chargements effectués sans bail (baux désactivés ou Redis indisponible)
+    static final String NO_LEASE = "";
+
+    private static final RedisScript<Long> RELEASE_LEASE = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0",
+            Long.class);
+
+    private static final String SEPARATOR = "|";
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final long localMaximumSize;
+    private final Duration localTtl;
+    private final Duration leaseTtl;
+    private final double earlyRefreshBeta;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ExecutorService refreshExecutor;
+
+    public TwoTierCacheManager(CacheManager remoteCacheManager,
+                               StringRedisTemplate redisTemplate,
+                               long localMaximumSize,
+                               Duration localTtl) {
+        this(remoteCacheManager, redisTemplate, localMaximumSize, localTtl, Duration.ZERO, 0.0);
+    }
+
+    /**
+     * @param leaseTtl Durée des baux de chargement entre instances (zéro : pas de bail)
+     * @param earlyRefreshBeta Agressivité du rechargement anticipé (zéro : désactivé, 1 : valeur usuelle)
+     */
+    public TwoTierCacheManager(CacheManager remoteCacheManager,
+                               StringRedisTemplate redisTemplate,
+                               long localMaximumSize,
+                               Duration localTtl,
+                               Duration leaseTtl,
+                               double earlyRefreshBeta) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+        this.leaseTtl = leaseTtl;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        // Rechargements anticipés : au-delà de la file, ils sont refusés et abandonnés par le cache
+        // (la valeur reste servie)
+        this.refreshExecutor = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1_000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ((ThreadPoolExecutor) refreshExecutor).allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<Cache> caches = new ArrayList<>();
+        for (String name : remoteCacheManager.getCacheNames()) {
+            Cache remote = remoteCacheManager.getCache(name);
+            if (remote != null) {
+                caches.add(createCache(name, remote));
+            }
+        }
+        return caches;
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache remote = remoteCacheManager.getCache(name);
+        return remote != null ? createCache(name, remote) : null;
+    }
+
+    private TwoTierCache createCache(String name, Cache remote) {
+        com.github.benmanes.caffeine.cache.Cache<Object, TwoTierCache.Entry> local = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        return new TwoTierCache(name, local, remote, this);
+    }
+
+    /**
+     * Statistiques par cache, indexées par nom de cache
+     */
+    public Map<String, TwoTierCacheStats> getStatistics() {
+        Map<String, TwoTierCacheStats> statistics = new LinkedHashMap<>();
+        for (String name : getCacheNames()) {
+            TwoTierCache cache = findTwoTierCache(name);
+            if (cache != null) {
+                statistics.put(name, cache.getStatistics());
+            }
+        }
+        return statistics;
+    }
+
+    void publishEviction(String cacheName, Object key) {
+        publish(String.join(SEPARATOR, EVICT, nodeId, cacheName, String.valueOf(key)));
+    }
+
+    void publishClear(String cacheName) {
+        publish(String.join(SEPARATOR, CLEAR, nodeId, cacheName));
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (RuntimeException e) {
+            // Le TTL local borne la péremption si la diffusion échoue
+            log.warn("Impossible de diffuser l'invalidation de cache '{}': {}", message, e.getMessage());
+        }
+    }
+
+    /**
+     * Tente de prendre le bail de chargement d'une clé
+     *
+     * @return Le jeton du bail, {@link #NO_LEASE} si les baux sont désactivés ou Redis indisponible,
+     *         null si une autre instance détient le bail
+     */
+    String tryAcquireLease(String cacheName, Object key) {
+        if (leaseTtl.isZero()) {
+            return NO_LEASE;
+        }
+        String token = nodeId + ':' + UUID.randomUUID();
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(leaseKey(cacheName, key), token, leaseTtl);
+            return Boolean.TRUE.equals(acquired) ? token : null;
+        } catch (RuntimeException e) {
+            log.warn("Bail de chargement indisponible pour '{}::{}': {}", cacheName, key, e.getMessage());
+            return NO_LEASE;
+        }
+    }
+
+    void releaseLease(String cacheName, Object key, String token) {
+        if (token == null || NO_LEASE.equals(token)) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE_LEASE, Collections.singletonList(leaseKey(cacheName, key)), token);
+        } catch (RuntimeException e) {
+            // Le bail expire de lui-même
+            log.warn("Impossible de libérer le bail de chargement de '{}::{}': {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    private static String leaseKey(String cacheName, Object key) {
+        return LEASE_KEY_PREFIX + cacheName + "::" + key;
+    }
+
+    /**
+     * Expiration de l'entrée Redis d'une valeur que l'instance vient d'y écrire (epoch ms), selon
+     * le TTL configuré du cache, sans aller-retour Redis. 0 si l'entrée n'expire pas ou si le
+     * rechargement anticipé est désactivé ; inconnue si le cache distant n'est pas un cache Redis.
+     */
+    long remoteExpiresAt(Cache remote, Object key, Object value) {
+        if (earlyRefreshBeta <= 0) {
+            return 0;
+        }
+        if (!(remote instanceof RedisCache redisCache)) {
+            return TwoTierCache.Entry.UNKNOWN_EXPIRY;
+        }
+        Duration ttl = redisCache.getCacheConfiguration().getTtlFunction().getTimeToLive(key, value);
+        return ttl != null && !ttl.isZero() && !ttl.isNegative() ? System.currentTimeMillis() + ttl.toMillis() : 0;
+    }
+
+    /**
+     * Expiration de l'entrée Redis d'une clé (epoch ms) demandée à Redis, 0 si inconnue ou si le
+     * rechargement anticipé est désactivé. Les clés Redis suivent le format {@code <cache>::<clé>}
+     * du RedisCacheManager.
+     */
+    long fetchRemoteExpiresAt(String cacheName, Object key) {
+        if (earlyRefreshBeta <= 0) {
+            return 0;
+        }
+        try {
+            Long ttl = redisTemplate.getExpire(cacheName + "::" + key, TimeUnit.MILLISECONDS);
+            return ttl != null && ttl > 0 ? System.currentTimeMillis() + ttl : 0;
+        } catch (RuntimeException e) {
+            log.debug("Expiration Redis inconnue pour '{}::{}': {}", cacheName, key, e.getMessage());
+            return 0;
+        }
+    }
+
+    Duration getLeaseTtl() {
+        return leaseTtl;
+    }
+
+    double getEarlyRefreshBeta() {
+        return earlyRefreshBeta;
+    }
+
+    ExecutorService getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\" + SEPARATOR, 4);
+        if (parts.length < 3 || nodeId.equals(parts[1])) {
+            return;
+        }
+        TwoTierCache cache = findTwoTierCache(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[0])) {
+            log.debug("Invalidation distante du cache local '{}'", parts[2]);
+            cache.clearLocal();
+        } else if (EVICT.equals(parts[0]) && parts.length == 4) {
+            log.debug("Invalidation distante de la clé '{}' du cache local '{}'", parts[3], parts[2]);
+            cache.evictLocal(parts[3]);
+        }
+    }
+
+    private TwoTierCache findTwoTierCache(String name) {
+        Cache cache = getCache(name);
+        // Cache décoré pour la gestion des transactions
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+        return cache instanceof TwoTierCache twoTierCache ? twoTierCache : null;
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+}
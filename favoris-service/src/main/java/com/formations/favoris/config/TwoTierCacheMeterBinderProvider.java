@@ -0,0 +1,94 @@
+package com.formations.favoris.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Métriques des {@link TwoTierCache}, enregistrées par Spring Boot pour chaque cache du
+ * gestionnaire au démarrage : métriques standard {@code cache.gets}, {@code cache.puts},
+ * {@code cache.evictions} et {@code cache.size}, puis le détail par niveau
+ * ({@code cache.tier.gets}) et par type de chargement ({@code cache.loads}).
+ *
+ * <p>Les compteurs sont ceux déjà tenus par le cache et ne sont lus qu'à la collecte : aucun coût
+ * supplémentaire sur le chemin des lectures.</p>
+ */
+public class TwoTierCacheMeterBinderProvider implements CacheMeterBinderProvider<TwoTierCache> {
+
+    @Override
+    public MeterBinder getMeterBinder(TwoTierCache cache, Iterable<Tag> tags) {
+        return new TwoTierCacheMetrics(cache, tags);
+    }
+
+    static class TwoTierCacheMetrics extends CacheMeterBinder<TwoTierCache> {
+
+        TwoTierCacheMetrics(TwoTierCache cache, Iterable<Tag> tags) {
+            super(cache, cache.getName(), tags);
+        }
+
+        @Override
+        protected Long size() {
+            return stat(TwoTierCacheStats::getLocalSize);
+        }
+
+        @Override
+        protected long hitCount() {
+            return stat(stats -> stats.getLocalHits() + stats.getRemoteHits());
+        }
+
+        @Override
+        protected Long missCount() {
+            return stat(TwoTierCacheStats::getRemoteMisses);
+        }
+
+        @Override
+        protected Long evictionCount() {
+            return stat(TwoTierCacheStats::getEvictions);
+        }
+
+        @Override
+        protected long putCount() {
+            return stat(TwoTierCacheStats::getPuts);
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+            tierGets(registry, "local", "hit", TwoTierCacheStats::getLocalHits);
+            tierGets(registry, "local", "miss", TwoTierCacheStats::getLocalMisses);
+            tierGets(registry, "remote", "hit", TwoTierCacheStats::getRemoteHits);
+            tierGets(registry, "remote", "miss", TwoTierCacheStats::getRemoteMisses);
+            loads(registry, "leader", TwoTierCacheStats::getLoads);
+            loads(registry, "coalesced", TwoTierCacheStats::getCoalescedLoads);
+            loads(registry, "early_refresh", TwoTierCacheStats::getEarlyRefreshes);
+        }
+
+        private void tierGets(MeterRegistry registry, String tier, String result, ToLongFunction<TwoTierCacheStats> count) {
+            FunctionCounter.builder("cache.tier.gets", getCache(), cache -> count(cache, count))
+                    .tags(Tags.concat(getTagsWithCacheName(), "tier", tier, "result", result))
+                    .description("Lectures par niveau du cache (local Caffeine, Redis)")
+                    .register(registry);
+        }
+
+        private void loads(MeterRegistry registry, String type, ToLongFunction<TwoTierCacheStats> count) {
+            FunctionCounter.builder("cache.loads", getCache(), cache -> count(cache, count))
+                    .tags(Tags.concat(getTagsWithCacheName(), "type", type))
+                    .description("Chargements depuis la base, appelants coalescés et rechargements anticipés")
+                    .register(registry);
+        }
+
+        private long stat(ToLongFunction<TwoTierCacheStats> count) {
+            TwoTierCache cache = getCache();
+            return cache != null ? count.applyAsLong(cache.getStatistics()) : 0;
+        }
+
+        private static double count(TwoTierCache cache, ToLongFunction<TwoTierCacheStats> count) {
+            return count.applyAsLong(cache.getStatistics());
+        }
+    }
+}
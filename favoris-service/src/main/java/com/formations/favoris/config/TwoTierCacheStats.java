@@ -0,0 +1,36 @@
+package com.formations.favoris.config;
+
+import lombok.Value;
+
+/**
+ * Instantané des statistiques d'un {@link TwoTierCache}, par niveau
+ */
+@Value
+public class TwoTierCacheStats {
+    long localHits;
+    long localMisses;
+    long remoteHits;
+    long remoteMisses;
+    long evictions;
+    long puts;
+    long localSize;
+    long loads;           // valeurs chargées depuis la base par cette instance
+    long coalescedLoads;  // appelants ayant attendu un chargement en cours au lieu d'en lancer un
+    long earlyRefreshes;  // rechargements anticipés en arrière-plan
+
+    /**
+     * Taux de hit du cache local (L1)
+     */
+    public double getLocalHitRatio() {
+        long requests = localHits + localMisses;
+        return requests == 0 ? 0.0 : (double) localHits / requests;
+    }
+
+    /**
+     * Taux de hit de Redis (L2) sur les requêtes qui ont manqué le cache local
+     */
+    public double getRemoteHitRatio() {
+        long requests = remoteHits + remoteMisses;
+        return requests == 0 ? 0.0 : (double) remoteHits / requests;
+    }
+}
@@ -1,7 +1,32 @@
 package com.formations.favoris.controller;
 
 import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.dto.BatchAddFavoritesRequest;
+import com.formations.favoris.dto.BatchFavoritesResponse;
+import com.formations.favoris.dto.BatchRemoveFavoritesRequest;
+import com.formations.favoris.dto.ContainsFavoritesRequest;
+import com.formations.favoris.dto.ContentTypeMigrationResultDto;
 import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.dto.FavoritePageDto;
+import com.formations.favoris.dto.FavoriteSummaryDto;
+import com.formations.favoris.dto.RemoveFavoriteRequest;
+import com.formations.favoris.dto.StorageMigrationStatusDto;
+import com.formations.favoris.dto.TrendingContentDto;
+import com.formations.favoris.dto.UpdateContentMetadataRequest;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.service.ContentCatalogInvalidator;
+import com.formations.favoris.service.ContentCatalogService;
+import com.formations.favoris.service.ContentTypeMigrationService;
+import com.formations.favoris.service.FavoriteExportService;
+import com.formations.favoris.service.FavoriteMembershipService;
+import com.formations.favoris.service.FavoritePageService;
+import com.formations.favoris.service.FavoriteStorageMigrationService;
+import com.formations.favoris.service.FavoriteSummaryService;
+import com.formations.favoris.service.FavoriteCacheInvalidator;
+import com.formations.favoris.service.HotUserTracker;
+import com.formations.favoris.service.PopularityCounterService;
+import com.formations.favoris.service.TrendingService;
+import com.formations.favoris.service.UserRateLimiter;
 import com.formations.favoris.service.FavoriteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,20 +38,48 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/favorites")
+@Profile("!reactive")
 @RequiredArgsConstructor
 @Slf4j
 @Tag(name = "Favoris", description = "API de gestion des favoris")
 public class FavoriteController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final FavoriteService favoriteService;
+    private final FavoritePageService favoritePageService;
+    private final FavoriteSummaryService favoriteSummaryService;
+    private final FavoriteCacheInvalidator favoriteCacheInvalidator;
+    private final HotUserTracker hotUserTracker;
+    private final FavoriteExportService favoriteExportService;
+    private final FavoriteMembershipService favoriteMembershipService;
+    private final FavoriteStorageMigrationService favoriteStorageMigrationService;
+    private final PopularityCounterService popularityCounterService;
+    private final TrendingService trendingService;
+    private final ContentCatalogService contentCatalogService;
+    private final ContentCatalogInvalidator contentCatalogInvalidator;
+    private final ContentTypeMigrationService contentTypeMigrationService;
+    private final UserRateLimiter userRateLimiter;
 
     @GetMapping("/user/{userId}")
     @Operation(summary = "Récupérer tous les favoris d'un utilisateur", 
@@ -34,15 +87,79 @@ public class FavoriteController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Favoris récupérés avec succès",
                      content = @Content(schema = @Schema(implementation = FavoriteDto.class))),
+        @ApiResponse(responseCode = "304", description = "Favoris inchangés depuis l'ETag fourni (If-None-Match)"),
         @ApiResponse(responseCode = "404", description = "Utilisateur non trouvé"),
         @ApiResponse(responseCode = "500", description = "Erreur serveur")
     })
     public ResponseEntity<List<FavoriteDto>> getUserFavorites(
             @Parameter(description = "ID de l'utilisateur", required = true)
-            @PathVariable String userId) {
+            @PathVariable String userId,
+            WebRequest webRequest) {
         log.info("Récupération des favoris pour l'utilisateur: {}", userId);
-        List<FavoriteDto> favorites = favoriteService.getUserFavorites(userId);
-        return ResponseEntity.ok(favorites);
+        // Compté ici et non dans FavoriteService : les lectures servies par le cache ou en 304 n'y passent pas
+        hotUserTracker.recordAccess(userId);
+        String eTag = favoriteCacheInvalidator.getETag(userId);
+        if (isNotModified(webRequest, eTag)) {
+            return null;
+        }
+        List<FavoriteDto> favorites = contentCatalogService.hydrate(favoriteService.getUserFavorites(userId));
+        return okWithETag(eTag).body(favorites);
+    }
+
+    @GetMapping("/user/{userId}/page")
+    @Operation(summary = "Récupérer une page des favoris d'un utilisateur",
+               description = "Retourne les favoris du plus récent au plus ancien, page par page. "
+                       + "Le curseur de la page suivante est renvoyé dans la réponse.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Page récupérée avec succès",
+                     content = @Content(schema = @Schema(implementation = FavoritePageDto.class))),
+        @ApiResponse(responseCode = "400", description = "Curseur ou taille de page invalide"),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur")
+    })
+    public ResponseEntity<FavoritePageDto> getUserFavoritesPage(
+            @Parameter(description = "ID de l'utilisateur", required = true)
+            @PathVariable String userId,
+            @Parameter(description = "Curseur renvoyé par la page précédente (absent pour la première page)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Nombre de favoris par page (1 à 100)")
+            @RequestParam(defaultValue = "" + FavoritePageService.DEFAULT_PAGE_SIZE) int size) {
+        log.info("Récupération d'une page de favoris pour l'utilisateur: {}", userId);
+        try {
+            return ResponseEntity.ok(favoritePageService.getUserFavoritesPage(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            log.warn("Requête de pagination invalide: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    @GetMapping("/user/{userId}/summary")
+    @Operation(summary = "Récupérer la liste légère des favoris d'un utilisateur",
+               description = "Retourne l'ID et le type de chaque contenu en favori, et les champs "
+                       + "supplémentaires demandés (id, title, thumbnailUrl, createdAt)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Favoris récupérés avec succès",
+                     content = @Content(schema = @Schema(implementation = FavoriteSummaryDto.class))),
+        @ApiResponse(responseCode = "304", description = "Favoris inchangés depuis l'ETag fourni (If-None-Match)"),
+        @ApiResponse(responseCode = "400", description = "Champ demandé inconnu"),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur")
+    })
+    public ResponseEntity<List<FavoriteSummaryDto>> getUserFavoriteSummaries(
+            @Parameter(description = "ID de l'utilisateur", required = true)
+            @PathVariable String userId,
+            @Parameter(description = "Champs supplémentaires, séparés par des virgules (ex: title,thumbnailUrl)")
+            @RequestParam(defaultValue = "") List<String> fields,
+            WebRequest webRequest) {
+        log.info("Récupération de la liste légère des favoris pour l'utilisateur: {}", userId);
+        String eTag = favoriteCacheInvalidator.getETag(userId);
+        if (isNotModified(webRequest, eTag)) {
+            return null;
+        }
+        try {
+            return okWithETag(eTag).body(favoriteSummaryService.getUserFavoriteSummaries(userId, fields));
+        } catch (IllegalArgumentException e) {
+            log.warn("Requête de liste légère invalide: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
     @GetMapping("/user/{userId}/type/{contentType}")
@@ -51,18 +168,76 @@ public class FavoriteController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Favoris récupérés avec succès",
                      content = @Content(schema = @Schema(implementation = FavoriteDto.class))),
+        @ApiResponse(responseCode = "304", description = "Favoris inchangés depuis l'ETag fourni (If-None-Match)"),
         @ApiResponse(responseCode = "404", description = "Utilisateur non trouvé"),
         @ApiResponse(responseCode = "500", description = "Erreur serveur")
     })
     public ResponseEntity<List<FavoriteDto>> getUserFavoritesByType(
             @Parameter(description = "ID de l'utilisateur", required = true)
             @PathVariable String userId,
-            @Parameter(description = "Type de contenu (ex: COURSE, VIDEO, ARTICLE)", required = true)
-            @PathVariable String contentType) {
+            @Parameter(description = "Type de contenu (COURSE, VIDEO, ARTICLE)", required = true)
+            @PathVariable ContentType contentType,
+            WebRequest webRequest) {
         log.info("Récupération des favoris de type {} pour l'utilisateur: {}", contentType, userId);
-        // Nous devons implémenter cette méthode dans le service
-        List<FavoriteDto> favorites = favoriteService.getUserFavoritesByType(userId, contentType);
-        return ResponseEntity.ok(favorites);
+        String eTag = favoriteCacheInvalidator.getETag(userId);
+        if (isNotModified(webRequest, eTag)) {
+            return null;
+        }
+        List<FavoriteDto> favorites = contentCatalogService.hydrate(favoriteService.getUserFavoritesByType(userId, contentType));
+        return okWithETag(eTag).body(favorites);
+    }
+
+    @PostMapping("/user/{userId}/contains")
+    @Operation(summary = "Vérifier si des contenus sont en favoris",
+               description = "Indique pour chaque contenu demandé s'il fait partie des favoris de l'utilisateur")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Appartenance de chaque contenu"),
+        @ApiResponse(responseCode = "400", description = "Requête invalide"),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur")
+    })
+    public ResponseEntity<Map<String, Boolean>> containsFavorites(
+            @Parameter(description = "ID de l'utilisateur", required = true)
+            @PathVariable String userId,
+            @Parameter(description = "IDs des contenus à vérifier", required = true)
+            @Valid @RequestBody ContainsFavoritesRequest request) {
+        log.debug("Vérification de {} contenus pour l'utilisateur: {}", request.getContentIds().size(), userId);
+        return ResponseEntity.ok(favoriteMembershipService.contains(userId, request.getContentIds()));
+    }
+
+    @GetMapping("/popularity")
+    @Operation(summary = "Récupérer la popularité de contenus",
+               description = "Nombre d'utilisateurs ayant enregistré chaque contenu, avec un léger retard borné")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Nombre de favoris par contenu"),
+        @ApiResponse(responseCode = "400", description = "Liste de contenus vide ou trop longue"),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur")
+    })
+    public ResponseEntity<Map<String, Long>> getPopularity(
+            @Parameter(description = "IDs des contenus", required = true)
+            @RequestParam List<String> contentIds) {
+        if (contentIds.isEmpty() || contentIds.size() > PopularityCounterService.MAX_CONTENT_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(popularityCounterService.getCounts(contentIds));
+    }
+
+    @GetMapping("/trending/{contentType}")
+    @Operation(summary = "Récupérer les contenus tendance",
+               description = "Contenus les plus ajoutés en favori récemment pour un type, servis depuis la mémoire")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Contenus tendance classés par score"),
+        @ApiResponse(responseCode = "400", description = "Limite invalide")
+    })
+    public ResponseEntity<List<TrendingContentDto>> getTrending(
+            @Parameter(description = "Type de contenu (COURSE, VIDEO, ARTICLE)", required = true)
+            @PathVariable ContentType contentType,
+            @Parameter(description = "Nombre de contenus (1 à 100)")
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(trendingService.getTrending(contentType, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping
@@ -72,12 +247,17 @@ public class FavoriteController {
         @ApiResponse(responseCode = "201", description = "Favori ajouté avec succès",
                      content = @Content(schema = @Schema(implementation = FavoriteDto.class))),
         @ApiResponse(responseCode = "400", description = "Requête invalide ou favori déjà existant"),
+        @ApiResponse(responseCode = "429", description = "Trop d'écritures pour cet utilisateur, à réessayer après Retry-After"),
         @ApiResponse(responseCode = "500", description = "Erreur serveur")
     })
     public ResponseEntity<FavoriteDto> addFavorite(
             @Parameter(description = "Données du favori à ajouter", required = true)
             @Valid @RequestBody AddFavoriteRequest request) {
         log.info("Ajout d'un favori pour l'utilisateur: {}", request.getUserId());
+        ResponseEntity<FavoriteDto> rateLimited = rateLimited(request.getUserId());
+        if (rateLimited != null) {
+            return rateLimited;
+        }
         try {
             FavoriteDto favoriteDto = favoriteService.addFavorite(request);
             return ResponseEntity.status(HttpStatus.CREATED).body(favoriteDto);
@@ -93,6 +273,7 @@ public class FavoriteController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "204", description = "Favori supprimé avec succès"),
         @ApiResponse(responseCode = "404", description = "Favori non trouvé"),
+        @ApiResponse(responseCode = "429", description = "Trop d'écritures pour cet utilisateur, à réessayer après Retry-After"),
         @ApiResponse(responseCode = "500", description = "Erreur serveur")
     })
     public ResponseEntity<Void> removeFavorite(
@@ -101,6 +282,10 @@ public class FavoriteController {
             @Parameter(description = "ID du contenu", required = true)
             @PathVariable String contentId) {
         log.info("Suppression d'un favori pour l'utilisateur: {} et le contenu: {}", userId, contentId);
+        ResponseEntity<Void> rateLimited = rateLimited(userId);
+        if (rateLimited != null) {
+            return rateLimited;
+        }
         boolean removed = favoriteService.removeFavorite(userId, contentId);
         if (removed) {
             return ResponseEntity.noContent().build();
@@ -116,17 +301,305 @@ public class FavoriteController {
         @ApiResponse(responseCode = "200", description = "Favori ajouté ou supprimé avec succès",
                      content = @Content(schema = @Schema(implementation = FavoriteDto.class))),
         @ApiResponse(responseCode = "400", description = "Requête invalide"),
+        @ApiResponse(responseCode = "409", description = "Favori modifié simultanément, à réessayer"),
+        @ApiResponse(responseCode = "429", description = "Trop d'écritures pour cet utilisateur, à réessayer après Retry-After"),
         @ApiResponse(responseCode = "500", description = "Erreur serveur")
     })
     public ResponseEntity<FavoriteDto> toggleFavorite(
             @Parameter(description = "Données du favori à basculer", required = true)
             @Valid @RequestBody AddFavoriteRequest request) {
         log.info("Bascule de l'état d'un favori pour l'utilisateur: {}", request.getUserId());
-        FavoriteDto favoriteDto = favoriteService.toggleFavorite(request);
-        if (favoriteDto != null) {
-            return ResponseEntity.ok(favoriteDto);
-        } else {
-            return ResponseEntity.noContent().build();
+        ResponseEntity<FavoriteDto> rateLimited = rateLimited(request.getUserId());
+        if (rateLimited != null) {
+            return rateLimited;
         }
+        try {
+            FavoriteDto favoriteDto = favoriteService.toggleFavorite(request);
+            if (favoriteDto != null) {
+                return ResponseEntity.ok(favoriteDto);
+            } else {
+                return ResponseEntity.noContent().build();
+            }
+        } catch (IllegalStateException e) {
+            log.warn("Erreur lors de la bascule du favori: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Ajouter un lot de favoris",
+               description = "Ajoute plusieurs favoris en une seule écriture groupée et retourne le résultat de chaque élément")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lot traité, voir le statut de chaque élément",
+                     content = @Content(schema = @Schema(implementation = BatchFavoritesResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Requête invalide"),
+        @ApiResponse(responseCode = "429", description = "Trop d'écritures pour cet utilisateur, à réessayer après Retry-After"),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur")
+    })
+    public ResponseEntity<BatchFavoritesResponse> addFavorites(
+            @Parameter(description = "Favoris à ajouter", required = true)
+            @Valid @RequestBody BatchAddFavoritesRequest request) {
+        log.info("Ajout groupé de {} favoris", request.getItems().size());
+        ResponseEntity<BatchFavoritesResponse> rateLimited =
+                rateLimited(itemsPerUser(request.getItems().stream().map(AddFavoriteRequest::getUserId)));
+        if (rateLimited != null) {
+            return rateLimited;
+        }
+        return ResponseEntity.ok(favoriteService.addFavorites(request.getItems()));
+    }
+
+    @PostMapping("/batch/remove")
+    @Operation(summary = "Supprimer un lot de favoris",
+               description = "Supprime plusieurs favoris et retourne le résultat de chaque élément")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lot traité, voir le statut de chaque élément",
+                     content = @Content(schema = @Schema(implementation = BatchFavoritesResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Requête invalide"),
+        @ApiResponse(responseCode = "429", description = "Trop d'écritures pour cet utilisateur, à réessayer après Retry-After"),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur")
+    })
+    public ResponseEntity<BatchFavoritesResponse> removeFavorites(
+            @Parameter(description = "Favoris à supprimer", required = true)
+            @Valid @RequestBody BatchRemoveFavoritesRequest request) {
+        log.info("Suppression groupée de {} favoris", request.getItems().size());
+        ResponseEntity<BatchFavoritesResponse> rateLimited =
+                rateLimited(itemsPerUser(request.getItems().stream().map(RemoveFavoriteRequest::getUserId)));
+        if (rateLimited != null) {
+            return rateLimited;
+        }
+        return ResponseEntity.ok(favoriteService.removeFavorites(request.getItems()));
+    }
+
+    @GetMapping(value = "/user/{userId}/export", produces = NDJSON)
+    @Operation(summary = "Exporter les favoris d'un utilisateur",
+               description = "Exporte les favoris d'un utilisateur au format NDJSON, triés par ID. "
+                       + "Un export interrompu peut reprendre après le dernier ID reçu. Compression gzip si acceptée.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Export en cours de transmission"),
+        @ApiResponse(responseCode = "400", description = "Point de reprise invalide"),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur")
+    })
+    public ResponseEntity<StreamingResponseBody> exportUserFavorites(
+            @Parameter(description = "ID de l'utilisateur", required = true)
+            @PathVariable String userId,
+            @Parameter(description = "Dernier ID de favori reçu, pour reprendre un export interrompu")
+            @RequestParam(required = false) String after,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Export des favoris pour l'utilisateur: {}", userId);
+        if (!FavoriteExportService.isValidResumeId(after)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return streamNdjson(acceptEncoding, out -> favoriteExportService.exportUserFavorites(userId, after, out));
+    }
+
+    @GetMapping(value = "/admin/export", produces = NDJSON)
+    @Operation(summary = "Exporter tous les favoris",
+               description = "Exporte l'ensemble des favoris au format NDJSON, triés par ID. "
+                       + "Un export interrompu peut reprendre après le dernier ID reçu. Compression gzip si acceptée.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Export en cours de transmission"),
+        @ApiResponse(responseCode = "400", description = "Point de reprise invalide"),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur")
+    })
+    public ResponseEntity<StreamingResponseBody> exportAllFavorites(
+            @Parameter(description = "Dernier ID de favori reçu, pour reprendre un export interrompu")
+            @RequestParam(required = false) String after,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Export de tous les favoris");
+        if (!FavoriteExportService.isValidResumeId(after)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return streamNdjson(acceptEncoding, out -> favoriteExportService.exportAllFavorites(after, out));
+    }
+
+    @PostMapping("/admin/storage-migration")
+    @Operation(summary = "Migrer les favoris vers l'autre disposition",
+               description = "Recopie en arrière-plan les favoris existants vers la disposition cible configurée "
+                       + "(favoris.storage.migration.target) et vérifie chaque utilisateur. "
+                       + "Une migration interrompue peut reprendre après le dernier utilisateur traité.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Migration lancée",
+                     content = @Content(schema = @Schema(implementation = StorageMigrationStatusDto.class))),
+        @ApiResponse(responseCode = "409", description = "Aucune migration configurée, ou migration déjà en cours"),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur")
+    })
+    public ResponseEntity<StorageMigrationStatusDto> startStorageMigration(
+            @Parameter(description = "Dernier utilisateur traité, pour reprendre une migration interrompue")
+            @RequestParam(required = false) String after) {
+        log.info("Lancement de la migration des favoris (après: {})", after);
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(favoriteStorageMigrationService.start(after));
+        } catch (IllegalStateException e) {
+            log.warn("Migration des favoris refusée: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/admin/storage-migration")
+    @Operation(summary = "Suivre la migration des favoris",
+               description = "Retourne l'avancement de la dernière migration entre dispositions")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Statut de la migration",
+                     content = @Content(schema = @Schema(implementation = StorageMigrationStatusDto.class)))
+    })
+    public ResponseEntity<StorageMigrationStatusDto> getStorageMigrationStatus() {
+        return ResponseEntity.ok(favoriteStorageMigrationService.getStatus());
+    }
+
+    @PostMapping("/admin/content-type-migration")
+    @Operation(summary = "Normaliser les types de contenu stockés",
+               description = "Réécrit avec leur nom canonique (COURSE, VIDEO, ARTICLE) les types de contenu "
+                       + "stockés avec une autre casse ou des espaces, et met en quarantaine les documents aux valeurs inconnues")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Types de contenu normalisés",
+                     content = @Content(schema = @Schema(implementation = ContentTypeMigrationResultDto.class))),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur")
+    })
+    public ResponseEntity<ContentTypeMigrationResultDto> normalizeContentTypes() {
+        log.info("Normalisation des types de contenu stockés");
+        return ResponseEntity.ok(contentTypeMigrationService.normalize());
+    }
+
+    @PutMapping("/admin/catalog/{contentId}")
+    @Operation(summary = "Modifier les métadonnées d'un contenu du catalogue",
+               description = "Remplace le titre, la description et la vignette d'un contenu, sur toutes les instances, "
+                       + "et change l'ETag des listes de favoris. L'ajout d'un favori n'enregistre que les contenus "
+                       + "absents du catalogue et ne modifie jamais ceux qui y sont.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Métadonnées remplacées"),
+        @ApiResponse(responseCode = "400", description = "Requête invalide"),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur")
+    })
+    public ResponseEntity<Void> updateContentMetadata(
+            @Parameter(description = "ID du contenu", required = true)
+            @PathVariable String contentId,
+            @Parameter(description = "Nouvelles métadonnées du contenu", required = true)
+            @Valid @RequestBody UpdateContentMetadataRequest request) {
+        log.info("Mise à jour des métadonnées du contenu: {}", contentId);
+        contentCatalogService.update(contentId, request);
+        contentCatalogInvalidator.invalidate(contentId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Réponse 429 si l'utilisateur a dépassé son débit d'écritures, avec le délai avant la
+     * prochaine écriture acceptée (Retry-After, en secondes arrondies au supérieur), null sinon
+     */
+    private <T> ResponseEntity<T> rateLimited(String userId) {
+        return rateLimited(Map.of(userId, 1));
+    }
+
+    /**
+     * Comme {@link #rateLimited(String)} pour un lot : un jeton par élément, débité seulement si
+     * tous les utilisateurs du lot ont encore du débit
+     */
+    private <T> ResponseEntity<T> rateLimited(Map<String, Integer> permitsByUser) {
+        long retryAfterMillis = userRateLimiter.tryAcquire(permitsByUser);
+        if (retryAfterMillis == 0) {
+            return null;
+        }
+        log.debug("Écriture refusée pour les utilisateurs {}, débit dépassé", permitsByUser.keySet());
+        return tooManyRequests(retryAfterMillis);
+    }
+
+    /**
+     * Réponse 429 avec le délai avant la prochaine écriture acceptée (Retry-After, en secondes
+     * arrondies au supérieur)
+     */
+    static <T> ResponseEntity<T> tooManyRequests(long retryAfterMillis) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString((retryAfterMillis + 999) / 1000))
+                .build();
+    }
+
+    /**
+     * Nombre d'éléments d'un lot par utilisateur, dans l'ordre du lot
+     */
+    static Map<String, Integer> itemsPerUser(Stream<String> userIds) {
+        return userIds.collect(Collectors.groupingBy(Function.identity(), LinkedHashMap::new,
+                Collectors.summingInt(userId -> 1)));
+    }
+
+    /**
+     * Construit une réponse NDJSON écrite au fil de l'eau, compressée en gzip si le client l'accepte
+     */
+    private static ResponseEntity<StreamingResponseBody> streamNdjson(String acceptEncoding, StreamingResponseBody export) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+                export.writeTo(compressed);
+                compressed.finish();
+            } else {
+                export.writeTo(out);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Vrai si l'en-tête Accept-Encoding accepte gzip : codage gzip (ou x-gzip) de poids non nul, ou
+     * à défaut joker {@code *} de poids non nul. {@code gzip;q=0} est un refus explicite.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipWeight = null;
+        Double anyWeight = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipWeight = Math.max(gzipWeight != null ? gzipWeight : 0, weight(parts));
+            } else if (coding.equals("*")) {
+                anyWeight = weight(parts);
+            }
+        }
+        if (gzipWeight != null) {
+            return gzipWeight > 0;
+        }
+        return anyWeight != null && anyWeight > 0;
+    }
+
+    /**
+     * Poids (q) d'un élément d'Accept-Encoding, 1 par défaut ; un poids illisible vaut refus
+     */
+    private static double weight(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.length() > 1 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q')
+                    && parameter.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Répond 304 si le client détient déjà la version courante des favoris (If-None-Match), sans
+     * lire la liste. La version est lue avant la liste, et le niveau local des caches de
+     * l'utilisateur est vidé si elle a changé depuis la dernière lecture sur cette instance
+     * ({@link FavoriteCacheInvalidator#getETag}) : une liste renvoyée avec cet ETag est au moins
+     * aussi récente que lui, même si la diffusion d'une invalidation s'est perdue.
+     */
+    private static boolean isNotModified(WebRequest webRequest, String eTag) {
+        return eTag != null && webRequest.checkNotModified(eTag);
+    }
+
+    /**
+     * Réponse 200 avec l'ETag de la version des favoris ; le navigateur doit la revalider à chaque usage
+     */
+    static ResponseEntity.BodyBuilder okWithETag(String eTag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate());
+        return eTag != null ? response.eTag(eTag) : response;
     }
-}
\ No newline at end of file
+}
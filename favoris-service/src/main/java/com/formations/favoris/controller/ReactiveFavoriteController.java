@@ -0,0 +1,257 @@
+package com.formations.favoris.controller;
+
+import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.dto.BatchAddFavoritesRequest;
+import com.formations.favoris.dto.BatchFavoritesResponse;
+import com.formations.favoris.dto.BatchRemoveFavoritesRequest;
+import com.formations.favoris.dto.ContainsFavoritesRequest;
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.dto.FavoritePageDto;
+import com.formations.favoris.dto.FavoriteSummaryDto;
+import com.formations.favoris.dto.RemoveFavoriteRequest;
+import com.formations.favoris.dto.TrendingContentDto;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.service.FavoriteCacheInvalidator;
+import com.formations.favoris.service.FavoriteExportService;
+import com.formations.favoris.service.FavoriteMembershipService;
+import com.formations.favoris.service.FavoritePageService;
+import com.formations.favoris.service.FavoriteService;
+import com.formations.favoris.service.FavoriteSummaryService;
+import com.formations.favoris.service.HotUserTracker;
+import com.formations.favoris.service.PopularityCounterService;
+import com.formations.favoris.service.ReactiveFavoriteService;
+import com.formations.favoris.service.TrendingService;
+import com.formations.favoris.service.UserRateLimiter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Contrôleur WebFlux du profil "reactive", avec le même contrat REST que {@link FavoriteController}.
+ *
+ * <p>Les opérations principales (lecture, ajout, suppression, toggle, export) sont entièrement
+ * réactives. Les autres opérations réutilisent les services bloquants, exécutés sur le scheduler
+ * {@code boundedElastic} pour ne jamais bloquer la boucle d'événements.</p>
+ *
+ * <p>Les lectures de listes portent l'ETag de la version des favoris (304 si le client la détient
+ * déjà) et les écritures sont soumises à la limitation de débit par utilisateur, comme sur les
+ * instances MVC ; la version et le débit, lus dans Redis, le sont hors de la boucle d'événements.</p>
+ */
+@RestController
+@RequestMapping("/api/favorites")
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Favoris", description = "API de gestion des favoris")
+public class ReactiveFavoriteController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ReactiveFavoriteService reactiveFavoriteService;
+    private final FavoriteService favoriteService;
+    private final FavoritePageService favoritePageService;
+    private final FavoriteSummaryService favoriteSummaryService;
+    private final FavoriteCacheInvalidator favoriteCacheInvalidator;
+    private final HotUserTracker hotUserTracker;
+    private final FavoriteMembershipService favoriteMembershipService;
+    private final PopularityCounterService popularityCounterService;
+    private final TrendingService trendingService;
+    private final UserRateLimiter userRateLimiter;
+
+    @GetMapping("/user/{userId}")
+    @Operation(summary = "Récupérer tous les favoris d'un utilisateur")
+    public Mono<ResponseEntity<List<FavoriteDto>>> getUserFavorites(@PathVariable String userId,
+                                                                   ServerWebExchange exchange) {
+        log.info("Récupération des favoris pour l'utilisateur: {}", userId);
+        hotUserTracker.recordAccess(userId);
+        return withETag(userId, exchange, () -> reactiveFavoriteService.getUserFavorites(userId));
+    }
+
+    @GetMapping("/user/{userId}/page")
+    @Operation(summary = "Récupérer une page des favoris d'un utilisateur")
+    public Mono<ResponseEntity<FavoritePageDto>> getUserFavoritesPage(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + FavoritePageService.DEFAULT_PAGE_SIZE) int size) {
+        log.info("Récupération d'une page de favoris pour l'utilisateur: {}", userId);
+        return blocking(() -> favoritePageService.getUserFavoritesPage(userId, cursor, size))
+                .map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    log.warn("Requête de pagination invalide: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+                });
+    }
+
+    @GetMapping("/user/{userId}/summary")
+    @Operation(summary = "Récupérer la liste légère des favoris d'un utilisateur")
+    public Mono<ResponseEntity<List<FavoriteSummaryDto>>> getUserFavoriteSummaries(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "") List<String> fields,
+            ServerWebExchange exchange) {
+        log.info("Récupération de la liste légère des favoris pour l'utilisateur: {}", userId);
+        return withETag(userId, exchange, () -> blocking(() -> favoriteSummaryService.getUserFavoriteSummaries(userId, fields)))
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    log.warn("Requête de liste légère invalide: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+                });
+    }
+
+    @GetMapping("/user/{userId}/type/{contentType}")
+    @Operation(summary = "Récupérer les favoris par type")
+    public Mono<ResponseEntity<List<FavoriteDto>>> getUserFavoritesByType(@PathVariable String userId,
+                                                                         @PathVariable ContentType contentType,
+                                                                         ServerWebExchange exchange) {
+        log.info("Récupération des favoris de type {} pour l'utilisateur: {}", contentType, userId);
+        return withETag(userId, exchange, () -> reactiveFavoriteService.getUserFavoritesByType(userId, contentType));
+    }
+
+    @PostMapping("/user/{userId}/contains")
+    @Operation(summary = "Vérifier si des contenus sont en favoris")
+    public Mono<ResponseEntity<Map<String, Boolean>>> containsFavorites(@PathVariable String userId,
+                                                                      @Valid @RequestBody ContainsFavoritesRequest request) {
+        return blocking(() -> favoriteMembershipService.contains(userId, request.getContentIds()))
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/popularity")
+    @Operation(summary = "Récupérer la popularité de contenus")
+    public Mono<ResponseEntity<Map<String, Long>>> getPopularity(@RequestParam List<String> contentIds) {
+        if (contentIds.isEmpty() || contentIds.size() > PopularityCounterService.MAX_CONTENT_IDS) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return blocking(() -> popularityCounterService.getCounts(contentIds)).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/trending/{contentType}")
+    @Operation(summary = "Récupérer les contenus tendance")
+    public ResponseEntity<List<TrendingContentDto>> getTrending(@PathVariable ContentType contentType,
+                                                                @RequestParam(defaultValue = "10") int limit) {
+        // Servi depuis la mémoire, sans appel bloquant
+        try {
+            return ResponseEntity.ok(trendingService.getTrending(contentType, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping
+    @Operation(summary = "Ajouter un favori")
+    public Mono<ResponseEntity<FavoriteDto>> addFavorite(@Valid @RequestBody AddFavoriteRequest request) {
+        log.info("Ajout d'un favori pour l'utilisateur: {}", request.getUserId());
+        return unlessRateLimited(Map.of(request.getUserId(), 1), () -> reactiveFavoriteService.addFavorite(request)
+                .map(favoriteDto -> ResponseEntity.status(HttpStatus.CREATED).body(favoriteDto))
+                .onErrorResume(IllegalStateException.class, e -> {
+                    log.warn("Erreur lors de l'ajout du favori: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+                }));
+    }
+
+    @DeleteMapping("/user/{userId}/content/{contentId}")
+    @Operation(summary = "Supprimer un favori")
+    public Mono<ResponseEntity<Void>> removeFavorite(@PathVariable String userId, @PathVariable String contentId) {
+        log.info("Suppression d'un favori pour l'utilisateur: {} et le contenu: {}", userId, contentId);
+        return unlessRateLimited(Map.of(userId, 1), () -> reactiveFavoriteService.removeFavorite(userId, contentId)
+                .map(removed -> removed
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build()));
+    }
+
+    @PostMapping("/toggle")
+    @Operation(summary = "Basculer l'état d'un favori")
+    public Mono<ResponseEntity<FavoriteDto>> toggleFavorite(@Valid @RequestBody AddFavoriteRequest request) {
+        log.info("Bascule de l'état d'un favori pour l'utilisateur: {}", request.getUserId());
+        return unlessRateLimited(Map.of(request.getUserId(), 1), () -> reactiveFavoriteService.toggleFavorite(request)
+                .map(added -> added.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.noContent().build()))
+                .onErrorResume(IllegalStateException.class, e -> {
+                    log.warn("Erreur lors de la bascule du favori: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build());
+                }));
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Ajouter un lot de favoris")
+    public Mono<ResponseEntity<BatchFavoritesResponse>> addFavorites(@Valid @RequestBody BatchAddFavoritesRequest request) {
+        log.info("Ajout groupé de {} favoris", request.getItems().size());
+        return unlessRateLimited(
+                FavoriteController.itemsPerUser(request.getItems().stream().map(AddFavoriteRequest::getUserId)),
+                () -> blocking(() -> favoriteService.addFavorites(request.getItems())).map(ResponseEntity::ok));
+    }
+
+    @PostMapping("/batch/remove")
+    @Operation(summary = "Supprimer un lot de favoris")
+    public Mono<ResponseEntity<BatchFavoritesResponse>> removeFavorites(@Valid @RequestBody BatchRemoveFavoritesRequest request) {
+        log.info("Suppression groupée de {} favoris", request.getItems().size());
+        return unlessRateLimited(
+                FavoriteController.itemsPerUser(request.getItems().stream().map(RemoveFavoriteRequest::getUserId)),
+                () -> blocking(() -> favoriteService.removeFavorites(request.getItems())).map(ResponseEntity::ok));
+    }
+
+    @GetMapping(value = "/user/{userId}/export", produces = NDJSON)
+    @Operation(summary = "Exporter les favoris d'un utilisateur")
+    public ResponseEntity<Flux<FavoriteDto>> exportUserFavorites(@PathVariable String userId,
+                                                                 @RequestParam(required = false) String after) {
+        log.info("Export des favoris pour l'utilisateur: {}", userId);
+        if (!FavoriteExportService.isValidResumeId(after)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.ok(reactiveFavoriteService.export(userId, after));
+    }
+
+    @GetMapping(value = "/admin/export", produces = NDJSON)
+    @Operation(summary = "Exporter tous les favoris")
+    public ResponseEntity<Flux<FavoriteDto>> exportAllFavorites(@RequestParam(required = false) String after) {
+        log.info("Export de tous les favoris");
+        if (!FavoriteExportService.isValidResumeId(after)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.ok(reactiveFavoriteService.export(null, after));
+    }
+
+    /**
+     * Réponse 200 avec l'ETag de la version des favoris, ou 304 sans lire la liste si le client
+     * détient déjà cette version (If-None-Match). La version est lue avant la liste, comme sur les
+     * instances MVC ; illisible (Redis indisponible), la liste est servie sans ETag.
+     */
+    private <T> Mono<ResponseEntity<T>> withETag(String userId, ServerWebExchange exchange, Supplier<Mono<T>> read) {
+        return blocking(() -> Optional.ofNullable(favoriteCacheInvalidator.getETag(userId)))
+                .flatMap(eTag -> eTag.isPresent() && exchange.checkNotModified(eTag.get())
+                        ? Mono.<ResponseEntity<T>>empty()
+                        : read.get().map(body -> FavoriteController.okWithETag(eTag.orElse(null)).body(body)));
+    }
+
+    /**
+     * Exécute l'écriture si les utilisateurs ont encore du débit (un jeton par élément, débité
+     * seulement si tous en ont), sinon répond 429 avec Retry-After
+     */
+    private <T> Mono<ResponseEntity<T>> unlessRateLimited(Map<String, Integer> permitsByUser,
+                                                          Supplier<Mono<ResponseEntity<T>>> write) {
+        return blocking(() -> userRateLimiter.tryAcquire(permitsByUser))
+                .flatMap(retryAfterMillis -> {
+                    if (retryAfterMillis == 0) {
+                        return write.get();
+                    }
+                    log.debug("Écriture refusée pour les utilisateurs {}, débit dépassé", permitsByUser.keySet());
+                    return Mono.just(FavoriteController.<T>tooManyRequests(retryAfterMillis));
+                });
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
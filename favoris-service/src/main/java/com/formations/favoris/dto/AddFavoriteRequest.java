@@ -1,5 +1,6 @@
 package com.formations.favoris.dto;
 
+import com.formations.favoris.model.ContentType;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -19,8 +20,8 @@ public class AddFavoriteRequest {
     @NotBlank(message = "L'ID du contenu est obligatoire")
     private String contentId;
     
-    @NotBlank(message = "Le type de contenu est obligatoire")
-    private String contentType;
+    @NotNull(message = "Le type de contenu est obligatoire")
+    private ContentType contentType; // COURSE, VIDEO ou ARTICLE, refusé s'il est inconnu
     
     @NotBlank(message = "Le titre est obligatoire")
     private String title;
@@ -0,0 +1,22 @@
+package com.formations.favoris.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchAddFavoritesRequest {
+
+    @NotEmpty(message = "La liste des favoris est obligatoire")
+    @Size(max = 500, message = "Un lot ne peut pas dépasser 500 favoris")
+    private List<@Valid AddFavoriteRequest> items;
+}
@@ -0,0 +1,18 @@
+package com.formations.favoris.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchFavoritesResponse {
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResult> results;
+}
@@ -0,0 +1,18 @@
+package com.formations.favoris.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+    private int index;
+    private String userId;
+    private String contentId;
+    private BatchItemStatus status;
+    private FavoriteDto favorite; // renseigné uniquement pour les favoris créés
+}
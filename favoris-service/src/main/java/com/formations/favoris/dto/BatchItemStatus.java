@@ -0,0 +1,12 @@
+package com.formations.favoris.dto;
+
+/**
+ * Résultat d'un élément d'une opération groupée
+ */
+public enum BatchItemStatus {
+    CREATED,
+    ALREADY_EXISTS,
+    REMOVED,
+    NOT_FOUND,
+    FAILED
+}
@@ -0,0 +1,22 @@
+package com.formations.favoris.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContainsFavoritesRequest {
+
+    @NotEmpty(message = "La liste des contenus est obligatoire")
+    @Size(max = 200, message = "Au plus 200 contenus par requête")
+    private List<@NotBlank String> contentIds;
+}
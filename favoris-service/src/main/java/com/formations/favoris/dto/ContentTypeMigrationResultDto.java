@@ -0,0 +1,18 @@
+package com.formations.favoris.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentTypeMigrationResultDto {
+    private long documentsNormalized; // documents dont au moins un type a été réécrit
+    private Map<String, String> normalizedValues; // valeur stockée -> type canonique
+    private Map<String, Long> unknownValues; // valeur stockée -> nombre de documents ou favoris mis en quarantaine
+}
@@ -1,5 +1,6 @@
 package com.formations.favoris.dto;
 
+import com.formations.favoris.model.ContentType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,7 +16,7 @@ public class FavoriteDto {
     private String id;
     private String userId;
     private String contentId;
-    private String contentType;
+    private ContentType contentType;
     private String title;
     private String description;
     private String thumbnailUrl;
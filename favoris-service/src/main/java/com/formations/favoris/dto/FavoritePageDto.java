@@ -0,0 +1,18 @@
+package com.formations.favoris.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FavoritePageDto {
+    private List<FavoriteDto> items;
+    private String nextCursor; // null s'il n'y a pas de page suivante
+    private boolean hasMore;
+}
@@ -0,0 +1,24 @@
+package com.formations.favoris.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.formations.favoris.model.ContentType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL) // seuls les champs demandés sont renvoyés
+public class FavoriteSummaryDto {
+    private String id;
+    private String contentId;
+    private ContentType contentType;
+    private String title;
+    private String thumbnailUrl;
+    private LocalDateTime createdAt;
+}
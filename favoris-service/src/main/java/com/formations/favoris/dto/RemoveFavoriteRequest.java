@@ -0,0 +1,20 @@
+package com.formations.favoris.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RemoveFavoriteRequest {
+
+    @NotBlank(message = "L'ID de l'utilisateur est obligatoire")
+    private String userId;
+
+    @NotBlank(message = "L'ID du contenu est obligatoire")
+    private String contentId;
+}
@@ -0,0 +1,27 @@
+package com.formations.favoris.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageMigrationStatusDto {
+    private String state; // IDLE, RUNNING, COMPLETED, FAILED
+    private String source; // collection lue
+    private String target; // collection recopiée
+    private long usersProcessed;
+    private long favoritesCopied;
+    private long favoritesRemoved; // favoris de la cible absents de la source
+    private List<String> mismatchedUsers; // utilisateurs encore différents après les tentatives de réparation
+    private String lastUserId; // point de reprise d'une migration interrompue
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
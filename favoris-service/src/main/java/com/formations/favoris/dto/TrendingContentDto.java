@@ -0,0 +1,18 @@
+package com.formations.favoris.dto;
+
+import com.formations.favoris.model.ContentType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingContentDto {
+    private String contentId;
+    private ContentType contentType;
+    private String title;
+    private double score; // nombre d'ajouts en favori, pondéré par leur ancienneté
+}
@@ -0,0 +1,28 @@
+package com.formations.favoris.dto;
+
+import com.formations.favoris.model.ContentType;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nouvelles métadonnées d'un contenu du catalogue, remplaçant celles enregistrées au premier ajout en favori
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpdateContentMetadataRequest {
+
+    @NotNull(message = "Le type de contenu est obligatoire")
+    private ContentType contentType;
+
+    @NotBlank(message = "Le titre est obligatoire")
+    private String title;
+
+    private String description;
+    private String thumbnailUrl;
+}
@@ -0,0 +1,49 @@
+package com.formations.favoris.event;
+
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Événement publié par le service des favoris après chaque ajout ou suppression,
+ * consommé par les structures dérivées (appartenance, compteurs, classements...)
+ */
+@Value
+public class FavoriteChangedEvent {
+
+    public enum ChangeType {
+        ADDED,
+        REMOVED
+    }
+
+    ChangeType type;
+    String userId;
+    String contentId;
+    ContentType contentType;
+    String title;
+    Instant occurredAt;
+
+    public static FavoriteChangedEvent added(Favorite favorite) {
+        return new FavoriteChangedEvent(ChangeType.ADDED, favorite.getUserId(), favorite.getContentId(),
+                favorite.getContentType(), favorite.getTitle(), Instant.now());
+    }
+
+    /**
+     * Ajout d'un favori ne portant que la référence du contenu, avec le titre du catalogue
+     */
+    public static FavoriteChangedEvent added(Favorite favorite, String title) {
+        return new FavoriteChangedEvent(ChangeType.ADDED, favorite.getUserId(), favorite.getContentId(),
+                favorite.getContentType(), title, Instant.now());
+    }
+
+    public static FavoriteChangedEvent removed(Favorite favorite) {
+        return new FavoriteChangedEvent(ChangeType.REMOVED, favorite.getUserId(), favorite.getContentId(),
+                favorite.getContentType(), favorite.getTitle(), Instant.now());
+    }
+
+    public boolean isAdded() {
+        return type == ChangeType.ADDED;
+    }
+}
@@ -0,0 +1,31 @@
+package com.formations.favoris.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Dernier jeton de reprise d'un change stream, pour reprendre après un redémarrage sans perdre
+ * d'événements, et bail de l'instance qui consomme le flux
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "change_stream_tokens")
+public class ChangeStreamToken {
+
+    @Id
+    private String consumer; // nom du consommateur, partagé par les instances du service
+
+    private String resumeToken; // jeton de reprise au format JSON étendu
+    private LocalDateTime updatedAt;
+    private String owner; // instance titulaire du bail, seule à consommer le flux
+    private Instant leaseExpiresAt;
+}
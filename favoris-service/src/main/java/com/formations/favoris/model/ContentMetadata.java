@@ -0,0 +1,31 @@
+package com.formations.favoris.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Métadonnées d'affichage d'un contenu, stockées une seule fois quel que soit le nombre
+ * d'utilisateurs qui l'ont en favori
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "content_catalog")
+public class ContentMetadata {
+
+    @Id
+    private String contentId;
+
+    private ContentType contentType;
+    private String title;
+    private String description;
+    private String thumbnailUrl;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,29 @@
+package com.formations.favoris.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compteur de popularité d'un contenu : nombre d'utilisateurs l'ayant en favori
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = ContentPopularity.COLLECTION)
+public class ContentPopularity {
+
+    public static final String COLLECTION = "content_popularity";
+
+    @Id
+    private String contentId;
+
+    private long count;
+    private LocalDateTime updatedAt;
+}
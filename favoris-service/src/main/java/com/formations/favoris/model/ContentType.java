@@ -0,0 +1,93 @@
+package com.formations.favoris.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.Locale;
+
+/**
+ * Types de contenu pouvant être mis en favori.
+ *
+ * <p>Les favoris, DTO, événements et clés de cache partagent ces instances uniques au lieu d'une
+ * chaîne par favori. Le nom est la valeur stockée dans Mongo et échangée en JSON ; le code n'est
+ * utilisé que dans le format binaire du cache Redis et ne doit jamais être réattribué.</p>
+ */
+public enum ContentType {
+
+    COURSE(1),
+    VIDEO(2),
+    ARTICLE(3);
+
+    private static final ContentType[] VALUES = values();
+    private static final ContentType[] BY_CODE = new ContentType[4];
+
+    static {
+        for (ContentType type : VALUES) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+    private final String cacheKeySuffix;
+
+    ContentType(int code) {
+        this.code = (byte) code;
+        this.cacheKeySuffix = '_' + name();
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * Clé du cache "favoritesByType" d'un utilisateur pour ce type, construite sans évaluation
+     * d'expression ni tampon intermédiaire
+     *
+     * @param userId ID de l'utilisateur
+     * @return userId suivi de '_' et du nom du type
+     */
+    public String cacheKey(String userId) {
+        return userId.concat(cacheKeySuffix);
+    }
+
+    /**
+     * Type correspondant à une valeur reçue ou stockée, sans tenir compte de la casse ni des
+     * espaces autour
+     *
+     * @throws IllegalArgumentException si la valeur ne correspond à aucun type
+     */
+    @JsonCreator
+    public static ContentType fromValue(String value) {
+        ContentType type = parse(value);
+        if (type == null) {
+            throw new IllegalArgumentException("Type de contenu inconnu: " + value);
+        }
+        return type;
+    }
+
+    /**
+     * Comme {@link #fromValue(String)}, mais renvoie null pour une valeur inconnue
+     */
+    public static ContentType parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        String normalized = value.trim().toUpperCase(Locale.ROOT);
+        for (ContentType type : VALUES) {
+            if (type.name().equals(normalized)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @throws IllegalArgumentException si le code ne correspond à aucun type
+     */
+    public static ContentType fromCode(int code) {
+        ContentType type = code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (type == null) {
+            throw new IllegalArgumentException("Code de type de contenu inconnu: " + code);
+        }
+        return type;
+    }
+}
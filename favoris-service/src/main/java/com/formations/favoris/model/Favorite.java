@@ -17,7 +17,9 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Document(collection = "favorites")
 @CompoundIndexes({
-    @CompoundIndex(name = "user_content_idx", def = "{userId: 1, contentId: 1}", unique = true)
+    @CompoundIndex(name = "user_content_idx", def = "{userId: 1, contentId: 1}", unique = true),
+    @CompoundIndex(name = "user_created_idx", def = "{userId: 1, createdAt: -1, _id: -1}"), // pagination par curseur
+    @CompoundIndex(name = "user_id_idx", def = "{userId: 1, _id: 1}") // export par utilisateur
 })
 public class Favorite {
     
@@ -26,7 +28,7 @@ public class Favorite {
     
     private String userId;
     private String contentId;
-    private String contentType; // ex: "COURSE", "VIDEO", "ARTICLE"
+    private ContentType contentType;
     private String title;
     private String description;
     private String thumbnailUrl;
@@ -0,0 +1,46 @@
+package com.formations.favoris.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Groupe d'au plus K favoris d'un même utilisateur, pour la disposition par buckets. Les favoris
+ * du bucket ne portent pas le userId, stocké une seule fois sur le bucket.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "favorite_buckets")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_count_idx", def = "{userId: 1, count: 1}"), // bucket non plein
+    // Un contenu n'apparaît qu'une fois par utilisateur, tous buckets confondus ; les buckets vides
+    // (le temps de leur suppression) sont exclus de l'index
+    @CompoundIndex(name = "user_content_idx", def = "{userId: 1, 'items.contentId': 1}", unique = true,
+            partialFilter = "{count: {$gt: 0}}"),
+    @CompoundIndex(name = "item_id_idx", def = "{'items._id': 1}"), // suppression par ID, export
+    @CompoundIndex(name = "user_max_created_idx", def = "{userId: 1, maxCreatedAt: -1}") // pagination
+})
+public class FavoriteBucket {
+
+    @Id
+    private String id;
+
+    private String userId;
+    private int count; // nombre de favoris dans items
+    private List<Favorite> items;
+
+    // Enveloppe des dates d'ajout des favoris du bucket : élargie à chaque ajout, resserrée à la
+    // suppression groupée, jamais plus étroite que les dates réelles
+    private LocalDateTime minCreatedAt;
+    private LocalDateTime maxCreatedAt;
+}
@@ -0,0 +1,29 @@
+package com.formations.favoris.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Derniers utilisateurs les plus lus, enregistrés dans Mongo pour précharger les caches au
+ * démarrage, y compris quand Redis a perdu ses données
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "cache_warmup")
+public class HotUserSnapshot {
+
+    @Id
+    private String service; // nom du service, instantané partagé par ses instances
+
+    private List<String> userIds; // du plus lu au moins lu
+    private LocalDateTime updatedAt;
+}
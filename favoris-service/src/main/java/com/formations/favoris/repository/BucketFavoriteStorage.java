@@ -0,0 +1,461 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.model.FavoriteBucket;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Favoris d'un utilisateur regroupés par buckets d'au plus {@code bucketSize} éléments dans la
+ * collection {@code favorite_buckets} : la liste d'un utilisateur se lit en N/K documents au lieu
+ * de N, au prix d'écritures qui réécrivent un tableau.
+ *
+ * <p>Chaque écriture est une seule opération atomique sur un bucket. Un ajout pousse le favori dans
+ * un bucket non plein de l'utilisateur qui ne contient pas déjà le contenu, ou crée un bucket (upsert) ;
+ * l'index unique user_content_idx rejette un contenu déjà présent dans un autre bucket. Une
+ * suppression retire le favori de son bucket, puis supprime le bucket s'il est devenu vide.</p>
+ *
+ * <p>Chaque bucket porte l'enveloppe des dates d'ajout de ses favoris (minCreatedAt, maxCreatedAt),
+ * indexée avec l'utilisateur : une page ne déroule que les buckets qui peuvent la contenir, au lieu
+ * de trier tous les favoris de l'utilisateur. Les buckets écrits sans enveloppe sont complétés au
+ * démarrage ({@link #ensureIndexes()}).</p>
+ */
+@Slf4j
+public class BucketFavoriteStorage implements FavoriteStorage {
+
+    static final String ITEMS = "items";
+    static final String MIN_CREATED_AT = "minCreatedAt";
+    static final String MAX_CREATED_AT = "maxCreatedAt";
+
+    private final MongoTemplate mongoTemplate;
+    private final int bucketSize;
+
+    public BucketFavoriteStorage(MongoTemplate mongoTemplate, int bucketSize) {
+        if (bucketSize < 1) {
+            throw new IllegalArgumentException("La taille des buckets doit être positive: " + bucketSize);
+        }
+        this.mongoTemplate = mongoTemplate;
+        this.bucketSize = bucketSize;
+    }
+
+    @Override
+    public String getCollectionName() {
+        return mongoTemplate.getCollectionName(FavoriteBucket.class);
+    }
+
+    @Override
+    public void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(FavoriteBucket.class);
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(FavoriteBucket.class)
+                .forEach(indexOps::ensureIndex);
+        long completed = mongoTemplate.getCollection(getCollectionName())
+                .updateMany(new Document(MAX_CREATED_AT, new Document("$exists", false)), List.of(createdAtBounds()))
+                .getModifiedCount();
+        if (completed > 0) {
+            log.info("Enveloppe des dates d'ajout calculée pour {} buckets", completed);
+        }
+    }
+
+    @Override
+    public List<Favorite> findByUserId(String userId) {
+        return flatten(mongoTemplate.find(userQuery(userId), FavoriteBucket.class), item -> true);
+    }
+
+    @Override
+    public List<Favorite> findByUserId(String userId, Document fields) {
+        Query query = userQuery(userId);
+        query.fields().include("userId");
+        fields.forEach((field, value) -> {
+            if (isIncluded(value)) {
+                query.fields().include(ITEMS + '.' + field);
+            }
+        });
+        if (!fields.containsKey("_id")) {
+            query.fields().include(ITEMS + "._id"); // comme pour un document, _id est renvoyé par défaut
+        }
+        List<Favorite> favorites = flatten(mongoTemplate.find(query, FavoriteBucket.class), item -> true);
+        if (!isIncluded(fields.get("userId"))) {
+            favorites.forEach(favorite -> favorite.setUserId(null));
+        }
+        return favorites;
+    }
+
+    @Override
+    public List<Favorite> findByUserIdAndContentType(String userId, ContentType contentType) {
+        Query query = new Query(Criteria.where("userId").is(userId).and(ITEMS + ".contentType").is(contentType))
+                .with(Sort.by("_id"));
+        return flatten(mongoTemplate.find(query, FavoriteBucket.class),
+                item -> item.getContentType() == contentType);
+    }
+
+    @Override
+    public boolean existsByUserIdAndContentId(String userId, String contentId) {
+        return mongoTemplate.exists(pairQuery(userId, contentId), FavoriteBucket.class);
+    }
+
+    @Override
+    public Optional<Favorite> findByUserIdAndContentId(String userId, String contentId) {
+        Query query = pairQuery(userId, contentId);
+        query.fields().include("userId").elemMatch(ITEMS, Criteria.where("contentId").is(contentId));
+        FavoriteBucket bucket = mongoTemplate.findOne(query, FavoriteBucket.class);
+        return bucket == null ? Optional.empty() : flatten(List.of(bucket), item -> true).stream().findFirst();
+    }
+
+    @Override
+    public List<Favorite> findPageByUserId(String userId, LocalDateTime afterCreatedAt, String afterId, int limit) {
+        Date after = afterCreatedAt != null ? (Date) mongoTemplate.getConverter().convertToMongoType(afterCreatedAt) : null;
+        List<Object> bucketIds = pageBucketIds(userId, after, limit);
+        if (bucketIds.isEmpty()) {
+            return List.of();
+        }
+        List<AggregationOperation> stages = new ArrayList<>(unwindItems(new Document("_id", new Document("$in", bucketIds))));
+        if (after != null) {
+            stages.add(Aggregation.stage(new Document("$match", new Document("$or", List.of(
+                    new Document("createdAt", new Document("$lt", after)),
+                    new Document("createdAt", after).append("_id", new Document("$lt", new ObjectId(afterId))))))));
+        }
+        stages.add(Aggregation.stage(new Document("$sort", new Document("createdAt", -1).append("_id", -1))));
+        stages.add(Aggregation.limit(limit));
+        return mongoTemplate.aggregate(Aggregation.newAggregation(stages), getCollectionName(), Favorite.class)
+                .getMappedResults();
+    }
+
+    /**
+     * Buckets pouvant contenir une page, lus sans leurs favoris par date d'ajout maximale décroissante.
+     * Dès que les buckets entièrement antérieurs au curseur totalisent la page, aucun favori de la
+     * page n'est plus ancien que le plus ancien de ces buckets : le parcours s'arrête au premier
+     * bucket dont tous les favoris sont plus anciens.
+     *
+     * @param after Date d'ajout du curseur (convertie pour Mongo), null pour la première page
+     */
+    List<Object> pageBucketIds(String userId, Date after, int limit) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (after != null) {
+            criteria = criteria.and(MIN_CREATED_AT).lte(after);
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, MAX_CREATED_AT));
+        query.fields().include("count").include(MIN_CREATED_AT).include(MAX_CREATED_AT);
+
+        List<Object> bucketIds = new ArrayList<>();
+        long eligible = 0;
+        Date oldest = null;
+        Date floor = null;
+        try (Stream<Document> headers = mongoTemplate.stream(query, Document.class, getCollectionName())) {
+            for (Iterator<Document> iterator = headers.iterator(); iterator.hasNext(); ) {
+                Document header = iterator.next();
+                Date max = header.getDate(MAX_CREATED_AT);
+                Date min = header.getDate(MIN_CREATED_AT);
+                if (floor != null && max.before(floor)) {
+                    break;
+                }
+                bucketIds.add(header.get("_id"));
+                // Un bucket chevauchant le curseur ne compte pas : une partie de ses favoris le précède
+                if (floor == null && (after == null || max.before(after))) {
+                    eligible += header.getInteger("count", 0);
+                    oldest = oldest == null || min.before(oldest) ? min : oldest;
+                    if (eligible >= limit) {
+                        floor = oldest;
+                    }
+                }
+            }
+        }
+        return bucketIds;
+    }
+
+    @Override
+    public List<Favorite> findByUserContentPairs(Map<String, ? extends Collection<String>> contentIdsByUser) {
+        if (contentIdsByUser.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Criteria> criteria = new ArrayList<>(contentIdsByUser.size());
+        contentIdsByUser.forEach((userId, contentIds) ->
+                criteria.add(Criteria.where("userId").is(userId).and(ITEMS + ".contentId").in(contentIds)));
+        List<Favorite> favorites = flatten(
+                mongoTemplate.find(new Query(new Criteria().orOperator(criteria)), FavoriteBucket.class), item -> true);
+        favorites.removeIf(favorite -> !contentIdsByUser.get(favorite.getUserId()).contains(favorite.getContentId()));
+        return favorites;
+    }
+
+    @Override
+    public Favorite insert(Favorite favorite) {
+        if (favorite.getId() == null) {
+            favorite.setId(new ObjectId().toHexString());
+        }
+        mongoTemplate.upsert(addQuery(favorite), addUpdate(favorite), FavoriteBucket.class);
+        return favorite;
+    }
+
+    @Override
+    public Favorite save(Favorite favorite) {
+        if (favorite.getId() != null) {
+            Query query = new Query(Criteria.where("userId").is(favorite.getUserId()).and(ITEMS + "._id").is(favorite.getId()));
+            if (mongoTemplate.updateFirst(query, widenCreatedAtBounds(new Update().set(ITEMS + ".$", item(favorite)), favorite),
+                    FavoriteBucket.class)
+                    .getMatchedCount() > 0) {
+                return favorite;
+            }
+        }
+        return insert(favorite);
+    }
+
+    @Override
+    public Map<Integer, Integer> insertAllUnordered(List<Favorite> favorites) {
+        if (favorites.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FavoriteBucket.class);
+        for (Favorite favorite : favorites) {
+            if (favorite.getId() == null) {
+                favorite.setId(new ObjectId().toHexString());
+            }
+            bulk.upsert(addQuery(favorite), addUpdate(favorite));
+        }
+        try {
+            bulk.execute();
+            return Collections.emptyMap();
+        } catch (BulkOperationException e) {
+            Map<Integer, Integer> errors = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                errors.put(error.getIndex(), error.getCode());
+            }
+            return errors;
+        }
+    }
+
+    @Override
+    public Optional<Favorite> findAndRemoveByUserIdAndContentId(String userId, String contentId) {
+        Update update = new Update()
+                .pull(ITEMS, new Document("contentId", contentId))
+                .inc("count", -1);
+        FavoriteBucket before = mongoTemplate.findAndModify(pairQuery(userId, contentId), update, FavoriteBucket.class);
+        if (before == null) {
+            return Optional.empty();
+        }
+        if (before.getCount() <= 1) {
+            removeIfEmpty(mongoTemplate, List.of(before.getId()));
+        }
+        return flatten(List.of(before), item -> contentId.equals(item.getContentId())).stream().findFirst();
+    }
+
+    @Override
+    public void deleteByUserIdAndContentId(String userId, String contentId) {
+        findAndRemoveByUserIdAndContentId(userId, contentId);
+    }
+
+    @Override
+    public void deleteAllById(Collection<String> ids) {
+        deleteItems(mongoTemplate, ids, false);
+    }
+
+    @Override
+    public boolean deleteAllByIdIfPresent(Collection<String> ids) {
+        return DocumentFavoriteStorage.inTransaction(mongoTemplate, template -> deleteItems(template, ids, true) == ids.size());
+    }
+
+    /**
+     * Retire des favoris de leurs buckets
+     *
+     * @param allOrNothing Ne rien retirer si l'un des favoris est absent
+     * @return Nombre de favoris trouvés dans les buckets avant le retrait (exact dans une transaction)
+     */
+    private long deleteItems(MongoTemplate template, Collection<String> ids, boolean allOrNothing) {
+        List<ObjectId> itemIds = ids.stream().filter(ObjectId::isValid).map(ObjectId::new).toList();
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+        Query query = new Query(Criteria.where(ITEMS + "._id").in(itemIds));
+        query.fields().include("_id").include(ITEMS + "._id");
+        List<Document> buckets = template.find(query, Document.class, getCollectionName());
+        if (buckets.isEmpty()) {
+            return 0;
+        }
+        Set<ObjectId> wanted = new HashSet<>(itemIds);
+        long found = buckets.stream()
+                .flatMap(bucket -> bucket.getList(ITEMS, Document.class, List.of()).stream())
+                .filter(item -> wanted.contains(item.getObjectId("_id")))
+                .count();
+        if (allOrNothing && found != ids.size()) {
+            return found;
+        }
+        List<Object> bucketIds = buckets.stream().map(bucket -> bucket.get("_id")).toList();
+        // Le compteur est recalculé d'après le tableau filtré, même si un autre favori du bucket
+        // est retiré en parallèle
+        List<Bson> pipeline = List.of(
+                new Document("$set", new Document(ITEMS, new Document("$filter", new Document("input", "$" + ITEMS)
+                        .append("cond", new Document("$not", List.of(new Document("$in", List.of("$$this._id", itemIds)))))))),
+                new Document("$set", new Document("count", new Document("$size", "$" + ITEMS))),
+                createdAtBounds());
+        template.getCollection(getCollectionName())
+                .updateMany(new Document("_id", new Document("$in", bucketIds)), pipeline);
+        removeIfEmpty(template, bucketIds);
+        return found;
+    }
+
+    @Override
+    public Stream<Favorite> stream(String userId, String afterId) {
+        Document match = userId != null ? new Document("userId", userId) : new Document();
+        if (afterId != null) {
+            // Seuls les buckets ayant encore un favori après la reprise sont déroulés (index item_id_idx)
+            match.append(ITEMS + "._id", new Document("$gt", new ObjectId(afterId)));
+        }
+        List<AggregationOperation> stages = new ArrayList<>(unwindItems(match));
+        if (afterId != null) {
+            stages.add(Aggregation.stage(new Document("$match", new Document("_id", new Document("$gt", new ObjectId(afterId))))));
+        }
+        stages.add(Aggregation.stage(new Document("$sort", new Document("_id", 1))));
+        Aggregation aggregation = Aggregation.newAggregation(stages).withOptions(AggregationOptions.builder()
+                .allowDiskUse(true)
+                .cursorBatchSize(DocumentFavoriteStorage.CURSOR_BATCH_SIZE)
+                .build());
+        return mongoTemplate.aggregateStream(aggregation, getCollectionName(), Favorite.class);
+    }
+
+    @Override
+    public List<String> findUserIds(String afterUserId, int limit) {
+        List<String> userIds = new ArrayList<>(limit);
+        String last = afterUserId;
+        while (userIds.size() < limit) {
+            Query query = new Query(last != null ? Criteria.where("userId").gt(last) : new Criteria())
+                    .with(Sort.by("userId"));
+            query.fields().include("userId");
+            FavoriteBucket next = mongoTemplate.findOne(query, FavoriteBucket.class);
+            if (next == null) {
+                break;
+            }
+            last = next.getUserId();
+            userIds.add(last);
+        }
+        return userIds;
+    }
+
+    @Override
+    public void mergeCountsByContent(String collectionName) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.stage(new Document("$unwind", "$" + ITEMS)));
+        stages.addAll(DocumentFavoriteStorage.countsByContent("$" + ITEMS + ".contentId", collectionName));
+        Aggregation aggregation = Aggregation.newAggregation(stages)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        mongoTemplate.aggregate(aggregation, getCollectionName(), Document.class);
+    }
+
+    /**
+     * Bucket de l'utilisateur où le favori peut être ajouté : non plein, sans le contenu
+     */
+    Query addQuery(Favorite favorite) {
+        return new Query(Criteria.where("userId").is(favorite.getUserId())
+                .and("count").lt(bucketSize)
+                .and(ITEMS + ".contentId").ne(favorite.getContentId()));
+    }
+
+    static Update addUpdate(Favorite favorite) {
+        return widenCreatedAtBounds(new Update().push(ITEMS, item(favorite)).inc("count", 1), favorite);
+    }
+
+    private static Update widenCreatedAtBounds(Update update, Favorite favorite) {
+        if (favorite.getCreatedAt() != null) {
+            update.min(MIN_CREATED_AT, favorite.getCreatedAt()).max(MAX_CREATED_AT, favorite.getCreatedAt());
+        }
+        return update;
+    }
+
+    /**
+     * Étape de pipeline recalculant l'enveloppe des dates d'ajout d'après les favoris du bucket
+     */
+    private static Document createdAtBounds() {
+        return new Document("$set", new Document(MIN_CREATED_AT, new Document("$min", "$" + ITEMS + ".createdAt"))
+                .append(MAX_CREATED_AT, new Document("$max", "$" + ITEMS + ".createdAt")));
+    }
+
+    /**
+     * Copie du favori stockée dans un bucket, sans le userId porté par le bucket
+     */
+    static Favorite item(Favorite favorite) {
+        return Favorite.builder()
+                .id(favorite.getId())
+                .contentId(favorite.getContentId())
+                .contentType(favorite.getContentType())
+                .title(favorite.getTitle())
+                .description(favorite.getDescription())
+                .thumbnailUrl(favorite.getThumbnailUrl())
+                .createdAt(favorite.getCreatedAt())
+                .updatedAt(favorite.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * Favoris d'un utilisateur sous forme de documents Favorite (userId recopié depuis le bucket)
+     */
+    private List<AggregationOperation> unwindItems(Document match) {
+        return List.of(
+                Aggregation.stage(new Document("$match", match)),
+                Aggregation.stage(new Document("$unwind", "$" + ITEMS)),
+                Aggregation.stage(new Document("$set", new Document(ITEMS + ".userId", "$userId"))),
+                Aggregation.stage(new Document("$replaceWith", "$" + ITEMS)));
+    }
+
+    private static void removeIfEmpty(MongoTemplate template, List<?> bucketIds) {
+        template.remove(new Query(Criteria.where("_id").in(bucketIds).and("count").lte(0)), FavoriteBucket.class);
+    }
+
+    private static List<Favorite> flatten(List<FavoriteBucket> buckets, Predicate<Favorite> filter) {
+        List<Favorite> favorites = new ArrayList<>();
+        for (FavoriteBucket bucket : buckets) {
+            if (bucket.getItems() == null) {
+                continue;
+            }
+            for (Favorite item : bucket.getItems()) {
+                if (filter.test(item)) {
+                    item.setUserId(bucket.getUserId());
+                    favorites.add(item);
+                }
+            }
+        }
+        return favorites;
+    }
+
+    private static boolean isIncluded(Object projection) {
+        return projection instanceof Number number ? number.intValue() != 0 : Boolean.TRUE.equals(projection);
+    }
+
+    private static Query userQuery(String userId) {
+        return new Query(Criteria.where("userId").is(userId)).with(Sort.by("_id"));
+    }
+
+    private static Query pairQuery(String userId, String contentId) {
+        return new Query(Criteria.where("userId").is(userId).and(ITEMS + ".contentId").is(contentId));
+    }
+}
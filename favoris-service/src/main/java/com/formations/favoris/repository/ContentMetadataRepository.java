@@ -0,0 +1,9 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.ContentMetadata;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ContentMetadataRepository extends MongoRepository<ContentMetadata, String>, ContentMetadataRepositoryCustom {
+}
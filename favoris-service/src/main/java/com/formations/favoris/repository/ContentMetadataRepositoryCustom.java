@@ -0,0 +1,16 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.ContentMetadata;
+
+import java.util.Collection;
+
+public interface ContentMetadataRepositoryCustom {
+
+    /**
+     * Ajoute au catalogue les contenus qui n'y sont pas encore, en une seule écriture groupée non
+     * ordonnée ($setOnInsert avec upsert) : un contenu déjà présent n'est jamais modifié
+     *
+     * @param contents Métadonnées des contenus à ajouter
+     */
+    void insertAllIfAbsent(Collection<ContentMetadata> contents);
+}
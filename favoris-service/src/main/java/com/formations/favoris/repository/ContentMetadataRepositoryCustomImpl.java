@@ -0,0 +1,34 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.ContentMetadata;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class ContentMetadataRepositoryCustomImpl implements ContentMetadataRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void insertAllIfAbsent(Collection<ContentMetadata> contents) {
+        if (contents.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ContentMetadata.class);
+        for (ContentMetadata metadata : contents) {
+            bulk.upsert(new Query(Criteria.where("_id").is(metadata.getContentId())), new Update()
+                    .setOnInsert("contentType", metadata.getContentType())
+                    .setOnInsert("title", metadata.getTitle())
+                    .setOnInsert("description", metadata.getDescription())
+                    .setOnInsert("thumbnailUrl", metadata.getThumbnailUrl())
+                    .setOnInsert("updatedAt", metadata.getUpdatedAt()));
+        }
+        bulk.execute();
+    }
+}
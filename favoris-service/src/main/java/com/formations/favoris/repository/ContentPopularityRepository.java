@@ -0,0 +1,9 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.ContentPopularity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ContentPopularityRepository extends MongoRepository<ContentPopularity, String>, ContentPopularityRepositoryCustom {
+}
@@ -0,0 +1,15 @@
+package com.formations.favoris.repository;
+
+import java.util.Map;
+
+public interface ContentPopularityRepositoryCustom {
+
+    /**
+     * Applique des variations de compteurs en une seule écriture groupée non ordonnée ($inc avec upsert)
+     *
+     * @param deltas Variation à appliquer par ID de contenu, une opération par entrée dans l'ordre d'itération
+     * @throws org.springframework.data.mongodb.BulkOperationException si une partie des opérations a échoué,
+     *         les index des erreurs suivant l'ordre d'itération de deltas
+     */
+    void incrementCounts(Map<String, Long> deltas);
+}
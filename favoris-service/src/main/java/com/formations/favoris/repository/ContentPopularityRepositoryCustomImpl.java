@@ -0,0 +1,31 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.ContentPopularity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ContentPopularityRepositoryCustomImpl implements ContentPopularityRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void incrementCounts(Map<String, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ContentPopularity.class);
+        deltas.forEach((contentId, delta) -> bulk.upsert(
+                new Query(Criteria.where("_id").is(contentId)),
+                new Update().inc("count", delta).set("updatedAt", now)));
+        bulk.execute();
+    }
+}
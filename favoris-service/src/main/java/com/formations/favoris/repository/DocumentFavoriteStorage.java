@@ -0,0 +1,255 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.ClientSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Un document par favori dans la collection {@code favorites} : la lecture de la liste d'un
+ * utilisateur parcourt l'index user_content_idx puis lit un document par favori
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentFavoriteStorage implements FavoriteStorage {
+
+    public static final int CURSOR_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public String getCollectionName() {
+        return mongoTemplate.getCollectionName(Favorite.class);
+    }
+
+    @Override
+    public void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Favorite.class);
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Favorite.class)
+                .forEach(indexOps::ensureIndex);
+    }
+
+    @Override
+    public List<Favorite> findByUserId(String userId) {
+        return mongoTemplate.find(userQuery(userId), Favorite.class);
+    }
+
+    @Override
+    public List<Favorite> findByUserId(String userId, Document fields) {
+        return mongoTemplate.find(new BasicQuery(new Document("userId", userId), fields), Favorite.class);
+    }
+
+    @Override
+    public List<Favorite> findByUserIdAndContentType(String userId, ContentType contentType) {
+        return mongoTemplate.find(new Query(Criteria.where("userId").is(userId).and("contentType").is(contentType)),
+                Favorite.class);
+    }
+
+    @Override
+    public boolean existsByUserIdAndContentId(String userId, String contentId) {
+        return mongoTemplate.exists(pairQuery(userId, contentId), Favorite.class);
+    }
+
+    @Override
+    public Optional<Favorite> findByUserIdAndContentId(String userId, String contentId) {
+        return Optional.ofNullable(mongoTemplate.findOne(pairQuery(userId, contentId), Favorite.class));
+    }
+
+    @Override
+    public List<Favorite> findPageByUserId(String userId, LocalDateTime afterCreatedAt, String afterId, int limit) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (afterCreatedAt != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").lt(afterCreatedAt),
+                    Criteria.where("createdAt").is(afterCreatedAt).and("_id").lt(afterId));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("_id")))
+                .limit(limit);
+        return mongoTemplate.find(query, Favorite.class);
+    }
+
+    @Override
+    public List<Favorite> findByUserContentPairs(Map<String, ? extends Collection<String>> contentIdsByUser) {
+        if (contentIdsByUser.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Criteria> criteria = new ArrayList<>(contentIdsByUser.size());
+        contentIdsByUser.forEach((userId, contentIds) ->
+                criteria.add(Criteria.where("userId").is(userId).and("contentId").in(contentIds)));
+        return mongoTemplate.find(new Query(new Criteria().orOperator(criteria)), Favorite.class);
+    }
+
+    @Override
+    public Favorite insert(Favorite favorite) {
+        return mongoTemplate.insert(favorite);
+    }
+
+    @Override
+    public Favorite save(Favorite favorite) {
+        return mongoTemplate.save(favorite);
+    }
+
+    @Override
+    public Map<Integer, Integer> insertAllUnordered(List<Favorite> favorites) {
+        if (favorites.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Favorite.class)
+                    .insert(favorites)
+                    .execute();
+            return Collections.emptyMap();
+        } catch (BulkOperationException e) {
+            Map<Integer, Integer> errors = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                errors.put(error.getIndex(), error.getCode());
+            }
+            return errors;
+        }
+    }
+
+    @Override
+    public Optional<Favorite> findAndRemoveByUserIdAndContentId(String userId, String contentId) {
+        return Optional.ofNullable(mongoTemplate.findAndRemove(pairQuery(userId, contentId), Favorite.class));
+    }
+
+    @Override
+    public void deleteByUserIdAndContentId(String userId, String contentId) {
+        mongoTemplate.remove(pairQuery(userId, contentId), Favorite.class);
+    }
+
+    @Override
+    public void deleteAllById(Collection<String> ids) {
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), Favorite.class);
+    }
+
+    @Override
+    public boolean deleteAllByIdIfPresent(Collection<String> ids) {
+        return inTransaction(mongoTemplate, template -> template.remove(
+                new Query(Criteria.where("_id").in(ids)), Favorite.class).getDeletedCount() == ids.size());
+    }
+
+    /**
+     * Exécute des écritures dans une transaction, validée seulement si elles renvoient vrai. Le
+     * pilote rejoue la transaction sur une erreur transitoire (conflit d'écriture).
+     *
+     * @param writes Écritures, sur un MongoTemplate lié à la session de la transaction
+     * @return false si la transaction a été annulée ou n'a pas abouti (MongoDB sans replica set)
+     */
+    static boolean inTransaction(MongoTemplate mongoTemplate, Predicate<MongoTemplate> writes) {
+        try (ClientSession session = mongoTemplate.getMongoDatabaseFactory()
+                .getSession(ClientSessionOptions.builder().build())) {
+            return session.withTransaction(() -> {
+                if (!writes.test(mongoTemplate.withSession(session))) {
+                    throw new TransactionRollback();
+                }
+                return true;
+            });
+        } catch (TransactionRollback e) {
+            return false;
+        } catch (DataAccessException | MongoException e) {
+            log.warn("Transaction MongoDB impossible: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Annulation voulue d'une transaction, sans trace de pile
+     */
+    private static final class TransactionRollback extends RuntimeException {
+        TransactionRollback() {
+            super(null, null, false, false);
+        }
+    }
+
+    @Override
+    public Stream<Favorite> stream(String userId, String afterId) {
+        Criteria criteria = userId != null ? Criteria.where("userId").is(userId) : new Criteria();
+        if (afterId != null) {
+            criteria = criteria.and("_id").gt(new ObjectId(afterId));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(CURSOR_BATCH_SIZE);
+        return mongoTemplate.stream(query, Favorite.class);
+    }
+
+    @Override
+    public List<String> findUserIds(String afterUserId, int limit) {
+        List<String> userIds = new ArrayList<>(limit);
+        String last = afterUserId;
+        // Un saut par utilisateur sur l'index user_content_idx, sans distinct sur toute la collection
+        while (userIds.size() < limit) {
+            Query query = new Query(last != null ? Criteria.where("userId").gt(last) : new Criteria())
+                    .with(Sort.by("userId"));
+            query.fields().include("userId");
+            Favorite next = mongoTemplate.findOne(query, Favorite.class);
+            if (next == null) {
+                break;
+            }
+            last = next.getUserId();
+            userIds.add(last);
+        }
+        return userIds;
+    }
+
+    @Override
+    public void mergeCountsByContent(String collectionName) {
+        Aggregation aggregation = Aggregation.newAggregation(countsByContent("$contentId", collectionName))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        mongoTemplate.aggregate(aggregation, Favorite.class, Document.class);
+    }
+
+    /**
+     * $group par contenu puis $merge dans la collection de compteurs
+     */
+    static List<AggregationOperation> countsByContent(String contentIdField, String collectionName) {
+        return List.of(
+                Aggregation.stage(new Document("$group", new Document("_id", contentIdField)
+                        .append("count", new Document("$sum", 1)))),
+                Aggregation.stage(new Document("$set", new Document("updatedAt", "$$NOW"))),
+                Aggregation.stage(new Document("$merge", new Document("into", collectionName)
+                        .append("whenMatched", "merge")
+                        .append("whenNotMatched", "insert"))));
+    }
+
+    private static Query userQuery(String userId) {
+        return new Query(Criteria.where("userId").is(userId));
+    }
+
+    private static Query pairQuery(String userId, String contentId) {
+        return new Query(Criteria.where("userId").is(userId).and("contentId").is(contentId));
+    }
+}
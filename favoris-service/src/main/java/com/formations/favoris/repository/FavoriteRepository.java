@@ -4,47 +4,42 @@ import com.formations.favoris.model.Favorite;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
-import java.util.Optional;
-
+/**
+ * Repository des favoris. Les lectures et écritures utilisées par les services sont déclarées dans
+ * {@link FavoriteRepositoryCustom} et passent par la disposition configurée ({@link FavoriteStorage}) ;
+ * les autres méthodes héritées de {@link MongoRepository} (findAll, count...) ne lisent que la
+ * collection {@code favorites} de la disposition par document.
+ */
 @Repository
-public interface FavoriteRepository extends MongoRepository<Favorite, String> {
-    
+public interface FavoriteRepository extends MongoRepository<Favorite, String>, FavoriteRepositoryCustom {
+
     /**
-     * Trouve tous les favoris d'un utilisateur
-     * @param userId ID de l'utilisateur
-     * @return Liste des favoris de l'utilisateur
+     * Projection des IDs de contenu
      */
-    List<Favorite> findByUserId(String userId);
-    
+    String CONTENT_ID_FIELDS = "{ 'contentId': 1, '_id': 0 }";
+
     /**
-     * Trouve les favoris d'un utilisateur par type de contenu
-     * @param userId ID de l'utilisateur
-     * @param contentType Type de contenu (ex: "COURSE", "VIDEO", "ARTICLE")
-     * @return Liste des favoris de l'utilisateur pour le type de contenu spécifié
+     * Projection des listes légères : identifiant et type du contenu
      */
-    List<Favorite> findByUserIdAndContentType(String userId, String contentType);
-    
+    String ID_FIELDS = "{ 'contentId': 1, 'contentType': 1, '_id': 0 }";
+
     /**
-     * Vérifie si un contenu est déjà favori pour un utilisateur
-     * @param userId ID de l'utilisateur
-     * @param contentId ID du contenu
-     * @return true si le contenu est déjà favori, false sinon
+     * Projection des résumés : champs d'affichage d'une liste, sans la description ni les
+     * champs techniques
      */
-    boolean existsByUserIdAndContentId(String userId, String contentId);
-    
+    String SUMMARY_FIELDS = "{ 'contentId': 1, 'contentType': 1, 'title': 1, 'thumbnailUrl': 1, 'createdAt': 1 }";
+
     /**
-     * Trouve un favori par userId et contentId
-     * @param userId ID de l'utilisateur
-     * @param contentId ID du contenu
-     * @return Le favori s'il existe
+     * Implémentée par {@link FavoriteRepositoryCustomImpl}, déclarée ici pour lever l'ambiguïté
+     * avec {@link MongoRepository#save}
      */
-    Optional<Favorite> findByUserIdAndContentId(String userId, String contentId);
-    
+    @Override
+    <S extends Favorite> S save(S favorite);
+
     /**
-     * Supprime un favori par userId et contentId
-     * @param userId ID de l'utilisateur
-     * @param contentId ID du contenu
+     * Implémentée par {@link FavoriteRepositoryCustomImpl}, déclarée ici pour lever l'ambiguïté
+     * avec {@link MongoRepository#insert(Object)}
      */
-    void deleteByUserIdAndContentId(String userId, String contentId);
-}
\ No newline at end of file
+    @Override
+    <S extends Favorite> S insert(S favorite);
+}
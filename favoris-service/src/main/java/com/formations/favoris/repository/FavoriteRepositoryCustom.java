@@ -0,0 +1,141 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Opérations du repository des favoris, implémentées par la disposition configurée
+ * ({@link FavoriteStorage}) plutôt que dérivées des noms de méthodes. Les méthodes save, insert
+ * et deleteAllById remplacent celles de {@link org.springframework.data.mongodb.repository.MongoRepository}.
+ */
+public interface FavoriteRepositoryCustom {
+
+    /**
+     * Trouve tous les favoris d'un utilisateur
+     * @param userId ID de l'utilisateur
+     * @return Liste des favoris de l'utilisateur
+     */
+    List<Favorite> findByUserId(String userId);
+
+    /**
+     * Trouve les favoris d'un utilisateur par type de contenu
+     * @param userId ID de l'utilisateur
+     * @param contentType Type de contenu
+     * @return Liste des favoris de l'utilisateur pour le type de contenu spécifié
+     */
+    List<Favorite> findByUserIdAndContentType(String userId, ContentType contentType);
+
+    /**
+     * Vérifie si un contenu est déjà favori pour un utilisateur
+     * @param userId ID de l'utilisateur
+     * @param contentId ID du contenu
+     * @return true si le contenu est déjà favori, false sinon
+     */
+    boolean existsByUserIdAndContentId(String userId, String contentId);
+
+    /**
+     * Trouve un favori par userId et contentId
+     * @param userId ID de l'utilisateur
+     * @param contentId ID du contenu
+     * @return Le favori s'il existe
+     */
+    Optional<Favorite> findByUserIdAndContentId(String userId, String contentId);
+
+    /**
+     * Supprime un favori par userId et contentId
+     * @param userId ID de l'utilisateur
+     * @param contentId ID du contenu
+     */
+    void deleteByUserIdAndContentId(String userId, String contentId);
+
+    /**
+     * Trouve les favoris d'un utilisateur en ne chargeant que l'ID du contenu
+     * @param userId ID de l'utilisateur
+     * @return Favoris de l'utilisateur dont seul le champ contentId est renseigné
+     */
+    List<Favorite> findContentIdsByUserId(String userId);
+
+    /**
+     * Trouve les favoris d'un utilisateur en ne chargeant que l'ID et le type du contenu
+     * @param userId ID de l'utilisateur
+     * @return Favoris de l'utilisateur dont seuls les champs contentId et contentType sont renseignés
+     */
+    List<Favorite> findIdsByUserId(String userId);
+
+    /**
+     * Trouve les favoris d'un utilisateur en ne chargeant que les champs de {@link FavoriteRepository#SUMMARY_FIELDS}
+     * @param userId ID de l'utilisateur
+     * @return Favoris de l'utilisateur sans description, userId ni updatedAt
+     */
+    List<Favorite> findSummariesByUserId(String userId);
+
+    /**
+     * Enregistre un favori : insertion s'il est nouveau, remplacement sinon
+     * @param favorite Favori à enregistrer
+     * @return Le favori enregistré, avec son identifiant
+     */
+    <S extends Favorite> S save(S favorite);
+
+    /**
+     * Insère un nouveau favori
+     * @param favorite Favori à insérer
+     * @return Le favori inséré, avec son identifiant
+     * @throws org.springframework.dao.DuplicateKeyException si le contenu est déjà favori de l'utilisateur
+     */
+    <S extends Favorite> S insert(S favorite);
+
+    /**
+     * Supprime des favoris par identifiant
+     * @param ids Identifiants des favoris
+     */
+    void deleteAllById(Iterable<? extends String> ids);
+
+    /**
+     * Supprime des favoris par identifiant, tous ou aucun : la suppression, dans une transaction, n'est
+     * validée que si le nombre de favoris supprimés est celui des identifiants
+     * @param ids Identifiants des favoris
+     * @return false si l'un d'eux a été supprimé entre-temps ou si la transaction n'a pas abouti
+     *         (conflit d'écriture, MongoDB sans replica set) : aucun favori n'est alors supprimé
+     */
+    boolean deleteAllByIdIfPresent(Collection<String> ids);
+
+    /**
+     * Insère les favoris en une seule écriture groupée non ordonnée. Les doublons sont rejetés
+     * par l'index unique user_content_idx sans interrompre l'insertion des autres éléments.
+     * @param favorites Favoris à insérer (les identifiants doivent être renseignés)
+     * @return Code d'erreur Mongo indexé par position des éléments rejetés (vide si tout est inséré)
+     */
+    Map<Integer, Integer> insertAllUnordered(List<Favorite> favorites);
+
+    /**
+     * Trouve en une seule requête les favoris correspondant à des couples utilisateur/contenu
+     * @param contentIdsByUser IDs de contenu indexés par ID d'utilisateur
+     * @return Favoris existants parmi les couples demandés
+     */
+    List<Favorite> findByUserContentPairs(Map<String, ? extends Collection<String>> contentIdsByUser);
+
+    /**
+     * Trouve une page des favoris d'un utilisateur, du plus récent au plus ancien (createdAt puis _id),
+     * en reprenant strictement après le dernier élément de la page précédente
+     * @param userId ID de l'utilisateur
+     * @param afterCreatedAt Date de création du dernier élément lu, null pour la première page
+     * @param afterId ID du dernier élément lu, null pour la première page
+     * @param limit Nombre maximum de favoris
+     * @return Favoris de la page, dans l'ordre de pagination
+     */
+    List<Favorite> findPageByUserId(String userId, LocalDateTime afterCreatedAt, String afterId, int limit);
+
+    /**
+     * Supprime atomiquement un favori et le renvoie, en un seul aller-retour
+     * @param userId ID de l'utilisateur
+     * @param contentId ID du contenu
+     * @return Le favori supprimé, vide s'il n'existait pas
+     */
+    Optional<Favorite> findAndRemoveByUserIdAndContentId(String userId, String contentId);
+}
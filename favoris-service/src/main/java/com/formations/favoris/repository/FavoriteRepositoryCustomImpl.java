@@ -0,0 +1,114 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import org.bson.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Délègue les opérations du repository à la disposition configurée
+ */
+public class FavoriteRepositoryCustomImpl implements FavoriteRepositoryCustom {
+
+    private static final Document CONTENT_ID_PROJECTION = Document.parse(FavoriteRepository.CONTENT_ID_FIELDS);
+    private static final Document ID_PROJECTION = Document.parse(FavoriteRepository.ID_FIELDS);
+    private static final Document SUMMARY_PROJECTION = Document.parse(FavoriteRepository.SUMMARY_FIELDS);
+
+    private final FavoriteStorage storage;
+
+    public FavoriteRepositoryCustomImpl(FavoriteStorage storage) {
+        this.storage = storage;
+    }
+
+    @Override
+    public List<Favorite> findByUserId(String userId) {
+        return storage.findByUserId(userId);
+    }
+
+    @Override
+    public List<Favorite> findByUserIdAndContentType(String userId, ContentType contentType) {
+        return storage.findByUserIdAndContentType(userId, contentType);
+    }
+
+    @Override
+    public boolean existsByUserIdAndContentId(String userId, String contentId) {
+        return storage.existsByUserIdAndContentId(userId, contentId);
+    }
+
+    @Override
+    public Optional<Favorite> findByUserIdAndContentId(String userId, String contentId) {
+        return storage.findByUserIdAndContentId(userId, contentId);
+    }
+
+    @Override
+    public void deleteByUserIdAndContentId(String userId, String contentId) {
+        storage.deleteByUserIdAndContentId(userId, contentId);
+    }
+
+    @Override
+    public List<Favorite> findContentIdsByUserId(String userId) {
+        return storage.findByUserId(userId, CONTENT_ID_PROJECTION);
+    }
+
+    @Override
+    public List<Favorite> findIdsByUserId(String userId) {
+        return storage.findByUserId(userId, ID_PROJECTION);
+    }
+
+    @Override
+    public List<Favorite> findSummariesByUserId(String userId) {
+        return storage.findByUserId(userId, SUMMARY_PROJECTION);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends Favorite> S save(S favorite) {
+        return (S) storage.save(favorite);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends Favorite> S insert(S favorite) {
+        return (S) storage.insert(favorite);
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        List<String> idList = new ArrayList<>();
+        ids.forEach(idList::add);
+        if (!idList.isEmpty()) {
+            storage.deleteAllById(idList);
+        }
+    }
+
+    @Override
+    public boolean deleteAllByIdIfPresent(Collection<String> ids) {
+        return ids.isEmpty() || storage.deleteAllByIdIfPresent(ids);
+    }
+
+    @Override
+    public Map<Integer, Integer> insertAllUnordered(List<Favorite> favorites) {
+        return storage.insertAllUnordered(favorites);
+    }
+
+    @Override
+    public List<Favorite> findByUserContentPairs(Map<String, ? extends Collection<String>> contentIdsByUser) {
+        return storage.findByUserContentPairs(contentIdsByUser);
+    }
+
+    @Override
+    public List<Favorite> findPageByUserId(String userId, LocalDateTime afterCreatedAt, String afterId, int limit) {
+        return storage.findPageByUserId(userId, afterCreatedAt, afterId, limit);
+    }
+
+    @Override
+    public Optional<Favorite> findAndRemoveByUserIdAndContentId(String userId, String contentId) {
+        return storage.findAndRemoveByUserIdAndContentId(userId, contentId);
+    }
+}
@@ -0,0 +1,103 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import org.bson.Document;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Disposition physique des favoris dans Mongo, sous {@link FavoriteRepository} : un document par
+ * favori ({@link DocumentFavoriteStorage}) ou des documents regroupant jusqu'à K favoris d'un même
+ * utilisateur ({@link BucketFavoriteStorage}). Les favoris renvoyés ont toujours la forme de
+ * {@link Favorite}, quelle que soit la disposition.
+ */
+public interface FavoriteStorage {
+
+    /**
+     * Collection où sont écrits les favoris (observée par le change stream)
+     */
+    String getCollectionName();
+
+    /**
+     * Crée les index de la disposition s'ils n'existent pas
+     */
+    void ensureIndexes();
+
+    List<Favorite> findByUserId(String userId);
+
+    /**
+     * Favoris d'un utilisateur limités aux champs demandés
+     * @param fields Projection au format Mongo sur les champs de {@link Favorite}
+     */
+    List<Favorite> findByUserId(String userId, Document fields);
+
+    List<Favorite> findByUserIdAndContentType(String userId, ContentType contentType);
+
+    boolean existsByUserIdAndContentId(String userId, String contentId);
+
+    Optional<Favorite> findByUserIdAndContentId(String userId, String contentId);
+
+    /**
+     * @see FavoriteRepositoryCustom#findPageByUserId
+     */
+    List<Favorite> findPageByUserId(String userId, LocalDateTime afterCreatedAt, String afterId, int limit);
+
+    /**
+     * @see FavoriteRepositoryCustom#findByUserContentPairs
+     */
+    List<Favorite> findByUserContentPairs(Map<String, ? extends Collection<String>> contentIdsByUser);
+
+    /**
+     * Insère un nouveau favori, dont l'identifiant est attribué s'il est absent
+     * @throws org.springframework.dao.DuplicateKeyException si le contenu est déjà favori de l'utilisateur
+     */
+    Favorite insert(Favorite favorite);
+
+    /**
+     * Insère un nouveau favori, ou remplace le favori de même identifiant
+     */
+    Favorite save(Favorite favorite);
+
+    /**
+     * @see FavoriteRepositoryCustom#insertAllUnordered
+     */
+    Map<Integer, Integer> insertAllUnordered(List<Favorite> favorites);
+
+    Optional<Favorite> findAndRemoveByUserIdAndContentId(String userId, String contentId);
+
+    void deleteByUserIdAndContentId(String userId, String contentId);
+
+    void deleteAllById(Collection<String> ids);
+
+    /**
+     * @see FavoriteRepositoryCustom#deleteAllByIdIfPresent
+     */
+    boolean deleteAllByIdIfPresent(Collection<String> ids);
+
+    /**
+     * Favoris triés par _id, pour l'export
+     * @param userId ID de l'utilisateur, null pour tous les favoris
+     * @param afterId Dernier _id déjà lu, null pour commencer au début
+     */
+    Stream<Favorite> stream(String userId, String afterId);
+
+    /**
+     * Utilisateurs ayant des favoris, triés, pour parcourir la collection par utilisateur
+     * @param afterUserId Dernier utilisateur lu, null pour commencer au début
+     * @param limit Nombre maximum d'utilisateurs
+     */
+    List<String> findUserIds(String afterUserId, int limit);
+
+    /**
+     * Recompte les favoris par contenu côté serveur ($group) et écrit le résultat ($merge) dans une collection
+     * de compteurs, dont le champ count de chaque contenu présent est remplacé
+     * @param collectionName Collection de compteurs cible, indexée par ID de contenu
+     */
+    void mergeCountsByContent(String collectionName);
+}
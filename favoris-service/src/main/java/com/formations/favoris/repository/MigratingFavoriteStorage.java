@@ -0,0 +1,208 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Migration en ligne entre deux dispositions : les lectures utilisent la disposition source, les
+ * écritures sont appliquées à la source puis recopiées dans la cible avec les mêmes identifiants.
+ *
+ * <p>Une recopie en échec n'échoue pas la requête : l'utilisateur est noté et resynchronisé par
+ * {@link com.formations.favoris.service.FavoriteStorageMigrationService}, qui recopie aussi les
+ * favoris écrits avant l'activation de la double écriture.</p>
+ */
+@Slf4j
+public class MigratingFavoriteStorage implements FavoriteStorage {
+
+    private final FavoriteStorage source;
+    private final FavoriteStorage target;
+    private final Set<String> usersToRepair = ConcurrentHashMap.newKeySet();
+
+    public MigratingFavoriteStorage(FavoriteStorage source, FavoriteStorage target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    public FavoriteStorage getSource() {
+        return source;
+    }
+
+    public FavoriteStorage getTarget() {
+        return target;
+    }
+
+    /**
+     * Retire et renvoie les utilisateurs dont une recopie a échoué depuis le dernier appel
+     */
+    public Set<String> drainUsersToRepair() {
+        Set<String> users = new HashSet<>(usersToRepair);
+        usersToRepair.removeAll(users);
+        return users;
+    }
+
+    @Override
+    public String getCollectionName() {
+        return source.getCollectionName();
+    }
+
+    @Override
+    public void ensureIndexes() {
+        source.ensureIndexes();
+        target.ensureIndexes();
+    }
+
+    @Override
+    public List<Favorite> findByUserId(String userId) {
+        return source.findByUserId(userId);
+    }
+
+    @Override
+    public List<Favorite> findByUserId(String userId, Document fields) {
+        return source.findByUserId(userId, fields);
+    }
+
+    @Override
+    public List<Favorite> findByUserIdAndContentType(String userId, ContentType contentType) {
+        return source.findByUserIdAndContentType(userId, contentType);
+    }
+
+    @Override
+    public boolean existsByUserIdAndContentId(String userId, String contentId) {
+        return source.existsByUserIdAndContentId(userId, contentId);
+    }
+
+    @Override
+    public Optional<Favorite> findByUserIdAndContentId(String userId, String contentId) {
+        return source.findByUserIdAndContentId(userId, contentId);
+    }
+
+    @Override
+    public List<Favorite> findPageByUserId(String userId, LocalDateTime afterCreatedAt, String afterId, int limit) {
+        return source.findPageByUserId(userId, afterCreatedAt, afterId, limit);
+    }
+
+    @Override
+    public List<Favorite> findByUserContentPairs(Map<String, ? extends Collection<String>> contentIdsByUser) {
+        return source.findByUserContentPairs(contentIdsByUser);
+    }
+
+    @Override
+    public Favorite insert(Favorite favorite) {
+        Favorite inserted = source.insert(favorite);
+        mirror(inserted.getUserId(), () -> {
+            try {
+                target.insert(inserted);
+            } catch (DuplicateKeyException e) {
+                // Déjà recopié par la migration
+            }
+        });
+        return inserted;
+    }
+
+    @Override
+    public Favorite save(Favorite favorite) {
+        Favorite saved = source.save(favorite);
+        mirror(saved.getUserId(), () -> target.save(saved));
+        return saved;
+    }
+
+    @Override
+    public Map<Integer, Integer> insertAllUnordered(List<Favorite> favorites) {
+        Map<Integer, Integer> errors = source.insertAllUnordered(favorites);
+        List<Favorite> inserted = new ArrayList<>(favorites.size());
+        for (int i = 0; i < favorites.size(); i++) {
+            if (!errors.containsKey(i)) {
+                inserted.add(favorites.get(i));
+            }
+        }
+        if (!inserted.isEmpty()) {
+            // Les doublons dans la cible sont des favoris déjà recopiés par la migration
+            Set<String> users = new HashSet<>();
+            inserted.forEach(favorite -> users.add(favorite.getUserId()));
+            mirror(users, () -> target.insertAllUnordered(inserted));
+        }
+        return errors;
+    }
+
+    @Override
+    public Optional<Favorite> findAndRemoveByUserIdAndContentId(String userId, String contentId) {
+        Optional<Favorite> removed = source.findAndRemoveByUserIdAndContentId(userId, contentId);
+        if (removed.isPresent()) {
+            mirror(userId, () -> target.deleteByUserIdAndContentId(userId, contentId));
+        }
+        return removed;
+    }
+
+    @Override
+    public void deleteByUserIdAndContentId(String userId, String contentId) {
+        source.deleteByUserIdAndContentId(userId, contentId);
+        mirror(userId, () -> target.deleteByUserIdAndContentId(userId, contentId));
+    }
+
+    @Override
+    public void deleteAllById(Collection<String> ids) {
+        source.deleteAllById(ids);
+        try {
+            target.deleteAllById(ids);
+        } catch (RuntimeException e) {
+            // Utilisateurs inconnus ici : la vérification de la migration retirera les favoris restants
+            log.warn("Échec de la recopie de la suppression de {} favoris: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean deleteAllByIdIfPresent(Collection<String> ids) {
+        if (!source.deleteAllByIdIfPresent(ids)) {
+            return false;
+        }
+        try {
+            target.deleteAllById(ids);
+        } catch (RuntimeException e) {
+            log.warn("Échec de la recopie de la suppression de {} favoris: {}", ids.size(), e.getMessage());
+        }
+        return true;
+    }
+
+    @Override
+    public Stream<Favorite> stream(String userId, String afterId) {
+        return source.stream(userId, afterId);
+    }
+
+    @Override
+    public List<String> findUserIds(String afterUserId, int limit) {
+        return source.findUserIds(afterUserId, limit);
+    }
+
+    @Override
+    public void mergeCountsByContent(String collectionName) {
+        source.mergeCountsByContent(collectionName);
+    }
+
+    private void mirror(String userId, Runnable write) {
+        mirror(Set.of(userId), write);
+    }
+
+    private void mirror(Set<String> userIds, Runnable write) {
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            log.warn("Échec de la recopie vers la disposition cible pour {} utilisateur(s), resynchronisation à la "
+                    + "prochaine migration: {}", userIds.size(), e.getMessage());
+            usersToRepair.addAll(userIds);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Équivalent réactif de {@link FavoriteRepository}, utilisé par le profil "reactive"
+ */
+@Repository
+public interface ReactiveFavoriteRepository extends ReactiveMongoRepository<Favorite, String> {
+
+    /**
+     * Trouve tous les favoris d'un utilisateur
+     * @param userId ID de l'utilisateur
+     * @return Favoris de l'utilisateur
+     */
+    Flux<Favorite> findByUserId(String userId);
+
+    /**
+     * Trouve les favoris d'un utilisateur par type de contenu
+     * @param userId ID de l'utilisateur
+     * @param contentType Type de contenu
+     * @return Favoris de l'utilisateur pour le type de contenu spécifié
+     */
+    Flux<Favorite> findByUserIdAndContentType(String userId, ContentType contentType);
+
+    /**
+     * Vérifie si un contenu est déjà favori pour un utilisateur
+     * @param userId ID de l'utilisateur
+     * @param contentId ID du contenu
+     * @return true si le contenu est déjà favori, false sinon
+     */
+    Mono<Boolean> existsByUserIdAndContentId(String userId, String contentId);
+}
@@ -0,0 +1,273 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.model.HotUserSnapshot;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Préchargement du cache {@code favorites} des utilisateurs les plus lus, pour éviter qu'après un
+ * déploiement ou un redémarrage de Redis la première lecture de chacun parte vers Mongo, au moment
+ * du pic de trafic.
+ *
+ * <p>Les utilisateurs les plus lus ({@link HotUserTracker}) sont enregistrés périodiquement et à
+ * l'arrêt dans la collection {@code cache_warmup}. Au démarrage, ils sont préchargés du plus lu au
+ * moins lu, avec un parallélisme et un débit bornés pour ne pas saturer Mongo ; l'instance n'est
+ * prête ({@code cacheWarmup} dans le groupe de santé readiness) qu'une fois la fraction demandée
+ * préchargée, ou à l'échéance du délai maximal.</p>
+ *
+ * <p>Un marqueur sans expiration est posé dans Redis et vérifié périodiquement. S'il a disparu,
+ * Redis a perdu ses données (redémarrage sans persistance, bascule vers un nœud vide) : l'instance
+ * qui le recrée recopie dans Redis les favoris de ses utilisateurs les plus lus. La disponibilité
+ * n'est pas retirée dans ce cas, toutes les instances étant touchées en même temps.</p>
+ */
+@Service
+@Slf4j
+public class CacheWarmupService {
+
+    static final String REDIS_MARKER_KEY = "favoris:warmup:marker";
+
+    private final HotUserTracker hotUserTracker;
+    private final FavoriteService favoriteService;
+    private final CacheManager cacheManager;
+    private final MongoTemplate mongoTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final String service;
+    private final int parallelism;
+    private final long intervalNanos;
+    private final double readyFraction;
+    private final Duration maxWait;
+
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "favoris-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger warmed = new AtomicInteger();
+    private final Object pacerLock = new Object();
+    private long nextSlot;
+
+    private volatile int startupTotal = -1;
+    private volatile boolean startupDone;
+    private volatile long startupDeadline;
+    private volatile boolean markerChecked;
+
+    public CacheWarmupService(HotUserTracker hotUserTracker,
+                              FavoriteService favoriteService,
+                              CacheManager cacheManager,
+                              MongoTemplate mongoTemplate,
+                              StringRedisTemplate redisTemplate,
+                              @Value("${favoris.cache.warmup.enabled:true}") boolean enabled,
+                              @Value("${spring.application.name}") String service,
+                              @Value("${favoris.cache.warmup.parallelism:4}") int parallelism,
+                              @Value("${favoris.cache.warmup.rate:200}") double rate,
+                              @Value("${favoris.cache.warmup.ready-fraction:0.8}") double readyFraction,
+                              @Value("${favoris.cache.warmup.max-wait:PT2M}") Duration maxWait) {
+        this.hotUserTracker = hotUserTracker;
+        this.favoriteService = favoriteService;
+        this.cacheManager = cacheManager;
+        this.mongoTemplate = mongoTemplate;
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.service = service;
+        this.parallelism = Math.max(1, parallelism);
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        this.readyFraction = readyFraction;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Précharge en arrière-plan les utilisateurs du dernier instantané
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            startupDone = true;
+            return;
+        }
+        List<String> userIds = loadSnapshot();
+        hotUserTracker.seed(userIds);
+        startupDeadline = System.nanoTime() + maxWait.toNanos();
+        startupTotal = userIds.size();
+        log.info("Préchargement du cache des favoris de {} utilisateurs", userIds.size());
+        coordinator.submit(() -> {
+            warm(userIds, false, warmed);
+            startupDone = true;
+        });
+    }
+
+    /**
+     * Vrai une fois la fraction demandée des utilisateurs préchargée, le préchargement terminé ou
+     * le délai maximal écoulé
+     */
+    public boolean isWarm() {
+        if (startupDone) {
+            return true;
+        }
+        int total = startupTotal;
+        if (total < 0) {
+            return false;
+        }
+        if (warmed.get() >= readyFraction * total || System.nanoTime() - startupDeadline >= 0) {
+            startupDone = true;
+        }
+        return startupDone;
+    }
+
+    public int getWarmedCount() {
+        return warmed.get();
+    }
+
+    public int getStartupTotal() {
+        return Math.max(startupTotal, 0);
+    }
+
+    /**
+     * Recrée le marqueur Redis ; s'il avait disparu, recopie les utilisateurs les plus lus dans Redis
+     */
+    @Scheduled(fixedDelayString = "${favoris.cache.warmup.redis-check-interval:PT10S}",
+               initialDelayString = "${favoris.cache.warmup.redis-check-interval:PT10S}")
+    public void checkRedis() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            boolean created = Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(REDIS_MARKER_KEY, service));
+            if (created && markerChecked) {
+                List<String> userIds = hotUserTracker.hottest();
+                log.warn("Redis a perdu ses données : recopie du cache des favoris de {} utilisateurs", userIds.size());
+                coordinator.submit(() -> warm(userIds, true, new AtomicInteger()));
+            }
+            markerChecked = true;
+        } catch (RuntimeException e) {
+            log.debug("Marqueur de préchargement illisible dans Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Enregistre les utilisateurs les plus lus pour le prochain démarrage
+     */
+    @Scheduled(fixedDelayString = "${favoris.cache.warmup.persist-interval:PT5M}",
+               initialDelayString = "${favoris.cache.warmup.persist-interval:PT5M}")
+    public void persistHotUsers() {
+        if (!enabled) {
+            return;
+        }
+        List<String> userIds = hotUserTracker.hottest();
+        if (userIds.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.save(HotUserSnapshot.builder()
+                    .service(service)
+                    .userIds(userIds)
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+            log.debug("Instantané des {} utilisateurs les plus lus enregistré", userIds.size());
+        } catch (RuntimeException e) {
+            log.warn("Impossible d'enregistrer les utilisateurs les plus lus: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        persistHotUsers();
+    }
+
+    /**
+     * Précharge les utilisateurs donnés, du premier au dernier, par {@code parallelism} threads au
+     * débit maximal configuré. Avec {@code reload}, une valeur déjà présente dans le cache local est
+     * réécrite dans Redis, vidé entre-temps.
+     *
+     * @param progress Compteur des utilisateurs préchargés
+     */
+    void warm(List<String> userIds, boolean reload, AtomicInteger progress) {
+        long start = System.nanoTime();
+        AtomicInteger cursor = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "favoris-warmup-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < parallelism; i++) {
+            workers.execute(() -> {
+                int index;
+                while ((index = cursor.getAndIncrement()) < userIds.size() && !Thread.currentThread().isInterrupted()) {
+                    awaitSlot();
+                    try {
+                        warmUser(userIds.get(index), reload);
+                        progress.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                        log.debug("Préchargement impossible pour l'utilisateur {}: {}", userIds.get(index), e.getMessage());
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("Préchargement terminé : {} utilisateurs en {} ms, {} échecs", userIds.size() - failures.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), failures.get());
+    }
+
+    private void warmUser(String userId, boolean reload) {
+        Cache cache = cacheManager.getCache(FavoriteCacheInvalidator.FAVORITES_CACHE);
+        // Niveau local, sinon Redis (recopié dans le niveau local)
+        Cache.ValueWrapper cached = cache != null ? cache.get(userId) : null;
+        if (cached == null) {
+            favoriteService.getUserFavorites(userId);
+        } else if (reload) {
+            cache.put(userId, cached.get());
+        }
+    }
+
+    /**
+     * Attend le prochain créneau du débit de préchargement, partagé par les threads
+     */
+    private void awaitSlot() {
+        long slot;
+        synchronized (pacerLock) {
+            slot = Math.max(nextSlot, System.nanoTime());
+            nextSlot = slot + intervalNanos;
+        }
+        long remaining;
+        while ((remaining = slot - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private List<String> loadSnapshot() {
+        try {
+            HotUserSnapshot snapshot = mongoTemplate.findById(service, HotUserSnapshot.class);
+            return snapshot != null && snapshot.getUserIds() != null ? snapshot.getUserIds() : List.of();
+        } catch (RuntimeException e) {
+            log.warn("Instantané des utilisateurs les plus lus illisible, démarrage sans préchargement: {}", e.getMessage());
+            return List.of();
+        }
+    }
+}
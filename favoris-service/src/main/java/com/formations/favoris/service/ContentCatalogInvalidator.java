@@ -0,0 +1,62 @@
+package com.formations.favoris.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Diffusion des mises à jour du catalogue de contenus : chaque instance retire le contenu modifié
+ * de son cache local de métadonnées, et l'époque des versions de favoris est incrémentée pour que
+ * les clients ne gardent pas, sous un ETag toujours valide, une liste aux anciennes métadonnées.
+ *
+ * <p>Le message est publié sur un canal Redis pub/sub ; les messages émis par l'instance courante
+ * sont ignorés à la réception. Une requête servie par une autre instance avant la réception du
+ * message peut encore porter les anciennes métadonnées sous le nouvel ETag : le TTL du cache local
+ * du catalogue borne cet écart, comme pour les caches de favoris.</p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContentCatalogInvalidator implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "favoris:catalog-invalidation";
+
+    private static final String SEPARATOR = "|";
+
+    private final ContentCatalogService contentCatalogService;
+    private final FavoriteVersionService versionService;
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * Diffuse la mise à jour d'un contenu du catalogue, après son écriture en base
+     *
+     * @param contentId ID du contenu modifié
+     * @throws RuntimeException si l'ETag des listes n'a pas pu être changé
+     */
+    public void invalidate(String contentId) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + SEPARATOR + contentId);
+        } catch (RuntimeException e) {
+            // Le TTL local borne la péremption si la diffusion échoue
+            log.warn("Impossible de diffuser la mise à jour du contenu {} du catalogue: {}", contentId, e.getMessage());
+        }
+        versionService.bumpAll();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\" + SEPARATOR, 2);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        log.debug("Invalidation distante du contenu '{}' du catalogue local", parts[1]);
+        contentCatalogService.evictLocal(parts[1]);
+    }
+}
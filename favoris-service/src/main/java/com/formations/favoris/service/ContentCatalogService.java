@@ -0,0 +1,260 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.dto.FavoritePageDto;
+import com.formations.favoris.dto.UpdateContentMetadataRequest;
+import com.formations.favoris.model.ContentMetadata;
+import com.formations.favoris.repository.ContentMetadataRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Catalogue partagé des métadonnées de contenu (titre, description, vignette), dans la collection
+ * {@code content_catalog}.
+ *
+ * <p>Les favoris ne stockent plus que la référence du contenu : un cours enregistré par des milliers
+ * d'utilisateurs n'a qu'un titre et une description en base, et les listes mises en cache ne les
+ * contiennent plus. Les réponses sont complétées à la lecture par une seule lecture groupée par
+ * liste, servie par un cache local borné (éviction des contenus les moins utilisés). Les favoris
+ * écrits avant la normalisation gardent leurs propres métadonnées, utilisées tant que le contenu
+ * n'est pas au catalogue.</p>
+ *
+ * <p>Les métadonnées sont celles du premier ajout en favori valide du contenu : un ajout ultérieur,
+ * quel que soit l'utilisateur, ne les modifie pas. Les métadonnées envoyées par un client ne sont
+ * enregistrées que si elles sont valides (longueurs bornées, pas de caractère de contrôle, vignette
+ * en https sur un hôte autorisé), et pas du tout si l'enregistrement par les clients est désactivé :
+ * le catalogue n'est alors alimenté que par la mise à jour d'administration ({@link #update}).
+ * Celle-ci remplace les métadonnées ; {@link ContentCatalogInvalidator} la diffuse aux autres
+ * instances et change l'ETag des listes.</p>
+ */
+@Service
+@Slf4j
+public class ContentCatalogService {
+
+    static final int TITLE_MAX_LENGTH = 200;
+    static final int DESCRIPTION_MAX_LENGTH = 2_000;
+
+    private final ContentMetadataRepository contentMetadataRepository;
+    private final Cache<String, ContentMetadata> cache;
+    private final boolean clientRegistration;
+    private final Set<String> thumbnailHosts;
+
+    /**
+     * @param clientRegistration Enregistrement au catalogue des métadonnées envoyées à l'ajout d'un favori
+     * @param thumbnailHosts Hôtes autorisés pour les vignettes envoyées par les clients (vide : tout hôte https)
+     */
+    public ContentCatalogService(ContentMetadataRepository contentMetadataRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${favoris.catalog.cache-maximum-size:50000}") long cacheMaximumSize,
+                                 @Value("${favoris.catalog.cache-time-to-live:PT10M}") Duration cacheTtl,
+                                 @Value("${favoris.catalog.client-registration:true}") boolean clientRegistration,
+                                 @Value("${favoris.catalog.thumbnail-hosts:}") Set<String> thumbnailHosts) {
+        this.contentMetadataRepository = contentMetadataRepository;
+        this.clientRegistration = clientRegistration;
+        this.thumbnailHosts = thumbnailHosts;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "contentCatalog");
+    }
+
+    /**
+     * Enregistre au catalogue les métadonnées des contenus ajoutés en favori qui n'y sont pas encore,
+     * en une seule écriture (aucune si tous sont connus). Un contenu déjà au catalogue, même
+     * enregistré entre-temps par une autre instance, garde ses métadonnées. Les métadonnées invalides
+     * sont ignorées : le contenu reste absent du catalogue.
+     *
+     * @param requests Ajouts de favoris ; pour un contenu répété, le premier valide l'emporte
+     */
+    public void registerAll(Collection<AddFavoriteRequest> requests) {
+        if (!clientRegistration) {
+            return;
+        }
+        Map<String, ContentMetadata> incoming = new LinkedHashMap<>();
+        for (AddFavoriteRequest request : requests) {
+            if (!isValid(request)) {
+                log.warn("Métadonnées du contenu {} refusées au catalogue", request.getContentId());
+                continue;
+            }
+            incoming.putIfAbsent(request.getContentId(), ContentMetadata.builder()
+                    .contentId(request.getContentId())
+                    .contentType(request.getContentType())
+                    .title(request.getTitle())
+                    .description(request.getDescription())
+                    .thumbnailUrl(request.getThumbnailUrl())
+                    .build());
+        }
+        if (incoming.isEmpty()) {
+            return;
+        }
+
+        Map<String, ContentMetadata> current = getAll(incoming.keySet());
+        List<ContentMetadata> added = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (ContentMetadata metadata : incoming.values()) {
+            if (!isKnown(current.get(metadata.getContentId()))) {
+                metadata.setUpdatedAt(now);
+                added.add(metadata);
+            }
+        }
+        if (!added.isEmpty()) {
+            log.debug("Enregistrement de {} contenus au catalogue", added.size());
+            contentMetadataRepository.insertAllIfAbsent(added);
+            // Relus à la prochaine lecture : une autre instance a pu les enregistrer la première
+            cache.invalidateAll(added.stream().map(ContentMetadata::getContentId).toList());
+        }
+    }
+
+    public void register(AddFavoriteRequest request) {
+        registerAll(List.of(request));
+    }
+
+    /**
+     * Remplace les métadonnées d'un contenu du catalogue (administration)
+     *
+     * @param contentId ID du contenu
+     * @param request Nouvelles métadonnées
+     * @return Métadonnées enregistrées
+     */
+    public ContentMetadata update(String contentId, UpdateContentMetadataRequest request) {
+        ContentMetadata metadata = ContentMetadata.builder()
+                .contentId(contentId)
+                .contentType(request.getContentType())
+                .title(request.getTitle())
+                .description(request.getDescription())
+                .thumbnailUrl(request.getThumbnailUrl())
+                .updatedAt(LocalDateTime.now())
+                .build();
+        ContentMetadata saved = contentMetadataRepository.save(metadata);
+        cache.put(contentId, saved);
+        log.info("Métadonnées du contenu {} mises à jour au catalogue", contentId);
+        return saved;
+    }
+
+    /**
+     * Retire un contenu du cache local, relu du catalogue à la prochaine lecture
+     */
+    public void evictLocal(String contentId) {
+        cache.invalidate(contentId);
+    }
+
+    /**
+     * Récupère les métadonnées de plusieurs contenus : cache local, puis une seule requête pour les absents
+     *
+     * @param contentIds IDs des contenus
+     * @return Métadonnées par ID ; un contenu absent du catalogue a une entrée sans titre
+     */
+    public Map<String, ContentMetadata> getAll(Collection<String> contentIds) {
+        return cache.getAll(contentIds, this::load);
+    }
+
+    /**
+     * Complète une liste de favoris avec les métadonnées du catalogue, sans modifier la liste
+     * reçue (elle peut être l'entrée d'un cache local)
+     *
+     * @param favorites Favoris ne portant que la référence du contenu
+     * @return Nouvelle liste de favoris avec titre, description et vignette
+     */
+    public List<FavoriteDto> hydrate(List<FavoriteDto> favorites) {
+        if (favorites.isEmpty()) {
+            return favorites;
+        }
+        Set<String> contentIds = new LinkedHashSet<>();
+        favorites.forEach(favorite -> contentIds.add(favorite.getContentId()));
+        Map<String, ContentMetadata> catalog = getAll(contentIds);
+
+        List<FavoriteDto> hydrated = new ArrayList<>(favorites.size());
+        for (FavoriteDto favorite : favorites) {
+            ContentMetadata metadata = catalog.get(favorite.getContentId());
+            hydrated.add(isKnown(metadata) ? withMetadata(favorite, metadata) : favorite);
+        }
+        return hydrated;
+    }
+
+    public FavoritePageDto hydrate(FavoritePageDto page) {
+        return FavoritePageDto.builder()
+                .items(hydrate(page.getItems()))
+                .nextCursor(page.getNextCursor())
+                .hasMore(page.isHasMore())
+                .build();
+    }
+
+    /**
+     * Vrai si le contenu est au catalogue (les favoris antérieurs gardent sinon leurs métadonnées)
+     */
+    static boolean isKnown(ContentMetadata metadata) {
+        return metadata != null && metadata.getTitle() != null;
+    }
+
+    /**
+     * Métadonnées envoyées par un client acceptables au catalogue partagé
+     */
+    boolean isValid(AddFavoriteRequest request) {
+        return isText(request.getTitle(), TITLE_MAX_LENGTH, false) && !request.getTitle().isBlank()
+                && (request.getDescription() == null || isText(request.getDescription(), DESCRIPTION_MAX_LENGTH, true))
+                && (request.getThumbnailUrl() == null || isTrustedThumbnail(request.getThumbnailUrl()));
+    }
+
+    private static boolean isText(String value, int maxLength, boolean multiline) {
+        return value != null && value.length() <= maxLength && value.chars().noneMatch(c ->
+                Character.isISOControl(c) && !(multiline && Character.isWhitespace(c)));
+    }
+
+    private boolean isTrustedThumbnail(String thumbnailUrl) {
+        try {
+            URI uri = new URI(thumbnailUrl);
+            return "https".equalsIgnoreCase(uri.getScheme()) && uri.getHost() != null
+                    && (thumbnailHosts.isEmpty() || thumbnailHosts.contains(uri.getHost().toLowerCase(Locale.ROOT)));
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    private Map<String, ContentMetadata> load(Set<? extends String> contentIds) {
+        Map<String, ContentMetadata> loaded = new HashMap<>();
+        for (ContentMetadata metadata : contentMetadataRepository.findAllById(new ArrayList<>(contentIds))) {
+            loaded.put(metadata.getContentId(), metadata);
+        }
+        // Contenus absents mis en cache aussi, pour ne pas les relire à chaque liste
+        for (String contentId : contentIds) {
+            loaded.computeIfAbsent(contentId, id -> ContentMetadata.builder().contentId(id).build());
+        }
+        return loaded;
+    }
+
+    private static FavoriteDto withMetadata(FavoriteDto favorite, ContentMetadata metadata) {
+        return FavoriteDto.builder()
+                .id(favorite.getId())
+                .userId(favorite.getUserId())
+                .contentId(favorite.getContentId())
+                .contentType(favorite.getContentType())
+                .title(metadata.getTitle())
+                .description(metadata.getDescription())
+                .thumbnailUrl(metadata.getThumbnailUrl())
+                .createdAt(favorite.getCreatedAt())
+                .updatedAt(favorite.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.ContentTypeMigrationResultDto;
+import com.formations.favoris.model.ContentMetadata;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.model.FavoriteBucket;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Normalisation des types de contenu stockés avant leur validation : les valeurs qui ne diffèrent
+ * d'un {@link ContentType} que par la casse ou des espaces sont réécrites avec son nom, dans les
+ * favoris (par document et par buckets) et le catalogue des contenus.
+ *
+ * <p>Une requête {@code updateMany} par valeur distincte, exécutée par Mongo : la migration peut
+ * être relancée sans effet une fois terminée. Les documents dont la valeur ne correspond à aucun
+ * type sont déplacés en quarantaine dans {@code <collection>_quarantine} (les favoris d'un bucket
+ * dans la quarantaine des favoris, sous la forme d'un favori par document) : d'ici là, le service
+ * les lit sans type ({@code StoredContentTypeConverter}), et une relecture ou une réécriture par
+ * une migration de disposition perdrait la valeur d'origine.</p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContentTypeMigrationService {
+
+    private static final String ITEMS = "items";
+    private static final String QUARANTINE_SUFFIX = "_quarantine";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Normalise les types de contenu de toutes les collections
+     *
+     * @return Valeurs réécrites et valeurs inconnues
+     */
+    public ContentTypeMigrationResultDto normalize() {
+        ContentTypeMigrationResultDto result = ContentTypeMigrationResultDto.builder()
+                .normalizedValues(new TreeMap<>())
+                .unknownValues(new TreeMap<>())
+                .build();
+        String favoritesCollection = mongoTemplate.getCollectionName(Favorite.class);
+        String catalogCollection = mongoTemplate.getCollectionName(ContentMetadata.class);
+        normalizeField(favoritesCollection, false, favoritesCollection + QUARANTINE_SUFFIX, result);
+        normalizeField(mongoTemplate.getCollectionName(FavoriteBucket.class), true,
+                favoritesCollection + QUARANTINE_SUFFIX, result);
+        normalizeField(catalogCollection, false, catalogCollection + QUARANTINE_SUFFIX, result);
+        log.info("Types de contenu normalisés: {} documents, valeurs inconnues mises en quarantaine: {}",
+                result.getDocumentsNormalized(), result.getUnknownValues());
+        return result;
+    }
+
+    private void normalizeField(String collectionName, boolean bucket, String quarantine,
+                                ContentTypeMigrationResultDto result) {
+        if (!mongoTemplate.collectionExists(collectionName)) {
+            return;
+        }
+        MongoCollection<Document> collection = mongoTemplate.getCollection(collectionName);
+        String field = bucket ? ITEMS + ".contentType" : "contentType";
+        for (BsonValue value : collection.distinct(field, BsonValue.class)) {
+            if (!value.isString()) {
+                continue;
+            }
+            String stored = value.asString().getValue();
+            ContentType type = ContentType.parse(stored);
+            if (type == null) {
+                long quarantined = bucket
+                        ? quarantineBucketItems(collection, stored, quarantine)
+                        : quarantineDocuments(collection, stored, quarantine);
+                log.warn("Type de contenu inconnu '{}': {} documents de {} mis en quarantaine dans {}",
+                        stored, quarantined, collectionName, quarantine);
+                result.getUnknownValues().merge(stored, quarantined, Long::sum);
+            } else if (!type.name().equals(stored)) {
+                long modified = bucket
+                        // Seuls les favoris du bucket ayant cette valeur sont réécrits
+                        ? collection.updateMany(Filters.eq(field, stored),
+                                Updates.set(ITEMS + ".$[item].contentType", type.name()),
+                                new UpdateOptions().arrayFilters(List.of(Filters.eq("item.contentType", stored))))
+                                .getModifiedCount()
+                        : collection.updateMany(Filters.eq(field, stored), Updates.set(field, type.name()))
+                                .getModifiedCount();
+                log.info("Type de contenu '{}' réécrit en {} dans {} documents de {}", stored, type, modified, collectionName);
+                result.getNormalizedValues().put(stored, type.name());
+                result.setDocumentsNormalized(result.getDocumentsNormalized() + modified);
+            }
+        }
+    }
+
+    /**
+     * Copie les documents de ce type dans la quarantaine (par _id : une copie déjà faite par une
+     * exécution interrompue est remplacée) puis les supprime
+     *
+     * @return nombre de documents supprimés
+     */
+    private static long quarantineDocuments(MongoCollection<Document> collection, String stored, String quarantine) {
+        collection.aggregate(List.of(
+                        Aggregates.match(Filters.eq("contentType", stored)),
+                        Aggregates.merge(quarantine)))
+                .toCollection();
+        return collection.deleteMany(Filters.eq("contentType", stored)).getDeletedCount();
+    }
+
+    /**
+     * Copie les favoris de ce type de chaque bucket dans la quarantaine, avec le userId du bucket,
+     * puis les retire des buckets en recalculant leur nombre de favoris
+     *
+     * @return nombre de favoris mis en quarantaine
+     */
+    private static long quarantineBucketItems(MongoCollection<Document> collection, String stored, String quarantine) {
+        String field = ITEMS + ".contentType";
+        long items = 0;
+        for (Document count : collection.aggregate(List.of(
+                Aggregates.match(Filters.eq(field, stored)),
+                Aggregates.unwind("$" + ITEMS),
+                Aggregates.match(Filters.eq(field, stored)),
+                Aggregates.count()))) {
+            items = count.get("count", Number.class).longValue();
+        }
+        collection.aggregate(List.of(
+                        Aggregates.match(Filters.eq(field, stored)),
+                        Aggregates.unwind("$" + ITEMS),
+                        Aggregates.match(Filters.eq(field, stored)),
+                        Aggregates.replaceRoot(new Document("$mergeObjects",
+                                List.of("$" + ITEMS, new Document("userId", "$userId")))),
+                        Aggregates.merge(quarantine)))
+                .toCollection();
+        collection.updateMany(Filters.eq(field, stored), List.of(
+                new Document("$set", new Document(ITEMS, new Document("$filter", new Document("input", "$" + ITEMS)
+                        .append("cond", new Document("$ne", List.of("$$this.contentType", stored)))))),
+                new Document("$set", new Document("count", new Document("$size", "$" + ITEMS)))));
+        return items;
+    }
+}
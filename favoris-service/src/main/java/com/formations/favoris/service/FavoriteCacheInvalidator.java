@@ -0,0 +1,125 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.config.TwoTierCache;
+import com.formations.favoris.model.ContentType;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Invalidation programmatique des caches de favoris d'un utilisateur après une écriture.
+ * La version des favoris de l'utilisateur (ETag des listes) n'est changée qu'une fois ses caches
+ * invalidés : un client qui lit la nouvelle version ne peut plus recevoir l'ancienne liste.
+ *
+ * <p>Le niveau local des autres instances n'est invalidé que par une diffusion qui peut se perdre.
+ * Chaque instance retient donc la dernière version lue de chaque utilisateur et, quand la version
+ * a changé depuis, vide le niveau local de ses caches avant de servir la liste : une liste servie
+ * avec un ETag n'est jamais antérieure à la version qu'il désigne.</p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FavoriteCacheInvalidator {
+
+    static final String FAVORITES_CACHE = "favorites";
+    static final String FAVORITES_BY_TYPE_CACHE = "favoritesByType";
+    static final String FAVORITES_HEAD_CACHE = FavoritePageService.HEAD_CACHE;
+    static final String FAVORITES_IDS_CACHE = FavoriteSummaryService.IDS_CACHE;
+    static final String FAVORITES_SUMMARY_CACHE = FavoriteSummaryService.SUMMARY_CACHE;
+
+    /**
+     * Utilisateurs dont la dernière version lue est retenue ; un utilisateur oublié voit simplement
+     * son niveau local vidé à la lecture suivante
+     */
+    private static final long SEEN_VERSIONS_MAXIMUM_SIZE = 100_000;
+
+    private final CacheManager cacheManager;
+    private final FavoriteVersionService versionService;
+    private final com.github.benmanes.caffeine.cache.Cache<String, String> seenETags = Caffeine.newBuilder()
+            .maximumSize(SEEN_VERSIONS_MAXIMUM_SIZE)
+            .build();
+
+    /**
+     * Renvoie l'ETag de la version courante des favoris d'un utilisateur, à lire avant ses listes.
+     * Si la version a changé depuis la dernière lecture sur cette instance (diffusion d'une
+     * invalidation perdue, ou utilisateur pas encore vu), le niveau local de ses caches est vidé :
+     * ses listes sont relues dans Redis, invalidé avant chaque changement de version.
+     *
+     * @param userId ID de l'utilisateur
+     * @return ETag entre guillemets, ou null si la version n'a pas pu être lue
+     */
+    public String getETag(String userId) {
+        String eTag = versionService.getETag(userId);
+        if (eTag != null && !eTag.equals(seenETags.asMap().put(userId, eTag))) {
+            evictUserLocally(userId);
+        }
+        return eTag;
+    }
+
+    /**
+     * Invalide la liste complète d'un utilisateur, ses listes légères, sa première page et ses
+     * listes pour les types de contenu donnés
+     *
+     * @param userId ID de l'utilisateur
+     * @param contentTypes Types de contenu modifiés (null pour un type stocké inconnu, sans liste par type)
+     */
+    public void evictUser(String userId, Collection<ContentType> contentTypes) {
+        log.debug("Invalidation des caches de l'utilisateur: {} (types: {})", userId, contentTypes);
+        evict(FAVORITES_CACHE, userId);
+        evict(FAVORITES_HEAD_CACHE, userId);
+        evict(FAVORITES_IDS_CACHE, userId);
+        evict(FAVORITES_SUMMARY_CACHE, userId);
+        for (ContentType contentType : contentTypes) {
+            if (contentType != null) {
+                evict(FAVORITES_BY_TYPE_CACHE, contentType.cacheKey(userId));
+            }
+        }
+        versionService.bump(userId);
+    }
+
+    /**
+     * Vide tous les caches de favoris, quand les utilisateurs concernés par une écriture ne sont
+     * pas connus (suppression sans image préalable, collection supprimée, événements perdus)
+     */
+    public void evictAll() {
+        log.info("Invalidation de tous les caches de favoris");
+        for (String cacheName : List.of(FAVORITES_CACHE, FAVORITES_BY_TYPE_CACHE, FAVORITES_HEAD_CACHE,
+                FavoritePageService.PAGES_CACHE, FAVORITES_IDS_CACHE, FAVORITES_SUMMARY_CACHE)) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        versionService.bumpAll();
+    }
+
+    private void evictUserLocally(String userId) {
+        evictLocal(FAVORITES_CACHE, userId);
+        evictLocal(FAVORITES_HEAD_CACHE, userId);
+        evictLocal(FAVORITES_IDS_CACHE, userId);
+        evictLocal(FAVORITES_SUMMARY_CACHE, userId);
+        for (ContentType contentType : ContentType.values()) {
+            evictLocal(FAVORITES_BY_TYPE_CACHE, contentType.cacheKey(userId));
+        }
+    }
+
+    private void evictLocal(String cacheName, String key) {
+        // Sans niveau local, Redis est seul servi : rien à revalider
+        if (cacheManager.getCache(cacheName) instanceof TwoTierCache cache) {
+            cache.evictLocal(key);
+        }
+    }
+
+    private void evict(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
@@ -0,0 +1,493 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.model.ChangeStreamToken;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.repository.FavoriteStorage;
+import com.mongodb.MongoException;
+import com.mongodb.MongoServerException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invalidation des caches de favoris à partir du change stream de la collection des favoris
+ * ({@code favorites}, ou {@code favorite_buckets} dans la disposition par buckets), activée par {@code favoris.cache.change-stream.enabled} (replica set ou cluster Atlas requis).
+ *
+ * <p>Toute écriture est prise en compte, y compris celles des scripts, des outils d'administration
+ * ou d'autres services qui ne passent pas par {@link FavoriteService}. Les caches de l'utilisateur
+ * concerné sont invalidés pour l'ancien et le nouvel état du document. Les images préalables de la
+ * collection sont exigées au démarrage ({@code collMod}, ou simple vérification avec
+ * {@code favoris.cache.change-stream.enable-pre-images=false}) : sans elles, chaque suppression
+ * viderait tous les caches de favoris. Seul un événement dont l'image préalable n'est plus disponible
+ * (purgée avant lecture) vide encore tous les caches. Dans la disposition par buckets, l'utilisateur
+ * d'un bucket ne change jamais : un retrait sans image préalable invalide toutes les listes de cet
+ * utilisateur, les types des favoris retirés étant inconnus.</p>
+ *
+ * <p>Une seule instance consomme le flux : elle tient un bail dans {@code change_stream_tokens},
+ * renouvelé avec l'enregistrement périodique du jeton de reprise. Ses invalidations atteignent le
+ * niveau local des autres instances par la diffusion de {@link com.formations.favoris.config.TwoTierCacheManager}.
+ * Les autres instances attendent l'expiration du bail et reprennent le flux au dernier jeton
+ * enregistré ; le cache local d'une instance redémarrée est vide, seul Redis doit rattraper les
+ * événements manqués. Si le jeton est sorti de l'oplog, les caches sont vidés et le flux repart de
+ * l'instant présent.</p>
+ *
+ * <p>Les méthodes de {@link FavoriteService} continuent d'invalider les caches de façon synchrone :
+ * un client relit ainsi immédiatement sa propre écriture, sans attendre le change stream.</p>
+ */
+@Component
+@Slf4j
+public class FavoriteChangeStreamListener {
+
+    /**
+     * Codes d'erreur Mongo d'une reprise impossible (ChangeStreamFatalError, ChangeStreamHistoryLost)
+     */
+    private static final Set<Integer> RESUME_FAILED_ERRORS = Set.of(280, 286);
+
+    private static final String ITEMS = "items";
+
+    private final MongoTemplate mongoTemplate;
+    private final FavoriteStorage favoriteStorage;
+    private final FavoriteCacheInvalidator cacheInvalidator;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final String consumer;
+    private final boolean enablePreImages;
+    private final long tokenSaveIntervalNanos;
+    private final Duration retryDelay;
+    private final Duration leaseDuration;
+    private final long leaseRenewIntervalNanos;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Timer lag;
+    private final Counter fullEvictions;
+
+    private volatile boolean running;
+    private Thread watcher;
+    private BsonDocument resumeToken;
+    private BsonDocument savedToken;
+    private long lastSaveNanos;
+
+    public FavoriteChangeStreamListener(MongoTemplate mongoTemplate,
+                                        FavoriteStorage favoriteStorage,
+                                        FavoriteCacheInvalidator cacheInvalidator,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${favoris.cache.change-stream.enabled:false}") boolean enabled,
+                                        @Value("${favoris.cache.change-stream.consumer:${spring.application.name}}") String consumer,
+                                        @Value("${favoris.cache.change-stream.enable-pre-images:true}") boolean enablePreImages,
+                                        @Value("${favoris.cache.change-stream.token-save-interval:PT1S}") Duration tokenSaveInterval,
+                                        @Value("${favoris.cache.change-stream.retry-delay:PT5S}") Duration retryDelay,
+                                        @Value("${favoris.cache.change-stream.lease-duration:PT30S}") Duration leaseDuration) {
+        this.mongoTemplate = mongoTemplate;
+        this.favoriteStorage = favoriteStorage;
+        this.cacheInvalidator = cacheInvalidator;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.consumer = consumer;
+        this.enablePreImages = enablePreImages;
+        this.tokenSaveIntervalNanos = tokenSaveInterval.toNanos();
+        this.retryDelay = retryDelay;
+        this.leaseDuration = leaseDuration;
+        this.leaseRenewIntervalNanos = leaseDuration.toNanos() / 3;
+
+        this.lag = Timer.builder("favoris.change_stream.lag")
+                .description("Délai entre une écriture Mongo et l'invalidation des caches")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.fullEvictions = Counter.builder("favoris.change_stream.full_evictions")
+                .description("Invalidations de tous les caches faute de connaître l'utilisateur concerné")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (enablePreImages) {
+            enablePreImages();
+        } else {
+            checkPreImages();
+        }
+        running = true;
+        watcher = new Thread(this::runWatcher, "favoris-change-stream");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Invalidation des caches par change stream activée sur {} (instance {})",
+                favoriteStorage.getCollectionName(), instanceId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        try {
+            watcher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWatcher() {
+        boolean leader = false;
+        while (running) {
+            if (!acquireLease(leader)) {
+                leader = false;
+                pause();
+                continue;
+            }
+            leader = true;
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openCursor()) {
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null) {
+                        onChange(change);
+                    }
+                    // Jeton avancé même sans événement, pour ne pas sortir de l'oplog en période creuse
+                    resumeToken = cursor.getResumeToken();
+                    if (change != null && change.getOperationType() == OperationType.INVALIDATE) {
+                        // Flux clos (collection supprimée ou renommée) : caches déjà vidés, reprise à l'instant présent
+                        resetToken();
+                        break;
+                    }
+                    if (!saveToken(false)) {
+                        // Bail repris par une autre instance : elle poursuit le flux à partir du dernier jeton
+                        log.warn("Bail du change stream perdu, consommation laissée à une autre instance");
+                        leader = false;
+                        break;
+                    }
+                }
+            } catch (MongoServerException e) {
+                if (RESUME_FAILED_ERRORS.contains(e.getCode())) {
+                    log.warn("Reprise du change stream impossible, invalidation de tous les caches: {}", e.getMessage());
+                    resetToken();
+                    evictAll();
+                } else {
+                    retryLater(e);
+                }
+            } catch (MongoException e) {
+                retryLater(e);
+            } catch (RuntimeException e) {
+                log.error("Erreur inattendue du change stream des favoris", e);
+                retryLater(e);
+            }
+        }
+        if (leader && saveToken(true)) {
+            releaseLease();
+        }
+    }
+
+    /**
+     * Prend ou renouvelle le bail du flux. À chaque prise, le flux reprend au jeton enregistré par
+     * le précédent titulaire
+     *
+     * @param leader l'instance tenait déjà le bail
+     * @return true si l'instance tient le bail
+     */
+    private boolean acquireLease(boolean leader) {
+        Instant now = Instant.now();
+        Query available = Query.query(Criteria.where("_id").is(consumer).orOperator(
+                Criteria.where("owner").is(instanceId),
+                Criteria.where("owner").exists(false),
+                Criteria.where("leaseExpiresAt").lt(now)));
+        Update take = new Update().set("owner", instanceId).set("leaseExpiresAt", now.plus(leaseDuration));
+        ChangeStreamToken lease;
+        try {
+            lease = mongoTemplate.findAndModify(available, take,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), ChangeStreamToken.class);
+        } catch (DuplicateKeyException e) {
+            return false; // bail tenu par une autre instance
+        } catch (DataAccessException e) {
+            log.warn("Impossible de prendre le bail du change stream: {}", e.getMessage());
+            return false;
+        }
+        if (lease == null) {
+            return false;
+        }
+        lastSaveNanos = System.nanoTime();
+        if (!leader) {
+            resumeToken = lease.getResumeToken() != null ? BsonDocument.parse(lease.getResumeToken()) : null;
+            savedToken = resumeToken;
+            log.info("Bail du change stream pris par l'instance {} ({})", instanceId,
+                    resumeToken != null ? "reprise au jeton du " + lease.getUpdatedAt() : "à partir de maintenant");
+        }
+        return true;
+    }
+
+    private void releaseLease() {
+        try {
+            mongoTemplate.updateFirst(ownLease(), new Update().unset("owner").unset("leaseExpiresAt"),
+                    ChangeStreamToken.class);
+        } catch (DataAccessException e) {
+            log.warn("Impossible de libérer le bail du change stream: {}", e.getMessage());
+        }
+    }
+
+    private Query ownLease() {
+        return Query.query(Criteria.where("_id").is(consumer).and("owner").is(instanceId));
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openCursor() {
+        // Seuls les champs utiles à l'invalidation sont transmis, pas les documents complets
+        ChangeStreamIterable<Document> changeStream = mongoTemplate.getCollection(favoriteStorage.getCollectionName())
+                .watch(List.of(Aggregates.project(Projections.include(
+                        "operationType", "clusterTime", "documentKey", "updateDescription",
+                        "fullDocument.userId", "fullDocument.contentType", "fullDocument.items.contentType",
+                        "fullDocumentBeforeChange.userId", "fullDocumentBeforeChange.contentType",
+                        "fullDocumentBeforeChange.items.contentType"))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) {
+            changeStream = changeStream.resumeAfter(resumeToken);
+        }
+        return changeStream.cursor();
+    }
+
+    /**
+     * Invalide les caches touchés par un événement du change stream
+     */
+    void onChange(ChangeStreamDocument<Document> change) {
+        OperationType operation = change.getOperationType();
+        Counter.builder("favoris.change_stream.events")
+                .description("Événements du change stream des favoris")
+                .tag("operation", operation.getValue())
+                .register(meterRegistry)
+                .increment();
+        BsonTimestamp clusterTime = change.getClusterTime();
+        if (clusterTime != null) {
+            lag.record(Math.max(0, System.currentTimeMillis() - clusterTime.getTime() * 1000L), TimeUnit.MILLISECONDS);
+        }
+
+        switch (operation) {
+            case INSERT, UPDATE, REPLACE, DELETE -> evictDocumentChange(change);
+            default -> {
+                // Collection supprimée ou renommée, base supprimée, flux invalidé
+                log.info("Événement {} sur la collection des favoris", operation.getValue());
+                evictAll();
+            }
+        }
+    }
+
+    private void evictDocumentChange(ChangeStreamDocument<Document> change) {
+        Document before = change.getFullDocumentBeforeChange();
+        Document after = change.getFullDocument();
+        // Bucket modifié sans image préalable : son utilisateur ne change jamais, mais les types des
+        // favoris retirés sont inconnus, toutes ses listes par type sont invalidées
+        boolean bucketUpdate = change.getOperationType() == OperationType.UPDATE && before == null
+                && after != null && after.containsKey(ITEMS) && !changesUser(change.getUpdateDescription());
+        boolean usersKnown = switch (change.getOperationType()) {
+            case INSERT -> after != null;
+            // Sans image préalable, l'ancien utilisateur ou l'ancien type ne sont connus que s'ils sont inchangés
+            case UPDATE -> before != null || bucketUpdate
+                    || (after != null && !changesCacheKeys(change.getUpdateDescription()));
+            default -> before != null;
+        };
+        if (!usersKnown) {
+            log.debug("Utilisateur inconnu pour l'événement {} du document {}",
+                    change.getOperationType().getValue(), change.getDocumentKey());
+            evictAll();
+            return;
+        }
+
+        Map<String, Set<ContentType>> typesByUser = new LinkedHashMap<>();
+        addUserType(typesByUser, before);
+        addUserType(typesByUser, after);
+        if (bucketUpdate && changesCacheKeys(change.getUpdateDescription())) {
+            typesByUser.put(after.getString("userId"), EnumSet.allOf(ContentType.class));
+        }
+        typesByUser.forEach(cacheInvalidator::evictUser);
+    }
+
+    private static boolean changesUser(UpdateDescription update) {
+        if (update == null) {
+            return true;
+        }
+        BsonDocument updatedFields = update.getUpdatedFields();
+        List<String> removedFields = update.getRemovedFields();
+        return updatedFields != null && updatedFields.containsKey("userId")
+                || removedFields != null && removedFields.contains("userId");
+    }
+
+    private static boolean changesCacheKeys(UpdateDescription update) {
+        if (update == null) {
+            return true;
+        }
+        BsonDocument updatedFields = update.getUpdatedFields();
+        List<String> removedFields = update.getRemovedFields();
+        if (update.getTruncatedArrays() != null && !update.getTruncatedArrays().isEmpty()) {
+            return true; // favoris retirés d'un bucket
+        }
+        if (updatedFields != null) {
+            for (String field : updatedFields.keySet()) {
+                if (changesCacheKey(field)
+                        // Tableau d'un bucket réécrit (retrait), ou favori remplacé sans ajout
+                        || field.equals(ITEMS)
+                        || field.startsWith(ITEMS + '.') && !updatedFields.containsKey("count")) {
+                    return true;
+                }
+            }
+        }
+        return removedFields != null && removedFields.stream()
+                .anyMatch(field -> changesCacheKey(field) || field.equals(ITEMS) || field.startsWith(ITEMS + '.'));
+    }
+
+    private static boolean changesCacheKey(String field) {
+        return field.equals("userId") || field.equals("contentType");
+    }
+
+    private static void addUserType(Map<String, Set<ContentType>> typesByUser, Document favorite) {
+        if (favorite == null || favorite.getString("userId") == null) {
+            return;
+        }
+        Set<ContentType> types = typesByUser.computeIfAbsent(favorite.getString("userId"), userId -> new HashSet<>());
+        addType(types, favorite);
+        // Bucket : types des favoris qu'il contient
+        for (Document item : favorite.getList(ITEMS, Document.class, List.of())) {
+            addType(types, item);
+        }
+    }
+
+    private static void addType(Set<ContentType> types, Document favorite) {
+        // Un type inconnu n'a pas de liste par type en cache
+        ContentType type = ContentType.parse(favorite.getString("contentType"));
+        if (type != null) {
+            types.add(type);
+        }
+    }
+
+    private void evictAll() {
+        fullEvictions.increment();
+        cacheInvalidator.evictAll();
+    }
+
+    /**
+     * Enregistre le jeton de reprise et renouvelle le bail
+     *
+     * @param force enregistrer le jeton sans attendre l'intervalle
+     * @return false si le bail est passé à une autre instance
+     */
+    private boolean saveToken(boolean force) {
+        long now = System.nanoTime();
+        boolean tokenChanged = resumeToken != null && !resumeToken.equals(savedToken);
+        boolean tokenDue = tokenChanged && (force || now - lastSaveNanos >= tokenSaveIntervalNanos);
+        if (!tokenDue && now - lastSaveNanos < leaseRenewIntervalNanos) {
+            return true;
+        }
+        Update update = new Update().set("leaseExpiresAt", Instant.now().plus(leaseDuration));
+        if (tokenChanged) {
+            update.set("resumeToken", resumeToken.toJson()).set("updatedAt", LocalDateTime.now());
+        }
+        try {
+            if (mongoTemplate.updateFirst(ownLease(), update, ChangeStreamToken.class).getMatchedCount() == 0) {
+                return false;
+            }
+            savedToken = resumeToken;
+            lastSaveNanos = now;
+        } catch (DataAccessException e) {
+            log.warn("Impossible d'enregistrer le jeton de reprise du change stream: {}", e.getMessage());
+        }
+        return true;
+    }
+
+    private void resetToken() {
+        resumeToken = null;
+        savedToken = null;
+        try {
+            // Le bail reste tenu : seul le jeton est oublié
+            mongoTemplate.updateFirst(ownLease(), new Update().unset("resumeToken").unset("updatedAt"),
+                    ChangeStreamToken.class);
+        } catch (DataAccessException e) {
+            log.warn("Impossible de supprimer le jeton de reprise du change stream: {}", e.getMessage());
+        }
+    }
+
+    private void retryLater(RuntimeException e) {
+        if (!running) {
+            return;
+        }
+        log.warn("Change stream des favoris interrompu, nouvelle tentative dans {}: {}", retryDelay, e.getMessage());
+        pause();
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(retryDelay.toMillis());
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    /**
+     * Active les images préalables sur la collection (MongoDB 6.0+), pour connaître l'utilisateur
+     * des suppressions sans vider tous les caches. Un échec empêche le démarrage
+     */
+    private void enablePreImages() {
+        try {
+            if (!mongoTemplate.collectionExists(favoriteStorage.getCollectionName())) {
+                mongoTemplate.createCollection(favoriteStorage.getCollectionName());
+            }
+            mongoTemplate.executeCommand(new Document("collMod", favoriteStorage.getCollectionName())
+                    .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+        } catch (DataAccessException | MongoException e) {
+            throw new IllegalStateException("Impossible d'activer les images préalables de la collection "
+                    + favoriteStorage.getCollectionName() + ", requises par favoris.cache.change-stream.enabled", e);
+        }
+    }
+
+    /**
+     * Vérifie que les images préalables sont déjà activées sur la collection, quand le service n'a
+     * pas le droit de les activer lui-même
+     */
+    private void checkPreImages() {
+        Document collection = mongoTemplate.executeCommand(new Document("listCollections", 1)
+                .append("filter", new Document("name", favoriteStorage.getCollectionName())));
+        List<Document> batch = collection.get("cursor", Document.class).getList("firstBatch", Document.class);
+        boolean enabled = !batch.isEmpty() && batch.get(0).get("options", new Document())
+                .get("changeStreamPreAndPostImages", new Document())
+                .getBoolean("enabled", false);
+        if (!enabled) {
+            throw new IllegalStateException("Images préalables désactivées sur la collection "
+                    + favoriteStorage.getCollectionName() + ", requises par favoris.cache.change-stream.enabled "
+                    + "(collMod changeStreamPreAndPostImages, ou favoris.cache.change-stream.enable-pre-images=true)");
+        }
+    }
+}
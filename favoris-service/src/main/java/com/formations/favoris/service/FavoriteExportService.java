@@ -0,0 +1,105 @@
+package com.formations.favoris.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.model.Favorite;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import com.formations.favoris.repository.FavoriteStorage;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Export des favoris au format NDJSON (un objet JSON par ligne), écrit au fil de la lecture
+ * d'un curseur Mongo : la mémoire utilisée ne dépend pas du nombre de documents exportés.
+ * Les documents sont triés par _id, ce qui permet de reprendre un export interrompu à partir
+ * du dernier _id reçu. Les favoris sont lus dans la disposition configurée ({@link FavoriteStorage}),
+ * et complétés par le catalogue des contenus par lots de {@value #FLUSH_INTERVAL}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FavoriteExportService {
+
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final FavoriteStorage favoriteStorage;
+    private final ObjectMapper objectMapper;
+    private final ContentCatalogService contentCatalogService;
+
+    /**
+     * Exporte les favoris d'un utilisateur
+     *
+     * @param userId ID de l'utilisateur
+     * @param afterId Dernier _id déjà reçu, null pour un export complet
+     * @param out Flux de sortie, qui n'est pas fermé
+     * @return Nombre de favoris exportés
+     */
+    public long exportUserFavorites(String userId, String afterId, OutputStream out) throws IOException {
+        log.info("Export des favoris de l'utilisateur: {} (après: {})", userId, afterId);
+        return export(userId, afterId, out);
+    }
+
+    /**
+     * Exporte l'ensemble de la collection des favoris
+     *
+     * @param afterId Dernier _id déjà reçu, null pour un export complet
+     * @param out Flux de sortie, qui n'est pas fermé
+     * @return Nombre de favoris exportés
+     */
+    public long exportAllFavorites(String afterId, OutputStream out) throws IOException {
+        log.info("Export de tous les favoris (après: {})", afterId);
+        return export(null, afterId, out);
+    }
+
+    /**
+     * Vérifie qu'un point de reprise est un identifiant Mongo valide
+     */
+    public static boolean isValidResumeId(String afterId) {
+        return afterId == null || ObjectId.isValid(afterId);
+    }
+
+    private long export(String userId, String afterId, OutputStream out) throws IOException {
+        if (!isValidResumeId(afterId)) {
+            throw new IllegalArgumentException("Point de reprise invalide: " + afterId);
+        }
+
+        ObjectWriter writer = objectMapper.writerFor(FavoriteDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (Stream<Favorite> favorites = favoriteStorage.stream(userId, afterId);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // Le flux de sortie appartient à l'appelant
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            List<FavoriteDto> batch = new ArrayList<>(FLUSH_INTERVAL);
+            Iterator<Favorite> iterator = favorites.iterator();
+            while (iterator.hasNext()) {
+                batch.add(FavoriteService.convertToDto(iterator.next()));
+                if (batch.size() == FLUSH_INTERVAL || !iterator.hasNext()) {
+                    // Une seule lecture du catalogue par lot
+                    for (FavoriteDto favorite : contentCatalogService.hydrate(batch)) {
+                        writer.writeValue(generator, favorite);
+                        generator.writeRaw('\n');
+                    }
+                    count += batch.size();
+                    batch.clear();
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+        log.info("Export terminé: {} favoris", count);
+        return count;
+    }
+}
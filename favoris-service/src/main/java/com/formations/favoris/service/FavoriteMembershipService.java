@@ -0,0 +1,128 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.event.FavoriteChangedEvent;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.FavoriteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Appartenance des contenus aux favoris d'un utilisateur, maintenue dans un set Redis par
+ * utilisateur. Une page de catalogue vérifie ses contenus visibles en une seule commande
+ * SMISMEMBER, sans télécharger la liste complète des favoris.
+ *
+ * <p>Le set est chargé depuis Mongo au premier accès ; un membre marqueur (chaîne vide)
+ * distingue un set chargé d'un utilisateur sans favoris. Les ajouts et suppressions ne sont
+ * appliqués qu'aux sets déjà chargés, pour ne jamais créer un set partiel. Une écriture
+ * concurrente au chargement initial peut être manquée : le TTL du set borne cet écart.</p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FavoriteMembershipService {
+
+    public static final int MAX_CONTENT_IDS = 200;
+
+    static final String KEY_PREFIX = "favoris:members:";
+    static final String LOADED_MARKER = "";
+    private static final Duration TTL = Duration.ofHours(12);
+
+    private static final RedisScript<Long> ADD_IF_LOADED = RedisScript.of(
+            "if redis.call('exists', KEYS[1]) == 1 then return redis.call('sadd', KEYS[1], ARGV[1]) end return -1",
+            Long.class);
+    private static final RedisScript<Long> REMOVE_IF_LOADED = RedisScript.of(
+            "if redis.call('exists', KEYS[1]) == 1 then return redis.call('srem', KEYS[1], ARGV[1]) end return -1",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final FavoriteRepository favoriteRepository;
+
+    /**
+     * Indique pour chaque contenu s'il fait partie des favoris de l'utilisateur
+     *
+     * @param userId ID de l'utilisateur
+     * @param contentIds IDs des contenus à vérifier
+     * @return Appartenance de chaque contenu, dans l'ordre de la requête
+     */
+    public Map<String, Boolean> contains(String userId, List<String> contentIds) {
+        String key = KEY_PREFIX + userId;
+
+        // Le marqueur est interrogé dans la même commande pour savoir si le set est chargé
+        Object[] members = new Object[contentIds.size() + 1];
+        members[0] = LOADED_MARKER;
+        for (int i = 0; i < contentIds.size(); i++) {
+            members[i + 1] = contentIds.get(i);
+        }
+        Map<Object, Boolean> membership;
+        try {
+            membership = redisTemplate.opsForSet().isMember(key, members);
+        } catch (RuntimeException e) {
+            log.warn("Set d'appartenance indisponible pour l'utilisateur {}: {}", userId, e.getMessage());
+            membership = null;
+        }
+
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        if (membership != null && Boolean.TRUE.equals(membership.get(LOADED_MARKER))) {
+            for (String contentId : contentIds) {
+                result.put(contentId, Boolean.TRUE.equals(membership.get(contentId)));
+            }
+            return result;
+        }
+
+        Set<String> favoriteContentIds = load(userId);
+        for (String contentId : contentIds) {
+            result.put(contentId, favoriteContentIds.contains(contentId));
+        }
+        return result;
+    }
+
+    /**
+     * Charge le set d'un utilisateur depuis Mongo
+     */
+    private Set<String> load(String userId) {
+        log.info("Chargement du set d'appartenance de l'utilisateur: {}", userId);
+        List<Favorite> favorites = favoriteRepository.findContentIdsByUserId(userId);
+        Set<String> contentIds = new HashSet<>(favorites.size());
+        for (Favorite favorite : favorites) {
+            contentIds.add(favorite.getContentId());
+        }
+
+        String key = KEY_PREFIX + userId;
+        String[] members = new String[contentIds.size() + 1];
+        members[0] = LOADED_MARKER;
+        int i = 1;
+        for (String contentId : contentIds) {
+            members[i++] = contentId;
+        }
+        try {
+            redisTemplate.opsForSet().add(key, members);
+            redisTemplate.expire(key, TTL);
+        } catch (RuntimeException e) {
+            log.warn("Impossible d'enregistrer le set d'appartenance de l'utilisateur {}: {}", userId, e.getMessage());
+        }
+        return contentIds;
+    }
+
+    @EventListener
+    public void onFavoriteChanged(FavoriteChangedEvent event) {
+        RedisScript<Long> script = event.isAdded() ? ADD_IF_LOADED : REMOVE_IF_LOADED;
+        try {
+            redisTemplate.execute(script, Collections.singletonList(KEY_PREFIX + event.getUserId()), event.getContentId());
+        } catch (RuntimeException e) {
+            log.warn("Impossible de mettre à jour le set d'appartenance de l'utilisateur {}: {}",
+                    event.getUserId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.dto.FavoritePageDto;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.FavoriteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Pagination par curseur (keyset) des favoris d'un utilisateur, du plus récent au plus ancien.
+ *
+ * <p>La première page est servie depuis une fenêtre de tête unique par utilisateur
+ * (cache "favoritesHead"), découpée à la taille demandée : un ajout n'invalide que cette fenêtre.
+ * Les pages suivantes sont mises en cache individuellement (cache "favoritesPages"), sous une clé
+ * {@code userId_version_cursor_size} : la version des favoris de l'utilisateur change à chaque
+ * écriture, y compris une suppression, et une page d'une version antérieure n'est plus jamais lue
+ * (elle expire avec le TTL du cache). Si la version est illisible, la page est lue en base sans
+ * cache. Les pages en cache ne portent que les références des contenus, complétées par le catalogue à
+ * chaque lecture.</p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FavoritePageService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    static final String HEAD_CACHE = "favoritesHead";
+    static final String PAGES_CACHE = "favoritesPages";
+
+    private static final char CURSOR_SEPARATOR = '|';
+
+    private final FavoriteRepository favoriteRepository;
+    private final CacheManager cacheManager;
+    private final ContentCatalogService contentCatalogService;
+    private final FavoriteVersionService versionService;
+
+    /**
+     * Récupère une page des favoris d'un utilisateur
+     *
+     * @param userId ID de l'utilisateur
+     * @param cursor Curseur renvoyé par la page précédente, null pour la première page
+     * @param size Nombre de favoris par page (1 à {@value #MAX_PAGE_SIZE})
+     * @return La page de favoris et le curseur de la page suivante
+     * @throws IllegalArgumentException si la taille ou le curseur est invalide
+     */
+    public FavoritePageDto getUserFavoritesPage(String userId, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("La taille de page doit être comprise entre 1 et " + MAX_PAGE_SIZE);
+        }
+        if (cursor == null || cursor.isEmpty()) {
+            FavoritePageDto window = getCache(HEAD_CACHE)
+                    .get(userId, () -> loadPage(userId, null, MAX_PAGE_SIZE));
+            return contentCatalogService.hydrate(slice(window, size));
+        }
+        CursorPosition position = decodeCursor(cursor);
+        String version = versionService.getVersion(userId);
+        if (version == null) {
+            return contentCatalogService.hydrate(loadPage(userId, position, size));
+        }
+        return contentCatalogService.hydrate(getCache(PAGES_CACHE)
+                .get(pageKey(userId, version, cursor, size), () -> loadPage(userId, position, size)));
+    }
+
+    static String pageKey(String userId, String version, String cursor, int size) {
+        return userId + '_' + version + '_' + cursor + '_' + size;
+    }
+
+    private FavoritePageDto loadPage(String userId, CursorPosition position, int size) {
+        log.info("Cache miss - Récupération d'une page de favoris pour l'utilisateur: {}", userId);
+
+        // Un élément de plus pour savoir s'il existe une page suivante
+        List<Favorite> favorites = position == null
+                ? favoriteRepository.findPageByUserId(userId, null, null, size + 1)
+                : favoriteRepository.findPageByUserId(userId, position.createdAt(), position.id(), size + 1);
+
+        boolean hasMore = favorites.size() > size;
+        List<FavoriteDto> items = favorites.stream()
+                .limit(size)
+                .map(FavoriteService::convertToDto)
+                .collect(Collectors.toList());
+        return FavoritePageDto.builder()
+                .items(items)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? encodeCursor(items.get(items.size() - 1)) : null)
+                .build();
+    }
+
+    private static FavoritePageDto slice(FavoritePageDto window, int size) {
+        if (window.getItems().size() <= size) {
+            return window;
+        }
+        List<FavoriteDto> items = window.getItems().subList(0, size);
+        return FavoritePageDto.builder()
+                .items(new ArrayList<>(items))
+                .hasMore(true)
+                .nextCursor(encodeCursor(items.get(size - 1)))
+                .build();
+    }
+
+    static String encodeCursor(FavoriteDto last) {
+        String position = last.getCreatedAt().toString() + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CursorPosition decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf(CURSOR_SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Curseur de pagination invalide");
+            }
+            return new CursorPosition(LocalDateTime.parse(position.substring(0, separator)),
+                    position.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide", e);
+        }
+    }
+
+    private Cache getCache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("Cache introuvable: " + name);
+        }
+        return cache;
+    }
+
+    record CursorPosition(LocalDateTime createdAt, String id) {
+    }
+}
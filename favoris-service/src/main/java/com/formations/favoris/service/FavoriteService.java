@@ -1,21 +1,37 @@
 package com.formations.favoris.service;
 
+import com.formations.favoris.config.FavoritesByTypeKeyGenerator;
 import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.dto.BatchFavoritesResponse;
+import com.formations.favoris.dto.BatchItemResult;
+import com.formations.favoris.dto.BatchItemStatus;
 import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.dto.RemoveFavoriteRequest;
+import com.formations.favoris.event.FavoriteChangedEvent;
+import com.formations.favoris.model.ContentType;
 import com.formations.favoris.model.Favorite;
 import com.formations.favoris.repository.FavoriteRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,7 +39,22 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FavoriteService {
 
+    /**
+     * Code d'erreur Mongo pour une violation d'index unique
+     */
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    /**
+     * Nombre maximum de tentatives d'un toggle en cas de toggles concurrents sur le même favori
+     */
+    private static final int MAX_TOGGLE_ATTEMPTS = 3;
+
     private final FavoriteRepository favoriteRepository;
+    private final FavoriteCacheInvalidator cacheInvalidator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FavoriteMembershipService membershipService;
+    private final FavoriteWriteBehindQueue writeBehindQueue;
+    private final ContentCatalogService contentCatalogService;
     
     /**
      * Récupère tous les favoris d'un utilisateur
@@ -31,7 +62,7 @@ public class FavoriteService {
      * @param userId ID de l'utilisateur
      * @return Liste des favoris de l'utilisateur sous forme de DTO
      */
-    @Cacheable(value = "favorites", key = "#userId")
+    @Cacheable(value = "favorites", key = "#userId", sync = true)
     public List<FavoriteDto> getUserFavorites(String userId) {
         log.info("Cache miss - Récupération des favoris pour l'utilisateur: {}", userId);
         
@@ -39,7 +70,7 @@ public class FavoriteService {
         log.debug("Nombre de favoris trouvés: {}", favorites.size());
         
         return favorites.stream()
-                .map(this::convertToDto)
+                .map(FavoriteService::convertToDto)
                 .collect(Collectors.toList());
     }
     
@@ -50,15 +81,15 @@ public class FavoriteService {
      * @param contentType Type de contenu
      * @return Liste des favoris de l'utilisateur pour le type de contenu spécifié
      */
-    @Cacheable(value = "favoritesByType", key = "#userId + '_' + #contentType")
-    public List<FavoriteDto> getUserFavoritesByType(String userId, String contentType) {
+    @Cacheable(value = "favoritesByType", keyGenerator = FavoritesByTypeKeyGenerator.BEAN_NAME, sync = true)
+    public List<FavoriteDto> getUserFavoritesByType(String userId, ContentType contentType) {
         log.info("Cache miss - Récupération des favoris de type {} pour l'utilisateur: {}", contentType, userId);
         
         List<Favorite> favorites = favoriteRepository.findByUserIdAndContentType(userId, contentType);
         log.debug("Nombre de favoris trouvés: {}", favorites.size());
         
         return favorites.stream()
-                .map(this::convertToDto)
+                .map(FavoriteService::convertToDto)
                 .collect(Collectors.toList());
     }
     
@@ -70,14 +101,14 @@ public class FavoriteService {
      * @throws IllegalStateException si le favori existe déjà
      */
     @Transactional
-    @Caching(evict = {
-        @CacheEvict(value = "favorites", key = "#request.userId"),
-        @CacheEvict(value = "favoritesByType", key = "#request.userId + '_' + #request.contentType")
-    })
     public FavoriteDto addFavorite(AddFavoriteRequest request) {
         log.info("Tentative d'ajout d'un favori pour l'utilisateur: {} et le contenu: {}", 
                 request.getUserId(), request.getContentId());
         
+        if (writeBehindQueue.isEnabled()) {
+            return addFavoriteWriteBehind(request);
+        }
+        
         // Vérification pour éviter les doublons
         if (favoriteRepository.existsByUserIdAndContentId(request.getUserId(), request.getContentId())) {
             log.warn("Le favori existe déjà pour l'utilisateur: {} et le contenu: {}", 
@@ -85,23 +116,49 @@ public class FavoriteService {
             throw new IllegalStateException("Ce contenu est déjà dans vos favoris");
         }
         
-        LocalDateTime now = LocalDateTime.now();
-        
-        Favorite favorite = Favorite.builder()
-                .userId(request.getUserId())
-                .contentId(request.getContentId())
-                .contentType(request.getContentType())
-                .title(request.getTitle())
-                .description(request.getDescription())
-                .thumbnailUrl(request.getThumbnailUrl())
-                .createdAt(now)
-                .updatedAt(now)
-                .build();
+        contentCatalogService.register(request);
+        Favorite favorite = buildFavorite(request, LocalDateTime.now());
         
         Favorite savedFavorite = favoriteRepository.save(favorite);
         log.info("Favori ajouté avec succès, ID: {}", savedFavorite.getId());
+        evictCaches(savedFavorite);
+        eventPublisher.publishEvent(FavoriteChangedEvent.added(savedFavorite, request.getTitle()));
         
-        return convertToDto(savedFavorite);
+        return convertToDto(savedFavorite, request);
+    }
+    
+    /**
+     * Ajout en mode écriture différée : le doublon est détecté sur le set d'appartenance Redis et
+     * la file d'attente, le favori est acquitté dès qu'il est en file et l'événement publié
+     * (appartenance, compteurs), puis écrit en base par lot
+     */
+    private FavoriteDto addFavoriteWriteBehind(AddFavoriteRequest request) {
+        boolean exists = membershipService.contains(request.getUserId(), List.of(request.getContentId()))
+                .getOrDefault(request.getContentId(), false);
+        if (exists) {
+            log.warn("Le favori existe déjà pour l'utilisateur: {} et le contenu: {}", 
+                    request.getUserId(), request.getContentId());
+            throw new IllegalStateException("Ce contenu est déjà dans vos favoris");
+        }
+
+        contentCatalogService.register(request);
+        Favorite favorite = buildFavorite(request, LocalDateTime.now());
+        favorite.setId(new ObjectId().toHexString());
+        switch (writeBehindQueue.enqueue(favorite)) {
+            case DUPLICATE -> throw new IllegalStateException("Ce contenu est déjà dans vos favoris");
+            case REJECTED -> {
+                // File pleine : l'appelant écrit lui-même, ce qui ralentit le flux entrant
+                try {
+                    favoriteRepository.insert(favorite);
+                } catch (DuplicateKeyException e) {
+                    throw new IllegalStateException("Ce contenu est déjà dans vos favoris");
+                }
+            }
+            case QUEUED -> log.debug("Favori placé en file d'écriture, ID: {}", favorite.getId());
+        }
+        evictCaches(favorite);
+        eventPublisher.publishEvent(FavoriteChangedEvent.added(favorite, request.getTitle()));
+        return convertToDto(favorite, request);
     }
     
     /**
@@ -112,19 +169,26 @@ public class FavoriteService {
      * @return true si le favori a été supprimé, false s'il n'existait pas
      */
     @Transactional
-    @Caching(evict = {
-        @CacheEvict(value = "favorites", key = "#userId"),
-        @CacheEvict(value = "favoritesByType", allEntries = true)
-    })
     public boolean removeFavorite(String userId, String contentId) {
         log.info("Tentative de suppression d'un favori pour l'utilisateur: {} et le contenu: {}", 
                 userId, contentId);
         
+        Optional<Favorite> cancelled = writeBehindQueue.cancel(userId, contentId);
+        if (cancelled.isPresent()) {
+            log.info("Favori en attente d'écriture annulé");
+            evictCaches(cancelled.get());
+            eventPublisher.publishEvent(FavoriteChangedEvent.removed(cancelled.get()));
+            return true;
+        }
+        
         Optional<Favorite> favoriteOpt = favoriteRepository.findByUserIdAndContentId(userId, contentId);
         
         if (favoriteOpt.isPresent()) {
             favoriteRepository.deleteByUserIdAndContentId(userId, contentId);
             log.info("Favori supprimé avec succès");
+            // Le type du favori supprimé désigne la seule liste par type à invalider
+            evictCaches(favoriteOpt.get());
+            eventPublisher.publishEvent(FavoriteChangedEvent.removed(favoriteOpt.get()));
             return true;
         } else {
             log.warn("Tentative de suppression d'un favori inexistant pour l'utilisateur: {} et le contenu: {}", 
@@ -134,39 +198,226 @@ public class FavoriteService {
     }
     
     /**
-     * Fonction de bascule (toggle) pour ajouter/supprimer un favori
+     * Fonction de bascule (toggle) pour ajouter/supprimer un favori.
+     * La suppression est atomique (findAndRemove) : si un document a été supprimé, le toggle est
+     * une suppression en un seul aller-retour. Sinon le favori est inséré ; si un toggle concurrent
+     * l'a inséré entre-temps, l'index unique rejette l'insertion et la suppression est retentée,
+     * ce qui correspond à l'exécution des deux toggles l'un après l'autre.
      * 
      * @param request Données du favori à ajouter/supprimer
      * @return Le favori ajouté sous forme de DTO ou null si le favori a été supprimé
+     * @throws IllegalStateException si le conflit persiste après plusieurs tentatives
      */
     @Transactional
-    @Caching(evict = {
-        @CacheEvict(value = "favorites", key = "#request.userId"),
-        @CacheEvict(value = "favoritesByType", key = "#request.userId + '_' + #request.contentType")
-    })
     public FavoriteDto toggleFavorite(AddFavoriteRequest request) {
         log.info("Toggle favori pour l'utilisateur: {} et le contenu: {}", 
                 request.getUserId(), request.getContentId());
         
-        Optional<Favorite> existingFavorite = favoriteRepository.findByUserIdAndContentId(
-                request.getUserId(), request.getContentId());
-        
-        if (existingFavorite.isPresent()) {
-            // Si le favori existe, on le supprime
-            favoriteRepository.deleteByUserIdAndContentId(request.getUserId(), request.getContentId());
-            log.info("Favori supprimé lors du toggle");
+        Optional<Favorite> cancelled = writeBehindQueue.cancel(request.getUserId(), request.getContentId());
+        if (cancelled.isPresent()) {
+            log.info("Favori en attente d'écriture annulé lors du toggle");
+            evictCaches(cancelled.get());
+            eventPublisher.publishEvent(FavoriteChangedEvent.removed(cancelled.get()));
             return null;
-        } else {
-            // Si le favori n'existe pas, on l'ajoute
-            log.info("Ajout d'un favori lors du toggle");
-            return addFavorite(request);
         }
+        
+        for (int attempt = 1; attempt <= MAX_TOGGLE_ATTEMPTS; attempt++) {
+            Optional<Favorite> removedFavorite = favoriteRepository.findAndRemoveByUserIdAndContentId(
+                    request.getUserId(), request.getContentId());
+            if (removedFavorite.isPresent()) {
+                // Si le favori existait, il vient d'être supprimé
+                log.info("Favori supprimé lors du toggle");
+                evictCaches(removedFavorite.get());
+                eventPublisher.publishEvent(FavoriteChangedEvent.removed(removedFavorite.get()));
+                return null;
+            }
+            
+            try {
+                // Sinon on l'ajoute, l'index unique protégeant des toggles concurrents
+                contentCatalogService.register(request);
+                Favorite savedFavorite = favoriteRepository.insert(buildFavorite(request, LocalDateTime.now()));
+                log.info("Favori ajouté lors du toggle, ID: {}", savedFavorite.getId());
+                evictCaches(savedFavorite);
+                eventPublisher.publishEvent(FavoriteChangedEvent.added(savedFavorite, request.getTitle()));
+                return convertToDto(savedFavorite, request);
+            } catch (DuplicateKeyException e) {
+                log.debug("Toggle concurrent détecté pour l'utilisateur: {} et le contenu: {} (tentative {})",
+                        request.getUserId(), request.getContentId(), attempt);
+            }
+        }
+        
+        log.warn("Conflit persistant lors du toggle pour l'utilisateur: {} et le contenu: {}",
+                request.getUserId(), request.getContentId());
+        throw new IllegalStateException("Le favori est modifié simultanément, veuillez réessayer");
     }
     
     /**
-     * Convertit une entité Favorite en DTO
+     * Ajoute un lot de favoris en une seule écriture groupée non ordonnée.
+     * Les doublons (déjà en base ou répétés dans le lot) sont rejetés par l'index unique
+     * user_content_idx, et les caches de chaque utilisateur concerné ne sont invalidés qu'une fois.
+     *
+     * @param requests Favoris à ajouter
+     * @return Le résultat de chaque élément, dans l'ordre de la requête
+     */
+    public BatchFavoritesResponse addFavorites(List<AddFavoriteRequest> requests) {
+        log.info("Ajout groupé de {} favoris", requests.size());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Favorite> favorites = new ArrayList<>(requests.size());
+        for (AddFavoriteRequest request : requests) {
+            // Identifiant attribué côté client pour pouvoir renvoyer les favoris créés
+            Favorite favorite = buildFavorite(request, now);
+            favorite.setId(new ObjectId().toHexString());
+            favorites.add(favorite);
+        }
+
+        contentCatalogService.registerAll(requests);
+        Map<Integer, Integer> errors = favoriteRepository.insertAllUnordered(favorites);
+
+        List<BatchItemResult> results = new ArrayList<>(favorites.size());
+        Map<String, Set<ContentType>> modifiedTypesByUser = new LinkedHashMap<>();
+        for (int i = 0; i < favorites.size(); i++) {
+            Favorite favorite = favorites.get(i);
+            Integer errorCode = errors.get(i);
+            BatchItemResult.BatchItemResultBuilder result = BatchItemResult.builder()
+                    .index(i)
+                    .userId(favorite.getUserId())
+                    .contentId(favorite.getContentId());
+            if (errorCode == null) {
+                result.status(BatchItemStatus.CREATED).favorite(convertToDto(favorite, requests.get(i)));
+                eventPublisher.publishEvent(FavoriteChangedEvent.added(favorite, requests.get(i).getTitle()));
+                modifiedTypesByUser.computeIfAbsent(favorite.getUserId(), userId -> new HashSet<>())
+                        .add(favorite.getContentType());
+            } else if (errorCode == DUPLICATE_KEY_ERROR) {
+                result.status(BatchItemStatus.ALREADY_EXISTS);
+            } else {
+                log.warn("Échec de l'ajout groupé pour l'utilisateur: {} et le contenu: {} (code {})",
+                        favorite.getUserId(), favorite.getContentId(), errorCode);
+                result.status(BatchItemStatus.FAILED);
+            }
+            results.add(result.build());
+        }
+
+        modifiedTypesByUser.forEach(cacheInvalidator::evictUser);
+        return toBatchResponse(results);
+    }
+
+    /**
+     * Supprime un lot de favoris : une requête pour retrouver les favoris existants,
+     * puis une suppression groupée par identifiant, validée seulement si elle retire tous ces
+     * favoris. Si l'un d'eux a été supprimé entre-temps, chaque favori est supprimé
+     * individuellement (findAndRemove) : seul l'auteur d'une suppression la signale (REMOVED,
+     * événement), une suppression concurrente n'est jamais comptée deux fois.
+     *
+     * @param requests Couples utilisateur/contenu à supprimer
+     * @return Le résultat de chaque élément, dans l'ordre de la requête
+     */
+    public BatchFavoritesResponse removeFavorites(List<RemoveFavoriteRequest> requests) {
+        log.info("Suppression groupée de {} favoris", requests.size());
+
+        Map<String, Favorite> existing = new HashMap<>();
+        Map<String, Set<String>> contentIdsByUser = new LinkedHashMap<>();
+        for (RemoveFavoriteRequest request : requests) {
+            writeBehindQueue.cancel(request.getUserId(), request.getContentId())
+                    .ifPresent(favorite -> existing.put(pairKey(favorite.getUserId(), favorite.getContentId()), favorite));
+            contentIdsByUser.computeIfAbsent(request.getUserId(), userId -> new LinkedHashSet<>())
+                    .add(request.getContentId());
+        }
+
+        List<Favorite> found = favoriteRepository.findByUserContentPairs(contentIdsByUser);
+        List<String> idsToDelete = new ArrayList<>(found.size());
+        for (Favorite favorite : found) {
+            existing.put(pairKey(favorite.getUserId(), favorite.getContentId()), favorite);
+            idsToDelete.add(favorite.getId());
+        }
+        if (!idsToDelete.isEmpty() && !favoriteRepository.deleteAllByIdIfPresent(idsToDelete)) {
+            log.info("Suppression groupée de {} favoris concurrente d'une autre suppression, suppression individuelle",
+                    idsToDelete.size());
+            for (Favorite favorite : found) {
+                if (favoriteRepository.findAndRemoveByUserIdAndContentId(
+                        favorite.getUserId(), favorite.getContentId()).isEmpty()) {
+                    existing.remove(pairKey(favorite.getUserId(), favorite.getContentId()));
+                }
+            }
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(requests.size());
+        Map<String, Set<ContentType>> modifiedTypesByUser = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            RemoveFavoriteRequest request = requests.get(i);
+            // Un couple répété dans le lot n'est compté comme supprimé qu'une fois
+            Favorite removed = existing.remove(pairKey(request.getUserId(), request.getContentId()));
+            if (removed != null) {
+                eventPublisher.publishEvent(FavoriteChangedEvent.removed(removed));
+                modifiedTypesByUser.computeIfAbsent(removed.getUserId(), userId -> new HashSet<>())
+                        .add(removed.getContentType());
+            }
+            results.add(BatchItemResult.builder()
+                    .index(i)
+                    .userId(request.getUserId())
+                    .contentId(request.getContentId())
+                    .status(removed != null ? BatchItemStatus.REMOVED : BatchItemStatus.NOT_FOUND)
+                    .build());
+        }
+
+        modifiedTypesByUser.forEach(cacheInvalidator::evictUser);
+        return toBatchResponse(results);
+    }
+
+    /**
+     * Invalide les caches de l'utilisateur touchés par l'ajout ou la suppression d'un favori, après
+     * l'écriture (et non à la sortie de la méthode) pour que la nouvelle version de ses favoris ne
+     * soit visible qu'une fois les anciennes listes invalidées
+     */
+    private void evictCaches(Favorite favorite) {
+        cacheInvalidator.evictUser(favorite.getUserId(), Collections.singletonList(favorite.getContentType()));
+    }
+
+    /**
+     * Favori ne portant que la référence du contenu, ses métadonnées étant au catalogue
+     */
+    private static Favorite buildFavorite(AddFavoriteRequest request, LocalDateTime now) {
+        return Favorite.builder()
+                .userId(request.getUserId())
+                .contentId(request.getContentId())
+                .contentType(request.getContentType())
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    private static String pairKey(String userId, String contentId) {
+        return userId + '\u0000' + contentId;
+    }
+
+    private static BatchFavoritesResponse toBatchResponse(List<BatchItemResult> results) {
+        int succeeded = (int) results.stream()
+                .filter(result -> result.getStatus() == BatchItemStatus.CREATED
+                        || result.getStatus() == BatchItemStatus.REMOVED)
+                .count();
+        return BatchFavoritesResponse.builder()
+                .succeeded(succeeded)
+                .failed(results.size() - succeeded)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Convertit un favori qui vient d'être ajouté en DTO, avec les métadonnées de la requête
+     */
+    static FavoriteDto convertToDto(Favorite favorite, AddFavoriteRequest request) {
+        FavoriteDto dto = convertToDto(favorite);
+        dto.setTitle(request.getTitle());
+        dto.setDescription(request.getDescription());
+        dto.setThumbnailUrl(request.getThumbnailUrl());
+        return dto;
+    }
+
+    /**
+     * Convertit une entité Favorite en DTO (métadonnées du contenu renseignées pour les seuls
+     * favoris antérieurs au catalogue, voir {@link ContentCatalogService#hydrate})
      */
-    private FavoriteDto convertToDto(Favorite favorite) {
+    public static FavoriteDto convertToDto(Favorite favorite) {
         return FavoriteDto.builder()
                 .id(favorite.getId())
                 .userId(favorite.getUserId())
@@ -0,0 +1,226 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.StorageMigrationStatusDto;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.FavoriteStorage;
+import com.formations.favoris.repository.MigratingFavoriteStorage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recopie des favoris existants vers la disposition cible d'une migration en ligne
+ * ({@code favoris.storage.migration.target}), pendant que {@link MigratingFavoriteStorage}
+ * recopie les nouvelles écritures.
+ *
+ * <p>Les utilisateurs sont parcourus dans l'ordre de leur ID. Pour chacun, les favoris de la source
+ * et de la cible sont comparés, les favoris manquants sont recopiés avec le même identifiant et ceux
+ * absents de la source sont supprimés de la cible, puis la comparaison est refaite : une écriture
+ * concurrente peut avoir eu lieu entre les deux lectures. Les utilisateurs encore différents après
+ * {@code MAX_ATTEMPTS} tentatives sont signalés dans le statut. Un second parcours supprime les
+ * utilisateurs présents uniquement dans la cible, et les utilisateurs dont une recopie a échoué
+ * pendant la migration sont resynchronisés à la fin.</p>
+ *
+ * <p>Une migration interrompue reprend après le dernier utilisateur traité ({@code lastUserId}).</p>
+ */
+@Service
+@Slf4j
+public class FavoriteStorageMigrationService {
+
+    static final int MAX_ATTEMPTS = 3;
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+    private static final Document CONTENT_ID_PROJECTION = new Document("contentId", 1).append("_id", 0);
+
+    private final FavoriteStorage favoriteStorage;
+    private final int batchSize;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "favoris-storage-migration");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong usersProcessed = new AtomicLong();
+    private final AtomicLong favoritesCopied = new AtomicLong();
+    private final AtomicLong favoritesRemoved = new AtomicLong();
+    private final List<String> mismatchedUsers = new ArrayList<>();
+
+    private volatile String state = "IDLE";
+    private volatile String lastUserId;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public FavoriteStorageMigrationService(FavoriteStorage favoriteStorage,
+                                           @Value("${favoris.storage.migration.batch-size:100}") int batchSize) {
+        this.favoriteStorage = favoriteStorage;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Lance la recopie en arrière-plan
+     *
+     * @param afterUserId Dernier utilisateur traité par une migration interrompue, null pour tout recopier
+     * @return Statut de la migration lancée
+     * @throws IllegalStateException si aucune migration n'est configurée ou si une recopie est déjà en cours
+     */
+    public StorageMigrationStatusDto start(String afterUserId) {
+        if (!(favoriteStorage instanceof MigratingFavoriteStorage migrating)) {
+            throw new IllegalStateException("Aucune migration configurée (favoris.storage.migration.target)");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Migration déjà en cours");
+        }
+        usersProcessed.set(0);
+        favoritesCopied.set(0);
+        favoritesRemoved.set(0);
+        synchronized (mismatchedUsers) {
+            mismatchedUsers.clear();
+        }
+        state = "RUNNING";
+        lastUserId = afterUserId;
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        error = null;
+        executor.execute(() -> migrate(migrating, afterUserId));
+        return getStatus();
+    }
+
+    public StorageMigrationStatusDto getStatus() {
+        List<String> mismatches;
+        synchronized (mismatchedUsers) {
+            mismatches = List.copyOf(mismatchedUsers);
+        }
+        boolean migrating = favoriteStorage instanceof MigratingFavoriteStorage;
+        return StorageMigrationStatusDto.builder()
+                .state(state)
+                .source(migrating ? ((MigratingFavoriteStorage) favoriteStorage).getSource().getCollectionName()
+                        : favoriteStorage.getCollectionName())
+                .target(migrating ? ((MigratingFavoriteStorage) favoriteStorage).getTarget().getCollectionName() : null)
+                .usersProcessed(usersProcessed.get())
+                .favoritesCopied(favoritesCopied.get())
+                .favoritesRemoved(favoritesRemoved.get())
+                .mismatchedUsers(mismatches)
+                .lastUserId(lastUserId)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .error(error)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void migrate(MigratingFavoriteStorage storage, String afterUserId) {
+        FavoriteStorage source = storage.getSource();
+        FavoriteStorage target = storage.getTarget();
+        log.info("Migration des favoris de {} vers {} (après: {})",
+                source.getCollectionName(), target.getCollectionName(), afterUserId);
+        try {
+            String last = afterUserId;
+            List<String> userIds;
+            while (!Thread.currentThread().isInterrupted() && !(userIds = source.findUserIds(last, batchSize)).isEmpty()) {
+                for (String userId : userIds) {
+                    syncUser(source, target, userId);
+                    lastUserId = userId;
+                }
+                last = userIds.get(userIds.size() - 1);
+            }
+
+            // Utilisateurs dont tous les favoris ont été supprimés de la source sans l'être de la cible
+            last = afterUserId;
+            while (!Thread.currentThread().isInterrupted() && !(userIds = target.findUserIds(last, batchSize)).isEmpty()) {
+                for (String userId : userIds) {
+                    if (source.findByUserId(userId, CONTENT_ID_PROJECTION).isEmpty()) {
+                        syncUser(source, target, userId);
+                    }
+                }
+                last = userIds.get(userIds.size() - 1);
+            }
+
+            for (String userId : storage.drainUsersToRepair()) {
+                syncUser(source, target, userId);
+            }
+            state = Thread.currentThread().isInterrupted() ? "FAILED" : "COMPLETED";
+            log.info("Migration des favoris terminée: {} utilisateurs, {} favoris recopiés, {} supprimés, {} en écart",
+                    usersProcessed.get(), favoritesCopied.get(), favoritesRemoved.get(), mismatchedUsers.size());
+        } catch (RuntimeException e) {
+            log.error("Migration des favoris interrompue après l'utilisateur {}", lastUserId, e);
+            state = "FAILED";
+            error = e.getMessage();
+        } finally {
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Aligne les favoris d'un utilisateur dans la cible sur ceux de la source
+     *
+     * @return true si les deux dispositions sont identiques pour cet utilisateur
+     */
+    boolean syncUser(FavoriteStorage source, FavoriteStorage target, String userId) {
+        usersProcessed.incrementAndGet();
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            List<Favorite> expected = source.findByUserId(userId);
+            List<Favorite> actual = target.findByUserId(userId);
+            if (new HashSet<>(expected).equals(new HashSet<>(actual))) {
+                return true;
+            }
+
+            Map<String, Favorite> actualByContent = new HashMap<>();
+            actual.forEach(favorite -> actualByContent.put(favorite.getContentId(), favorite));
+            List<Favorite> missing = new ArrayList<>();
+            List<String> extraIds = new ArrayList<>();
+            for (Favorite favorite : expected) {
+                Favorite copy = actualByContent.remove(favorite.getContentId());
+                if (copy == null) {
+                    missing.add(favorite);
+                } else if (!copy.equals(favorite)) {
+                    if (favorite.getId().equals(copy.getId())) {
+                        target.save(favorite);
+                    } else {
+                        extraIds.add(copy.getId());
+                        missing.add(favorite);
+                    }
+                }
+            }
+            actualByContent.values().forEach(favorite -> extraIds.add(favorite.getId()));
+
+            // Suppressions d'abord : un favori recopié avec un autre identifiant libère son contenu
+            if (!extraIds.isEmpty()) {
+                target.deleteAllById(extraIds);
+                favoritesRemoved.addAndGet(extraIds.size());
+            }
+            if (!missing.isEmpty()) {
+                Map<Integer, Integer> errors = target.insertAllUnordered(missing);
+                favoritesCopied.addAndGet(missing.size() - errors.size());
+            }
+        }
+        if (new HashSet<>(source.findByUserId(userId)).equals(new HashSet<>(target.findByUserId(userId)))) {
+            return true;
+        }
+        log.warn("Favoris de l'utilisateur {} encore différents après {} tentatives", userId, MAX_ATTEMPTS);
+        synchronized (mismatchedUsers) {
+            if (mismatchedUsers.size() < MAX_REPORTED_MISMATCHES) {
+                mismatchedUsers.add(userId);
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,119 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.dto.FavoriteSummaryDto;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.FavoriteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Listes légères des favoris d'un utilisateur : identifiants seuls, ou champs d'affichage choisis
+ * par l'appelant.
+ *
+ * <p>Les favoris sont lus avec une projection Mongo (sans la description) et mis en cache à part,
+ * sous forme de {@link FavoriteDto} dont seuls les champs projetés sont renseignés : les champs
+ * absents n'occupent qu'un octet dans le format binaire du cache. Deux entrées par utilisateur,
+ * quelle que soit la sélection : "favoritesIds" (contentId, contentType) et "favoritesSummary"
+ * (tous les champs de résumé), la sélection étant appliquée à la lecture. Le titre et la vignette
+ * sont lus dans le catalogue des contenus, seulement s'ils sont demandés.</p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FavoriteSummaryService {
+
+    /**
+     * Champs toujours renvoyés, et seuls champs de la liste d'identifiants
+     */
+    public static final Set<String> ID_FIELDS = Set.of("contentId", "contentType");
+
+    /**
+     * Champs sélectionnables, dans l'ordre de {@link FavoriteSummaryDto}
+     */
+    public static final Set<String> SUMMARY_FIELDS = new LinkedHashSet<>(
+            List.of("id", "contentId", "contentType", "title", "thumbnailUrl", "createdAt"));
+
+    static final String IDS_CACHE = "favoritesIds";
+    static final String SUMMARY_CACHE = "favoritesSummary";
+
+    private final FavoriteRepository favoriteRepository;
+    private final CacheManager cacheManager;
+    private final ContentCatalogService contentCatalogService;
+
+    /**
+     * Récupère la liste légère des favoris d'un utilisateur
+     *
+     * @param userId ID de l'utilisateur
+     * @param fields Champs demandés en plus de contentId et contentType (vide pour les identifiants seuls)
+     * @return Favoris de l'utilisateur réduits aux champs demandés
+     * @throws IllegalArgumentException si un champ demandé n'est pas sélectionnable
+     */
+    public List<FavoriteSummaryDto> getUserFavoriteSummaries(String userId, Collection<String> fields) {
+        Set<String> selected = new LinkedHashSet<>(ID_FIELDS);
+        for (String field : fields) {
+            if (!SUMMARY_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Champ inconnu: " + field + " (champs possibles: " + SUMMARY_FIELDS + ")");
+            }
+            selected.add(field);
+        }
+
+        List<FavoriteDto> favorites = selected.equals(ID_FIELDS)
+                ? getCache(IDS_CACHE).get(userId, () -> load(userId, favoriteRepository::findIdsByUserId))
+                : getCache(SUMMARY_CACHE).get(userId, () -> load(userId, favoriteRepository::findSummariesByUserId));
+        if (selected.contains("title") || selected.contains("thumbnailUrl")) {
+            favorites = contentCatalogService.hydrate(favorites);
+        }
+
+        List<FavoriteSummaryDto> summaries = new ArrayList<>(favorites.size());
+        for (FavoriteDto favorite : favorites) {
+            summaries.add(toSummary(favorite, selected));
+        }
+        return summaries;
+    }
+
+    private List<FavoriteDto> load(String userId, Function<String, List<Favorite>> query) {
+        log.info("Cache miss - Récupération de la liste légère des favoris pour l'utilisateur: {}", userId);
+        return query.apply(userId).stream()
+                .map(FavoriteService::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    private static FavoriteSummaryDto toSummary(FavoriteDto favorite, Set<String> fields) {
+        FavoriteSummaryDto.FavoriteSummaryDtoBuilder summary = FavoriteSummaryDto.builder()
+                .contentId(favorite.getContentId())
+                .contentType(favorite.getContentType());
+        if (fields.contains("id")) {
+            summary.id(favorite.getId());
+        }
+        if (fields.contains("title")) {
+            summary.title(favorite.getTitle());
+        }
+        if (fields.contains("thumbnailUrl")) {
+            summary.thumbnailUrl(favorite.getThumbnailUrl());
+        }
+        if (fields.contains("createdAt")) {
+            summary.createdAt(favorite.getCreatedAt());
+        }
+        return summary.build();
+    }
+
+    private Cache getCache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("Cache introuvable: " + name);
+        }
+        return cache;
+    }
+}
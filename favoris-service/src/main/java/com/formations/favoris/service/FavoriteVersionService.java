@@ -0,0 +1,110 @@
+package com.formations.favoris.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Numéros de version des favoris de chaque utilisateur, partagés par les instances dans Redis,
+ * servant d'ETag aux listes de favoris.
+ *
+ * <p>La version d'un utilisateur est incrémentée à chaque invalidation de ses caches, donc après
+ * l'écriture en base : une version lue est toujours associée à une liste au moins aussi récente.
+ * Une invalidation de tous les caches incrémente une époque commune, incluse dans chaque ETag.</p>
+ *
+ * <p>Une version absente (jamais écrite ou évincée par Redis) est initialisée à l'heure courante
+ * en millisecondes, et non à zéro : une clé recréée ne reprend pas une valeur déjà vue par un client.
+ * Si Redis est indisponible, aucun ETag n'est produit et les listes sont renvoyées en entier. Un
+ * changement de version impossible fait échouer l'invalidation, comme l'éviction des caches : les
+ * clients garderaient sinon l'ancienne liste sous un ETag toujours valide.</p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FavoriteVersionService {
+
+    static final String KEY_PREFIX = "favoris:version:";
+    static final String EPOCH_KEY = "favoris:version-epoch";
+
+    /**
+     * Incrémente une version, initialisée à ARGV[1] si elle est absente
+     */
+    static final RedisScript<Long> BUMP = RedisScript.of(
+            "if redis.call('exists', KEYS[1]) == 1 then return redis.call('incr', KEYS[1]) end "
+                    + "redis.call('set', KEYS[1], ARGV[1]) return tonumber(ARGV[1])",
+            Long.class);
+
+    /**
+     * Lit l'époque (KEYS[1]) et la version de l'utilisateur (KEYS[2]), initialisées à ARGV[1] si absentes
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ = RedisScript.of(
+            "local versions = {} "
+                    + "for i, key in ipairs(KEYS) do "
+                    + "local version = redis.call('get', key) "
+                    + "if not version then redis.call('set', key, ARGV[1]) version = ARGV[1] end "
+                    + "versions[i] = version "
+                    + "end return versions",
+            List.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * Renvoie l'ETag (fort) de la version courante des favoris d'un utilisateur
+     *
+     * @param userId ID de l'utilisateur
+     * @return ETag entre guillemets, ou null si la version n'a pas pu être lue
+     */
+    public String getETag(String userId) {
+        String version = getVersion(userId);
+        return version != null ? "\"" + version + "\"" : null;
+    }
+
+    /**
+     * Renvoie la version courante des favoris d'un utilisateur, époque comprise, sans guillemets
+     *
+     * @param userId ID de l'utilisateur
+     * @return Version au format {@code <époque>-<version>}, ou null si elle n'a pas pu être lue
+     */
+    public String getVersion(String userId) {
+        try {
+            List<?> versions = redisTemplate.execute(READ, List.of(EPOCH_KEY, KEY_PREFIX + userId), initialVersion());
+            if (versions == null || versions.size() != 2) {
+                return null;
+            }
+            return versions.get(0) + "-" + versions.get(1);
+        } catch (RuntimeException e) {
+            log.warn("Impossible de lire la version des favoris de l'utilisateur {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Change la version des favoris d'un utilisateur, après invalidation de ses caches
+     *
+     * @param userId ID de l'utilisateur
+     */
+    public void bump(String userId) {
+        bumpKey(KEY_PREFIX + userId);
+    }
+
+    /**
+     * Change la version des favoris de tous les utilisateurs
+     */
+    public void bumpAll() {
+        bumpKey(EPOCH_KEY);
+    }
+
+    private void bumpKey(String key) {
+        redisTemplate.execute(BUMP, Collections.singletonList(key), initialVersion());
+    }
+
+    static String initialVersion() {
+        return Long.toString(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,393 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.event.FavoriteChangedEvent;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.FavoriteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File d'écriture différée (write-behind) des ajouts de favoris, activée par
+ * {@code favoris.write-behind.enabled}.
+ *
+ * <p>Les favoris acceptés sont placés dans une file bornée ; un thread unique les écrit par lots
+ * (taille maximale {@code batch-size}, délai maximal {@code max-delay} après le premier élément)
+ * avec une insertion groupée non ordonnée. Quand la file est pleine, l'appelant attend au plus
+ * {@code offer-timeout} puis écrit lui-même son favori : la pression est renvoyée aux appelants
+ * sans perte. À l'arrêt, la file est vidée avant la fermeture des connexions.</p>
+ *
+ * <p>Un favori en attente peut être annulé par une suppression ; s'il est en cours d'écriture,
+ * l'annulation attend la fin de la tentative pour que la suppression en base le trouve.</p>
+ *
+ * <p>Les favoris sont acquittés avant leur écriture : un lot dont l'écriture échoue (bascule du
+ * primaire Mongo, réseau) est retenté avec un délai croissant, borné par {@code max-retry-delay},
+ * tant que l'application tourne. Pendant ce temps la file se remplit et les nouveaux ajouts sont
+ * écrits de façon synchrone par leurs appelants. Entre deux tentatives, les favoris du lot
+ * redeviennent annulables. Les favoris qui ne peuvent pas être écrits (document rejeté, échec
+ * persistant à l'arrêt) sont retirés des caches partagés comme une suppression, pour que
+ * l'appartenance et les listes ne montrent pas un favori absent de la base.</p>
+ */
+@Component
+@Slf4j
+public class FavoriteWriteBehindQueue {
+
+    public enum EnqueueResult {
+        QUEUED,
+        DUPLICATE,
+        REJECTED
+    }
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+    private static final long FIRST_RETRY_DELAY_MILLIS = 100;
+
+    private static final int PENDING = 0;
+    private static final int WRITING = 1;
+    private static final int CANCELLED = 2;
+
+    private final FavoriteRepository favoriteRepository;
+    private final FavoriteCacheInvalidator cacheInvalidator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final long offerTimeoutNanos;
+    private final long maxRetryDelayMillis;
+
+    private final BlockingQueue<PendingFavorite> queue;
+    private final Map<String, PendingFavorite> pending = new ConcurrentHashMap<>();
+    // Élément factice qui réveille le flusher à l'arrêt ; jamais écrit car déjà annulé
+    private final PendingFavorite wakeUp = new PendingFavorite("", null, CANCELLED);
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter rejected;
+    private final Counter lost;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public FavoriteWriteBehindQueue(FavoriteRepository favoriteRepository,
+                                    FavoriteCacheInvalidator cacheInvalidator,
+                                    ApplicationEventPublisher eventPublisher,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${favoris.write-behind.enabled:false}") boolean enabled,
+                                    @Value("${favoris.write-behind.capacity:10000}") int capacity,
+                                    @Value("${favoris.write-behind.batch-size:500}") int batchSize,
+                                    @Value("${favoris.write-behind.max-delay:PT0.05S}") Duration maxDelay,
+                                    @Value("${favoris.write-behind.offer-timeout:PT0.1S}") Duration offerTimeout,
+                                    @Value("${favoris.write-behind.max-retry-delay:PT5S}") Duration maxRetryDelay) {
+        this.favoriteRepository = favoriteRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.maxRetryDelayMillis = maxRetryDelay.toMillis();
+        this.queue = new LinkedBlockingQueue<>(capacity);
+
+        Gauge.builder("favoris.write_behind.queue.depth", queue, BlockingQueue::size)
+                .description("Favoris en attente d'écriture")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("favoris.write_behind.flush")
+                .description("Durée d'écriture d'un lot de favoris")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("favoris.write_behind.batch.size")
+                .description("Nombre de favoris par lot écrit")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("favoris.write_behind.rejected")
+                .description("Ajouts écrits de façon synchrone faute de place dans la file")
+                .register(meterRegistry);
+        this.lost = Counter.builder("favoris.write_behind.lost")
+                .description("Favoris acquittés qui n'ont pas pu être écrits, retirés des caches")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "favoris-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Écriture différée des favoris activée (lots de {} au plus)", batchSize);
+    }
+
+    /**
+     * Place un favori dans la file d'écriture
+     *
+     * @param favorite Favori à écrire, avec son identifiant déjà attribué
+     * @return QUEUED si le favori sera écrit par le flusher, DUPLICATE s'il est déjà en attente,
+     *         REJECTED si la file est pleine ou arrêtée (l'appelant doit alors l'écrire lui-même)
+     */
+    public EnqueueResult enqueue(Favorite favorite) {
+        if (!running) {
+            return EnqueueResult.REJECTED;
+        }
+        String key = pairKey(favorite.getUserId(), favorite.getContentId());
+        PendingFavorite entry = new PendingFavorite(key, favorite);
+        if (pending.putIfAbsent(key, entry) != null) {
+            return EnqueueResult.DUPLICATE;
+        }
+        try {
+            if (queue.offer(entry, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return EnqueueResult.QUEUED;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pending.remove(key, entry);
+        rejected.increment();
+        log.warn("File d'écriture pleine, écriture synchrone du favori de l'utilisateur: {}", favorite.getUserId());
+        return EnqueueResult.REJECTED;
+    }
+
+    /**
+     * Annule l'écriture d'un favori encore en attente
+     *
+     * @return Le favori annulé, ou vide s'il n'était pas en attente (il est alors en base)
+     */
+    public Optional<Favorite> cancel(String userId, String contentId) {
+        String key = pairKey(userId, contentId);
+        while (true) {
+            PendingFavorite entry = pending.get(key);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (entry.state.compareAndSet(PENDING, CANCELLED)) {
+                pending.remove(entry.key, entry);
+                queue.remove(entry);
+                return Optional.of(entry.favorite);
+            }
+            // Tentative d'écriture en cours : à sa fin, le favori est en base ou de nouveau annulable
+            entry.attempt.join();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void runFlusher() {
+        List<PendingFavorite> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingFavorite first = queue.poll(maxDelayNanos, TimeUnit.NANOSECONDS);
+                if (first == null || first == wakeUp) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (running && batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingFavorite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                log.error("Erreur inattendue lors de l'écriture différée d'un lot", e);
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<PendingFavorite> batch) {
+        List<PendingFavorite> claimed = claim(batch);
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        Map<String, Set<ContentType>> modifiedTypesByUser = new LinkedHashMap<>();
+        for (PendingFavorite entry : claimed) {
+            modifiedTypesByUser.computeIfAbsent(entry.favorite.getUserId(), userId -> new HashSet<>())
+                    .add(entry.favorite.getContentType());
+        }
+        List<PendingFavorite> failed = new ArrayList<>();
+        try {
+            long retryDelayMillis = Math.min(FIRST_RETRY_DELAY_MILLIS, maxRetryDelayMillis);
+            for (int attempt = 1; !claimed.isEmpty(); attempt++) {
+                try {
+                    List<PendingFavorite> writing = claimed;
+                    failed.addAll(flushTimer.record(() -> insert(writing)));
+                    batchSizes.record(claimed.size());
+                    complete(claimed);
+                    break;
+                } catch (RuntimeException e) {
+                    if (!running || Thread.currentThread().isInterrupted()) {
+                        log.error("Échec de l'écriture d'un lot de {} favoris à l'arrêt: {}", claimed.size(), e.getMessage());
+                        failed.addAll(claimed);
+                        complete(claimed);
+                        break;
+                    }
+                    log.warn("Échec de l'écriture d'un lot de {} favoris (tentative {}), nouvel essai dans {} ms: {}",
+                            claimed.size(), attempt, retryDelayMillis, e.getMessage());
+                    // Les favoris redeviennent annulables pendant l'attente
+                    release(claimed);
+                    sleepBeforeRetry(retryDelayMillis);
+                    retryDelayMillis = Math.min(maxRetryDelayMillis, retryDelayMillis * 2);
+                    claimed = claim(claimed);
+                }
+            }
+        } finally {
+            // Favoris acquittés mais absents de la base : retirés des caches comme une suppression
+            for (PendingFavorite entry : failed) {
+                lost.increment();
+                eventPublisher.publishEvent(FavoriteChangedEvent.removed(entry.favorite));
+            }
+            // Les lectures faites avant l'écriture ont pu mettre en cache une liste sans ces favoris
+            modifiedTypesByUser.forEach(cacheInvalidator::evictUser);
+        }
+    }
+
+    /**
+     * Réserve les favoris encore en attente pour une tentative d'écriture, les annulés étant écartés
+     */
+    private static List<PendingFavorite> claim(List<PendingFavorite> entries) {
+        List<PendingFavorite> claimed = new ArrayList<>(entries.size());
+        for (PendingFavorite entry : entries) {
+            CompletableFuture<Void> attempt = new CompletableFuture<>();
+            entry.attempt = attempt;
+            if (entry.state.compareAndSet(PENDING, WRITING)) {
+                claimed.add(entry);
+            } else {
+                attempt.complete(null);
+            }
+        }
+        return claimed;
+    }
+
+    private static void release(List<PendingFavorite> entries) {
+        for (PendingFavorite entry : entries) {
+            entry.state.set(PENDING);
+            entry.attempt.complete(null);
+        }
+    }
+
+    private void complete(List<PendingFavorite> entries) {
+        for (PendingFavorite entry : entries) {
+            pending.remove(entry.key, entry);
+            entry.attempt.complete(null);
+        }
+    }
+
+    /**
+     * Insère le lot en une écriture non ordonnée
+     *
+     * @return Les favoris rejetés par la base (hors doublons, déjà présents)
+     * @throws RuntimeException si l'écriture du lot échoue
+     */
+    private List<PendingFavorite> insert(List<PendingFavorite> entries) {
+        List<Favorite> favorites = new ArrayList<>(entries.size());
+        for (PendingFavorite entry : entries) {
+            favorites.add(entry.favorite);
+        }
+        List<PendingFavorite> rejectedEntries = new ArrayList<>();
+        favoriteRepository.insertAllUnordered(favorites).forEach((index, code) -> {
+            Favorite favorite = favorites.get(index);
+            if (code == DUPLICATE_KEY_ERROR) {
+                log.debug("Favori déjà présent lors de l'écriture différée, utilisateur: {} contenu: {}",
+                        favorite.getUserId(), favorite.getContentId());
+            } else {
+                log.error("Échec de l'écriture différée du favori, utilisateur: {} contenu: {} (code {})",
+                        favorite.getUserId(), favorite.getContentId(), code);
+                rejectedEntries.add(entries.get(index));
+            }
+        });
+        return rejectedEntries;
+    }
+
+    private void sleepBeforeRetry(long delayMillis) {
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        log.info("Arrêt de l'écriture différée, {} favoris en attente", queue.size());
+        running = false;
+        queue.offer(wakeUp);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Favoris placés dans la file pendant l'arrêt du flusher
+        List<PendingFavorite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.remove(wakeUp);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+    }
+
+    private static String pairKey(String userId, String contentId) {
+        return userId + '\u0000' + contentId;
+    }
+
+    private static final class PendingFavorite {
+        private final String key;
+        private final Favorite favorite;
+        private final AtomicInteger state;
+        // Tentative d'écriture en cours, attendue par une annulation concurrente
+        private volatile CompletableFuture<Void> attempt = CompletableFuture.completedFuture(null);
+
+        private PendingFavorite(String key, Favorite favorite) {
+            this(key, favorite, PENDING);
+        }
+
+        private PendingFavorite(String key, Favorite favorite, int state) {
+            this.key = key;
+            this.favorite = favorite;
+            this.state = new AtomicInteger(state);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.formations.favoris.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Utilisateurs les plus fréquemment lus, candidats au préchargement des caches au démarrage.
+ *
+ * <p>Les fréquences sont estimées par un count-min sketch de 4 lignes, dimensionné d'après le
+ * nombre d'utilisateurs suivis : la mémoire est bornée quel que soit le nombre d'utilisateurs
+ * distincts, et une estimation n'est jamais inférieure à la fréquence réelle. Toutes les
+ * {@code 10 × largeur} lectures, les compteurs sont divisés par deux : les utilisateurs devenus
+ * inactifs perdent progressivement leur place.</p>
+ *
+ * <p>Les candidats sont bornés à deux fois la taille suivie ; au-delà, ils sont triés par fréquence
+ * estimée et les moins lus sont écartés. Un nouvel utilisateur n'entre ensuite que si sa fréquence
+ * dépasse celle du dernier candidat conservé.</p>
+ */
+@Component
+@Slf4j
+public class HotUserTracker {
+
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicIntegerArray counters;
+    private final long resetThreshold;
+    private final AtomicLong additions = new AtomicLong();
+    private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+    private volatile int admissionFrequency;
+
+    public HotUserTracker(@Value("${favoris.cache.warmup.hot-set-size:10000}") int capacity) {
+        this.capacity = capacity;
+        int width = Integer.highestOneBit(Math.max(capacity * 8, 64) - 1) << 1;
+        this.mask = width - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * width);
+        this.resetThreshold = 10L * width;
+    }
+
+    /**
+     * Compte une lecture des favoris d'un utilisateur
+     *
+     * @param userId ID de l'utilisateur
+     */
+    public void recordAccess(String userId) {
+        if (userId == null) {
+            return;
+        }
+        int frequency = increment(userId);
+        if (additions.incrementAndGet() % resetThreshold == 0) {
+            age();
+        }
+        if (frequency > admissionFrequency || candidates.size() < capacity) {
+            candidates.add(userId);
+            if (candidates.size() > 2 * capacity) {
+                trim();
+            }
+        }
+    }
+
+    /**
+     * Ajoute des utilisateurs connus comme fréquents (instantané précédent), pour qu'un
+     * redémarrage rapide n'écrase pas l'instantané par une liste presque vide
+     */
+    public void seed(Collection<String> userIds) {
+        for (String userId : userIds) {
+            if (candidates.size() >= capacity) {
+                break;
+            }
+            increment(userId);
+            candidates.add(userId);
+        }
+    }
+
+    /**
+     * Utilisateurs suivis, du plus lu au moins lu
+     */
+    public List<String> hottest() {
+        return candidates.stream()
+                .sorted(Comparator.comparingInt(this::frequency).reversed())
+                .limit(capacity)
+                .toList();
+    }
+
+    /**
+     * Fréquence estimée (majorée) des lectures d'un utilisateur
+     */
+    int frequency(String userId) {
+        int hash = userId.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.get(index(row, hash)));
+        }
+        return min;
+    }
+
+    private int increment(String userId) {
+        int hash = userId.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.incrementAndGet(index(row, hash)));
+        }
+        return min;
+    }
+
+    private int index(int row, int hash) {
+        int h = (hash ^ SEEDS[row]) * 0x9E3779B1;
+        return row * (mask + 1) + ((h ^ (h >>> 16)) & mask);
+    }
+
+    private void age() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.updateAndGet(i, count -> count >>> 1);
+        }
+        admissionFrequency >>>= 1;
+        log.debug("Vieillissement des fréquences de lecture ({} candidats)", candidates.size());
+    }
+
+    private synchronized void trim() {
+        if (candidates.size() <= 2 * capacity) {
+            return;
+        }
+        List<String> retained = hottest();
+        candidates.retainAll(Set.copyOf(retained));
+        admissionFrequency = frequency(retained.get(retained.size() - 1));
+    }
+}
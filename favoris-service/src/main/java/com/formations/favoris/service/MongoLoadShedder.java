@@ -0,0 +1,163 @@
+package com.formations.favoris.service;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Délestage adaptatif : au-delà d'une latence Mongo cible, une part des requêtes est refusée
+ * immédiatement (503) pour que celles qui sont admises restent servies dans les temps, au lieu
+ * de toutes attendre une connexion du pool.
+ *
+ * <p>La latence d'une opération est estimée par la somme de deux moyennes mobiles exponentielles,
+ * alimentées par les événements du driver : l'attente d'une connexion du pool et la durée des
+ * commandes ({@code getMore} exclus, ses attentes sur les curseurs du change stream et des exports
+ * ne traduisant pas une charge). Au-dessus de la cible, la part refusée est
+ * {@code (latence - cible) / latence}, bornée : elle suit l'excès de charge et retombe à zéro
+ * quand la latence revient sous la cible. La latence moyenne se stabilise donc à
+ * {@code cible / (1 - part refusée)}, par exemple deux fois la cible pour une charge double de la
+ * capacité, et reste bornée par la part maximale. Sans nouvel échantillon, l'estimation décroît,
+ * pour qu'un délestage total ne se prolonge pas faute de mesures.</p>
+ *
+ * <p>Désactivé par défaut : la latence estimée reste mesurée et publiée, pour calibrer la cible
+ * sur la latence observée en charge normale avant d'activer les refus.</p>
+ */
+@Service
+public class MongoLoadShedder implements CommandListener, ConnectionPoolListener {
+
+    private static final double SMOOTHING = 0.1; // poids d'un nouvel échantillon dans les moyennes
+    private static final String GET_MORE = "getMore";
+
+    private final boolean enabled;
+    private final long targetNanos;
+    private final double maxShedRatio;
+    private final long decayNanos;
+    private final LatencyAverage commands = new LatencyAverage();
+    private final LatencyAverage checkouts = new LatencyAverage();
+    private final Counter shed;
+
+    public MongoLoadShedder(MeterRegistry meterRegistry,
+                            @Value("${favoris.load-shedding.enabled:false}") boolean enabled,
+                            @Value("${favoris.load-shedding.target-latency:PT0.05S}") Duration targetLatency,
+                            @Value("${favoris.load-shedding.max-shed-ratio:0.9}") double maxShedRatio,
+                            @Value("${favoris.load-shedding.decay:PT1S}") Duration decay) {
+        this.enabled = enabled;
+        this.targetNanos = targetLatency.toNanos();
+        this.maxShedRatio = maxShedRatio;
+        this.decayNanos = decay.toNanos();
+        this.shed = Counter.builder("favoris.load_shedding.rejected")
+                .description("Requêtes refusées par le délestage")
+                .register(meterRegistry);
+        Gauge.builder("favoris.load_shedding.latency", this, shedder -> shedder.estimatedLatencyNanos(System.nanoTime()) / 1e9)
+                .description("Latence Mongo estimée (attente du pool et commande)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Décide si une requête est admise, selon la latence Mongo estimée
+     *
+     * @return false si la requête doit être refusée
+     */
+    public boolean tryAdmit() {
+        if (!enabled) {
+            return true;
+        }
+        double latencyNanos = estimatedLatencyNanos(System.nanoTime());
+        if (latencyNanos <= targetNanos) {
+            return true;
+        }
+        double shedRatio = Math.min(maxShedRatio, (latencyNanos - targetNanos) / latencyNanos);
+        if (ThreadLocalRandom.current().nextDouble() >= shedRatio) {
+            return true;
+        }
+        shed.increment();
+        return false;
+    }
+
+    double estimatedLatencyNanos(long nowNanos) {
+        return commands.value(nowNanos, decayNanos) + checkouts.value(nowNanos, decayNanos);
+    }
+
+    /**
+     * Enregistre la durée d'une commande Mongo
+     */
+    public void recordCommand(long elapsedNanos) {
+        commands.record(elapsedNanos, System.nanoTime(), decayNanos);
+    }
+
+    /**
+     * Enregistre l'attente d'une connexion du pool
+     */
+    public void recordCheckout(long elapsedNanos) {
+        checkouts.record(elapsedNanos, System.nanoTime(), decayNanos);
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        if (!GET_MORE.equals(event.getCommandName())) {
+            recordCommand(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        if (!GET_MORE.equals(event.getCommandName())) {
+            recordCommand(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        recordCheckout(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        recordCheckout(event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Moyenne mobile exponentielle mise à jour sans verrou, décroissant avec le temps écoulé
+     * depuis le dernier échantillon
+     */
+    private static final class LatencyAverage {
+
+        private final AtomicLong averageBits = new AtomicLong(Double.doubleToRawLongBits(0));
+        private volatile long lastSampleNanos;
+
+        void record(long sampleNanos, long nowNanos, long decayNanos) {
+            while (true) {
+                long current = averageBits.get();
+                double average = decayed(Double.longBitsToDouble(current), nowNanos, decayNanos);
+                double next = average + SMOOTHING * (sampleNanos - average);
+                if (averageBits.compareAndSet(current, Double.doubleToRawLongBits(next))) {
+                    lastSampleNanos = nowNanos;
+                    return;
+                }
+            }
+        }
+
+        double value(long nowNanos, long decayNanos) {
+            return decayed(Double.longBitsToDouble(averageBits.get()), nowNanos, decayNanos);
+        }
+
+        private double decayed(double average, long nowNanos, long decayNanos) {
+            long idleNanos = nowNanos - lastSampleNanos;
+            return idleNanos > 0 ? average * Math.exp(-(double) idleNanos / decayNanos) : average;
+        }
+    }
+}
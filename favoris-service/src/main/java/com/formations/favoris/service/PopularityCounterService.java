@@ -0,0 +1,176 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.event.FavoriteChangedEvent;
+import com.formations.favoris.model.ContentPopularity;
+import com.formations.favoris.repository.ContentPopularityRepository;
+import com.formations.favoris.repository.FavoriteStorage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs de popularité par contenu ("N apprenants ont enregistré ce cours").
+ *
+ * <p>Les ajouts et suppressions de favoris sont agrégés en mémoire dans un {@link LongAdder}
+ * par contenu, puis les variations sont écrites périodiquement dans la collection
+ * {@code content_popularity} en une seule écriture groupée. Les lectures n'interrogent que
+ * cette collection, à travers un cache local dont la durée de vie est celle de l'intervalle
+ * de flush : le retard d'un compteur est donc borné par deux intervalles.</p>
+ *
+ * <p>Au premier démarrage, avant toute lecture, la collection est reconstruite à partir des favoris
+ * existants ($group par contenu côté serveur) ; un document marqueur évite de la recalculer aux
+ * démarrages suivants. Les variations écrites par un autre nœud pendant ce recalcul peuvent être
+ * écrasées, l'écart est alors celui de ces seules variations.</p>
+ */
+@Service
+@Slf4j
+public class PopularityCounterService {
+
+    public static final int MAX_CONTENT_IDS = 200;
+
+    /**
+     * Compteur marquant la collection comme reconstruite (aucun contenu n'a un ID vide)
+     */
+    static final String BACKFILL_MARKER = "";
+
+    private final ContentPopularityRepository popularityRepository;
+    private final FavoriteStorage favoriteStorage;
+    private final Map<String, LongAdder> pendingDeltas = new ConcurrentHashMap<>();
+    private final Cache<String, Long> counts;
+
+    public PopularityCounterService(ContentPopularityRepository popularityRepository,
+                                    FavoriteStorage favoriteStorage,
+                                    @Value("${favoris.popularity.flush-interval:PT5S}") Duration flushInterval,
+                                    @Value("${favoris.popularity.cache-maximum-size:50000}") long cacheMaximumSize) {
+        this.popularityRepository = popularityRepository;
+        this.favoriteStorage = favoriteStorage;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(flushInterval)
+                .build();
+    }
+
+    /**
+     * Reconstruit les compteurs à partir des favoris existants s'ils ne l'ont jamais été, avant que le
+     * service ne réponde : sans cela, les contenus déjà en favori avant la création de la collection
+     * resteraient affichés à 0. Un échec interrompt le démarrage.
+     */
+    @PostConstruct
+    public void backfill() {
+        if (popularityRepository.existsById(BACKFILL_MARKER)) {
+            return;
+        }
+        log.info("Reconstruction des compteurs de popularité à partir des favoris existants");
+        favoriteStorage.mergeCountsByContent(ContentPopularity.COLLECTION);
+        popularityRepository.save(ContentPopularity.builder()
+                .contentId(BACKFILL_MARKER)
+                .updatedAt(LocalDateTime.now())
+                .build());
+    }
+
+    @EventListener
+    public void onFavoriteChanged(FavoriteChangedEvent event) {
+        LongAdder delta = pendingDeltas.computeIfAbsent(event.getContentId(), id -> new LongAdder());
+        if (event.isAdded()) {
+            delta.increment();
+        } else {
+            delta.decrement();
+        }
+    }
+
+    /**
+     * Récupère le nombre de favoris de plusieurs contenus
+     *
+     * @param contentIds IDs des contenus
+     * @return Nombre de favoris par contenu, dans l'ordre de la requête (0 si inconnu)
+     */
+    public Map<String, Long> getCounts(List<String> contentIds) {
+        Map<String, Long> cached = counts.getAll(contentIds, this::loadCounts);
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (String contentId : contentIds) {
+            result.put(contentId, cached.getOrDefault(contentId, 0L));
+        }
+        return result;
+    }
+
+    private Map<String, Long> loadCounts(Set<? extends String> contentIds) {
+        Map<String, Long> loaded = new HashMap<>();
+        for (String contentId : contentIds) {
+            loaded.put(contentId, 0L);
+        }
+        for (ContentPopularity popularity : popularityRepository.findAllById(new ArrayList<>(contentIds))) {
+            loaded.put(popularity.getContentId(), Math.max(0L, popularity.getCount()));
+        }
+        return loaded;
+    }
+
+    /**
+     * Écrit les variations accumulées depuis le dernier flush
+     *
+     * @return Nombre de compteurs mis à jour
+     */
+    @Scheduled(fixedDelayString = "${favoris.popularity.flush-interval:PT5S}")
+    public int flush() {
+        // La variation lue est retranchée de l'additionneur plutôt que remise à zéro, pour ne
+        // perdre aucun incrément concurrent. Les additionneurs sont conservés d'un flush à l'autre.
+        // Ordre d'itération stable : l'index d'une opération en échec désigne son contenu
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        pendingDeltas.forEach((contentId, adder) -> {
+            long delta = adder.sum();
+            if (delta != 0) {
+                adder.add(-delta);
+                deltas.put(contentId, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            popularityRepository.incrementCounts(deltas);
+        } catch (BulkOperationException e) {
+            // Écriture non ordonnée : les autres opérations ont été appliquées, seules celles en échec
+            // sont remises en attente pour ne pas compter deux fois les variations déjà écrites
+            List<String> contentIds = new ArrayList<>(deltas.keySet());
+            for (BulkWriteError error : e.getErrors()) {
+                String contentId = contentIds.get(error.getIndex());
+                pendingDeltas.get(contentId).add(deltas.get(contentId));
+            }
+            log.warn("Échec de l'écriture de {} compteurs de popularité sur {}, nouvel essai au prochain flush: {}",
+                    e.getErrors().size(), deltas.size(), e.getMessage());
+            return deltas.size() - e.getErrors().size();
+        } catch (RuntimeException e) {
+            log.warn("Échec de l'écriture de {} compteurs de popularité, nouvel essai au prochain flush: {}",
+                    deltas.size(), e.getMessage());
+            deltas.forEach((contentId, delta) -> pendingDeltas.get(contentId).add(delta));
+            return 0;
+        }
+        log.debug("{} compteurs de popularité mis à jour", deltas.size());
+        return deltas.size();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Écriture des compteurs de popularité avant l'arrêt");
+        flush();
+    }
+}
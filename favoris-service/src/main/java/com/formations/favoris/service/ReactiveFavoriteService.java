@@ -0,0 +1,244 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.config.TwoTierCacheManager;
+import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.event.FavoriteChangedEvent;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.DocumentFavoriteStorage;
+import com.formations.favoris.repository.ReactiveFavoriteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Équivalent réactif des opérations principales de {@link FavoriteService} (profil "reactive").
+ *
+ * <p>Le cache est géré en cache-aside sur Redis réactif, avec les mêmes clés, TTL et sérialisation
+ * que le {@code RedisCacheManager} des instances MVC. Après chaque écriture, les entrées Redis
+ * sont supprimées et l'invalidation est diffusée sur le canal des caches locaux, pour qu'une
+ * flotte mixte MVC/réactive reste cohérente.</p>
+ *
+ * <p>Comme pour les instances MVC, les favoris ne portent que la référence du contenu : les listes
+ * sont complétées par le catalogue des contenus, dont les accès bloquants sont faits hors de la
+ * boucle d'événements.</p>
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveFavoriteService {
+
+    private static final Duration CACHE_TTL = Duration.ofMinutes(5);
+    private static final int MAX_TOGGLE_ATTEMPTS = 3;
+    private static final String NODE_ID = "reactive-" + UUID.randomUUID();
+
+    private final ReactiveFavoriteRepository favoriteRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ReactiveRedisTemplate<String, Object> favoritesReactiveRedisTemplate;
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ContentCatalogService contentCatalogService;
+
+    /**
+     * Récupère tous les favoris d'un utilisateur
+     */
+    public Mono<List<FavoriteDto>> getUserFavorites(String userId) {
+        return cached(FavoriteCacheInvalidator.FAVORITES_CACHE, userId,
+                () -> favoriteRepository.findByUserId(userId))
+                .flatMap(this::hydrate);
+    }
+
+    /**
+     * Récupère les favoris d'un utilisateur par type de contenu
+     */
+    public Mono<List<FavoriteDto>> getUserFavoritesByType(String userId, ContentType contentType) {
+        return cached(FavoriteCacheInvalidator.FAVORITES_BY_TYPE_CACHE, contentType.cacheKey(userId),
+                () -> favoriteRepository.findByUserIdAndContentType(userId, contentType))
+                .flatMap(this::hydrate);
+    }
+
+    /**
+     * Ajoute un nouveau favori
+     *
+     * @return Le favori ajouté, ou une erreur IllegalStateException s'il existe déjà
+     */
+    public Mono<FavoriteDto> addFavorite(AddFavoriteRequest request) {
+        log.info("Tentative d'ajout d'un favori pour l'utilisateur: {} et le contenu: {}",
+                request.getUserId(), request.getContentId());
+        return favoriteRepository.existsByUserIdAndContentId(request.getUserId(), request.getContentId())
+                .flatMap(exists -> exists
+                        ? Mono.<Favorite>error(new IllegalStateException("Ce contenu est déjà dans vos favoris"))
+                        : register(request).then(favoriteRepository.insert(buildFavorite(request))))
+                .onErrorMap(DuplicateKeyException.class,
+                        e -> new IllegalStateException("Ce contenu est déjà dans vos favoris"))
+                .flatMap(saved -> afterWrite(FavoriteChangedEvent.added(saved, request.getTitle()))
+                        .thenReturn(FavoriteService.convertToDto(saved, request)));
+    }
+
+    /**
+     * Supprime un favori en un seul aller-retour (findAndRemove)
+     *
+     * @return true si le favori a été supprimé, false s'il n'existait pas
+     */
+    public Mono<Boolean> removeFavorite(String userId, String contentId) {
+        log.info("Tentative de suppression d'un favori pour l'utilisateur: {} et le contenu: {}", userId, contentId);
+        return mongoTemplate.findAndRemove(pairQuery(userId, contentId), Favorite.class)
+                .flatMap(removed -> afterWrite(FavoriteChangedEvent.removed(removed)).thenReturn(true))
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Bascule un favori, avec la même stratégie que {@link FavoriteService#toggleFavorite} :
+     * findAndRemove, sinon insertion protégée par l'index unique et nouvel essai en cas de conflit
+     *
+     * @return Le favori ajouté, ou vide s'il a été supprimé
+     */
+    public Mono<Optional<FavoriteDto>> toggleFavorite(AddFavoriteRequest request) {
+        log.info("Toggle favori pour l'utilisateur: {} et le contenu: {}", request.getUserId(), request.getContentId());
+        Mono<Optional<FavoriteDto>> attempt = mongoTemplate
+                .findAndRemove(pairQuery(request.getUserId(), request.getContentId()), Favorite.class)
+                .flatMap(removed -> afterWrite(FavoriteChangedEvent.removed(removed))
+                        .thenReturn(Optional.<FavoriteDto>empty()))
+                .switchIfEmpty(Mono.defer(() -> register(request).then(favoriteRepository.insert(buildFavorite(request)))
+                        .flatMap(saved -> afterWrite(FavoriteChangedEvent.added(saved, request.getTitle()))
+                                .thenReturn(Optional.of(FavoriteService.convertToDto(saved, request))))));
+        return attempt
+                .retryWhen(Retry.max(MAX_TOGGLE_ATTEMPTS - 1)
+                        .filter(DuplicateKeyException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .onErrorMap(DuplicateKeyException.class,
+                        e -> new IllegalStateException("Le favori est modifié simultanément, veuillez réessayer"));
+    }
+
+    /**
+     * Exporte les favoris triés par ID, pour un utilisateur ou pour tous si userId est null
+     *
+     * @param afterId Dernier ID reçu, pour reprendre un export interrompu
+     */
+    public Flux<FavoriteDto> export(String userId, String afterId) {
+        Criteria criteria = userId != null ? Criteria.where("userId").is(userId) : new Criteria();
+        if (afterId != null) {
+            criteria = criteria.and("_id").gt(new ObjectId(afterId));
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(DocumentFavoriteStorage.CURSOR_BATCH_SIZE);
+        return mongoTemplate.find(query, Favorite.class)
+                .map(ReactiveFavoriteService::convert)
+                .buffer(DocumentFavoriteStorage.CURSOR_BATCH_SIZE)
+                .concatMap(this::hydrate)
+                .flatMapIterable(favorites -> favorites);
+    }
+
+    /**
+     * Complète des favoris avec le catalogue des contenus (une seule lecture groupée)
+     */
+    private Mono<List<FavoriteDto>> hydrate(List<FavoriteDto> favorites) {
+        return Mono.fromCallable(() -> contentCatalogService.hydrate(favorites))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Void> register(AddFavoriteRequest request) {
+        return Mono.<Void>fromRunnable(() -> contentCatalogService.register(request))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<List<FavoriteDto>> cached(String cacheName, String key, Supplier<Flux<Favorite>> loader) {
+        String redisKey = cacheName + "::" + key;
+        Mono<List<FavoriteDto>> load = Flux.defer(loader)
+                .map(ReactiveFavoriteService::convert)
+                .collect(ArrayList<FavoriteDto>::new, List::add)
+                .flatMap(favorites -> favoritesReactiveRedisTemplate.opsForValue()
+                        .set(redisKey, favorites, CACHE_TTL)
+                        .onErrorResume(e -> {
+                            log.warn("Impossible de mettre en cache '{}': {}", redisKey, e.getMessage());
+                            return Mono.just(false);
+                        })
+                        .thenReturn(favorites));
+        return favoritesReactiveRedisTemplate.opsForValue().get(redisKey)
+                .map(value -> (List<FavoriteDto>) value)
+                .onErrorResume(e -> {
+                    log.warn("Cache Redis indisponible pour '{}': {}", redisKey, e.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.info("Cache miss - Récupération de '{}'", redisKey);
+                    return load;
+                }));
+    }
+
+    /**
+     * Invalide les caches de l'utilisateur (Redis puis caches locaux des autres instances), change la
+     * version de ses favoris et publie l'événement. Les abonnés à l'événement étant bloquants, la
+     * publication se fait hors de la boucle d'événements.
+     */
+    private Mono<Void> afterWrite(FavoriteChangedEvent event) {
+        List<String[]> entries = new ArrayList<>(List.of(
+                new String[]{FavoriteCacheInvalidator.FAVORITES_CACHE, event.getUserId()},
+                new String[]{FavoriteCacheInvalidator.FAVORITES_HEAD_CACHE, event.getUserId()},
+                new String[]{FavoriteCacheInvalidator.FAVORITES_IDS_CACHE, event.getUserId()},
+                new String[]{FavoriteCacheInvalidator.FAVORITES_SUMMARY_CACHE, event.getUserId()}));
+        // Type stocké inconnu : pas de liste par type en cache
+        if (event.getContentType() != null) {
+            entries.add(new String[]{FavoriteCacheInvalidator.FAVORITES_BY_TYPE_CACHE,
+                    event.getContentType().cacheKey(event.getUserId())});
+        }
+        Mono<Void> evict = Flux.fromIterable(entries)
+                .concatMap(entry -> favoritesReactiveRedisTemplate.delete(entry[0] + "::" + entry[1])
+                        .then(stringRedisTemplate.convertAndSend(TwoTierCacheManager.INVALIDATION_CHANNEL,
+                                "E|" + NODE_ID + '|' + entry[0] + '|' + entry[1])))
+                // Nouvelle version (ETag) une fois les caches invalidés, comme FavoriteCacheInvalidator
+                .thenMany(Flux.defer(() -> stringRedisTemplate.execute(FavoriteVersionService.BUMP,
+                        List.of(FavoriteVersionService.KEY_PREFIX + event.getUserId()),
+                        List.of(FavoriteVersionService.initialVersion()))))
+                .then()
+                // Échec signalé à l'appelant : l'ancienne liste resterait servie sous un ETag toujours valide
+                .doOnError(e -> log.warn("Impossible d'invalider les caches de l'utilisateur {}: {}",
+                        event.getUserId(), e.getMessage()));
+        Mono<Void> publish = Mono.<Void>fromRunnable(() -> eventPublisher.publishEvent(event))
+                .subscribeOn(Schedulers.boundedElastic());
+        return evict.then(publish);
+    }
+
+    private static Query pairQuery(String userId, String contentId) {
+        return new Query(Criteria.where("userId").is(userId).and("contentId").is(contentId));
+    }
+
+    private static Favorite buildFavorite(AddFavoriteRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+        return Favorite.builder()
+                .userId(request.getUserId())
+                .contentId(request.getContentId())
+                .contentType(request.getContentType())
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    private static FavoriteDto convert(Favorite favorite) {
+        return FavoriteService.convertToDto(favorite);
+    }
+}
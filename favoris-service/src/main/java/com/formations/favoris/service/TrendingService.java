@@ -0,0 +1,171 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.TrendingContentDto;
+import com.formations.favoris.event.FavoriteChangedEvent;
+import com.formations.favoris.model.ContentType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Classement des contenus tendance par type de contenu, selon le nombre d'ajouts en favori
+ * pondéré par une décroissance exponentielle (demi-vie configurable).
+ *
+ * <p>Le score est maintenu en « décroissance vers l'avant » : chaque ajout pèse
+ * {@code exp(λ·(t - t0))} par rapport à un instant de référence {@code t0}, si bien qu'un ajout
+ * ne modifie qu'un seul compteur et qu'aucun score n'a besoin d'être vieilli. Le facteur commun
+ * {@code exp(-λ·(now - t0))} ne change pas l'ordre ; il n'est appliqué qu'au rafraîchissement.</p>
+ *
+ * <p>Le nombre de candidats par type est borné : à chaque rafraîchissement, seuls les
+ * {@code capacity} meilleurs sont conservés. Les lectures sont servies depuis un instantané
+ * immuable recalculé à intervalle régulier, sans accès à la base.</p>
+ */
+@Service
+@Slf4j
+public class TrendingService {
+
+    public static final int MAX_LIMIT = 100;
+
+    // Au-delà de ce poids, les scores sont ramenés à un nouvel instant de référence
+    private static final double RESCALE_THRESHOLD = 1e12;
+    private static final double MIN_SCORE = 1e-3;
+
+    private final double lambdaPerMilli;
+    private final int capacity;
+
+    private final Map<ContentType, Map<String, Candidate>> candidatesByType = new ConcurrentHashMap<>();
+    // Les ajouts prennent le verrou en lecture ; le changement de référence et l'élagage en écriture
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile long landmarkMillis;
+    private volatile Map<ContentType, List<TrendingContentDto>> snapshot = Collections.emptyMap();
+
+    public TrendingService(@Value("${favoris.trending.half-life:PT6H}") Duration halfLife,
+                           @Value("${favoris.trending.capacity:1000}") int capacity) {
+        this.lambdaPerMilli = Math.log(2) / halfLife.toMillis();
+        this.capacity = capacity;
+        this.landmarkMillis = System.currentTimeMillis();
+    }
+
+    @EventListener
+    public void onFavoriteChanged(FavoriteChangedEvent event) {
+        if (!event.isAdded() || event.getContentType() == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            double weight = Math.exp(lambdaPerMilli * (event.getOccurredAt().toEpochMilli() - landmarkMillis));
+            Candidate candidate = candidatesByType
+                    .computeIfAbsent(event.getContentType(), type -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(event.getContentId(), Candidate::new);
+            candidate.title = event.getTitle();
+            candidate.weight.add(weight);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Récupère les contenus tendance d'un type
+     *
+     * @param contentType Type de contenu
+     * @param limit Nombre maximal de contenus (au plus {@link #MAX_LIMIT})
+     * @return Contenus classés par score décroissant, issus du dernier rafraîchissement
+     */
+    public List<TrendingContentDto> getTrending(ContentType contentType, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("La limite doit être comprise entre 1 et " + MAX_LIMIT);
+        }
+        List<TrendingContentDto> ranking = snapshot.getOrDefault(contentType, Collections.emptyList());
+        return new ArrayList<>(ranking.subList(0, Math.min(limit, ranking.size())));
+    }
+
+    @Scheduled(fixedDelayString = "${favoris.trending.refresh-interval:PT30S}")
+    public void refresh() {
+        refresh(Instant.now());
+    }
+
+    /**
+     * Recalcule l'instantané des classements à l'instant donné
+     */
+    void refresh(Instant now) {
+        long nowMillis = now.toEpochMilli();
+        lock.writeLock().lock();
+        try {
+            if (Math.exp(lambdaPerMilli * (nowMillis - landmarkMillis)) > RESCALE_THRESHOLD) {
+                rescale(nowMillis);
+            }
+            double decay = Math.exp(-lambdaPerMilli * (nowMillis - landmarkMillis));
+            Map<ContentType, List<TrendingContentDto>> rankings = new EnumMap<>(ContentType.class);
+            candidatesByType.forEach((contentType, candidates) ->
+                    rankings.put(contentType, rank(contentType, candidates, decay)));
+            snapshot = rankings;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Classements tendance rafraîchis pour {} types de contenu", snapshot.size());
+    }
+
+    private List<TrendingContentDto> rank(ContentType contentType, Map<String, Candidate> candidates, double decay) {
+        List<Candidate> sorted = new ArrayList<>(candidates.values());
+        sorted.sort(Comparator.comparingDouble((Candidate candidate) -> candidate.weight.sum()).reversed());
+
+        // Élagage : les candidats au-delà de la capacité ou au score négligeable sont oubliés
+        for (int i = 0; i < sorted.size(); i++) {
+            Candidate candidate = sorted.get(i);
+            if (i >= capacity || candidate.weight.sum() * decay < MIN_SCORE) {
+                candidates.remove(candidate.contentId);
+            }
+        }
+
+        List<TrendingContentDto> ranking = new ArrayList<>(Math.min(MAX_LIMIT, sorted.size()));
+        for (Candidate candidate : sorted) {
+            double score = candidate.weight.sum() * decay;
+            if (ranking.size() == MAX_LIMIT || score < MIN_SCORE) {
+                break;
+            }
+            ranking.add(TrendingContentDto.builder()
+                    .contentId(candidate.contentId)
+                    .contentType(contentType)
+                    .title(candidate.title)
+                    .score(score)
+                    .build());
+        }
+        return Collections.unmodifiableList(ranking);
+    }
+
+    private void rescale(long nowMillis) {
+        double factor = Math.exp(-lambdaPerMilli * (nowMillis - landmarkMillis));
+        for (Map<String, Candidate> candidates : candidatesByType.values()) {
+            for (Candidate candidate : candidates.values()) {
+                double rescaled = candidate.weight.sumThenReset() * factor;
+                candidate.weight.add(rescaled);
+            }
+        }
+        landmarkMillis = nowMillis;
+    }
+
+    private static final class Candidate {
+        private final String contentId;
+        private final DoubleAdder weight = new DoubleAdder();
+        private volatile String title;
+
+        private Candidate(String contentId) {
+            this.contentId = contentId;
+        }
+    }
+}
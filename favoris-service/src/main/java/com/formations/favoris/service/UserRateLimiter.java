@@ -0,0 +1,238 @@
+package com.formations.favoris.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limitation du débit d'écriture de chaque utilisateur (seau à jetons) : un client qui enchaîne
+ * les bascules ne peut pas monopoliser le pool de connexions Mongo au détriment des autres.
+ *
+ * <p>Chaque seau est un seul {@link AtomicLong}, l'heure théorique d'arrivée de la prochaine
+ * requête (GCRA, équivalent au seau à jetons) : une requête est acceptée si cette heure ne
+ * dépasse pas l'instant présent de plus de la rafale autorisée, et la repousse d'un intervalle
+ * par compare-and-set, sans verrou. Les seaux sont gardés dans un cache borné, chacun jusqu'à ce
+ * qu'il soit de nouveau plein : son heure théorique, plus la durée de remplissage d'une rafale.
+ * L'éviction ne change donc rien aux limites, même après un lot qui a repoussé l'heure théorique
+ * bien au-delà d'une rafale. Si la taille maximale est atteinte, les utilisateurs les moins actifs
+ * sont évincés en premier et retrouvent au pire une rafale complète.</p>
+ *
+ * <p>Une écriture groupée coûte un jeton par élément : elle est acceptée dès qu'il reste un
+ * jeton, comme une écriture simple, puis repousse l'heure théorique d'un intervalle par élément.
+ * Un lot plus grand que la rafale passe donc une fois, et l'utilisateur attend ensuite le temps
+ * de rembourser tous ses éléments : le débit moyen reste celui configuré. Un lot de plusieurs
+ * utilisateurs est tout ou rien : tous les seaux sont vérifiés avant d'en débiter aucun.</p>
+ *
+ * <p>En mode global, le seau est dans Redis et partagé par les instances (un aller-retour par
+ * écriture, heure de Redis). Si Redis est indisponible, la limite locale s'applique.</p>
+ */
+@Service
+@Slf4j
+public class UserRateLimiter {
+
+    static final String KEY_PREFIX = "favoris:rate-limit:";
+
+    /**
+     * Seaux GCRA en microsecondes (heure de Redis) : ARGV[1] intervalle entre deux jetons,
+     * ARGV[2] tolérance de rafale, ARGV[2 + i] jetons à débiter du seau KEYS[i]. Tous les seaux
+     * sont vérifiés avant d'en débiter aucun. Renvoie 0 si la requête est acceptée, sinon le
+     * délai en millisecondes avant que tous les seaux aient un jeton
+     */
+    static final RedisScript<Long> ACQUIRE = RedisScript.of(
+            "local time = redis.call('time') "
+                    + "local now = tonumber(time[1]) * 1000000 + tonumber(time[2]) "
+                    + "local tats = {} "
+                    + "local wait = 0 "
+                    + "for i, key in ipairs(KEYS) do "
+                    + "local tat = tonumber(redis.call('get', key)) or now "
+                    + "if tat < now then tat = now end "
+                    + "tats[i] = tat "
+                    + "wait = math.max(wait, tat - now - tonumber(ARGV[2])) "
+                    + "end "
+                    + "if wait > 0 then return math.ceil(wait / 1000) end "
+                    + "for i, key in ipairs(KEYS) do "
+                    + "local tat = tats[i] + tonumber(ARGV[1]) * tonumber(ARGV[i + 2]) "
+                    + "redis.call('set', key, string.format('%.0f', tat), 'px', math.ceil((tat - now) / 1000) + 1) "
+                    + "end "
+                    + "return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final boolean global;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final long refillNanos;
+    private final Cache<String, AtomicLong> buckets;
+    private final Policy.VarExpiration<String, AtomicLong> bucketExpiration;
+    private final Counter rejected;
+
+    public UserRateLimiter(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+                           @Value("${favoris.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${favoris.rate-limit.mode:local}") String mode,
+                           @Value("${favoris.rate-limit.writes-per-second:10}") double writesPerSecond,
+                           @Value("${favoris.rate-limit.burst:20}") int burst,
+                           @Value("${favoris.rate-limit.maximum-users:100000}") long maximumUsers) {
+        if (writesPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Débit et rafale doivent être positifs");
+        }
+        if (!"local".equals(mode) && !"redis".equals(mode)) {
+            throw new IllegalArgumentException("Mode de limitation inconnu: " + mode);
+        }
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.global = "redis".equals(mode);
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / writesPerSecond);
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.refillNanos = intervalNanos * burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumUsers)
+                // Échéance fixée à chaque débit (retention) : une lecture ne la prolonge pas
+                .expireAfter(new Expiry<String, AtomicLong>() {
+                    @Override
+                    public long expireAfterCreate(String userId, AtomicLong bucket, long currentTime) {
+                        return refillNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String userId, AtomicLong bucket, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String userId, AtomicLong bucket, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.bucketExpiration = buckets.policy().expireVariably().orElseThrow();
+        this.rejected = Counter.builder("favoris.rate_limit.rejected")
+                .description("Écritures refusées par la limitation de débit par utilisateur")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consomme un jeton du seau d'un utilisateur
+     *
+     * @param userId ID de l'utilisateur
+     * @return 0 si l'écriture est acceptée, sinon le délai en millisecondes avant le prochain jeton
+     */
+    public long tryAcquire(String userId) {
+        return tryAcquire(Map.of(userId, 1));
+    }
+
+    /**
+     * Consomme, pour une écriture groupée, le nombre de jetons indiqué de chaque utilisateur :
+     * aucun seau n'est débité si l'un d'eux est vide
+     *
+     * @param permitsByUser nombre d'éléments du lot par ID d'utilisateur
+     * @return 0 si l'écriture est acceptée, sinon le délai en millisecondes avant que chaque
+     *         utilisateur ait de nouveau un jeton
+     */
+    public long tryAcquire(Map<String, Integer> permitsByUser) {
+        if (!enabled || permitsByUser.isEmpty()) {
+            return 0;
+        }
+        long retryAfterMillis = global
+                ? acquireGlobal(permitsByUser)
+                : acquireLocal(permitsByUser, System.nanoTime());
+        if (retryAfterMillis > 0) {
+            rejected.increment();
+        }
+        return retryAfterMillis;
+    }
+
+    long acquireLocal(String userId, long nowNanos) {
+        return acquireLocal(userId, 1, nowNanos);
+    }
+
+    long acquireLocal(Map<String, Integer> permitsByUser, long nowNanos) {
+        if (permitsByUser.size() == 1) {
+            Map.Entry<String, Integer> entry = permitsByUser.entrySet().iterator().next();
+            return acquireLocal(entry.getKey(), entry.getValue(), nowNanos);
+        }
+        // Vérification de tous les seaux puis débit : une écriture concurrente peut s'intercaler
+        // entre les deux et faire dépasser la rafale d'un lot au plus, jamais le débit moyen
+        Map<String, AtomicLong> userBuckets = new LinkedHashMap<>();
+        long waitNanos = 0;
+        for (String userId : permitsByUser.keySet()) {
+            AtomicLong bucket = bucket(userId);
+            userBuckets.put(userId, bucket);
+            waitNanos = Math.max(waitNanos, Math.max(bucket.get(), nowNanos) - nowNanos - toleranceNanos);
+        }
+        if (waitNanos > 0) {
+            return TimeUnit.NANOSECONDS.toMillis(waitNanos - 1) + 1;
+        }
+        userBuckets.forEach((userId, bucket) -> {
+            long cost = intervalNanos * permitsByUser.get(userId);
+            long theoreticalArrival = bucket.updateAndGet(current -> Math.max(current, nowNanos) + cost);
+            retain(userId, theoreticalArrival, nowNanos);
+        });
+        return 0;
+    }
+
+    private long acquireLocal(String userId, int permits, long nowNanos) {
+        AtomicLong bucket = bucket(userId);
+        while (true) {
+            long theoreticalArrival = bucket.get();
+            long next = Math.max(theoreticalArrival, nowNanos);
+            long waitNanos = next - nowNanos - toleranceNanos;
+            if (waitNanos > 0) {
+                return TimeUnit.NANOSECONDS.toMillis(waitNanos - 1) + 1;
+            }
+            if (bucket.compareAndSet(theoreticalArrival, next + intervalNanos * permits)) {
+                retain(userId, next + intervalNanos * permits, nowNanos);
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong bucket(String userId) {
+        return buckets.get(userId, id -> new AtomicLong(Long.MIN_VALUE));
+    }
+
+    /**
+     * Garde le seau jusqu'à ce qu'il soit de nouveau plein : la dette d'un lot n'est pas effacée
+     * par l'éviction
+     */
+    private void retain(String userId, long theoreticalArrival, long nowNanos) {
+        bucketExpiration.setExpiresAfter(userId, Math.max(0, theoreticalArrival - nowNanos) + refillNanos,
+                TimeUnit.NANOSECONDS);
+    }
+
+    private long acquireGlobal(Map<String, Integer> permitsByUser) {
+        List<String> keys = new ArrayList<>(permitsByUser.size());
+        List<String> args = new ArrayList<>(permitsByUser.size() + 2);
+        args.add(Long.toString(TimeUnit.NANOSECONDS.toMicros(intervalNanos)));
+        args.add(Long.toString(TimeUnit.NANOSECONDS.toMicros(toleranceNanos)));
+        permitsByUser.forEach((userId, permits) -> {
+            keys.add(KEY_PREFIX + userId);
+            args.add(Integer.toString(permits));
+        });
+        try {
+            Long retryAfterMillis = redisTemplate.execute(ACQUIRE, keys, args.toArray());
+            return retryAfterMillis != null ? retryAfterMillis : 0;
+        } catch (RuntimeException e) {
+            log.warn("Limitation globale indisponible pour les utilisateurs {}, limite locale appliquée: {}",
+                    permitsByUser.keySet(), e.getMessage());
+            return acquireLocal(permitsByUser, System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.formations.favoris.benchmark;
+
+import com.formations.favoris.service.MongoLoadShedder;
+import com.formations.favoris.service.UserRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Latence p99 des utilisateurs raisonnables, avec et sans protection, quand un client enchaîne
+ * les bascules et quand la charge dépasse la capacité de Mongo. Mongo est simulé par un pool de
+ * connexions (sémaphore équitable, comme la file d'attente du pool du driver) et un temps de
+ * service fixe ; l'attente du pool et la durée des commandes alimentent le délestage comme le
+ * font les événements du driver. Chaque requête passe par le délestage (filtre) puis par la
+ * limitation de débit (contrôleur), dans l'ordre de l'application.
+ *
+ * <p>Mesure de durée murale (une dizaine de secondes), hors de la suite de tests courante :
+ * {@code mvn test -Dtest=AbuseProtectionLoadTest -Dfavoris.benchmark.load=true}</p>
+ */
+@EnabledIfSystemProperty(named = AbuseProtectionLoadTest.LOAD_PROPERTY, matches = "true")
+public class AbuseProtectionLoadTest {
+
+    static final String LOAD_PROPERTY = "favoris.benchmark.load";
+
+    private static final int POOL_SIZE = 2;
+    private static final long SERVICE_TIME_MILLIS = 2; // capacité ~1000 opérations/s
+    private static final Duration RUN = Duration.ofSeconds(2);
+    private static final Duration WARM_UP = Duration.ofMillis(300);
+    private static final int USERS = 100;
+    private static final int ABUSERS = 32;
+
+    @Test
+    @DisplayName("Abus : un client enchaîne les bascules, p99 des autres utilisateurs avec et sans limitation")
+    void abusiveClient_ShouldNotDegradeOtherUsers() throws Exception {
+        // 100 utilisateurs à 5 écritures/s (50 % de la capacité) et 32 connexions d'un même client sans pause
+        Duration interval = Duration.ofMillis(200);
+        Result unprotected = run(interval, ABUSERS, null, null);
+        Result protectedRun = run(interval, ABUSERS, limiter(), null);
+
+        System.out.printf("Abus : p99 des utilisateurs raisonnables %.1f ms sans limitation contre %.1f ms avec "
+                        + "(%d refus pour eux)%n",
+                unprotected.p99Millis(), protectedRun.p99Millis(), protectedRun.rejected);
+        assertTrue(protectedRun.p99Millis() * 3 < unprotected.p99Millis(),
+                protectedRun.p99Millis() + " ms contre " + unprotected.p99Millis() + " ms");
+        assertTrue(protectedRun.rejected == 0, protectedRun.rejected + " requêtes raisonnables refusées");
+    }
+
+    @Test
+    @DisplayName("Surcharge : deux fois la capacité de Mongo, p99 des requêtes admises avec et sans délestage")
+    void overload_ShouldKeepAdmittedLatencyBounded() throws Exception {
+        // 100 utilisateurs à 20 écritures/s : deux fois la capacité, sans client abusif
+        Duration interval = Duration.ofMillis(50);
+        Result unprotected = run(interval, 0, null, null);
+        Result shedding = run(interval, 0, null,
+                new MongoLoadShedder(new SimpleMeterRegistry(), true, Duration.ofMillis(10), 0.9, Duration.ofSeconds(1)));
+
+        System.out.printf("Surcharge : p99 %.1f ms sans délestage contre %.1f ms avec (%.0f %% de requêtes refusées)%n",
+                unprotected.p99Millis(), shedding.p99Millis(),
+                100.0 * shedding.rejected / (shedding.rejected + shedding.latencies.length));
+        assertTrue(shedding.p99Millis() * 2 < unprotected.p99Millis(),
+                shedding.p99Millis() + " ms contre " + unprotected.p99Millis() + " ms");
+        assertTrue(shedding.rejected > 0);
+    }
+
+    private static UserRateLimiter limiter() {
+        return new UserRateLimiter(mock(StringRedisTemplate.class), new SimpleMeterRegistry(), true, "local", 10, 20, 10_000);
+    }
+
+    /**
+     * Utilisateurs raisonnables à intervalle fixe (latences mesurées après la chauffe) et clients
+     * abusifs sans pause, pendant {@link #RUN}
+     */
+    private static Result run(Duration interval, int abusers, UserRateLimiter limiter, MongoLoadShedder loadShedder)
+            throws InterruptedException {
+        SimulatedMongo mongo = new SimulatedMongo(loadShedder);
+        long start = System.nanoTime();
+        long measureFrom = start + WARM_UP.toNanos();
+        long deadline = start + RUN.toNanos();
+        AtomicLong rejected = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int user = 0; user < USERS; user++) {
+            String userId = "user-" + user;
+            long[] userLatencies = new long[(int) (RUN.toMillis() / interval.toMillis()) + 2];
+            latencies.add(userLatencies);
+            // Départs étalés sur un intervalle
+            long firstRequest = start + interval.toNanos() * user / USERS;
+            threads.add(start(() -> {
+                int count = 0;
+                for (long next = firstRequest; next < deadline; next += interval.toNanos()) {
+                    LockSupport.parkNanos(next - System.nanoTime());
+                    long sent = System.nanoTime();
+                    boolean admitted = handle(userId, limiter, loadShedder, mongo);
+                    if (sent >= measureFrom) {
+                        if (admitted) {
+                            userLatencies[count++] = System.nanoTime() - sent;
+                        } else {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                }
+                Arrays.fill(userLatencies, count, userLatencies.length, -1);
+            }));
+        }
+        for (int abuser = 0; abuser < abusers; abuser++) {
+            threads.add(start(() -> {
+                while (System.nanoTime() < deadline) {
+                    if (!handle("abuser", limiter, loadShedder, mongo)) {
+                        // Aller-retour de la réponse 429 avant la requête suivante
+                        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(500));
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).filter(latency -> latency >= 0).sorted().toArray();
+        return new Result(all, rejected.get());
+    }
+
+    /**
+     * Requête d'écriture : délestage, puis limitation de débit, puis opération Mongo
+     *
+     * @return false si la requête est refusée
+     */
+    private static boolean handle(String userId, UserRateLimiter limiter, MongoLoadShedder loadShedder,
+                                  SimulatedMongo mongo) {
+        if (loadShedder != null && !loadShedder.tryAdmit()) {
+            return false;
+        }
+        if (limiter != null && limiter.tryAcquire(userId) > 0) {
+            return false;
+        }
+        mongo.execute();
+        return true;
+    }
+
+    private static Thread start(Runnable task) {
+        Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static final class SimulatedMongo {
+
+        private final Semaphore pool = new Semaphore(POOL_SIZE, true);
+        private final MongoLoadShedder loadShedder;
+
+        SimulatedMongo(MongoLoadShedder loadShedder) {
+            this.loadShedder = loadShedder;
+        }
+
+        void execute() {
+            long requested = System.nanoTime();
+            pool.acquireUninterruptibly();
+            long checkedOut = System.nanoTime();
+            try {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(SERVICE_TIME_MILLIS));
+            } finally {
+                pool.release();
+            }
+            if (loadShedder != null) {
+                loadShedder.recordCheckout(checkedOut - requested);
+                loadShedder.recordCommand(System.nanoTime() - checkedOut);
+            }
+        }
+    }
+
+    private record Result(long[] latencies, long rejected) {
+
+        double p99Millis() {
+            return latencies[(int) Math.ceil(latencies.length * 0.99) - 1] / 1e6;
+        }
+    }
+}
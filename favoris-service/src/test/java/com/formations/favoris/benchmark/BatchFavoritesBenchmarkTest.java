@@ -0,0 +1,92 @@
+package com.formations.favoris.benchmark;
+
+import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.dto.BatchFavoritesResponse;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.service.ContentCatalogService;
+import com.formations.favoris.service.FavoriteCacheInvalidator;
+import com.formations.favoris.service.FavoriteMembershipService;
+import com.formations.favoris.service.FavoriteService;
+import com.formations.favoris.service.FavoriteVersionService;
+import com.formations.favoris.service.FavoriteWriteBehindQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compare le débit d'un ajout groupé à celui de N appels unitaires sur une instance Mongo réelle
+ */
+@EnabledIfSystemProperty(named = MongoBenchmarkSupport.URI_PROPERTY, matches = ".+")
+public class BatchFavoritesBenchmarkTest {
+
+    private static final int[] BATCH_SIZES = {10, 100, 500};
+    private static final int ROUNDS = 5;
+
+    private MongoBenchmarkSupport mongo;
+    private FavoriteService favoriteService;
+
+    @BeforeEach
+    void setUp() {
+        mongo = new MongoBenchmarkSupport();
+        favoriteService = new FavoriteService(mongo.createFavoriteRepository(),
+                new FavoriteCacheInvalidator(new ConcurrentMapCacheManager(), mock(FavoriteVersionService.class)), event -> { },
+                mock(FavoriteMembershipService.class), mock(FavoriteWriteBehindQueue.class),
+                mock(ContentCatalogService.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongo.close();
+    }
+
+    @Test
+    @DisplayName("Débit : ajout groupé vs appels unitaires")
+    void compareBatchWithSingleCalls() {
+        for (int size : BATCH_SIZES) {
+            long singleNanos = 0;
+            long batchNanos = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                mongo.resetFavorites();
+                List<AddFavoriteRequest> requests = requests("single-" + round, size);
+                long start = System.nanoTime();
+                requests.forEach(favoriteService::addFavorite);
+                singleNanos += System.nanoTime() - start;
+
+                requests = requests("batch-" + round, size);
+                start = System.nanoTime();
+                BatchFavoritesResponse response = favoriteService.addFavorites(requests);
+                batchNanos += System.nanoTime() - start;
+                assertEquals(size, response.getSucceeded());
+            }
+            System.out.printf("N=%d : unitaire %.0f favoris/s, groupé %.0f favoris/s (x%.1f)%n",
+                    size, throughput(size, singleNanos), throughput(size, batchNanos),
+                    (double) singleNanos / batchNanos);
+        }
+    }
+
+    private static List<AddFavoriteRequest> requests(String userId, int size) {
+        List<AddFavoriteRequest> requests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            requests.add(AddFavoriteRequest.builder()
+                    .userId(userId)
+                    .contentId("content-" + i)
+                    .contentType(ContentType.COURSE)
+                    .title("Cours " + i)
+                    .build());
+        }
+        return requests;
+    }
+
+    private static double throughput(int size, long nanos) {
+        return size * ROUNDS / (nanos / 1_000_000_000.0);
+    }
+}
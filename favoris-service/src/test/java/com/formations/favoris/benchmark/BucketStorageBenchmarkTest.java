@@ -0,0 +1,131 @@
+package com.formations.favoris.benchmark;
+
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.BucketFavoriteStorage;
+import com.formations.favoris.repository.DocumentFavoriteStorage;
+import com.formations.favoris.repository.FavoriteRepository;
+import com.formations.favoris.repository.FavoriteStorage;
+import com.mongodb.client.model.Filters;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Disposition par document contre disposition par buckets sur une instance Mongo réelle
+ * (désactivée par défaut, voir {@link MongoBenchmarkSupport}) : documents et octets lus, latence
+ * de la liste complète, de la première page, d'un ajout et d'un retrait, pour des utilisateurs
+ * de 10, 1 000 et 10 000 favoris
+ */
+@EnabledIfSystemProperty(named = MongoBenchmarkSupport.URI_PROPERTY, matches = ".+")
+public class BucketStorageBenchmarkTest {
+
+    private static final int[] SIZES = {10, 1_000, 10_000};
+    private static final int BUCKET_SIZE = 200;
+    private static final int ROUNDS = 20;
+    private static final int WRITES = 200;
+
+    @Test
+    @DisplayName("Liste, page, ajout et retrait : par document vs par buckets")
+    void compareLayouts() {
+        try (MongoBenchmarkSupport mongo = new MongoBenchmarkSupport()) {
+            mongo.resetFavorites();
+            mongo.resetFavoriteBuckets();
+            FavoriteStorage documents = new DocumentFavoriteStorage(mongo.getMongoTemplate());
+            FavoriteStorage buckets = new BucketFavoriteStorage(mongo.getMongoTemplate(), BUCKET_SIZE);
+            FavoriteRepository documentRepository = mongo.createFavoriteRepository(documents);
+            FavoriteRepository bucketRepository = mongo.createFavoriteRepository(buckets);
+
+            for (int size : SIZES) {
+                String userId = "user-" + size;
+                List<Favorite> favorites = favorites(userId, size);
+                documentRepository.insertAllUnordered(favorites);
+                bucketRepository.insertAllUnordered(favorites);
+                assertEquals(new HashSet<>(documentRepository.findByUserId(userId)),
+                        new HashSet<>(bucketRepository.findByUserId(userId)));
+
+                for (FavoriteStorage storage : List.of(documents, buckets)) {
+                    FavoriteRepository repository = storage == documents ? documentRepository : bucketRepository;
+                    double listMillis = averageMillis(() -> assertEquals(size, repository.findByUserId(userId).size()));
+                    double pageMillis = averageMillis(() -> repository.findPageByUserId(userId, null, null, 20));
+                    double writeMillis = writeMillis(repository, userId);
+                    long[] wire = wire(mongo, storage.getCollectionName(), userId);
+                    System.out.printf("%s, %d favoris : %d documents / %d octets lus, liste %.2f ms, "
+                                    + "première page %.2f ms, ajout + retrait %.3f ms%n",
+                            storage.getCollectionName(), size, wire[0], wire[1], listMillis, pageMillis, writeMillis);
+                    if (storage == buckets) {
+                        assertTrue(wire[0] <= (size + BUCKET_SIZE - 1) / BUCKET_SIZE);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Durée moyenne d'un ajout suivi du retrait du même favori
+     */
+    private static double writeMillis(FavoriteRepository repository, String userId) {
+        LocalDateTime now = LocalDateTime.now();
+        long start = System.nanoTime();
+        for (int i = 0; i < WRITES; i++) {
+            repository.insert(Favorite.builder().userId(userId).contentId("new-" + i).contentType(ContentType.COURSE)
+                    .title("Nouveau favori " + i).createdAt(now).updatedAt(now).build());
+            assertTrue(repository.findAndRemoveByUserIdAndContentId(userId, "new-" + i).isPresent());
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / WRITES;
+    }
+
+    /**
+     * Nombre et taille BSON des documents lus pour la liste complète de l'utilisateur
+     */
+    private static long[] wire(MongoBenchmarkSupport mongo, String collection, String userId) {
+        long documents = 0;
+        long bytes = 0;
+        for (RawBsonDocument document : mongo.getMongoTemplate().getCollection(collection)
+                .withDocumentClass(RawBsonDocument.class)
+                .find(Filters.eq("userId", userId))) {
+            documents++;
+            bytes += document.getByteBuffer().remaining();
+        }
+        return new long[] {documents, bytes};
+    }
+
+    private static double averageMillis(Runnable read) {
+        // Premier passage pour chauffer le JIT et le cache WiredTiger
+        read.run();
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            read.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ROUNDS;
+    }
+
+    private static List<Favorite> favorites(String userId, int count) {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 0);
+        List<Favorite> favorites = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            favorites.add(Favorite.builder()
+                    .id(new ObjectId().toHexString())
+                    .userId(userId)
+                    .contentId("content-" + i)
+                    .contentType(i % 3 == 0 ? ContentType.VIDEO : ContentType.COURSE)
+                    .title("Formation " + i + " : les bases")
+                    .description("Description de la formation " + i)
+                    .thumbnailUrl("https://cdn.example.com/thumbnails/content-" + i + ".jpg")
+                    .createdAt(now.minusMinutes(i))
+                    .updatedAt(now.minusMinutes(i))
+                    .build());
+        }
+        return favorites;
+    }
+}
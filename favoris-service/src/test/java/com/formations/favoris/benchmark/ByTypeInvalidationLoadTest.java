@@ -0,0 +1,135 @@
+package com.formations.favoris.benchmark;
+
+import com.formations.favoris.config.FavoritesByTypeKeyGenerator;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.FavoriteRepository;
+import com.formations.favoris.service.ContentCatalogService;
+import com.formations.favoris.service.FavoriteCacheInvalidator;
+import com.formations.favoris.service.FavoriteMembershipService;
+import com.formations.favoris.service.FavoriteService;
+import com.formations.favoris.service.FavoriteVersionService;
+import com.formations.favoris.service.FavoriteWriteBehindQueue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Taux de cache miss des listes par type sous un trafic mixte lectures / suppressions, avec
+ * l'invalidation ciblée et avec l'ancienne invalidation de toutes les entrées à chaque suppression
+ *
+ * <p>Hors de la suite de tests courante :
+ * {@code mvn test -Dtest=ByTypeInvalidationLoadTest -Dfavoris.benchmark.load=true}</p>
+ */
+@EnabledIfSystemProperty(named = ByTypeInvalidationLoadTest.LOAD_PROPERTY, matches = "true")
+public class ByTypeInvalidationLoadTest {
+
+    static final String LOAD_PROPERTY = "favoris.benchmark.load";
+
+    private static final int USERS = 200;
+    private static final ContentType[] CONTENT_TYPES = {ContentType.COURSE, ContentType.VIDEO, ContentType.ARTICLE};
+    private static final int OPERATIONS = 20_000;
+    private static final double REMOVE_RATIO = 0.05;
+
+    @Test
+    @DisplayName("Taux de miss : invalidation ciblée vs invalidation de toutes les entrées")
+    void compareMissRates() {
+        double targeted = run(false);
+        double allEntries = run(true);
+
+        System.out.printf("Listes par type, %.0f%% de suppressions : %.1f%% de miss (ciblée) contre %.1f%% (allEntries)%n",
+                REMOVE_RATIO * 100, targeted * 100, allEntries * 100);
+        assertTrue(targeted * 5 < allEntries);
+    }
+
+    /**
+     * Rejoue la même séquence d'opérations et renvoie la part des lectures servies par Mongo
+     */
+    private double run(boolean evictAllEntries) {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(CachingConfig.class)) {
+            FavoriteService favoriteService = context.getBean(FavoriteService.class);
+            CacheManager cacheManager = context.getBean(CacheManager.class);
+            AtomicLong mongoReads = context.getBean(AtomicLong.class);
+
+            Random random = new Random(42);
+            long reads = 0;
+            for (int i = 0; i < OPERATIONS; i++) {
+                String userId = "user" + random.nextInt(USERS);
+                ContentType contentType = CONTENT_TYPES[random.nextInt(CONTENT_TYPES.length)];
+                if (random.nextDouble() < REMOVE_RATIO) {
+                    favoriteService.removeFavorite(userId, contentType + ":" + random.nextInt(1000));
+                    if (evictAllEntries) {
+                        // Comportement de l'ancien @CacheEvict(value = "favoritesByType", allEntries = true)
+                        cacheManager.getCache("favoritesByType").clear();
+                    }
+                } else {
+                    favoriteService.getUserFavoritesByType(userId, contentType);
+                    reads++;
+                }
+            }
+            return (double) mongoReads.get() / reads;
+        }
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("favorites", "favoritesByType", "favoritesHead",
+                    "favoritesIds", "favoritesSummary");
+        }
+
+        @Bean(FavoritesByTypeKeyGenerator.BEAN_NAME)
+        FavoritesByTypeKeyGenerator favoritesByTypeKeyGenerator() {
+            return new FavoritesByTypeKeyGenerator();
+        }
+
+        @Bean
+        AtomicLong mongoReads() {
+            return new AtomicLong();
+        }
+
+        @Bean
+        FavoriteService favoriteService(CacheManager cacheManager, AtomicLong mongoReads) {
+            FavoriteRepository favoriteRepository = mock(FavoriteRepository.class);
+            when(favoriteRepository.findByUserIdAndContentType(anyString(), any(ContentType.class)))
+                    .thenAnswer(invocation -> {
+                        mongoReads.incrementAndGet();
+                        return List.of();
+                    });
+            // Chaque suppression porte sur un favori existant, du type encodé dans l'ID du contenu
+            when(favoriteRepository.findByUserIdAndContentId(anyString(), anyString()))
+                    .thenAnswer(invocation -> {
+                        String contentId = invocation.getArgument(1);
+                        return Optional.of(Favorite.builder()
+                                .userId(invocation.getArgument(0))
+                                .contentId(contentId)
+                                .contentType(ContentType.valueOf(contentId.substring(0, contentId.indexOf(':'))))
+                                .build());
+                    });
+            return new FavoriteService(favoriteRepository,
+                    new FavoriteCacheInvalidator(cacheManager, mock(FavoriteVersionService.class)),
+                    event -> { }, mock(FavoriteMembershipService.class), mock(FavoriteWriteBehindQueue.class),
+                    mock(ContentCatalogService.class));
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.formations.favoris.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.formations.favoris.config.RedisConfig;
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.model.ContentMetadata;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.service.FavoriteService;
+import com.mongodb.MongoClientSettings;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Métadonnées embarquées dans chaque favori contre catalogue partagé des contenus, sur un jeu de
+ * données où la popularité des contenus suit une loi de Zipf (quelques contenus en favori chez la
+ * plupart des utilisateurs) : octets stockés dans Mongo et octets des entrées de cache, puis taille
+ * des collections sur une instance réelle (désactivée par défaut, voir {@link MongoBenchmarkSupport})
+ *
+ * <p>La comparaison des tailles (100 000 favoris sérialisés), hors de la suite de tests courante :
+ * {@code mvn test -Dtest=CatalogNormalizationBenchmarkTest -Dfavoris.benchmark.load=true}</p>
+ */
+public class CatalogNormalizationBenchmarkTest {
+
+    static final String LOAD_PROPERTY = "favoris.benchmark.load";
+
+    private static final int USERS = 1_000;
+    private static final int FAVORITES_PER_USER = 100;
+    private static final int CONTENTS = 5_000;
+    private static final double ZIPF_EXPONENT = 1.0;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final RedisSerializer<Object> cacheSerializer = new RedisConfig().cacheValueSerializer(true, 1024);
+
+    @Test
+    @EnabledIfSystemProperty(named = LOAD_PROPERTY, matches = "true")
+    @DisplayName("Octets stockés et octets en cache : métadonnées embarquées vs catalogue partagé")
+    void compareStorageAndCacheSizes() throws Exception {
+        MappingMongoConverter converter = converter();
+        Map<String, ContentMetadata> catalog = catalog();
+        Map<String, List<Favorite>> embedded = favoritesByUser(catalog);
+
+        long embeddedStorage = 0;
+        long referenceStorage = 0;
+        long embeddedCache = 0;
+        long referenceCache = 0;
+        Set<String> favoritedContents = new LinkedHashSet<>();
+        for (List<Favorite> favorites : embedded.values()) {
+            List<Favorite> references = favorites.stream()
+                    .map(CatalogNormalizationBenchmarkTest::withoutMetadata)
+                    .collect(Collectors.toList());
+            for (int i = 0; i < favorites.size(); i++) {
+                embeddedStorage += bsonBytes(converter, favorites.get(i));
+                referenceStorage += bsonBytes(converter, references.get(i));
+                favoritedContents.add(favorites.get(i).getContentId());
+            }
+            embeddedCache += cacheSerializer.serialize(convert(favorites)).length;
+            referenceCache += cacheSerializer.serialize(convert(references)).length;
+        }
+
+        // Le catalogue n'est stocké qu'une fois, et son cache local ne garde que les contenus lus
+        long catalogStorage = 0;
+        long catalogCache = 0;
+        for (String contentId : favoritedContents) {
+            catalogStorage += bsonBytes(converter, catalog.get(contentId));
+            catalogCache += objectMapper.writeValueAsBytes(catalog.get(contentId)).length;
+        }
+
+        System.out.printf("%d favoris (%d utilisateurs, %d contenus distincts) : stockage %d Ko (embarqué) "
+                        + "contre %d Ko (références) + %d Ko (catalogue), cache %d Ko contre %d Ko + %d Ko%n",
+                USERS * FAVORITES_PER_USER, USERS, favoritedContents.size(), embeddedStorage / 1024,
+                referenceStorage / 1024, catalogStorage / 1024, embeddedCache / 1024, referenceCache / 1024,
+                catalogCache / 1024);
+        assertTrue((referenceStorage + catalogStorage) * 2 < embeddedStorage);
+        assertTrue((referenceCache + catalogCache) * 2 < embeddedCache);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = MongoBenchmarkSupport.URI_PROPERTY, matches = ".+")
+    @DisplayName("Collections Mongo : taille des données et stockage compressé, embarqué vs catalogue")
+    void compareCollectionSizes() {
+        try (MongoBenchmarkSupport mongo = new MongoBenchmarkSupport()) {
+            MongoTemplate mongoTemplate = mongo.getMongoTemplate();
+            Map<String, ContentMetadata> catalog = catalog();
+            List<Favorite> favorites = favoritesByUser(catalog).values().stream()
+                    .flatMap(List::stream)
+                    .collect(Collectors.toList());
+
+            mongo.resetFavorites();
+            mongoTemplate.dropCollection(ContentMetadata.class);
+            mongoTemplate.insertAll(favorites);
+            long[] embedded = collectionSizes(mongoTemplate, "favorites");
+
+            mongo.resetFavorites();
+            mongoTemplate.insertAll(favorites.stream()
+                    .map(CatalogNormalizationBenchmarkTest::withoutMetadata)
+                    .collect(Collectors.toList()));
+            mongoTemplate.insertAll(favorites.stream()
+                    .map(Favorite::getContentId)
+                    .distinct()
+                    .map(catalog::get)
+                    .collect(Collectors.toList()));
+            long[] references = collectionSizes(mongoTemplate, "favorites");
+            long[] catalogSizes = collectionSizes(mongoTemplate, "content_catalog");
+
+            System.out.printf("Données : %d Ko (embarqué) contre %d Ko + %d Ko ; stockage : %d Ko contre %d Ko + %d Ko%n",
+                    embedded[0] / 1024, references[0] / 1024, catalogSizes[0] / 1024,
+                    embedded[1] / 1024, references[1] / 1024, catalogSizes[1] / 1024);
+            assertTrue((references[0] + catalogSizes[0]) * 2 < embedded[0]);
+        }
+    }
+
+    /**
+     * Taille des données (non compressées) et du stockage d'une collection
+     */
+    private static long[] collectionSizes(MongoTemplate mongoTemplate, String collection) {
+        Document stats = mongoTemplate.executeCommand(new Document("collStats", collection));
+        return new long[]{((Number) stats.get("size")).longValue(), ((Number) stats.get("storageSize")).longValue()};
+    }
+
+    /**
+     * Convertisseur Spring Data hors connexion, avec les conversions par défaut (dates java.time)
+     */
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private static long bsonBytes(MappingMongoConverter converter, Object entity) {
+        Document document = new Document();
+        converter.write(entity, document);
+        return new RawBsonDocument(document, MongoClientSettings.getDefaultCodecRegistry().get(Document.class))
+                .getByteBuffer().remaining();
+    }
+
+    private static List<FavoriteDto> convert(List<Favorite> favorites) {
+        return favorites.stream().map(FavoriteService::convertToDto).collect(Collectors.toList());
+    }
+
+    private static Favorite withoutMetadata(Favorite favorite) {
+        return Favorite.builder()
+                .id(favorite.getId())
+                .userId(favorite.getUserId())
+                .contentId(favorite.getContentId())
+                .contentType(favorite.getContentType())
+                .createdAt(favorite.getCreatedAt())
+                .updatedAt(favorite.getUpdatedAt())
+                .build();
+    }
+
+    private static Map<String, ContentMetadata> catalog() {
+        Random random = new Random(7);
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 0);
+        Map<String, ContentMetadata> catalog = new LinkedHashMap<>();
+        for (int i = 0; i < CONTENTS; i++) {
+            String contentId = "content-" + i;
+            catalog.put(contentId, ContentMetadata.builder()
+                    .contentId(contentId)
+                    .contentType(i % 3 == 0 ? ContentType.VIDEO : ContentType.COURSE)
+                    .title("Formation " + i + " : les bases")
+                    .description(description(random, 400))
+                    .thumbnailUrl("https://cdn.example.com/thumbnails/" + contentId + ".jpg")
+                    .updatedAt(now)
+                    .build());
+        }
+        return catalog;
+    }
+
+    /**
+     * Favoris de chaque utilisateur, contenus tirés selon leur popularité (rang r de probabilité
+     * proportionnelle à 1/r^s), sans doublon pour un même utilisateur
+     */
+    private static Map<String, List<Favorite>> favoritesByUser(Map<String, ContentMetadata> catalog) {
+        List<ContentMetadata> contents = new ArrayList<>(catalog.values());
+        double[] cumulative = new double[CONTENTS];
+        double total = 0;
+        for (int rank = 0; rank < CONTENTS; rank++) {
+            total += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulative[rank] = total;
+        }
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 0);
+        Map<String, List<Favorite>> favorites = new LinkedHashMap<>();
+        for (int user = 0; user < USERS; user++) {
+            String userId = String.format("user-%06d", user);
+            Set<Integer> picked = new LinkedHashSet<>();
+            while (picked.size() < FAVORITES_PER_USER) {
+                int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+                picked.add(Math.min(index < 0 ? -index - 1 : index, CONTENTS - 1));
+            }
+            List<Favorite> userFavorites = new ArrayList<>(FAVORITES_PER_USER);
+            int minute = 0;
+            for (int index : picked) {
+                ContentMetadata content = contents.get(index);
+                userFavorites.add(Favorite.builder()
+                        .userId(userId)
+                        .contentId(content.getContentId())
+                        .contentType(content.getContentType())
+                        .title(content.getTitle())
+                        .description(content.getDescription())
+                        .thumbnailUrl(content.getThumbnailUrl())
+                        .createdAt(now.minusMinutes(minute))
+                        .updatedAt(now.minusMinutes(minute++))
+                        .build());
+            }
+            favorites.put(userId, userFavorites);
+        }
+        return favorites;
+    }
+
+    /**
+     * Texte pseudo-aléatoire, pour que la compression des entrées de cache reste réaliste
+     */
+    private static String description(Random random, int length) {
+        char[] text = new char[length];
+        for (int i = 0; i < length; i++) {
+            text[i] = random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26));
+        }
+        return new String(text);
+    }
+}
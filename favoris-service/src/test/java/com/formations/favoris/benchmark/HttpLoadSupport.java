@@ -0,0 +1,96 @@
+package com.formations.favoris.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Charge HTTP en boucle fermée pour les benchmarks : {@code concurrency} requêtes sont en vol en
+ * permanence, chacune relancée dès la réponse reçue. Mesure le débit et les percentiles de latence.
+ */
+public final class HttpLoadSupport {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public HttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * Envoie des GET sur {@code baseUrl + path.apply(i)} pendant la durée donnée
+     */
+    public LoadResult run(String baseUrl, IntFunction<String> path, int concurrency, Duration duration)
+            throws InterruptedException {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong errors = new AtomicLong();
+        AtomicLong sequence = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        long start = System.nanoTime();
+        for (int worker = 0; worker < concurrency; worker++) {
+            sendNext(baseUrl, path, sequence, deadline, latencies, errors, done);
+        }
+        done.await(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+
+        List<Long> sorted;
+        synchronized (latencies) {
+            sorted = new ArrayList<>(latencies);
+        }
+        Collections.sort(sorted);
+        return new LoadResult(concurrency, sorted.size(), errors.get(),
+                sorted.size() / (elapsed / 1_000_000_000.0),
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999));
+    }
+
+    private void sendNext(String baseUrl, IntFunction<String> path, AtomicLong sequence, long deadline,
+                          List<Long> latencies, AtomicLong errors, CountDownLatch done) {
+        if (System.nanoTime() >= deadline) {
+            done.countDown();
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path.apply((int) sequence.getAndIncrement())))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        long sent = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            if (failure != null || response.statusCode() >= 500) {
+                errors.incrementAndGet();
+            } else {
+                latencies.add(System.nanoTime() - sent);
+            }
+            sendNext(baseUrl, path, sequence, deadline, latencies, errors, done);
+        });
+    }
+
+    private static double percentile(List<Long> sorted, double quantile) {
+        if (sorted.isEmpty()) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sorted.size() - 1, Math.ceil(quantile * sorted.size()) - 1);
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+
+    public record LoadResult(int concurrency, long requests, long errors, double throughput,
+                             double p50Millis, double p99Millis, double p999Millis) {
+
+        @Override
+        public String toString() {
+            return String.format("concurrence=%5d  %8.0f req/s  p50=%7.2f ms  p99=%8.2f ms  p99.9=%8.2f ms  erreurs=%d",
+                    concurrency, throughput, p50Millis, p99Millis, p999Millis, errors);
+        }
+    }
+}
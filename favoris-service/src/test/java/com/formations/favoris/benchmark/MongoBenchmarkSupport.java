@@ -0,0 +1,74 @@
+package com.formations.favoris.benchmark;
+
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.model.FavoriteBucket;
+import com.formations.favoris.repository.BucketFavoriteStorage;
+import com.formations.favoris.repository.DocumentFavoriteStorage;
+import com.formations.favoris.repository.FavoriteRepository;
+import com.formations.favoris.repository.FavoriteRepositoryCustomImpl;
+import com.formations.favoris.repository.FavoriteStorage;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+/**
+ * Accès à une instance Mongo réelle pour les benchmarks (désactivés par défaut).
+ * Exemple : {@code mvn test -Dtest=BatchFavoritesBenchmarkTest -Dfavoris.benchmark.mongodb-uri=mongodb://localhost:27017}
+ */
+public final class MongoBenchmarkSupport implements AutoCloseable {
+
+    public static final String URI_PROPERTY = "favoris.benchmark.mongodb-uri";
+    private static final String DATABASE = "favoris_benchmark";
+
+    private final MongoClient client;
+    private final MongoTemplate mongoTemplate;
+
+    public MongoBenchmarkSupport() {
+        this.client = MongoClients.create(System.getProperty(URI_PROPERTY));
+        this.mongoTemplate = new MongoTemplate(client, DATABASE);
+    }
+
+    public MongoTemplate getMongoTemplate() {
+        return mongoTemplate;
+    }
+
+    /**
+     * Crée le repository des favoris hors contexte Spring, fragment personnalisé inclus, sur la
+     * disposition par document
+     */
+    public FavoriteRepository createFavoriteRepository() {
+        return createFavoriteRepository(new DocumentFavoriteStorage(mongoTemplate));
+    }
+
+    /**
+     * Crée le repository des favoris hors contexte Spring sur la disposition donnée
+     */
+    public FavoriteRepository createFavoriteRepository(FavoriteStorage storage) {
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        return factory.getRepository(FavoriteRepository.class,
+                RepositoryFragments.just(new FavoriteRepositoryCustomImpl(storage)));
+    }
+
+    /**
+     * Vide la collection des favoris et recrée les index déclarés sur l'entité
+     */
+    public void resetFavorites() {
+        mongoTemplate.dropCollection(Favorite.class);
+        new DocumentFavoriteStorage(mongoTemplate).ensureIndexes();
+    }
+
+    /**
+     * Vide la collection des buckets de favoris et recrée ses index
+     */
+    public void resetFavoriteBuckets() {
+        mongoTemplate.dropCollection(FavoriteBucket.class);
+        new BucketFavoriteStorage(mongoTemplate, 1).ensureIndexes();
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+}
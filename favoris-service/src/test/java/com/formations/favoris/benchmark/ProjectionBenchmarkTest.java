@@ -0,0 +1,184 @@
+package com.formations.favoris.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.formations.favoris.config.RedisConfig;
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.dto.FavoriteSummaryDto;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.ContentMetadataRepository;
+import com.formations.favoris.repository.FavoriteRepository;
+import com.formations.favoris.service.ContentCatalogService;
+import com.formations.favoris.service.FavoriteService;
+import com.formations.favoris.service.FavoriteSummaryService;
+import com.mongodb.client.model.Filters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Octets transférés et latence de la liste légère (identifiants seuls, résumé) comparés à la
+ * liste complète : réponse JSON et entrée de cache Redis, puis lecture Mongo sur une instance
+ * réelle (désactivée par défaut, voir {@link MongoBenchmarkSupport})
+ *
+ * <p>La comparaison des tailles, hors de la suite de tests courante :
+ * {@code mvn test -Dtest=ProjectionBenchmarkTest -Dfavoris.benchmark.load=true}</p>
+ */
+public class ProjectionBenchmarkTest {
+
+    static final String LOAD_PROPERTY = "favoris.benchmark.load";
+
+    private static final int FAVORITES_PER_USER = 200;
+    private static final int USERS = 20;
+    private static final int ROUNDS = 20;
+    private static final String USER_ID = "user-000042";
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final RedisSerializer<Object> cacheSerializer = new RedisConfig().cacheValueSerializer(true, 1024);
+
+    @Test
+    @EnabledIfSystemProperty(named = LOAD_PROPERTY, matches = "true")
+    @DisplayName("Taille de la réponse JSON et de l'entrée de cache : complète vs légère")
+    void compareResponseAndCacheSizes() throws Exception {
+        List<Favorite> favorites = favorites(USER_ID, FAVORITES_PER_USER);
+        List<FavoriteDto> full = convert(favorites, favorite -> favorite);
+        List<FavoriteDto> ids = convert(favorites, favorite -> Favorite.builder()
+                .contentId(favorite.getContentId())
+                .contentType(favorite.getContentType())
+                .build());
+        List<FavoriteSummaryDto> idsResponse = ids.stream()
+                .map(favorite -> FavoriteSummaryDto.builder()
+                        .contentId(favorite.getContentId())
+                        .contentType(favorite.getContentType())
+                        .build())
+                .collect(Collectors.toList());
+
+        int fullJson = objectMapper.writeValueAsBytes(full).length;
+        int idsJson = objectMapper.writeValueAsBytes(idsResponse).length;
+        int fullCache = cacheSerializer.serialize(full).length;
+        int idsCache = cacheSerializer.serialize(ids).length;
+
+        System.out.printf("%d favoris : réponse JSON %d octets (complète) contre %d (identifiants), "
+                        + "entrée de cache %d octets contre %d%n",
+                FAVORITES_PER_USER, fullJson, idsJson, fullCache, idsCache);
+        assertTrue(idsJson * 4 < fullJson);
+        assertTrue(idsCache * 4 < fullCache);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = MongoBenchmarkSupport.URI_PROPERTY, matches = ".+")
+    @DisplayName("Lecture Mongo : octets reçus et latence, complète vs projections")
+    void compareMongoReads() {
+        try (MongoBenchmarkSupport mongo = new MongoBenchmarkSupport()) {
+            mongo.resetFavorites();
+            for (int user = 0; user < USERS; user++) {
+                mongo.getMongoTemplate().insertAll(favorites("user-" + user, FAVORITES_PER_USER));
+            }
+            FavoriteRepository repository = mongo.createFavoriteRepository();
+            FavoriteSummaryService summaryService = new FavoriteSummaryService(repository, new ConcurrentMapCacheManager(),
+                    new ContentCatalogService(mock(ContentMetadataRepository.class), new SimpleMeterRegistry(),
+                            1_000, Duration.ofMinutes(10), true, Set.of()));
+
+            long fullBytes = wireBytes(mongo, null);
+            long idsBytes = wireBytes(mongo, FavoriteRepository.ID_FIELDS);
+            long summaryBytes = wireBytes(mongo, FavoriteRepository.SUMMARY_FIELDS);
+
+            double fullMillis = averageMillis(() -> repository.findByUserId(USER_ID).stream()
+                    .map(FavoriteService::convertToDto)
+                    .collect(Collectors.toList()));
+            double idsMillis = averageMillis(() -> repository.findIdsByUserId(USER_ID));
+            double summaryMillis = averageMillis(() -> repository.findSummariesByUserId(USER_ID));
+
+            assertEquals(FAVORITES_PER_USER, summaryService.getUserFavoriteSummaries(USER_ID, List.of()).size());
+            System.out.printf("%d favoris lus : complète %d octets / %.2f ms, résumé %d octets / %.2f ms, "
+                            + "identifiants %d octets / %.2f ms%n",
+                    FAVORITES_PER_USER, fullBytes, fullMillis, summaryBytes, summaryMillis, idsBytes, idsMillis);
+            assertTrue(idsBytes < summaryBytes && summaryBytes < fullBytes);
+        }
+    }
+
+    /**
+     * Taille BSON des documents renvoyés par Mongo pour la liste de l'utilisateur, avec la
+     * projection donnée (null pour les documents complets)
+     */
+    private static long wireBytes(MongoBenchmarkSupport mongo, String projection) {
+        long bytes = 0;
+        for (RawBsonDocument document : mongo.getMongoTemplate().getCollection("favorites")
+                .withDocumentClass(RawBsonDocument.class)
+                .find(Filters.eq("userId", USER_ID))
+                .projection(projection != null ? Document.parse(projection) : null)) {
+            bytes += document.getByteBuffer().remaining();
+        }
+        return bytes;
+    }
+
+    private static double averageMillis(Supplier<List<?>> read) {
+        // Premier passage pour chauffer le JIT et le cache WiredTiger
+        read.get();
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            assertEquals(FAVORITES_PER_USER, read.get().size());
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ROUNDS;
+    }
+
+    private static List<FavoriteDto> convert(List<Favorite> favorites, Function<Favorite, Favorite> projection) {
+        return favorites.stream()
+                .map(projection)
+                .map(FavoriteService::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Favorite> favorites(String userId, int count) {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 0);
+        Random random = new Random(42);
+        List<Favorite> favorites = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            favorites.add(Favorite.builder()
+                    .userId(userId)
+                    .contentId("content-" + i)
+                    .contentType(i % 3 == 0 ? ContentType.VIDEO : ContentType.COURSE)
+                    .title("Formation " + i + " : les bases")
+                    .description(description(random, 400))
+                    .thumbnailUrl("https://cdn.example.com/thumbnails/content-" + i + ".jpg")
+                    .createdAt(now.minusMinutes(i))
+                    .updatedAt(now.minusMinutes(i))
+                    .build());
+        }
+        return favorites;
+    }
+
+    /**
+     * Texte pseudo-aléatoire, pour que la compression des entrées de cache reste réaliste
+     */
+    private static String description(Random random, int length) {
+        char[] text = new char[length];
+        for (int i = 0; i < length; i++) {
+            text[i] = random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26));
+        }
+        return new String(text);
+    }
+}
@@ -0,0 +1,77 @@
+package com.formations.favoris.benchmark;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comparaison de charge entre une instance MVC (profil par défaut) et une instance réactive
+ * (profil "reactive") partageant la même base et le même Redis. Désactivé par défaut.
+ * Exemple :
+ * <pre>
+ * java -jar favoris-service.jar --server.port=8081
+ * java -jar favoris-service.jar --server.port=8082 --spring.profiles.active=reactive
+ * mvn test -Dtest=ReactiveLoadComparisonBenchmarkTest \
+ *     -Dfavoris.benchmark.mvc-url=http://localhost:8081 -Dfavoris.benchmark.reactive-url=http://localhost:8082
+ * </pre>
+ * Au-delà de la taille du pool Tomcat (200 threads par défaut), les requêtes MVC attendent un
+ * thread libre : la latence de queue augmente alors que le débit plafonne.
+ */
+@EnabledIfSystemProperty(named = ReactiveLoadComparisonBenchmarkTest.MVC_URL_PROPERTY, matches = ".+")
+@EnabledIfSystemProperty(named = ReactiveLoadComparisonBenchmarkTest.REACTIVE_URL_PROPERTY, matches = ".+")
+public class ReactiveLoadComparisonBenchmarkTest {
+
+    static final String MVC_URL_PROPERTY = "favoris.benchmark.mvc-url";
+    static final String REACTIVE_URL_PROPERTY = "favoris.benchmark.reactive-url";
+
+    private static final int USERS = 100;
+    private static final int FAVORITES_PER_USER = 20;
+    private static final int[] CONCURRENCY_LEVELS = {64, 256, 1024};
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+    private static final Duration MEASURE = Duration.ofSeconds(15);
+
+    private final HttpLoadSupport load = new HttpLoadSupport();
+
+    @Test
+    @DisplayName("Débit et latence de queue : MVC vs réactif")
+    void compareMvcWithReactive() throws Exception {
+        String mvcUrl = System.getProperty(MVC_URL_PROPERTY);
+        String reactiveUrl = System.getProperty(REACTIVE_URL_PROPERTY);
+        seed(mvcUrl);
+
+        for (String[] target : new String[][]{{"MVC", mvcUrl}, {"Réactif", reactiveUrl}}) {
+            load.run(target[1], this::userFavoritesPath, 64, WARM_UP);
+            System.out.println(target[0] + " (" + target[1] + ")");
+            for (int concurrency : CONCURRENCY_LEVELS) {
+                System.out.println("  " + load.run(target[1], this::userFavoritesPath, concurrency, MEASURE));
+            }
+        }
+    }
+
+    private String userFavoritesPath(int sequence) {
+        return "/api/favorites/user/bench-user-" + (sequence % USERS);
+    }
+
+    private void seed(String baseUrl) throws Exception {
+        for (int user = 0; user < USERS; user++) {
+            StringJoiner items = new StringJoiner(",", "{\"items\":[", "]}");
+            for (int i = 0; i < FAVORITES_PER_USER; i++) {
+                items.add(String.format("{\"userId\":\"bench-user-%d\",\"contentId\":\"content-%d\","
+                        + "\"contentType\":\"COURSE\",\"title\":\"Cours %d\"}", user, i, i));
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/favorites/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(items.toString()))
+                    .build();
+            assertEquals(200, load.getClient().send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.formations.favoris.benchmark;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+
+/**
+ * Plafond de concurrence de la pile MVC bloquante, threads de plateforme contre threads virtuels.
+ * Les lectures portent sur des utilisateurs tous différents pour forcer un aller-retour Mongo
+ * par requête. Désactivé par défaut. Exemple (JDK 21) :
+ * <pre>
+ * java -jar favoris-service.jar --server.port=8081
+ * java -jar favoris-service.jar --server.port=8082 --spring.profiles.active=virtual-threads
+ * mvn test -Dtest=VirtualThreadsBenchmarkTest \
+ *     -Dfavoris.benchmark.platform-url=http://localhost:8081 -Dfavoris.benchmark.virtual-url=http://localhost:8082
+ * </pre>
+ * Avec des threads de plateforme, le débit plafonne vers (threads Tomcat / latence Mongo) et la
+ * latence croît linéairement au-delà de 200 requêtes en vol ; avec des threads virtuels, le
+ * plafond devient le pool de connexions Mongo.
+ */
+@EnabledIfSystemProperty(named = VirtualThreadsBenchmarkTest.PLATFORM_URL_PROPERTY, matches = ".+")
+@EnabledIfSystemProperty(named = VirtualThreadsBenchmarkTest.VIRTUAL_URL_PROPERTY, matches = ".+")
+public class VirtualThreadsBenchmarkTest {
+
+    static final String PLATFORM_URL_PROPERTY = "favoris.benchmark.platform-url";
+    static final String VIRTUAL_URL_PROPERTY = "favoris.benchmark.virtual-url";
+
+    private static final int[] CONCURRENCY_LEVELS = {50, 100, 200, 400, 800, 1600};
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+    private static final Duration MEASURE = Duration.ofSeconds(15);
+
+    private final HttpLoadSupport load = new HttpLoadSupport();
+
+    @Test
+    @DisplayName("Plafond de concurrence : threads de plateforme vs threads virtuels")
+    void compareConcurrencyCeiling() throws Exception {
+        String[][] targets = {
+                {"Threads de plateforme", System.getProperty(PLATFORM_URL_PROPERTY)},
+                {"Threads virtuels", System.getProperty(VIRTUAL_URL_PROPERTY)}
+        };
+        for (String[] target : targets) {
+            String run = Long.toString(System.nanoTime());
+            load.run(target[1], i -> "/api/favorites/user/warmup-" + run + "-" + i, 50, WARM_UP);
+            System.out.println(target[0] + " (" + target[1] + ")");
+            for (int concurrency : CONCURRENCY_LEVELS) {
+                String prefix = "/api/favorites/user/vt-" + run + "-" + concurrency + "-";
+                System.out.println("  " + load.run(target[1], i -> prefix + i, concurrency, MEASURE));
+            }
+        }
+    }
+}
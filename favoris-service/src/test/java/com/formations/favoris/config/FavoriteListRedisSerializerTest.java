@@ -0,0 +1,127 @@
+package com.formations.favoris.config;
+
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.dto.FavoritePageDto;
+import com.formations.favoris.model.ContentType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FavoriteListRedisSerializerTest {
+
+    private final FavoriteListRedisSerializer serializer =
+            new FavoriteListRedisSerializer(RedisConfig.jsonValueSerializer(), true, 1024);
+
+    @Test
+    @DisplayName("1. Aller-retour fidèle d'une liste, champs nuls et dates comprises")
+    void serialize_FavoriteList_ShouldRoundTrip() {
+        // Arrange
+        List<FavoriteDto> favorites = favorites("user123", 3);
+        favorites.get(1).setDescription(null);
+        favorites.get(1).setUpdatedAt(null);
+        favorites.get(2).setCreatedAt(LocalDateTime.of(1965, 3, 1, 8, 30, 15, 123_456_789));
+        favorites.add(FavoriteDto.builder().userId("autreUtilisateur").title("Écriture de l'été").build());
+
+        // Act
+        byte[] bytes = serializer.serialize(favorites);
+        Object restored = serializer.deserialize(bytes);
+
+        // Assert
+        assertEquals(FavoriteListRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(FavoriteListRedisSerializer.VERSION, bytes[1]);
+        assertEquals(favorites, restored);
+        assertInstanceOf(ArrayList.class, restored);
+        assertEquals(List.of(), serializer.deserialize(serializer.serialize(new ArrayList<>())));
+    }
+
+    @Test
+    @DisplayName("2. Compression au-delà du seuil, et bien plus compact que le JSON")
+    void serialize_LargeList_ShouldCompressAndBeSmallerThanJson() {
+        // Arrange
+        List<FavoriteDto> favorites = favorites("user123", 200);
+
+        // Act
+        byte[] binary = serializer.serialize(favorites);
+        byte[] json = RedisConfig.jsonValueSerializer().serialize(favorites);
+
+        // Assert
+        assertEquals(FavoriteListRedisSerializer.FLAG_DEFLATE, binary[2]);
+        assertEquals(favorites, serializer.deserialize(binary));
+        assertTrue(binary.length * 4 < json.length, binary.length + " octets contre " + json.length);
+    }
+
+    @Test
+    @DisplayName("3. Valeurs JSON lues et autres types écrits en JSON")
+    void serialize_OtherValues_ShouldUseJson() {
+        // Arrange
+        FavoritePageDto page = FavoritePageDto.builder().items(favorites("user123", 2)).hasMore(false).build();
+        List<FavoriteDto> favorites = favorites("user123", 2);
+        byte[] legacy = RedisConfig.jsonValueSerializer().serialize(favorites);
+
+        // Act
+        byte[] pageBytes = serializer.serialize(page);
+
+        // Assert
+        assertEquals('{', pageBytes[0]);
+        assertEquals(page, serializer.deserialize(pageBytes));
+        assertEquals(favorites, serializer.deserialize(legacy));
+        FavoriteListRedisSerializer jsonWrites =
+                new FavoriteListRedisSerializer(RedisConfig.jsonValueSerializer(), false, 1024);
+        assertEquals('[', jsonWrites.serialize(favorites)[0]);
+    }
+
+    @Test
+    @DisplayName("4. Version inconnue lue comme un cache miss")
+    void deserialize_UnknownVersion_ShouldReturnNull() {
+        // Arrange
+        byte[] bytes = serializer.serialize(favorites("user123", 2));
+        bytes[1] = FavoriteListRedisSerializer.VERSION + 1;
+
+        // Act & Assert
+        assertNull(serializer.deserialize(bytes));
+    }
+
+    @Test
+    @DisplayName("5. Type de contenu sur un octet, relu comme l'instance partagée du type")
+    void serialize_ContentType_ShouldUseOneByteAndSharedInstances() {
+        // Arrange
+        List<FavoriteDto> favorites = favorites("user123", 2);
+        List<FavoriteDto> untyped = favorites("user123", 2);
+        untyped.forEach(favorite -> favorite.setContentType(null));
+
+        // Act
+        byte[] bytes = serializer.serialize(favorites);
+        @SuppressWarnings("unchecked")
+        List<FavoriteDto> restored = (List<FavoriteDto>) serializer.deserialize(bytes);
+
+        // Assert
+        assertEquals(serializer.serialize(untyped).length, bytes.length);
+        assertSame(ContentType.COURSE, restored.get(0).getContentType());
+        assertSame(ContentType.VIDEO, restored.get(1).getContentType());
+        assertEquals(untyped, serializer.deserialize(serializer.serialize(untyped)));
+    }
+
+    private List<FavoriteDto> favorites(String userId, int count) {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 0, 0, 250_000_000);
+        List<FavoriteDto> favorites = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            favorites.add(FavoriteDto.builder()
+                    .id("fav" + i)
+                    .userId(userId)
+                    .contentId("content" + i)
+                    .contentType(i % 2 == 0 ? ContentType.COURSE : ContentType.VIDEO)
+                    .title("Cours " + i)
+                    .description("Description du cours " + i)
+                    .thumbnailUrl("https://cdn.formations.com/thumbnails/content" + i + ".jpg")
+                    .createdAt(now.minusMinutes(i))
+                    .updatedAt(now.minusMinutes(i))
+                    .build());
+        }
+        return favorites;
+    }
+}
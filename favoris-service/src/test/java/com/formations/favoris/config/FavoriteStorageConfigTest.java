@@ -0,0 +1,79 @@
+package com.formations.favoris.config;
+
+import com.formations.favoris.repository.BucketFavoriteStorage;
+import com.formations.favoris.repository.DocumentFavoriteStorage;
+import com.formations.favoris.repository.MigratingFavoriteStorage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class FavoriteStorageConfigTest {
+
+    private final DocumentFavoriteStorage documentStorage = mock(DocumentFavoriteStorage.class);
+    private final BucketFavoriteStorage bucketStorage = mock(BucketFavoriteStorage.class);
+    private final FavoriteStorageConfig config = new FavoriteStorageConfig();
+
+    @Test
+    @DisplayName("1. Profil reactive avec la disposition par buckets : démarrage refusé")
+    void favoriteStorage_ReactiveWithBucketLayout_ShouldFail() {
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> config.favoriteStorage(documentStorage, bucketStorage, "bucket", "", reactive()));
+        assertTrue(exception.getMessage().contains("favoris.storage.layout=bucket"));
+        verifyNoInteractions(bucketStorage);
+    }
+
+    @Test
+    @DisplayName("2. Profil reactive pendant une migration vers les buckets : démarrage refusé")
+    void favoriteStorage_ReactiveWhileMigrating_ShouldFail() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> config.favoriteStorage(documentStorage, bucketStorage, "document", "bucket", reactive()));
+    }
+
+    @Test
+    @DisplayName("3. Profil reactive avec la disposition par document : stockage par document")
+    void favoriteStorage_ReactiveWithDocumentLayout_ShouldUseDocuments() {
+        // Act & Assert
+        assertSame(documentStorage, config.favoriteStorage(documentStorage, bucketStorage, "document", "", reactive()));
+    }
+
+    @Test
+    @DisplayName("4. Sans profil reactive : buckets et migration acceptés")
+    void favoriteStorage_WithoutReactive_ShouldAcceptBucketsAndMigration() {
+        // Act & Assert
+        assertSame(bucketStorage, config.favoriteStorage(documentStorage, bucketStorage, "bucket", "", new MockEnvironment()));
+        assertInstanceOf(MigratingFavoriteStorage.class,
+                config.favoriteStorage(documentStorage, bucketStorage, "document", "bucket", new MockEnvironment()));
+    }
+
+    @Test
+    @DisplayName("5. Démarrage : index de la disposition active et de la cible de migration créés, quelle que soit la disposition")
+    void favoriteStorage_ShouldEnsureIndexesOfEveryWrittenLayout() {
+        // Act & Assert - disposition par document seule
+        config.favoriteStorage(documentStorage, bucketStorage, "document", "", new MockEnvironment());
+        verify(documentStorage).ensureIndexes();
+        verify(bucketStorage, never()).ensureIndexes();
+
+        // Disposition par buckets seule
+        clearInvocations(documentStorage, bucketStorage);
+        config.favoriteStorage(documentStorage, bucketStorage, "bucket", "", new MockEnvironment());
+        verify(bucketStorage).ensureIndexes();
+        verify(documentStorage, never()).ensureIndexes();
+
+        // Migration : source et cible
+        clearInvocations(documentStorage, bucketStorage);
+        config.favoriteStorage(documentStorage, bucketStorage, "bucket", "document", new MockEnvironment());
+        verify(bucketStorage).ensureIndexes();
+        verify(documentStorage).ensureIndexes();
+    }
+
+    private static MockEnvironment reactive() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("reactive");
+        return environment;
+    }
+}
@@ -0,0 +1,51 @@
+package com.formations.favoris.config;
+
+import com.formations.favoris.service.MongoLoadShedder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LoadSheddingFilterTest {
+
+    private final MongoLoadShedder loadShedder = mock(MongoLoadShedder.class);
+    private final LoadSheddingFilter filter = new LoadSheddingFilter(loadShedder);
+
+    @Test
+    @DisplayName("1. Requête délestée : 503 avec Retry-After, sans traitement")
+    void doFilter_WhenShed_ShouldRejectWithoutProcessing() throws Exception {
+        // Arrange
+        when(loadShedder.tryAdmit()).thenReturn(false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/favorites/toggle"), response, chain);
+
+        // Assert
+        assertEquals(503, response.getStatus());
+        assertEquals(LoadSheddingFilter.RETRY_AFTER_SECONDS, response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    @DisplayName("2. Requête admise : transmise au reste de la chaîne")
+    void doFilter_WhenAdmitted_ShouldContinueChain() throws Exception {
+        // Arrange
+        when(loadShedder.tryAdmit()).thenReturn(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/favorites/user/user123"), response, chain);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+}
@@ -0,0 +1,70 @@
+package com.formations.favoris.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseSizeMetricsFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ResponseSizeMetricsFilter filter = new ResponseSizeMetricsFilter(registry);
+
+    @Test
+    @DisplayName("1. Taille du corps enregistrée par méthode et modèle d'URI")
+    void doFilter_ShouldRecordBodySizePerUriTemplate() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = request("/api/favorites/user/{userId}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                res.getOutputStream().write(new byte[1200], 0, 1200);
+                res.getOutputStream().write('\n');
+            }
+        }));
+        filter.doFilter(request("/api/favorites/user/{userId}"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        DistributionSummary summary = registry.get(ResponseSizeMetricsFilter.METRIC_NAME)
+                .tags("method", "GET", "uri", "/api/favorites/user/{userId}")
+                .summary();
+        assertEquals(2, summary.count());
+        assertEquals(1201.0, summary.totalAmount());
+        assertEquals(1201, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    @DisplayName("2. Réponses écrites via un Writer non mesurées")
+    void doFilter_WithWriter_ShouldNotRecord() throws Exception {
+        // Act
+        filter.doFilter(request("/api/favorites/popularity"), new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                res.getWriter().write("erreur");
+            }
+        }));
+
+        // Assert
+        assertNull(registry.find(ResponseSizeMetricsFilter.METRIC_NAME).summary());
+    }
+
+    private static MockHttpServletRequest request(String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", pattern.replace("{userId}", "user123"));
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}
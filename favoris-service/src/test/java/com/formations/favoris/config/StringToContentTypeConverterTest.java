@@ -0,0 +1,91 @@
+package com.formations.favoris.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringToContentTypeConverterTest {
+
+    private final StringToContentTypeConverter converter = new StringToContentTypeConverter();
+
+    @Test
+    @DisplayName("1. Conversion sans tenir compte de la casse ni des espaces, valeur inconnue refusée")
+    void convert_ShouldIgnoreCaseAndRejectUnknownValues() {
+        // Act & Assert
+        assertSame(ContentType.VIDEO, converter.convert("VIDEO"));
+        assertSame(ContentType.ARTICLE, converter.convert(" article "));
+        assertThrows(IllegalArgumentException.class, () -> converter.convert("PODCAST"));
+        assertNull(ContentType.parse("PODCAST"));
+        assertEquals("user123_COURSE", ContentType.COURSE.cacheKey("user123"));
+    }
+
+    @Test
+    @DisplayName("2. Favori Mongo au type non normalisé relu, écrit avec le nom du type")
+    void mongoConversions_ShouldReadLegacyValuesAndWriteNames() {
+        // Arrange
+        MappingMongoConverter mongoConverter = mongoConverter();
+        Document legacy = new Document("userId", "user123").append("contentId", "content1").append("contentType", "course");
+
+        // Act
+        Favorite favorite = mongoConverter.read(Favorite.class, legacy);
+        Document written = new Document();
+        mongoConverter.write(favorite, written);
+
+        // Assert
+        assertSame(ContentType.COURSE, favorite.getContentType());
+        assertEquals("COURSE", written.get("contentType"));
+    }
+
+    @Test
+    @DisplayName("4. Favori Mongo au type retiré (PODCAST) relu sans type au lieu d'échouer")
+    void mongoConversions_ShouldReadUnknownLegacyValuesAsNull() {
+        // Arrange
+        MappingMongoConverter mongoConverter = mongoConverter();
+        Document legacy = new Document("userId", "user123").append("contentId", "podcast1").append("contentType", "PODCAST");
+
+        // Act
+        Favorite favorite = mongoConverter.read(Favorite.class, legacy);
+
+        // Assert
+        assertNull(favorite.getContentType());
+        assertEquals("podcast1", favorite.getContentId());
+        assertThrows(IllegalArgumentException.class, () -> converter.convert("PODCAST"));
+    }
+
+    private static MappingMongoConverter mongoConverter() {
+        MongoCustomConversions conversions = new MongoConversionsConfig().mongoCustomConversions();
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter mongoConverter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        mongoConverter.setCustomConversions(conversions);
+        mongoConverter.afterPropertiesSet();
+        return mongoConverter;
+    }
+
+    @Test
+    @DisplayName("3. Requête JSON : type reconnu quelle que soit la casse, type inconnu refusé")
+    void json_ShouldIgnoreCaseAndRejectUnknownValues() throws Exception {
+        // Arrange
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // Act
+        AddFavoriteRequest request = objectMapper.readValue(
+                "{\"userId\":\"user123\",\"contentId\":\"content1\",\"contentType\":\"video\"}", AddFavoriteRequest.class);
+
+        // Assert
+        assertSame(ContentType.VIDEO, request.getContentType());
+        assertThrows(Exception.class, () -> objectMapper.readValue(
+                "{\"userId\":\"user123\",\"contentId\":\"content1\",\"contentType\":\"PODCAST\"}", AddFavoriteRequest.class));
+    }
+}
@@ -0,0 +1,194 @@
+package com.formations.favoris.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TwoTierCacheManagerTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private ConcurrentMapCacheManager remoteCacheManager;
+    private TwoTierCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        remoteCacheManager = new ConcurrentMapCacheManager("favorites", "favoritesByType");
+        cacheManager = new TwoTierCacheManager(remoteCacheManager, redisTemplate, 100, Duration.ofMinutes(1));
+        cacheManager.afterPropertiesSet();
+    }
+
+    @Test
+    @DisplayName("1. Un hit local n'interroge pas Redis")
+    void get_WhenValueIsLocal_ShouldNotHitRemote() {
+        // Arrange
+        Cache cache = cacheManager.getCache("favorites");
+        cache.put("user123", List.of("fav789"));
+        remoteCacheManager.getCache("favorites").clear();
+
+        // Act
+        Cache.ValueWrapper value = cache.get("user123");
+
+        // Assert
+        assertNotNull(value);
+        TwoTierCacheStats stats = cacheManager.getStatistics().get("favorites");
+        assertEquals(1, stats.getLocalHits());
+        assertEquals(0, stats.getRemoteHits() + stats.getRemoteMisses());
+    }
+
+    @Test
+    @DisplayName("2. Un hit Redis alimente le cache local")
+    void get_WhenValueIsRemoteOnly_ShouldPopulateLocal() {
+        // Arrange
+        remoteCacheManager.getCache("favorites").put("user123", List.of("fav789"));
+        Cache cache = cacheManager.getCache("favorites");
+
+        // Act
+        cache.get("user123");
+        remoteCacheManager.getCache("favorites").clear();
+        Cache.ValueWrapper second = cache.get("user123");
+
+        // Assert
+        assertNotNull(second);
+        TwoTierCacheStats stats = cacheManager.getStatistics().get("favorites");
+        assertEquals(1, stats.getRemoteHits());
+        assertEquals(1, stats.getLocalHits());
+        assertEquals(0.5, stats.getLocalHitRatio());
+    }
+
+    @Test
+    @DisplayName("3. L'invalidation vide les deux niveaux et est diffusée")
+    void evict_ShouldClearBothTiersAndPublish() {
+        // Arrange
+        Cache cache = cacheManager.getCache("favorites");
+        cache.put("user123", List.of("fav789"));
+
+        // Act
+        cache.evict("user123");
+
+        // Assert
+        assertNull(cache.get("user123"));
+        assertNull(remoteCacheManager.getCache("favorites").get("user123"));
+        verify(redisTemplate).convertAndSend(eq(TwoTierCacheManager.INVALIDATION_CHANNEL), anyString());
+    }
+
+    @Test
+    @DisplayName("4. Un message d'une autre instance invalide uniquement le cache local")
+    void onMessage_FromOtherNode_ShouldEvictLocalOnly() {
+        // Arrange
+        Cache cache = cacheManager.getCache("favorites");
+        cache.put("user123", List.of("fav789"));
+        byte[] body = "E|other-node|favorites|user123".getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        cacheManager.onMessage(new DefaultMessage(new byte[0], body), null);
+
+        // Assert
+        assertEquals(0, cacheManager.getStatistics().get("favorites").getLocalSize());
+        assertNotNull(remoteCacheManager.getCache("favorites").get("user123"));
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("5. Les messages émis par l'instance courante sont ignorés")
+    void onMessage_FromSameNode_ShouldBeIgnored() {
+        // Arrange
+        Cache cache = cacheManager.getCache("favorites");
+        cache.put("user123", List.of("fav789"));
+        byte[] body = ("E|" + cacheManager.getNodeId() + "|favorites|user123").getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        cacheManager.onMessage(new DefaultMessage(new byte[0], body), null);
+
+        // Assert
+        assertEquals(1, cacheManager.getStatistics().get("favorites").getLocalSize());
+    }
+
+    @Test
+    @DisplayName("6. Une lecture Redis concurrente d'une invalidation n'alimente pas le cache local")
+    void get_WhenEvictedDuringRemoteRead_ShouldNotPopulateLocal() throws Exception {
+        // Arrange - la lecture Redis de l'ancienne valeur se termine après l'invalidation
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        Cache remote = new ConcurrentMapCache("favorites") {
+            @Override
+            protected Object lookup(Object key) {
+                Object value = super.lookup(key);
+                reading.countDown();
+                try {
+                    evicted.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return value;
+            }
+        };
+        remote.put("user123", List.of("fav789"));
+        TwoTierCache cache = new TwoTierCache("favorites",
+                Caffeine.newBuilder().maximumSize(100).recordStats().build(), remote, cacheManager);
+        CompletableFuture<Cache.ValueWrapper> read = CompletableFuture.supplyAsync(() -> cache.get("user123"));
+        reading.await();
+
+        // Act
+        cache.evict("user123");
+        evicted.countDown();
+
+        // Assert
+        assertNotNull(read.get(5, TimeUnit.SECONDS));
+        assertEquals(0, cache.getStatistics().getLocalSize());
+        assertNull(cache.get("user123"));
+    }
+
+    @Test
+    @DisplayName("7. L'expiration Redis d'une valeur chargée est calculée depuis le TTL du cache, sans PTTL")
+    void get_AfterLoad_ShouldNotQueryRemoteExpiry() {
+        // Arrange - rechargement anticipé actif, cache Redis de TTL 5 minutes
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(mock(RedisCacheWriter.class))
+                .withCacheConfiguration("favorites", RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(5)))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        TwoTierCacheManager earlyRefreshing = new TwoTierCacheManager(redisCacheManager, redisTemplate, 100,
+                Duration.ofMinutes(1), Duration.ZERO, 1.0);
+        earlyRefreshing.afterPropertiesSet();
+        Cache cache = earlyRefreshing.getCache("favorites");
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            cache.get("user123", () -> List.of("fav789"));
+        }
+
+        // Assert
+        TwoTierCacheStats stats = earlyRefreshing.getStatistics().get("favorites");
+        assertEquals(1, stats.getLoads());
+        assertEquals(9, stats.getLocalHits());
+        verify(redisTemplate, never()).getExpire(anyString(), any(TimeUnit.class));
+        earlyRefreshing.destroy();
+    }
+}
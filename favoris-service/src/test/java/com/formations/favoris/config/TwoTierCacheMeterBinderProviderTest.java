@@ -0,0 +1,56 @@
+package com.formations.favoris.config;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.metrics.cache.CacheMetricsRegistrar;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class TwoTierCacheMeterBinderProviderTest {
+
+    private SimpleMeterRegistry registry;
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(new ConcurrentMapCacheManager("favorites"),
+                mock(StringRedisTemplate.class), 100, Duration.ofMinutes(1));
+        cacheManager.setTransactionAware(true);
+        cacheManager.afterPropertiesSet();
+        cache = cacheManager.getCache("favorites");
+
+        // Enregistrement tel qu'effectué par Spring Boot au démarrage (cache décoré pour les transactions)
+        registry = new SimpleMeterRegistry();
+        CacheMetricsRegistrar registrar = new CacheMetricsRegistrar(registry, List.of(new TwoTierCacheMeterBinderProvider()));
+        assertTrue(registrar.bindCacheToRegistry(cache, Tag.of("cache.manager", "cacheManager")));
+    }
+
+    @Test
+    @DisplayName("1. Métriques standard et détail par niveau, par nom de cache")
+    void bind_ShouldExposeStandardAndTierMetrics() {
+        // Act
+        cache.get("user123", () -> List.of("fav1"));
+        cache.get("user123", () -> List.of("fav1"));
+        cache.evict("user123");
+
+        // Assert
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "favorites", "result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "favorites", "result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.puts").tag("cache", "favorites").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.evictions").tag("cache", "favorites").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.tier.gets").tags("tier", "local", "result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.tier.gets").tags("tier", "remote", "result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.loads").tags("cache", "favorites", "type", "leader").functionCounter().count());
+        assertEquals("cacheManager", registry.get("cache.loads").tag("type", "leader").functionCounter().getId().getTag("cache.manager"));
+    }
+}
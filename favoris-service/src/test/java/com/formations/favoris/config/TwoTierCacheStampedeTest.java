@@ -0,0 +1,251 @@
+package com.formations.favoris.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Avalanche de chargements à l'expiration d'une clé très demandée : nombre de requêtes Mongo
+ * (appels au chargeur) émises pour des centaines de lectures concurrentes
+ */
+public class TwoTierCacheStampedeTest {
+
+    private static final int CONCURRENT_READS = 200;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_READS);
+    private final AtomicInteger mongoQueries = new AtomicInteger();
+    private final List<TwoTierCacheManager> managers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        managers.forEach(TwoTierCacheManager::destroy);
+    }
+
+    @Test
+    @DisplayName("1. Un seul chargement par instance pour des lectures concurrentes")
+    void get_ConcurrentMisses_ShouldLoadOnce() throws Exception {
+        // Arrange
+        TwoTierCacheManager cacheManager = manager(new ConcurrentMapCacheManager("favorites"), mock(StringRedisTemplate.class),
+                Duration.ZERO, 0.0);
+        Cache cache = cacheManager.getCache("favorites");
+
+        // Act
+        List<Object> values = readConcurrently(List.of(cache), CONCURRENT_READS, slowLoader("favoris", 50));
+
+        // Assert
+        assertEquals(1, mongoQueries.get());
+        assertTrue(values.stream().allMatch("favoris"::equals));
+        TwoTierCacheStats stats = cacheManager.getStatistics().get("favorites");
+        assertEquals(1, stats.getLoads());
+    }
+
+    @Test
+    @DisplayName("2. Un seul chargement entre instances grâce au bail Redis")
+    void get_ConcurrentMissesOnTwoNodes_ShouldLoadOnce() throws Exception {
+        // Arrange - deux instances partageant le même Redis (cache et baux)
+        ConcurrentMapCacheManager sharedRemote = new ConcurrentMapCacheManager("favorites");
+        StringRedisTemplate redisTemplate = redisWithLeases(new ConcurrentHashMap<>());
+        Cache node1 = manager(sharedRemote, redisTemplate, Duration.ofSeconds(3), 0.0).getCache("favorites");
+        Cache node2 = manager(sharedRemote, redisTemplate, Duration.ofSeconds(3), 0.0).getCache("favorites");
+
+        // Act
+        List<Object> values = readConcurrently(List.of(node1, node2), CONCURRENT_READS, slowLoader("favoris", 100));
+
+        // Assert
+        assertEquals(1, mongoQueries.get());
+        assertTrue(values.stream().allMatch("favoris"::equals));
+    }
+
+    @Test
+    @DisplayName("3. Rechargement anticipé en arrière-plan avant l'expiration Redis")
+    void get_NearRemoteExpiry_ShouldRefreshInBackground() throws Exception {
+        // Arrange - l'entrée Redis expire dans 100 ms, le chargement dure ~10 ms
+        StringRedisTemplate redisTemplate = redisWithLeases(new ConcurrentHashMap<>());
+        when(redisTemplate.getExpire(anyString(), any(TimeUnit.class))).thenReturn(100L);
+        TwoTierCacheManager cacheManager = manager(new ConcurrentMapCacheManager("favorites"), redisTemplate,
+                Duration.ofSeconds(3), 100.0);
+        Cache cache = cacheManager.getCache("favorites");
+        AtomicInteger version = new AtomicInteger();
+        Callable<String> loader = () -> {
+            mongoQueries.incrementAndGet();
+            Thread.sleep(10);
+            return "v" + version.incrementAndGet();
+        };
+        assertEquals("v1", cache.get("user123", loader));
+
+        // Act - les lectures suivantes sont servies par la valeur en place
+        String served = null;
+        for (int i = 0; i < 50 && cacheManager.getStatistics().get("favorites").getEarlyRefreshes() == 0; i++) {
+            served = cache.get("user123", loader);
+            Thread.sleep(5);
+        }
+
+        // Assert
+        assertNotNull(served);
+        TwoTierCacheStats stats = cacheManager.getStatistics().get("favorites");
+        assertTrue(stats.getEarlyRefreshes() >= 1);
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (!"v2".equals(cache.get("user123", String.class)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(version.get() >= 2);
+    }
+
+    @Test
+    @DisplayName("4. L'échec d'un chargement est propagé aux appelants en attente, sans mise en cache")
+    void get_WhenLoaderFails_ShouldPropagateToWaiters() throws Exception {
+        // Arrange
+        TwoTierCacheManager cacheManager = manager(new ConcurrentMapCacheManager("favorites"), mock(StringRedisTemplate.class),
+                Duration.ZERO, 0.0);
+        Cache cache = cacheManager.getCache("favorites");
+        Callable<String> failing = () -> {
+            mongoQueries.incrementAndGet();
+            Thread.sleep(50);
+            throw new IllegalStateException("Mongo indisponible");
+        };
+
+        // Act
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return cache.get("user123", failing);
+            }));
+        }
+        start.countDown();
+
+        // Assert
+        for (Future<String> future : futures) {
+            Exception e = assertThrows(Exception.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(Cache.ValueRetrievalException.class, e.getCause());
+        }
+        assertTrue(mongoQueries.get() < 20);
+        assertNull(cache.get("user123"));
+    }
+
+    @Test
+    @DisplayName("5. Un rechargement anticipé abandonné (bail détenu ailleurs) ne répond pas null aux lectures concurrentes")
+    @SuppressWarnings("unchecked")
+    void get_WhileRefreshIsAbandoned_ShouldServeValue() throws Exception {
+        // Arrange - le bail du rechargement n'est refusé qu'après la lecture concurrente
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.getExpire(anyString(), any(TimeUnit.class))).thenReturn(100L);
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch readDone = new CountDownLatch(1);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenReturn(true)
+                .thenAnswer(invocation -> {
+                    refreshStarted.countDown();
+                    readDone.await(5, TimeUnit.SECONDS);
+                    return false;
+                });
+        TwoTierCacheManager cacheManager = manager(new ConcurrentMapCacheManager("favorites"), redisTemplate,
+                Duration.ofSeconds(3), 100.0);
+        Cache cache = cacheManager.getCache("favorites");
+        Callable<String> loader = slowLoader("favoris", 10);
+        assertEquals("favoris", cache.get("user123", loader));
+        for (int i = 0; i < 50 && refreshStarted.getCount() > 0; i++) {
+            cache.get("user123", loader);
+            Thread.sleep(5);
+        }
+        assertTrue(refreshStarted.await(1, TimeUnit.SECONDS));
+        ((com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache()).invalidateAll();
+
+        // Act
+        Object value;
+        try {
+            value = executor.submit(() -> cache.get("user123", loader)).get(10, TimeUnit.SECONDS);
+        } finally {
+            readDone.countDown();
+        }
+
+        // Assert
+        assertEquals("favoris", value);
+        assertEquals(1, mongoQueries.get());
+    }
+
+    private TwoTierCacheManager manager(ConcurrentMapCacheManager remote, StringRedisTemplate redisTemplate,
+                                        Duration leaseTtl, double beta) {
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(remote, redisTemplate, 100, Duration.ofMinutes(1),
+                leaseTtl, beta);
+        cacheManager.afterPropertiesSet();
+        managers.add(cacheManager);
+        return cacheManager;
+    }
+
+    private Callable<String> slowLoader(String value, long millis) {
+        return () -> {
+            mongoQueries.incrementAndGet();
+            Thread.sleep(millis);
+            return value;
+        };
+    }
+
+    /**
+     * Lit la même clé depuis {@code reads} threads démarrés ensemble, répartis sur les caches
+     */
+    private List<Object> readConcurrently(List<Cache> caches, int reads, Callable<String> loader) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < reads; i++) {
+            Cache cache = caches.get(i % caches.size());
+            futures.add(executor.submit(() -> {
+                start.await();
+                return cache.get("user123", loader);
+            }));
+        }
+        start.countDown();
+        List<Object> values = new ArrayList<>();
+        for (Future<Object> future : futures) {
+            values.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return values;
+    }
+
+    /**
+     * Redis simulé pour les baux : SET NX et suppression conditionnelle par script
+     */
+    @SuppressWarnings("unchecked")
+    private static StringRedisTemplate redisWithLeases(Map<String, String> leases) {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenAnswer(invocation -> leases.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any()))
+                .thenAnswer(invocation -> {
+                    List<String> keys = invocation.getArgument(1);
+                    return leases.remove(keys.get(0), invocation.getArgument(2)) ? 1L : 0L;
+                });
+        return redisTemplate;
+    }
+}
@@ -3,13 +3,30 @@ package com.formations.favoris.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.formations.favoris.dto.AddFavoriteRequest;
 import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.dto.UpdateContentMetadataRequest;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.service.ContentCatalogInvalidator;
+import com.formations.favoris.service.ContentCatalogService;
+import com.formations.favoris.service.ContentTypeMigrationService;
+import com.formations.favoris.service.FavoriteExportService;
+import com.formations.favoris.service.FavoriteMembershipService;
+import com.formations.favoris.service.PopularityCounterService;
+import com.formations.favoris.service.TrendingService;
+import com.formations.favoris.service.UserRateLimiter;
+import com.formations.favoris.service.FavoritePageService;
 import com.formations.favoris.service.FavoriteService;
+import com.formations.favoris.service.FavoriteStorageMigrationService;
+import com.formations.favoris.service.FavoriteSummaryService;
+import com.formations.favoris.service.FavoriteCacheInvalidator;
+import com.formations.favoris.service.HotUserTracker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
@@ -22,12 +39,13 @@ import java.util.List;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(FavoriteController.class)
-@ContextConfiguration(classes = com.formations.favoris_service.FavorisServiceApplication.class)
+@ContextConfiguration(classes = {com.formations.favoris_service.FavorisServiceApplication.class, FavoriteController.class})
 public class FavoriteControllerTest {
 
     @Autowired
@@ -36,6 +54,45 @@ public class FavoriteControllerTest {
     @MockBean
     private FavoriteService favoriteService;
 
+    @MockBean
+    private FavoritePageService favoritePageService;
+
+    @MockBean
+    private FavoriteSummaryService favoriteSummaryService;
+
+    @MockBean
+    private FavoriteCacheInvalidator favoriteCacheInvalidator;
+
+    @MockBean
+    private HotUserTracker hotUserTracker;
+
+    @MockBean
+    private FavoriteExportService favoriteExportService;
+
+    @MockBean
+    private FavoriteMembershipService favoriteMembershipService;
+
+    @MockBean
+    private FavoriteStorageMigrationService favoriteStorageMigrationService;
+
+    @MockBean
+    private PopularityCounterService popularityCounterService;
+
+    @MockBean
+    private TrendingService trendingService;
+
+    @MockBean
+    private ContentCatalogService contentCatalogService;
+
+    @MockBean
+    private ContentCatalogInvalidator contentCatalogInvalidator;
+
+    @MockBean
+    private ContentTypeMigrationService contentTypeMigrationService;
+
+    @MockBean
+    private UserRateLimiter userRateLimiter;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -44,10 +101,12 @@ public class FavoriteControllerTest {
     private AddFavoriteRequest invalidRequest;
     private final String userId = "user123";
     private final String contentId = "content456";
-    private final String contentType = "COURSE";
+    private final ContentType contentType = ContentType.COURSE;
 
     @BeforeEach
     void setUp() {
+        // Listes renvoyées telles quelles : le catalogue est testé dans ContentCatalogServiceTest
+        when(contentCatalogService.hydrate(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
         LocalDateTime now = LocalDateTime.now();
         
         testFavoriteDto = FavoriteDto.builder()
@@ -124,7 +183,7 @@ public class FavoriteControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].contentType", is(contentType)));
+                .andExpect(jsonPath("$[0].contentType", is(contentType.name())));
 
         verify(favoriteService).getUserFavoritesByType(userId, contentType);
     }
@@ -232,4 +291,98 @@ public class FavoriteControllerTest {
 
         verify(favoriteService).toggleFavorite(any(AddFavoriteRequest.class));
     }
+
+    @Test
+    @DisplayName("6. GET conditionnel - ETag à jour : 304 sans lire la liste")
+    void getUserFavorites_WithCurrentETag_ShouldReturnNotModified() throws Exception {
+        // Arrange
+        when(favoriteCacheInvalidator.getETag(userId)).thenReturn("\"3-1700000000000\"");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/favorites/user/{userId}", userId)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3-1700000000000\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-1700000000000\""))
+                .andExpect(content().string(""));
+
+        verify(favoriteService, never()).getUserFavorites(anyString());
+    }
+
+    @Test
+    @DisplayName("6.1 GET conditionnel - ETag périmé : 200 avec la liste et le nouvel ETag")
+    void getUserFavorites_WithStaleETag_ShouldReturnFavoritesAndNewETag() throws Exception {
+        // Arrange
+        when(favoriteCacheInvalidator.getETag(userId)).thenReturn("\"4-1700000000000\"");
+        when(favoriteService.getUserFavorites(userId)).thenReturn(List.of(testFavoriteDto));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/favorites/user/{userId}", userId)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3-1700000000000\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4-1700000000000\""))
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(favoriteService).getUserFavorites(userId);
+    }
+
+    @Test
+    @DisplayName("6.2 GET conditionnel - Version illisible (Redis indisponible) : 200 sans ETag")
+    void getUserFavorites_WhenVersionUnavailable_ShouldReturnFavoritesWithoutETag() throws Exception {
+        // Arrange
+        when(favoriteCacheInvalidator.getETag(userId)).thenReturn(null);
+        when(favoriteService.getUserFavorites(userId)).thenReturn(List.of(testFavoriteDto));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/favorites/user/{userId}", userId)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3-1700000000000\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        verify(favoriteService).getUserFavorites(userId);
+    }
+
+    @Test
+    @DisplayName("7. Export - gzip accepté avec un poids non nul : réponse compressée")
+    void exportUserFavorites_WhenGzipAccepted_ShouldCompress() throws Exception {
+        // Act & Assert
+        for (String acceptEncoding : List.of("gzip", "deflate, gzip;q=0.5", "br;q=1.0, *;q=0.1")) {
+            mockMvc.perform(get("/api/favorites/user/{userId}/export", userId)
+                    .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        }
+    }
+
+    @Test
+    @DisplayName("7.1 Export - gzip refusé (q=0) ou absent : réponse non compressée")
+    void exportUserFavorites_WhenGzipRefused_ShouldNotCompress() throws Exception {
+        // Act & Assert
+        for (String acceptEncoding : List.of("gzip;q=0", "identity, gzip; q=0.000", "*;q=0.5, gzip;q=0", "deflate, br")) {
+            mockMvc.perform(get("/api/favorites/user/{userId}/export", userId)
+                    .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        }
+    }
+
+    @Test
+    @DisplayName("8. Catalogue - mise à jour d'administration : métadonnées remplacées puis diffusées (nouvel ETag)")
+    void updateContentMetadata_ShouldUpdateThenInvalidate() throws Exception {
+        // Arrange
+        UpdateContentMetadataRequest request = UpdateContentMetadataRequest.builder()
+                .contentType(contentType)
+                .title("Nouveau titre")
+                .build();
+
+        // Act & Assert
+        mockMvc.perform(put("/api/favorites/admin/catalog/{contentId}", contentId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNoContent());
+
+        InOrder inOrder = inOrder(contentCatalogService, contentCatalogInvalidator);
+        inOrder.verify(contentCatalogService).update(eq(contentId), any(UpdateContentMetadataRequest.class));
+        inOrder.verify(contentCatalogInvalidator).invalidate(contentId);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.formations.favoris.controller;
+
+import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.dto.FavoriteSummaryDto;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.service.FavoriteCacheInvalidator;
+import com.formations.favoris.service.FavoriteMembershipService;
+import com.formations.favoris.service.FavoritePageService;
+import com.formations.favoris.service.FavoriteService;
+import com.formations.favoris.service.FavoriteSummaryService;
+import com.formations.favoris.service.HotUserTracker;
+import com.formations.favoris.service.PopularityCounterService;
+import com.formations.favoris.service.ReactiveFavoriteService;
+import com.formations.favoris.service.TrendingService;
+import com.formations.favoris.service.UserRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+public class ReactiveFavoriteControllerTest {
+
+    private static final String ETAG = "\"3-1700000000000\"";
+
+    private final ReactiveFavoriteService reactiveFavoriteService = mock(ReactiveFavoriteService.class);
+    private final FavoriteSummaryService favoriteSummaryService = mock(FavoriteSummaryService.class);
+    private final FavoriteCacheInvalidator favoriteCacheInvalidator = mock(FavoriteCacheInvalidator.class);
+    private final HotUserTracker hotUserTracker = mock(HotUserTracker.class);
+    private final UserRateLimiter userRateLimiter = mock(UserRateLimiter.class);
+    private final String userId = "user123";
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        ReactiveFavoriteController controller = new ReactiveFavoriteController(reactiveFavoriteService,
+                mock(FavoriteService.class), mock(FavoritePageService.class), favoriteSummaryService,
+                favoriteCacheInvalidator, hotUserTracker, mock(FavoriteMembershipService.class),
+                mock(PopularityCounterService.class), mock(TrendingService.class), userRateLimiter);
+        client = WebTestClient.bindToController(controller).build();
+        when(favoriteCacheInvalidator.getETag(userId)).thenReturn(ETAG);
+    }
+
+    @Test
+    @DisplayName("1. GET conditionnel - ETag à jour : 304 sans lire la liste")
+    void getUserFavorites_WithCurrentETag_ShouldReturnNotModified() {
+        // Act & Assert
+        client.get().uri("/api/favorites/user/{userId}", userId)
+                .header(HttpHeaders.IF_NONE_MATCH, ETAG)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETAG);
+
+        verify(hotUserTracker).recordAccess(userId);
+        verifyNoInteractions(reactiveFavoriteService);
+    }
+
+    @Test
+    @DisplayName("1.1 GET conditionnel - ETag périmé : 200 avec la liste et l'ETag courant")
+    void getUserFavorites_WithStaleETag_ShouldReturnFavoritesAndETag() {
+        // Arrange
+        when(reactiveFavoriteService.getUserFavorites(userId)).thenReturn(Mono.just(List.of(
+                FavoriteDto.builder().userId(userId).contentId("content1").contentType(ContentType.COURSE).build())));
+
+        // Act & Assert
+        client.get().uri("/api/favorites/user/{userId}", userId)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2-1700000000000\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETAG)
+                .expectBody().jsonPath("$[0].contentId").isEqualTo("content1");
+    }
+
+    @Test
+    @DisplayName("2. Liste légère : ETag et champs demandés, 400 pour un champ inconnu")
+    void getUserFavoriteSummaries_ShouldReturnSummariesWithETag() {
+        // Arrange
+        when(favoriteSummaryService.getUserFavoriteSummaries(userId, List.of("title"))).thenReturn(List.of(
+                FavoriteSummaryDto.builder().contentId("content1").contentType(ContentType.VIDEO).title("Titre").build()));
+        when(favoriteSummaryService.getUserFavoriteSummaries(userId, List.of("unknown")))
+                .thenThrow(new IllegalArgumentException("Champ inconnu: unknown"));
+
+        // Act & Assert
+        client.get().uri("/api/favorites/user/{userId}/summary?fields=title", userId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETAG)
+                .expectBody().jsonPath("$[0].title").isEqualTo("Titre");
+        client.get().uri("/api/favorites/user/{userId}/summary?fields=unknown", userId)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("3. Écriture au-delà du débit : 429 avec Retry-After, favori non ajouté")
+    void addFavorite_WhenRateLimited_ShouldReturnTooManyRequests() {
+        // Arrange
+        when(userRateLimiter.tryAcquire(anyMap())).thenReturn(1_500L);
+        AddFavoriteRequest request = AddFavoriteRequest.builder()
+                .userId(userId)
+                .contentId("content1")
+                .contentType(ContentType.COURSE)
+                .title("Test Course")
+                .build();
+
+        // Act & Assert
+        client.post().uri("/api/favorites")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "2");
+
+        verify(userRateLimiter).tryAcquire(Map.of(userId, 1));
+        verify(reactiveFavoriteService, never()).addFavorite(any());
+    }
+}
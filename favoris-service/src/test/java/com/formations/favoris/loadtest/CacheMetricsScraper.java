@@ -0,0 +1,105 @@
+package com.formations.favoris.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compteurs {@code cache.gets} du service lus sur {@code /actuator/prometheus}, pour calculer le
+ * taux de succès de chaque cache entre deux relevés
+ */
+public final class CacheMetricsScraper {
+
+    private static final Pattern CACHE_GETS = Pattern.compile("^cache_gets_total\\{([^}]*)}\\s+(\\S+)");
+    private static final Pattern LABEL = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+
+    private final HttpClient client;
+    private final String baseUrl;
+
+    public CacheMetricsScraper(HttpClient client, String baseUrl) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Relève les compteurs courants ; relevé vide si les métriques ne sont pas exposées
+     */
+    public Map<String, CacheCounts> scrape() throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/prometheus"))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                System.err.println("Métriques indisponibles (HTTP " + response.statusCode()
+                        + ") : taux de succès des caches non mesurés");
+                return Map.of();
+            }
+            return parse(response.body());
+        } catch (IOException e) {
+            System.err.println("Métriques indisponibles (" + e.getMessage() + ") : taux de succès des caches non mesurés");
+            return Map.of();
+        }
+    }
+
+    /**
+     * Additionne les succès et échecs par nom de cache (toutes instances et tous gestionnaires confondus)
+     */
+    static Map<String, CacheCounts> parse(String exposition) {
+        Map<String, CacheCounts> counts = new TreeMap<>();
+        for (String line : exposition.split("\n")) {
+            Matcher metric = CACHE_GETS.matcher(line);
+            if (!metric.find()) {
+                continue;
+            }
+            String cache = null;
+            String result = null;
+            Matcher label = LABEL.matcher(metric.group(1));
+            while (label.find()) {
+                if (label.group(1).equals("cache")) {
+                    cache = label.group(2);
+                } else if (label.group(1).equals("result")) {
+                    result = label.group(2);
+                }
+            }
+            if (cache == null || result == null) {
+                continue;
+            }
+            long value = (long) Double.parseDouble(metric.group(2));
+            CacheCounts current = counts.getOrDefault(cache, new CacheCounts(0, 0));
+            counts.put(cache, switch (result) {
+                case "hit" -> new CacheCounts(current.hits() + value, current.misses());
+                case "miss" -> new CacheCounts(current.hits(), current.misses() + value);
+                default -> current;
+            });
+        }
+        return counts;
+    }
+
+    /**
+     * Taux de succès de chaque cache lu entre les deux relevés
+     */
+    static Map<String, Double> hitRatios(Map<String, CacheCounts> before, Map<String, CacheCounts> after) {
+        Map<String, Double> ratios = new TreeMap<>();
+        after.forEach((cache, end) -> {
+            CacheCounts start = before.getOrDefault(cache, new CacheCounts(0, 0));
+            long hits = end.hits() - start.hits();
+            long gets = hits + end.misses() - start.misses();
+            if (gets > 0) {
+                ratios.put(cache, (double) hits / gets);
+            }
+        });
+        return ratios;
+    }
+
+    public record CacheCounts(long hits, long misses) {
+    }
+}
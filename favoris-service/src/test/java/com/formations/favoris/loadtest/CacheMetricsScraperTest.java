@@ -0,0 +1,42 @@
+package com.formations.favoris.loadtest;
+
+import com.formations.favoris.loadtest.CacheMetricsScraper.CacheCounts;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheMetricsScraperTest {
+
+    @Test
+    @DisplayName("1. Succès et échecs additionnés par cache, taux de succès calculé entre deux relevés")
+    void parseAndHitRatios_ShouldUseCacheGetsDeltas() {
+        // Arrange
+        String before = """
+                # HELP cache_gets_total Number of times cache lookup methods have returned a cached value.
+                # TYPE cache_gets_total counter
+                cache_gets_total{application="favoris-service",cache="favorites",cache_manager="cacheManager",name="favorites",result="hit"} 100.0
+                cache_gets_total{application="favoris-service",cache="favorites",cache_manager="cacheManager",name="favorites",result="miss"} 50.0
+                cache_tier_gets_total{cache="favorites",result="hit",tier="local"} 70.0
+                """;
+        String after = """
+                cache_gets_total{application="favoris-service",cache="favorites",cache_manager="cacheManager",name="favorites",result="hit"} 1000.0
+                cache_gets_total{application="favoris-service",cache="favorites",cache_manager="cacheManager",name="favorites",result="miss"} 150.0
+                cache_gets_total{application="favoris-service",cache="favoritesByType",cache_manager="cacheManager",name="favoritesByType",result="hit"} 30.0
+                cache_gets_total{application="favoris-service",cache="favoritesByType",cache_manager="cacheManager",name="favoritesByType",result="miss"} 10.0
+                cache_gets_total{application="favoris-service",cache="favoritesIds",cache_manager="cacheManager",name="favoritesIds",result="miss"} 0.0
+                """;
+
+        // Act
+        Map<String, CacheCounts> start = CacheMetricsScraper.parse(before);
+        Map<String, Double> ratios = CacheMetricsScraper.hitRatios(start, CacheMetricsScraper.parse(after));
+
+        // Assert
+        assertEquals(Map.of("favorites", new CacheCounts(100, 50)), start);
+        assertEquals(0.9, ratios.get("favorites"), 1e-9);
+        assertEquals(0.75, ratios.get("favoritesByType"), 1e-9);
+        assertFalse(ratios.containsKey("favoritesIds"));
+    }
+}
@@ -0,0 +1,147 @@
+package com.formations.favoris.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.dto.BatchAddFavoritesRequest;
+import com.formations.favoris.model.ContentType;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+
+/**
+ * Requêtes HTTP du tir de charge : utilisateurs et contenus tirés selon leur popularité (Zipf),
+ * opération tirée selon le mélange configuré. Le contenu de rang {@code k} a toujours le même
+ * identifiant, le même titre et le même type, pour que les ajouts, suppressions et bascules d'un
+ * même favori restent cohérents entre eux.
+ */
+public final class FavoriteWorkload {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final LoadTestConfig config;
+    private final ZipfSampler users;
+    private final ZipfSampler contents;
+    private final LoadOperation[] operations;
+    private final int[] cumulativeWeights;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public FavoriteWorkload(String baseUrl, LoadTestConfig config) {
+        this.baseUrl = baseUrl;
+        this.config = config;
+        this.users = new ZipfSampler(config.users(), config.userSkew());
+        this.contents = new ZipfSampler(config.contents(), config.contentSkew());
+        List<Map.Entry<LoadOperation, Integer>> weighted = config.mix().entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .toList();
+        this.operations = new LoadOperation[weighted.size()];
+        this.cumulativeWeights = new int[weighted.size()];
+        int sum = 0;
+        for (int i = 0; i < weighted.size(); i++) {
+            operations[i] = weighted.get(i).getKey();
+            sum += weighted.get(i).getValue();
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    /**
+     * Requête suivante du mélange
+     */
+    public LoadRequest next(RandomGenerator random) {
+        LoadOperation operation = nextOperation(random);
+        String userId = userId(users.sample(random));
+        int content = contents.sample(random);
+        String path = "/api/favorites";
+        HttpRequest.Builder request = switch (operation) {
+            case READ -> get(path + "/user/" + userId);
+            case READ_BY_TYPE -> get(path + "/user/" + userId + "/type/" + contentType(content));
+            case ADD -> post(path, favorite(userId, content));
+            case REMOVE -> builder(path + "/user/" + userId + "/content/" + contentId(content)).DELETE();
+            case TOGGLE -> post(path + "/toggle", favorite(userId, content));
+        };
+        return new LoadRequest(operation, request.build());
+    }
+
+    /**
+     * Lots d'ajouts initiaux : {@code preload} contenus distincts par utilisateur, tirés selon leur popularité
+     */
+    public List<HttpRequest> preloadRequests(RandomGenerator random) {
+        List<HttpRequest> requests = new ArrayList<>();
+        int perUser = Math.min(config.preload(), config.contents());
+        if (perUser <= 0) {
+            return requests;
+        }
+        for (int user = 0; user < config.users(); user++) {
+            Set<Integer> picked = new LinkedHashSet<>();
+            while (picked.size() < perUser) {
+                picked.add(contents.sample(random));
+            }
+            String userId = userId(user);
+            List<AddFavoriteRequest> items = picked.stream().map(content -> favorite(userId, content)).toList();
+            requests.add(post("/api/favorites/batch", new BatchAddFavoritesRequest(items)).build());
+        }
+        return requests;
+    }
+
+    private LoadOperation nextOperation(RandomGenerator random) {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private AddFavoriteRequest favorite(String userId, int content) {
+        return AddFavoriteRequest.builder()
+                .userId(userId)
+                .contentId(contentId(content))
+                .contentType(contentType(content))
+                .title("Contenu " + content)
+                .description("Favori généré par le tir de charge")
+                .thumbnailUrl("http://example.com/thumbnails/" + content + ".jpg")
+                .build();
+    }
+
+    static String userId(int rank) {
+        return "load-user-" + rank;
+    }
+
+    static String contentId(int rank) {
+        return "load-content-" + rank;
+    }
+
+    private ContentType contentType(int content) {
+        return ContentType.fromValue(config.contentTypes().get(content % config.contentTypes().size()));
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return builder(path).GET();
+    }
+
+    private HttpRequest.Builder post(String path, Object body) {
+        try {
+            return builder(path)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation impossible de la requête", e);
+        }
+    }
+
+    private HttpRequest.Builder builder(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+    }
+
+    public record LoadRequest(LoadOperation operation, HttpRequest request) {
+    }
+}
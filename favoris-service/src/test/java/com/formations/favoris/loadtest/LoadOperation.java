@@ -0,0 +1,18 @@
+package com.formations.favoris.loadtest;
+
+/**
+ * Opérations du mélange de charge, chacune envoyée à un endpoint de {@code FavoriteController}
+ */
+public enum LoadOperation {
+
+    /** GET /api/favorites/user/{userId} */
+    READ,
+    /** GET /api/favorites/user/{userId}/type/{contentType} */
+    READ_BY_TYPE,
+    /** POST /api/favorites */
+    ADD,
+    /** DELETE /api/favorites/user/{userId}/content/{contentId} */
+    REMOVE,
+    /** POST /api/favorites/toggle */
+    TOGGLE
+}
@@ -0,0 +1,216 @@
+package com.formations.favoris.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rapport d'un tir de charge, enregistré en JSON avec la configuration complète pour être comparé
+ * aux tirs suivants de même charge, et accompagné de la distribution HDR des latences de chaque
+ * opération ({@code .hgrm}, lisible par les outils HdrHistogram).
+ *
+ * @param name           Nom du tir
+ * @param startedAt      Début de la mesure
+ * @param target         URL du service mesuré
+ * @param environment    Machine du générateur de charge
+ * @param config         Configuration du tir
+ * @param operations     Résultats par opération envoyée
+ * @param total          Résultats toutes opérations confondues
+ * @param cacheHitRatios Taux de succès de chaque cache pendant la mesure
+ */
+public record LoadTestReport(
+        String name,
+        Instant startedAt,
+        String target,
+        Environment environment,
+        LoadTestConfig config,
+        Map<LoadOperation, OperationReport> operations,
+        OperationReport total,
+        Map<String, Double> cacheHitRatios) {
+
+    /** Hausse absolue du taux d'erreur tolérée, les erreurs étant normalement absentes */
+    static final double ERROR_RATE_MARGIN = 0.001;
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+            .withZone(ZoneOffset.UTC);
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS);
+
+    public static LoadTestReport of(LoadTestConfig config, String target, Instant startedAt,
+                                    Map<LoadOperation, OperationStats> stats, Map<String, Double> cacheHitRatios) {
+        Map<LoadOperation, OperationReport> operations = new EnumMap<>(LoadOperation.class);
+        Histogram all = new Histogram(3);
+        long successes = 0, clientErrors = 0, errors = 0, dropped = 0;
+        for (Map.Entry<LoadOperation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operation = entry.getValue();
+            if (operation.getRequests() == 0) {
+                continue;
+            }
+            operations.put(entry.getKey(), OperationReport.of(operation.getLatencies(), operation.getSuccesses(),
+                    operation.getClientErrors(), operation.getErrors(), operation.getDropped(), config.duration()));
+            all.add(operation.getLatencies());
+            successes += operation.getSuccesses();
+            clientErrors += operation.getClientErrors();
+            errors += operation.getErrors();
+            dropped += operation.getDropped();
+        }
+        OperationReport total = OperationReport.of(all, successes, clientErrors, errors, dropped, config.duration());
+        Environment environment = new Environment(Runtime.version().toString(),
+                Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory());
+        return new LoadTestReport(config.name(), startedAt, target, environment, config, operations, total, cacheHitRatios);
+    }
+
+    /**
+     * Enregistre le rapport JSON et les distributions de latence dans le répertoire donné
+     *
+     * @return Chemin du rapport JSON
+     */
+    public Path write(Path directory, Map<LoadOperation, OperationStats> stats) throws IOException {
+        Files.createDirectories(directory);
+        String prefix = name + "-" + FILE_TIMESTAMP.format(startedAt);
+        Path report = directory.resolve(prefix + ".json");
+        MAPPER.writeValue(report.toFile(), this);
+        for (LoadOperation operation : operations.keySet()) {
+            Path distribution = directory.resolve(prefix + "-" + operation.name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(distribution))) {
+                stats.get(operation).getLatencies().outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+        return report;
+    }
+
+    public static LoadTestReport read(Path report) throws IOException {
+        return MAPPER.readValue(report.toFile(), LoadTestReport.class);
+    }
+
+    /**
+     * Écarts au-delà de la tolérance par rapport à un tir de référence : latences p50/p99 et débit
+     * (relatifs), taux d'erreur (absolu), taux de succès des caches (relatif)
+     *
+     * @throws IllegalArgumentException si les deux tirs n'appliquent pas la même charge
+     */
+    public List<String> regressionsAgainst(LoadTestReport baseline, double tolerance) {
+        if (!config.sameWorkload(baseline.config())) {
+            throw new IllegalArgumentException("Rapports non comparables : la charge du tir de référence '"
+                    + baseline.name() + "' diffère");
+        }
+        List<String> regressions = new ArrayList<>();
+        compare("TOTAL", total, baseline.total(), tolerance, regressions);
+        operations.forEach((operation, current) -> {
+            OperationReport reference = baseline.operations().get(operation);
+            if (reference != null) {
+                compare(operation.name(), current, reference, tolerance, regressions);
+            }
+        });
+        cacheHitRatios.forEach((cache, ratio) -> {
+            Double reference = baseline.cacheHitRatios().get(cache);
+            if (reference != null && ratio < reference * (1 - tolerance)) {
+                regressions.add(String.format("cache %s : taux de succès %.1f %% (référence %.1f %%)",
+                        cache, ratio * 100, reference * 100));
+            }
+        });
+        return regressions;
+    }
+
+    private static void compare(String label, OperationReport current, OperationReport reference, double tolerance,
+                                List<String> regressions) {
+        if (current.p50Millis() > reference.p50Millis() * (1 + tolerance)) {
+            regressions.add(String.format("%s : p50 %.2f ms (référence %.2f ms)", label,
+                    current.p50Millis(), reference.p50Millis()));
+        }
+        if (current.p99Millis() > reference.p99Millis() * (1 + tolerance)) {
+            regressions.add(String.format("%s : p99 %.2f ms (référence %.2f ms)", label,
+                    current.p99Millis(), reference.p99Millis()));
+        }
+        if (current.throughput() < reference.throughput() * (1 - tolerance)) {
+            regressions.add(String.format("%s : débit %.0f req/s (référence %.0f req/s)", label,
+                    current.throughput(), reference.throughput()));
+        }
+        if (current.errorRate() > reference.errorRate() + ERROR_RATE_MARGIN) {
+            regressions.add(String.format("%s : taux d'erreur %.2f %% (référence %.2f %%)", label,
+                    current.errorRate() * 100, reference.errorRate() * 100));
+        }
+    }
+
+    /**
+     * Résumé lisible du tir
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder(String.format("Tir '%s' sur %s : %.0f req/s visées pendant %s%n",
+                name, target, config.rate(), config.duration()));
+        summary.append(String.format("  %-13s %9s %9s %9s %9s %9s %9s %7s %7s%n",
+                "opération", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "4xx", "erreurs"));
+        operations.forEach((operation, report) -> summary.append(line(operation.name(), report)));
+        summary.append(line("TOTAL", total));
+        cacheHitRatios.forEach((cache, ratio) -> summary.append(String.format("  cache %-20s %5.1f %% de succès%n",
+                cache, ratio * 100)));
+        return summary.toString();
+    }
+
+    private static String line(String label, OperationReport report) {
+        return String.format("  %-13s %9.0f %9.2f %9.2f %9.2f %9.2f %9.2f %7d %7d%n", label, report.throughput(),
+                report.p50Millis(), report.p90Millis(), report.p99Millis(), report.p999Millis(), report.maxMillis(),
+                report.clientErrors(), report.errors() + report.dropped());
+    }
+
+    public record Environment(String javaVersion, int processors, long maxHeapBytes) {
+    }
+
+    /**
+     * @param throughput Réponses par seconde de mesure
+     */
+    public record OperationReport(
+            long requests,
+            long successes,
+            long clientErrors,
+            long errors,
+            long dropped,
+            double throughput,
+            double meanMillis,
+            double p50Millis,
+            double p90Millis,
+            double p99Millis,
+            double p999Millis,
+            double maxMillis) {
+
+        static OperationReport of(Histogram latencies, long successes, long clientErrors, long errors, long dropped,
+                                  Duration duration) {
+            long requests = successes + clientErrors + errors + dropped;
+            return new OperationReport(requests, successes, clientErrors, errors, dropped,
+                    latencies.getTotalCount() / (duration.toNanos() / 1_000_000_000.0),
+                    latencies.getMean() / NANOS_PER_MILLI,
+                    millis(latencies, 50), millis(latencies, 90), millis(latencies, 99), millis(latencies, 99.9),
+                    latencies.getMaxValue() / NANOS_PER_MILLI);
+        }
+
+        /**
+         * Part des requêtes en erreur ou abandonnées
+         */
+        @JsonIgnore
+        public double errorRate() {
+            return requests == 0 ? 0 : (double) (errors + dropped) / requests;
+        }
+
+        private static double millis(Histogram latencies, double percentile) {
+            return latencies.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.formations.favoris.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadTestReportTest {
+
+    private final LoadTestConfig config = OpenLoopLoadGeneratorTest.config("read:90,toggle:10");
+    private final Instant startedAt = Instant.parse("2024-05-01T10:00:00Z");
+
+    @Test
+    @DisplayName("1. Rapport relu à l'identique depuis son JSON, distributions HDR écrites par opération")
+    void write_ShouldRoundTripJsonAndWriteHistograms(@TempDir Path directory) throws Exception {
+        // Arrange
+        Map<LoadOperation, OperationStats> stats = stats(5, 200);
+        LoadTestReport report = LoadTestReport.of(config, "http://localhost:8080", startedAt, stats,
+                Map.of("favorites", 0.92));
+
+        // Act
+        Path file = report.write(directory, stats);
+        LoadTestReport read = LoadTestReport.read(file);
+
+        // Assert
+        assertEquals(report, read);
+        assertEquals(100, read.total().requests());
+        assertEquals(50, read.total().throughput(), 0.001);
+        assertEquals(5, read.operations().get(LoadOperation.READ).p50Millis(), 0.01);
+        assertTrue(Files.exists(directory.resolve("test-20240501-100000-read.hgrm")));
+        assertTrue(Files.exists(directory.resolve("test-20240501-100000-toggle.hgrm")));
+    }
+
+    @Test
+    @DisplayName("2. Régressions de latence, de débit, d'erreurs et de cache détectées au-delà de la tolérance")
+    void regressionsAgainst_ShouldReportDegradations() {
+        // Arrange
+        LoadTestReport baseline = LoadTestReport.of(config, "a", startedAt, stats(5, 200), Map.of("favorites", 0.90));
+        LoadTestReport similar = LoadTestReport.of(config, "b", startedAt, stats(5.2, 210), Map.of("favorites", 0.88));
+        Map<LoadOperation, OperationStats> slower = stats(8, 200);
+        slower.get(LoadOperation.TOGGLE).recordResponse(503, TimeUnit.MILLISECONDS.toNanos(8));
+        LoadTestReport degraded = LoadTestReport.of(config, "c", startedAt, slower, Map.of("favorites", 0.60));
+
+        // Act
+        List<String> none = similar.regressionsAgainst(baseline, 0.10);
+        List<String> regressions = degraded.regressionsAgainst(baseline, 0.10);
+
+        // Assert
+        assertTrue(none.isEmpty(), none.toString());
+        assertTrue(regressions.stream().anyMatch(line -> line.startsWith("READ : p50")));
+        assertTrue(regressions.stream().anyMatch(line -> line.startsWith("TOGGLE : taux d'erreur")));
+        assertTrue(regressions.stream().anyMatch(line -> line.startsWith("cache favorites")));
+    }
+
+    @Test
+    @DisplayName("3. Tirs de charges différentes non comparables")
+    void regressionsAgainst_WithOtherWorkload_ShouldThrow() {
+        // Arrange
+        LoadTestReport baseline = LoadTestReport.of(config, "a", startedAt, stats(5, 200), Map.of());
+        LoadTestReport other = LoadTestReport.of(OpenLoopLoadGeneratorTest.config("read:50,toggle:50"), "a",
+                startedAt, stats(5, 200), Map.of());
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> other.regressionsAgainst(baseline, 0.10));
+    }
+
+    /**
+     * 90 lectures et 10 bascules à la latence donnée, plus une lecture lente
+     */
+    private static Map<LoadOperation, OperationStats> stats(double latencyMillis, long slowMillis) {
+        Map<LoadOperation, OperationStats> stats = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation operation : LoadOperation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+        long latency = (long) (latencyMillis * 1_000_000);
+        for (int i = 0; i < 89; i++) {
+            stats.get(LoadOperation.READ).recordResponse(200, latency);
+        }
+        stats.get(LoadOperation.READ).recordResponse(200, TimeUnit.MILLISECONDS.toNanos(slowMillis));
+        for (int i = 0; i < 10; i++) {
+            stats.get(LoadOperation.TOGGLE).recordResponse(i % 2 == 0 ? 200 : 204, latency);
+        }
+        return stats;
+    }
+}
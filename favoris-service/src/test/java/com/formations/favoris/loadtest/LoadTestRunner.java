@@ -0,0 +1,144 @@
+package com.formations.favoris.loadtest;
+
+import com.formations.favoris.model.ContentPopularity;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.service.FavoriteCacheInvalidator;
+import com.formations.favoris_service.FavorisServiceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Tir de charge reproductible sur les endpoints de {@code FavoriteController} : popularités de
+ * Zipf, mélange lectures / écritures / bascules, arrivées en boucle ouverte.
+ *
+ * <p>Sans {@code loadtest.base-url}, le service est démarré dans ce processus sur le Mongo et le
+ * Redis locaux du docker-compose ({@code docker compose up -d mongodb redis}), dans une base dédiée
+ * vidée avant chaque tir. Exemples :</p>
+ * <pre>
+ * mvn -Ploadtest verify -DskipTests
+ * mvn -Ploadtest verify -DskipTests -Dloadtest.args="-Dloadtest.rate=2000 -Dloadtest.mix=read:90,toggle:10 -Dloadtest.user-skew=1.2"
+ * mvn -Ploadtest verify -DskipTests -Dloadtest.args="-Dloadtest.base-url=http://localhost:8080 -Dloadtest.preload=0"
+ * mvn -Ploadtest verify -DskipTests -Dloadtest.args="-Dloadtest.baseline=target/loadtest/favoris-20240501-100000.json"
+ * </pre>
+ * <p>Le rapport JSON (configuration, latences HDR par opération, débit, taux de succès des caches)
+ * est écrit dans {@code target/loadtest}. Avec {@code loadtest.baseline}, le tir est comparé au
+ * rapport de référence et le processus se termine en échec au-delà de {@code loadtest.tolerance}.</p>
+ */
+public final class LoadTestRunner {
+
+    private static final int PRELOAD_CONCURRENCY = 32;
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        ConfigurableApplicationContext service = config.baseUrl() == null ? startService(config) : null;
+        int exitCode;
+        try {
+            String baseUrl = service != null
+                    ? "http://localhost:" + ((WebServerApplicationContext) service).getWebServer().getPort()
+                    : config.baseUrl();
+            exitCode = run(config, baseUrl);
+        } finally {
+            if (service != null) {
+                service.close();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    static int run(LoadTestConfig config, String baseUrl) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        FavoriteWorkload workload = new FavoriteWorkload(baseUrl, config);
+        // Graines distinctes : le préchargement ne décale pas la séquence des requêtes mesurées
+        preload(client, workload.preloadRequests(new SplittableRandom(config.seed() + 1)));
+
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(client, workload,
+                new SplittableRandom(config.seed()), config.rate(), config.poissonArrivals(), config.maxInFlight());
+        CacheMetricsScraper scraper = new CacheMetricsScraper(client, baseUrl);
+        System.out.println("Chauffe pendant " + config.warmUp());
+        generator.run(config.warmUp());
+
+        System.out.println("Mesure pendant " + config.duration() + " à " + config.rate() + " req/s");
+        Map<String, CacheMetricsScraper.CacheCounts> before = scraper.scrape();
+        Instant startedAt = Instant.now();
+        Map<LoadOperation, OperationStats> stats = generator.run(config.duration());
+        Map<String, Double> hitRatios = CacheMetricsScraper.hitRatios(before, scraper.scrape());
+
+        LoadTestReport report = LoadTestReport.of(config, baseUrl, startedAt, stats, hitRatios);
+        Path file = report.write(config.outputDir(), stats);
+        System.out.print(report.summary());
+        System.out.println("Rapport : " + file.toAbsolutePath());
+
+        if (config.baseline() == null) {
+            return 0;
+        }
+        try {
+            List<String> regressions = report.regressionsAgainst(LoadTestReport.read(config.baseline()), config.tolerance());
+            if (regressions.isEmpty()) {
+                System.out.printf("Aucune régression au-delà de %.0f %% par rapport à %s%n",
+                        config.tolerance() * 100, config.baseline());
+                return 0;
+            }
+            System.out.println("Régressions par rapport à " + config.baseline() + " :");
+            regressions.forEach(regression -> System.out.println("  " + regression));
+            return 1;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        }
+    }
+
+    /**
+     * Démarre le service sur un port libre, journaux applicatifs réduits pour ne pas mesurer leur coût,
+     * et vide les favoris, compteurs et caches des tirs précédents
+     */
+    private static ConfigurableApplicationContext startService(LoadTestConfig config) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FavorisServiceApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.data.mongodb.uri=" + config.mongoUri(),
+                        "spring.data.redis.host=" + config.redisHost(),
+                        "spring.data.redis.port=" + config.redisPort(),
+                        "logging.level.com.formations.favoris=WARN")
+                .run();
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        mongoTemplate.remove(new Query(), Favorite.class);
+        mongoTemplate.remove(new Query(), ContentPopularity.class);
+        context.getBean(FavoriteCacheInvalidator.class).evictAll();
+        return context;
+    }
+
+    private static void preload(HttpClient client, List<HttpRequest> requests) throws InterruptedException {
+        if (requests.isEmpty()) {
+            return;
+        }
+        System.out.println("Préchargement : " + requests.size() + " lots de favoris");
+        Semaphore permits = new Semaphore(PRELOAD_CONCURRENCY);
+        for (HttpRequest request : requests) {
+            permits.acquire();
+            CompletableFuture<HttpResponse<Void>> response = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+            response.whenComplete((result, failure) -> permits.release());
+        }
+        permits.acquire(PRELOAD_CONCURRENCY);
+    }
+}
@@ -0,0 +1,109 @@
+package com.formations.favoris.loadtest;
+
+import com.formations.favoris.loadtest.FavoriteWorkload.LoadRequest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+/**
+ * Générateur de charge en boucle ouverte : les requêtes partent à des instants d'arrivée fixés
+ * d'avance par le débit visé, que les réponses précédentes soient arrivées ou non, comme les
+ * requêtes d'utilisateurs indépendants.
+ *
+ * <p>Contrairement à la boucle fermée de {@code HttpLoadSupport}, un service ralenti ne ralentit pas
+ * l'envoi : la latence est mesurée depuis l'instant d'arrivée prévu, temps d'attente côté client
+ * compris, ce qui évite l'omission coordonnée qui masque les pires latences. Au-delà de
+ * {@code maxInFlight} requêtes en vol, les arrivées sont abandonnées et comptées.</p>
+ *
+ * <p>Les tirages (instants d'arrivée, opérations, utilisateurs, contenus) sont faits par le seul
+ * thread d'envoi : une même graine rejoue la même séquence de requêtes.</p>
+ */
+public final class OpenLoopLoadGenerator {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient client;
+    private final FavoriteWorkload workload;
+    private final RandomGenerator random;
+    private final double rate;
+    private final boolean poissonArrivals;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public OpenLoopLoadGenerator(HttpClient client, FavoriteWorkload workload, RandomGenerator random,
+                                 double rate, boolean poissonArrivals, int maxInFlight) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Le débit visé doit être positif");
+        }
+        this.client = client;
+        this.workload = workload;
+        this.random = random;
+        this.rate = rate;
+        this.poissonArrivals = poissonArrivals;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Envoie les requêtes arrivant pendant la durée donnée, puis attend les réponses en vol
+     *
+     * @return Résultats par opération
+     */
+    public Map<LoadOperation, OperationStats> run(Duration duration) throws InterruptedException {
+        Map<LoadOperation, OperationStats> stats = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation operation : LoadOperation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+        long start = System.nanoTime();
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        double offset = 0;
+        while (true) {
+            offset += poissonArrivals ? -Math.log(1 - random.nextDouble()) * meanIntervalNanos : meanIntervalNanos;
+            if (offset >= duration.toNanos()) {
+                break;
+            }
+            long intended = start + (long) offset;
+            LoadRequest next = workload.next(random);
+            awaitUntil(intended);
+            send(next, intended, stats.get(next.operation()));
+        }
+        drain();
+        return stats;
+    }
+
+    private void send(LoadRequest next, long intended, OperationStats stats) {
+        if (inFlight.get() >= maxInFlight) {
+            stats.recordDropped();
+            return;
+        }
+        inFlight.incrementAndGet();
+        client.sendAsync(next.request(), HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            if (failure != null) {
+                stats.recordFailure();
+            } else {
+                stats.recordResponse(response.statusCode(), System.nanoTime() - intended);
+            }
+            inFlight.decrementAndGet();
+        });
+    }
+
+    private static void awaitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void drain() throws InterruptedException {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.formations.favoris.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpenLoopLoadGeneratorTest {
+
+    private HttpServer server;
+    private final Map<String, AtomicInteger> requestsByMethod = new ConcurrentHashMap<>();
+    private volatile long responseDelayMillis;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            requestsByMethod.computeIfAbsent(exchange.getRequestMethod(), method -> new AtomicInteger()).incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(responseDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int status = exchange.getRequestMethod().equals("DELETE") ? 404 : 200;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("1. Débit visé tenu et mélange d'opérations respecté")
+    void run_ShouldSendRequestsAtTargetRateWithConfiguredMix() throws Exception {
+        // Arrange
+        OpenLoopLoadGenerator generator = generator(config("read:80,remove:20"), 200, 1_000);
+
+        // Act
+        Map<LoadOperation, OperationStats> stats = generator.run(Duration.ofSeconds(2));
+
+        // Assert
+        long reads = stats.get(LoadOperation.READ).getRequests();
+        long removes = stats.get(LoadOperation.REMOVE).getRequests();
+        assertEquals(400, reads + removes, 60);
+        assertEquals(0.8, (double) reads / (reads + removes), 0.06);
+        assertEquals(removes, stats.get(LoadOperation.REMOVE).getClientErrors());
+        assertEquals(reads, stats.get(LoadOperation.READ).getLatencies().getTotalCount());
+        assertEquals(0, stats.get(LoadOperation.ADD).getRequests());
+        assertEquals(reads, requestsByMethod.get("GET").get());
+    }
+
+    @Test
+    @DisplayName("2. Service lent : arrivées maintenues, latence comptée depuis l'arrivée prévue, excédent abandonné")
+    void run_WithSlowService_ShouldKeepArrivalsAndDropBeyondMaxInFlight() throws Exception {
+        // Arrange - 100 req/s sur un service à 300 ms : ~30 requêtes en vol, au-delà de la limite de 10
+        responseDelayMillis = 300;
+        OpenLoopLoadGenerator generator = generator(config("read:1"), 100, 10);
+
+        // Act
+        OperationStats reads = generator.run(Duration.ofSeconds(2)).get(LoadOperation.READ);
+
+        // Assert - une boucle fermée à 10 connexions n'aurait envoyé que ~66 requêtes, sans rien abandonner
+        assertEquals(200, reads.getRequests(), 30);
+        assertTrue(reads.getDropped() > reads.getRequests() / 2);
+        assertTrue(reads.getLatencies().getValueAtPercentile(50) >= TimeUnit.MILLISECONDS.toNanos(300));
+    }
+
+    private OpenLoopLoadGenerator generator(LoadTestConfig config, double rate, int maxInFlight) {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        return new OpenLoopLoadGenerator(client, new FavoriteWorkload(baseUrl, config), new SplittableRandom(42),
+                rate, false, maxInFlight);
+    }
+
+    static LoadTestConfig config(String mix) {
+        return new LoadTestConfig(null, null, null, 0, 100, 1.0, 50, 0.8, List.of("COURSE", "VIDEO"),
+                LoadTestConfig.parseMix(mix), 100, false, Duration.ZERO, Duration.ofSeconds(2), 0, 100, 42,
+                "test", null, null, 0.1);
+    }
+}
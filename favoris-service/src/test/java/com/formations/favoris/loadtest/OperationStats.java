@@ -0,0 +1,75 @@
+package com.formations.favoris.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Résultats d'une opération pendant une phase : histogramme HDR des latences (en nanosecondes,
+ * 3 chiffres significatifs) mesurées depuis l'instant d'arrivée prévu, et décompte des réponses.
+ */
+public final class OperationStats {
+
+    private static final long HIGHEST_TRACKABLE = TimeUnit.MINUTES.toNanos(5);
+
+    private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE, 3);
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Réponse reçue : 2xx et 3xx réussies, 4xx refusées par le service (favori déjà présent ou absent),
+     * 5xx en erreur
+     */
+    void recordResponse(int status, long latencyNanos) {
+        latencies.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE));
+        if (status >= 500) {
+            errors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        } else {
+            successes.increment();
+        }
+    }
+
+    /**
+     * Requête sans réponse (connexion refusée, délai dépassé)
+     */
+    void recordFailure() {
+        errors.increment();
+    }
+
+    /**
+     * Arrivée non envoyée, trop de requêtes étant déjà en vol : le service ne suit plus le débit visé
+     */
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    public long getClientErrors() {
+        return clientErrors.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getRequests() {
+        return getSuccesses() + getClientErrors() + getErrors() + getDropped();
+    }
+}
@@ -0,0 +1,56 @@
+package com.formations.favoris.loadtest;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Tirage de rangs selon une loi de Zipf : le rang {@code k} (0 = le plus populaire) est tiré avec
+ * une probabilité proportionnelle à {@code 1 / (k + 1)^exposant}. Un exposant de 0 donne une
+ * distribution uniforme ; autour de 1, quelques utilisateurs ou contenus concentrent l'essentiel
+ * du trafic, comme en production.
+ *
+ * <p>La fonction de répartition est précalculée (8 octets par élément) et chaque tirage est une
+ * recherche dichotomique. Les tirages sont reproductibles pour un générateur de même graine.</p>
+ */
+public final class ZipfSampler {
+
+    private final double[] cumulative;
+
+    public ZipfSampler(int size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("La population doit contenir au moins un élément");
+        }
+        if (exponent < 0) {
+            throw new IllegalArgumentException("L'exposant de Zipf doit être positif ou nul");
+        }
+        cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+        cumulative[size - 1] = 1.0;
+    }
+
+    /**
+     * Tire un rang entre 0 (inclus) et la taille de la population (exclue)
+     */
+    public int sample(RandomGenerator random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Probabilité du rang donné
+     */
+    public double probability(int rank) {
+        return rank == 0 ? cumulative[0] : cumulative[rank] - cumulative[rank - 1];
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+}
@@ -0,0 +1,70 @@
+package com.formations.favoris.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZipfSamplerTest {
+
+    private static final int DRAWS = 200_000;
+
+    @Test
+    @DisplayName("1. Fréquences observées conformes à la loi de Zipf, rangs les plus populaires en tête")
+    void sample_ShouldFollowZipfFrequencies() {
+        // Arrange
+        ZipfSampler sampler = new ZipfSampler(1_000, 1.0);
+        SplittableRandom random = new SplittableRandom(42);
+        int[] counts = new int[sampler.size()];
+
+        // Act
+        for (int i = 0; i < DRAWS; i++) {
+            counts[sampler.sample(random)]++;
+        }
+
+        // Assert - 1 / H(1000) ≈ 13,4 % des tirages pour le premier rang, moitié moins pour le deuxième
+        assertEquals(0.1336, sampler.probability(0), 0.001);
+        assertEquals(sampler.probability(0), (double) counts[0] / DRAWS, 0.005);
+        assertEquals(sampler.probability(1), (double) counts[1] / DRAWS, 0.005);
+        assertTrue(counts[0] > counts[9] && counts[9] > counts[99]);
+        int top10 = IntStream.range(0, 10).map(rank -> counts[rank]).sum();
+        assertTrue(top10 > DRAWS * 0.35, "Les 10 premiers rangs concentrent ~39 % des tirages");
+    }
+
+    @Test
+    @DisplayName("2. Exposant nul : distribution uniforme")
+    void sample_WithZeroExponent_ShouldBeUniform() {
+        // Arrange
+        ZipfSampler sampler = new ZipfSampler(10, 0);
+        SplittableRandom random = new SplittableRandom(7);
+        int[] counts = new int[10];
+
+        // Act
+        for (int i = 0; i < DRAWS; i++) {
+            counts[sampler.sample(random)]++;
+        }
+
+        // Assert
+        for (int count : counts) {
+            assertEquals(0.1, (double) count / DRAWS, 0.005);
+        }
+    }
+
+    @Test
+    @DisplayName("3. Même graine, même séquence de rangs")
+    void sample_WithSameSeed_ShouldBeReproducible() {
+        // Arrange
+        ZipfSampler sampler = new ZipfSampler(500, 1.2);
+
+        SplittableRandom a = new SplittableRandom(99);
+        SplittableRandom b = new SplittableRandom(99);
+
+        // Act & Assert
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(sampler.sample(a), sampler.sample(b));
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.model.FavoriteBucket;
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.TransactionBody;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class BucketFavoriteStorageTest {
+
+    /**
+     * Client sans connexion (ouverte à la première commande), pour le convertisseur réel de Spring Data
+     */
+    private static MongoClient client;
+    private static MongoTemplate realTemplate;
+
+    private MongoTemplate mongoTemplate;
+    private BucketFavoriteStorage storage;
+    private final String userId = "user123";
+
+    @BeforeAll
+    static void createConverter() {
+        client = MongoClients.create("mongodb://localhost:1");
+        realTemplate = new MongoTemplate(client, "favoris_test");
+    }
+
+    @AfterAll
+    static void closeClient() {
+        client.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(FavoriteBucket.class)).thenReturn("favorite_buckets");
+        storage = new BucketFavoriteStorage(mongoTemplate, 200);
+    }
+
+    @Test
+    @DisplayName("1. Ajout : poussé dans un bucket non plein sans le contenu, ou nouveau bucket")
+    void insert_ShouldUpsertIntoBucketWithRoom() {
+        // Arrange
+        Favorite favorite = favorite("content1");
+        favorite.setId(null);
+        favorite.setUserId(userId);
+
+        // Act
+        Favorite inserted = storage.insert(favorite);
+
+        // Assert
+        assertNotNull(inserted.getId());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(FavoriteBucket.class));
+        Document filter = query.getValue().getQueryObject();
+        assertEquals(userId, filter.get("userId"));
+        assertEquals(new Document("$lt", 200), filter.get("count"));
+        assertEquals(new Document("$ne", "content1"), filter.get("items.contentId"));
+        assertEquals(new Document("count", 1), update.getValue().getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    @DisplayName("2. Favori d'un bucket : ID converti en ObjectId, userId porté par le bucket seul")
+    void addUpdate_ShouldMapItemLikeADocument() {
+        // Arrange
+        Favorite favorite = favorite("content1");
+        favorite.setId(new ObjectId().toHexString());
+        MongoPersistentEntity<?> entity = realTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(FavoriteBucket.class);
+
+        // Act
+        Document update = new UpdateMapper(realTemplate.getConverter())
+                .getMappedObject(BucketFavoriteStorage.addUpdate(favorite).getUpdateObject(), entity);
+        Document byItemId = new QueryMapper(realTemplate.getConverter())
+                .getMappedObject(new Query(Criteria.where("items._id").is(favorite.getId())).getQueryObject(), entity);
+
+        // Assert
+        Document item = (Document) update.get("$push", Document.class).get("items");
+        assertEquals(new ObjectId(favorite.getId()), item.get("_id"));
+        assertEquals("content1", item.get("contentId"));
+        assertFalse(item.containsKey("userId"));
+        assertEquals(new ObjectId(favorite.getId()), byItemId.get("items._id"));
+    }
+
+    @Test
+    @DisplayName("3. Lecture : favoris des buckets mis à plat, userId recopié")
+    void findByUserId_ShouldFlattenBuckets() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(FavoriteBucket.class))).thenReturn(List.of(
+                bucket(2, favorite("content1"), favorite("content2")),
+                bucket(1, favorite("content3"))));
+
+        // Act
+        List<Favorite> favorites = storage.findByUserId(userId);
+
+        // Assert
+        assertEquals(List.of("content1", "content2", "content3"),
+                favorites.stream().map(Favorite::getContentId).toList());
+        assertTrue(favorites.stream().allMatch(favorite -> userId.equals(favorite.getUserId())));
+    }
+
+    @Test
+    @DisplayName("4. Retrait du dernier favori d'un bucket : bucket vide supprimé")
+    void findAndRemove_LastItem_ShouldRemoveEmptyBucket() {
+        // Arrange
+        FavoriteBucket bucket = bucket(1, favorite("content1"));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(FavoriteBucket.class))).thenReturn(bucket);
+
+        // Act
+        Optional<Favorite> removed = storage.findAndRemoveByUserIdAndContentId(userId, "content1");
+
+        // Assert
+        assertTrue(removed.isPresent());
+        assertEquals(userId, removed.get().getUserId());
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), eq(FavoriteBucket.class));
+        assertEquals(new Document("count", -1), update.getValue().getUpdateObject().get("$inc"));
+        ArgumentCaptor<Query> removal = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removal.capture(), eq(FavoriteBucket.class));
+        assertEquals(new Document("$lte", 0), removal.getValue().getQueryObject().get("count"));
+    }
+
+    @Test
+    @DisplayName("5. Favori absent : rien n'est supprimé")
+    void findAndRemove_Missing_ShouldReturnEmpty() {
+        // Act
+        Optional<Favorite> removed = storage.findAndRemoveByUserIdAndContentId(userId, "content1");
+
+        // Assert
+        assertTrue(removed.isEmpty());
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(FavoriteBucket.class));
+    }
+
+    @Test
+    @DisplayName("6. Suppression tout ou rien : un favori déjà retiré annule la suppression, sinon un seul updateMany")
+    @SuppressWarnings("unchecked")
+    void deleteAllByIdIfPresent_ShouldDeleteOnlyWhenAllPresent() {
+        // Arrange - transaction exécutée directement sur un MongoTemplate lié à la session
+        MongoDatabaseFactory factory = mock(MongoDatabaseFactory.class);
+        ClientSession session = mock(ClientSession.class);
+        MongoTemplate sessionTemplate = mock(MongoTemplate.class);
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(mongoTemplate.getMongoDatabaseFactory()).thenReturn(factory);
+        when(factory.getSession(any(ClientSessionOptions.class))).thenReturn(session);
+        when(session.withTransaction(any())).thenAnswer(invocation ->
+                invocation.<TransactionBody<Boolean>>getArgument(0).execute());
+        when(mongoTemplate.withSession(session)).thenReturn(sessionTemplate);
+        when(sessionTemplate.getCollection("favorite_buckets")).thenReturn(collection);
+        ObjectId present = new ObjectId();
+        ObjectId removed = new ObjectId();
+        when(sessionTemplate.find(any(Query.class), eq(Document.class), eq("favorite_buckets")))
+                .thenReturn(List.of(new Document("_id", new ObjectId()).append("items", List.of(
+                        new Document("_id", present), new Document("_id", new ObjectId())))));
+
+        // Act
+        boolean partial = storage.deleteAllByIdIfPresent(List.of(present.toHexString(), removed.toHexString()));
+        boolean complete = storage.deleteAllByIdIfPresent(List.of(present.toHexString()));
+
+        // Assert
+        assertFalse(partial);
+        assertTrue(complete);
+        verify(collection, times(1)).updateMany(any(Bson.class), anyList());
+    }
+
+    @Test
+    @DisplayName("7. Page : seuls les buckets dont l'enveloppe de dates peut recouper la page sont déroulés")
+    void pageBucketIds_ShouldStopAtFirstBucketOlderThanThePage() {
+        // Arrange - en-têtes par date d'ajout maximale décroissante
+        Document recent = header(1, 9, 10);
+        Document older = header(1, 5, 8);
+        Document overlapping = header(3, 1, 6);
+        Document oldest = header(4, 2, 4);
+        Document straddling = header(5, 6, 9);
+        Document eligible = header(2, 3, 5);
+        Document beforeCursorPage = header(4, 1, 2);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.stream(query.capture(), eq(Document.class), eq("favorite_buckets")))
+                .thenReturn(Stream.of(recent, older, overlapping, oldest),
+                        Stream.of(straddling, eligible, beforeCursorPage));
+
+        // Act
+        List<Object> firstPage = storage.pageBucketIds(userId, null, 2);
+        List<Object> nextPage = storage.pageBucketIds(userId, date(7), 2);
+
+        // Assert - deux favoris atteints au deuxième bucket, le troisième peut encore en contenir de plus récents
+        assertEquals(List.of(recent.get("_id"), older.get("_id"), overlapping.get("_id")), firstPage);
+        // Le bucket à cheval sur le curseur est déroulé sans compter dans la page
+        assertEquals(List.of(straddling.get("_id"), eligible.get("_id")), nextPage);
+        assertEquals(new Document("$lte", date(7)), query.getAllValues().get(1).getQueryObject().get("minCreatedAt"));
+    }
+
+    @Test
+    @DisplayName("8. Ajout : l'enveloppe des dates d'ajout du bucket est élargie")
+    void addUpdate_ShouldWidenCreatedAtBounds() {
+        // Arrange
+        Favorite favorite = favorite("content1");
+
+        // Act
+        Document update = BucketFavoriteStorage.addUpdate(favorite).getUpdateObject();
+
+        // Assert
+        assertEquals(new Document("minCreatedAt", favorite.getCreatedAt()), update.get("$min"));
+        assertEquals(new Document("maxCreatedAt", favorite.getCreatedAt()), update.get("$max"));
+    }
+
+    private static Document header(int count, int min, int max) {
+        return new Document("_id", new ObjectId()).append("count", count)
+                .append("minCreatedAt", date(min)).append("maxCreatedAt", date(max));
+    }
+
+    private static Date date(int hour) {
+        return new Date(hour * 3_600_000L);
+    }
+
+    private Favorite favorite(String contentId) {
+        return Favorite.builder()
+                .id(new ObjectId().toHexString())
+                .contentId(contentId)
+                .contentType(ContentType.COURSE)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private FavoriteBucket bucket(int count, Favorite... items) {
+        return FavoriteBucket.builder()
+                .id(new ObjectId().toHexString())
+                .userId(userId)
+                .count(count)
+                .items(new ArrayList<>(List.of(items)))
+                .build();
+    }
+}
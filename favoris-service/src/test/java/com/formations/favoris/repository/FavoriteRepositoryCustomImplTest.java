@@ -0,0 +1,99 @@
+package com.formations.favoris.repository;
+
+import com.formations.favoris.model.Favorite;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Les méthodes utilisées par les services passent par la disposition configurée et non par les
+ * requêtes dérivées ou l'implémentation par défaut de Spring Data (aucune commande Mongo envoyée)
+ */
+public class FavoriteRepositoryCustomImplTest {
+
+    private MongoClient client;
+    private FavoriteStorage storage;
+    private FavoriteRepository repository;
+    private final String userId = "user123";
+
+    @BeforeEach
+    void setUp() {
+        // Client sans connexion : une requête qui contournerait la disposition échouerait
+        client = MongoClients.create("mongodb://localhost:1/?serverSelectionTimeoutMS=100");
+        storage = mock(FavoriteStorage.class);
+        repository = new MongoRepositoryFactory(new MongoTemplate(client, "favoris_test"))
+                .getRepository(FavoriteRepository.class, RepositoryFragments.just(new FavoriteRepositoryCustomImpl(storage)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    @DisplayName("1. Lectures par utilisateur et contenu routées vers la disposition")
+    void reads_ShouldUseStorage() {
+        // Arrange
+        Favorite favorite = Favorite.builder().userId(userId).contentId("content1").build();
+        when(storage.findByUserId(userId)).thenReturn(List.of(favorite));
+        when(storage.existsByUserIdAndContentId(userId, "content1")).thenReturn(true);
+        when(storage.findByUserIdAndContentId(userId, "content1")).thenReturn(Optional.of(favorite));
+
+        // Act & Assert
+        assertEquals(List.of(favorite), repository.findByUserId(userId));
+        assertTrue(repository.existsByUserIdAndContentId(userId, "content1"));
+        assertEquals(Optional.of(favorite), repository.findByUserIdAndContentId(userId, "content1"));
+    }
+
+    @Test
+    @DisplayName("2. Projections légères : champs de la projection transmis à la disposition")
+    void projections_ShouldPassFields() {
+        // Act
+        repository.findIdsByUserId(userId);
+        repository.findSummariesByUserId(userId);
+
+        // Assert
+        ArgumentCaptor<Document> fields = ArgumentCaptor.forClass(Document.class);
+        verify(storage, times(2)).findByUserId(eq(userId), fields.capture());
+        assertEquals(Document.parse(FavoriteRepository.ID_FIELDS), fields.getAllValues().get(0));
+        assertEquals(Document.parse(FavoriteRepository.SUMMARY_FIELDS), fields.getAllValues().get(1));
+    }
+
+    @Test
+    @DisplayName("3. save, insert et deleteAllById de Spring Data remplacés par la disposition")
+    void writes_ShouldUseStorage() {
+        // Arrange
+        Favorite favorite = Favorite.builder().userId(userId).contentId("content1").build();
+        when(storage.save(favorite)).thenReturn(favorite);
+        when(storage.insert(favorite)).thenReturn(favorite);
+
+        // Act
+        repository.save(favorite);
+        repository.insert(favorite);
+        repository.deleteAllById(List.of("id1", "id2"));
+        repository.deleteByUserIdAndContentId(userId, "content1");
+
+        // Assert
+        verify(storage).save(favorite);
+        verify(storage).insert(favorite);
+        verify(storage).deleteAllById(List.of("id1", "id2"));
+        verify(storage).deleteByUserIdAndContentId(userId, "content1");
+        verify(storage, never()).insertAllUnordered(any());
+    }
+}
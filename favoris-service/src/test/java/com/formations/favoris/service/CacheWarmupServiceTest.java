@@ -0,0 +1,188 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.model.HotUserSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class CacheWarmupServiceTest {
+
+    @Mock
+    private FavoriteService favoriteService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private HotUserTracker hotUserTracker;
+    private ConcurrentMapCacheManager cacheManager;
+    private CacheWarmupService warmupService;
+    private final List<String> hotUsers = IntStream.range(0, 10).mapToObj(i -> "user" + i).toList();
+    private final List<FavoriteDto> favorites = List.of(FavoriteDto.builder().id("fav1").build());
+
+    @BeforeEach
+    void setUp() {
+        hotUserTracker = new HotUserTracker(100);
+        cacheManager = new ConcurrentMapCacheManager(FavoriteCacheInvalidator.FAVORITES_CACHE);
+        when(mongoTemplate.findById("favoris-service", HotUserSnapshot.class))
+                .thenReturn(HotUserSnapshot.builder().service("favoris-service").userIds(hotUsers).build());
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        // Comme le proxy @Cacheable : la valeur chargée est mise en cache
+        when(favoriteService.getUserFavorites(anyString())).thenAnswer(invocation -> {
+            cacheManager.getCache(FavoriteCacheInvalidator.FAVORITES_CACHE).put(invocation.getArgument(0), favorites);
+            return favorites;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (warmupService != null) {
+            warmupService.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("1. Démarrage : utilisateurs de l'instantané préchargés, sauf ceux déjà en cache, instance prête à la fin")
+    void onApplicationReady_ShouldPreloadSnapshotUsers() throws Exception {
+        // Arrange
+        warmupService = service(1000, 1.0, Duration.ofMinutes(1));
+        cacheManager.getCache(FavoriteCacheInvalidator.FAVORITES_CACHE).put("user0", favorites);
+        assertFalse(warmupService.isWarm());
+
+        // Act
+        warmupService.onApplicationReady();
+
+        // Assert
+        assertTrue(await(warmupService::isWarm));
+        assertEquals(10, warmupService.getWarmedCount());
+        verify(favoriteService, never()).getUserFavorites("user0");
+        hotUsers.stream().skip(1).forEach(userId -> verify(favoriteService).getUserFavorites(userId));
+        assertTrue(hotUserTracker.hottest().containsAll(hotUsers));
+    }
+
+    @Test
+    @DisplayName("2. Readiness retenue jusqu'à la fraction préchargée, débit de préchargement borné")
+    void isWarm_ShouldWaitForReadyFractionAtBoundedRate() throws Exception {
+        // Arrange - 20 utilisateurs/s : la moitié des 10 utilisateurs en ~250 ms au plus tôt
+        warmupService = service(20, 0.5, Duration.ofMinutes(1));
+        long start = System.nanoTime();
+
+        // Act
+        warmupService.onApplicationReady();
+
+        // Assert
+        assertFalse(warmupService.isWarm());
+        assertTrue(await(warmupService::isWarm));
+        assertTrue(warmupService.getWarmedCount() >= 5);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    @DisplayName("3. Readiness rendue au délai maximal même si le préchargement est bloqué")
+    void isWarm_AfterMaxWait_ShouldBeReady() throws Exception {
+        // Arrange
+        CountDownLatch blocked = new CountDownLatch(1);
+        when(favoriteService.getUserFavorites(anyString())).thenAnswer(invocation -> {
+            blocked.await();
+            return favorites;
+        });
+        warmupService = service(1000, 1.0, Duration.ofMillis(300));
+
+        // Act
+        warmupService.onApplicationReady();
+
+        // Assert
+        assertFalse(warmupService.isWarm());
+        assertTrue(await(warmupService::isWarm));
+        assertEquals(0, warmupService.getWarmedCount());
+        blocked.countDown();
+    }
+
+    @Test
+    @DisplayName("4. Marqueur Redis disparu : favoris des utilisateurs les plus lus recopiés dans Redis")
+    void checkRedis_WhenMarkerRecreated_ShouldReloadHotUsers() {
+        // Arrange
+        warmupService = service(1000, 1.0, Duration.ofMinutes(1));
+        hotUserTracker.recordAccess("user1");
+        hotUserTracker.recordAccess("user2");
+        cacheManager.getCache(FavoriteCacheInvalidator.FAVORITES_CACHE).put("user1", favorites);
+        when(valueOperations.setIfAbsent(eq(CacheWarmupService.REDIS_MARKER_KEY), anyString()))
+                .thenReturn(false, true);
+
+        // Act
+        warmupService.checkRedis();
+        verify(favoriteService, never()).getUserFavorites(anyString());
+        warmupService.checkRedis();
+
+        // Assert
+        verify(favoriteService, timeout(2000)).getUserFavorites("user2");
+        verify(favoriteService, never()).getUserFavorites("user1");
+    }
+
+    @Test
+    @DisplayName("5. Instantané des utilisateurs les plus lus enregistré dans Mongo")
+    void persistHotUsers_ShouldSaveSnapshot() {
+        // Arrange
+        warmupService = service(1000, 1.0, Duration.ofMinutes(1));
+        hotUserTracker.recordAccess("user1");
+        hotUserTracker.recordAccess("user1");
+        hotUserTracker.recordAccess("user2");
+
+        // Act
+        warmupService.persistHotUsers();
+
+        // Assert
+        ArgumentCaptor<HotUserSnapshot> snapshot = ArgumentCaptor.forClass(HotUserSnapshot.class);
+        verify(mongoTemplate).save(snapshot.capture());
+        assertEquals("favoris-service", snapshot.getValue().getService());
+        assertEquals(List.of("user1", "user2"), snapshot.getValue().getUserIds());
+        assertNotNull(snapshot.getValue().getUpdatedAt());
+    }
+
+    private CacheWarmupService service(double rate, double readyFraction, Duration maxWait) {
+        return new CacheWarmupService(hotUserTracker, favoriteService, cacheManager, mongoTemplate, redisTemplate,
+                true, "favoris-service", 2, rate, readyFraction, maxWait);
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+package com.formations.favoris.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ContentCatalogInvalidatorTest {
+
+    @Mock
+    private ContentCatalogService contentCatalogService;
+
+    @Mock
+    private FavoriteVersionService versionService;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private ContentCatalogInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        invalidator = new ContentCatalogInvalidator(contentCatalogService, versionService, redisTemplate);
+    }
+
+    @Test
+    @DisplayName("1. Mise à jour diffusée aux autres instances, ignorée par l'émetteur, ETag de toutes les listes changé")
+    void invalidate_ShouldPublishAndBumpEpoch() {
+        // Arrange
+        ContentCatalogInvalidator otherNode = new ContentCatalogInvalidator(contentCatalogService, versionService, redisTemplate);
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+
+        // Act
+        invalidator.invalidate("content1");
+        verify(redisTemplate).convertAndSend(eq(ContentCatalogInvalidator.INVALIDATION_CHANNEL), message.capture());
+        invalidator.onMessage(new DefaultMessage(new byte[0], message.getValue().getBytes(StandardCharsets.UTF_8)), null);
+        otherNode.onMessage(new DefaultMessage(new byte[0], message.getValue().getBytes(StandardCharsets.UTF_8)), null);
+
+        // Assert
+        verify(versionService).bumpAll();
+        verify(contentCatalogService, times(1)).evictLocal("content1");
+    }
+
+    @Test
+    @DisplayName("2. Diffusion impossible : l'ETag change quand même, un échec du changement de version remonte")
+    void invalidate_WhenPublishFails_ShouldStillBumpEpoch() {
+        // Arrange
+        doThrow(new RedisConnectionFailureException("Redis indisponible"))
+                .when(redisTemplate).convertAndSend(anyString(), anyString());
+
+        // Act
+        invalidator.invalidate("content1");
+        doThrow(new RedisConnectionFailureException("Redis indisponible")).when(versionService).bumpAll();
+
+        // Assert
+        verify(versionService).bumpAll();
+        assertThrows(RedisConnectionFailureException.class, () -> invalidator.invalidate("content1"));
+    }
+}
@@ -0,0 +1,201 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.dto.UpdateContentMetadataRequest;
+import com.formations.favoris.model.ContentMetadata;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.repository.ContentMetadataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ContentCatalogServiceTest {
+
+    @Mock
+    private ContentMetadataRepository contentMetadataRepository;
+
+    private ContentCatalogService contentCatalogService;
+
+    @BeforeEach
+    void setUp() {
+        contentCatalogService = new ContentCatalogService(contentMetadataRepository, new SimpleMeterRegistry(),
+                1_000, Duration.ofMinutes(10), true, Set.of());
+    }
+
+    @Test
+    @DisplayName("1. Enregistrement : seuls les contenus absents sont ajoutés, un ajout ne modifie jamais un contenu connu")
+    @SuppressWarnings("unchecked")
+    void registerAll_ShouldInsertOnlyAbsentContent() {
+        // Arrange - content3 est relu du catalogue après son ajout
+        when(contentMetadataRepository.findAllById(anyList()))
+                .thenReturn(List.of(metadata("content1", "Cours Java"), metadata("content2", "Ancien titre")))
+                .thenReturn(List.of(metadata("content3", "Cours Spring")));
+
+        // Act
+        contentCatalogService.registerAll(List.of(
+                request("content1", "Cours Java"),
+                request("content2", "Titre d'un autre utilisateur"),
+                request("content3", "Cours Spring"),
+                request("content3", "Autre titre")));
+        contentCatalogService.register(request("content3", "Titre modifié"));
+
+        // Assert
+        ArgumentCaptor<List<ContentMetadata>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(contentMetadataRepository, times(1)).insertAllIfAbsent(inserted.capture());
+        assertEquals(List.of("content3"), inserted.getValue().stream().map(ContentMetadata::getContentId).toList());
+        assertEquals("Cours Spring", inserted.getValue().get(0).getTitle());
+        assertNotNull(inserted.getValue().get(0).getUpdatedAt());
+        verify(contentMetadataRepository, never()).saveAll(anyList());
+        assertEquals("Ancien titre", contentCatalogService.getAll(List.of("content2")).get("content2").getTitle());
+    }
+
+    @Test
+    @DisplayName("2. Hydratation : une lecture groupée par liste, puis cache local, liste reçue non modifiée")
+    void hydrate_ShouldBatchLoadOnceAndNotMutateInput() {
+        // Arrange
+        when(contentMetadataRepository.findAllById(anyList())).thenReturn(List.of(
+                metadata("content1", "Cours Java"), metadata("content2", "Cours Spring")));
+        List<FavoriteDto> cached = List.of(favorite("fav1", "content1"), favorite("fav2", "content2"),
+                favorite("fav3", "content1"));
+
+        // Act
+        List<FavoriteDto> first = contentCatalogService.hydrate(cached);
+        List<FavoriteDto> second = contentCatalogService.hydrate(cached);
+
+        // Assert
+        assertEquals(List.of("Cours Java", "Cours Spring", "Cours Java"),
+                first.stream().map(FavoriteDto::getTitle).toList());
+        assertEquals("fav3", first.get(2).getId());
+        assertEquals(first, second);
+        assertNull(cached.get(0).getTitle());
+        verify(contentMetadataRepository, times(1)).findAllById(anyList());
+    }
+
+    @Test
+    @DisplayName("3. Favori antérieur au catalogue : métadonnées du favori conservées, contenu absent mis en cache")
+    void hydrate_UnknownContent_ShouldKeepLegacyMetadata() {
+        // Arrange
+        when(contentMetadataRepository.findAllById(anyList())).thenReturn(List.of());
+        FavoriteDto legacy = favorite("fav1", "content1");
+        legacy.setTitle("Titre historique");
+        legacy.setThumbnailUrl("http://example.com/legacy.jpg");
+
+        // Act
+        List<FavoriteDto> hydrated = contentCatalogService.hydrate(List.of(legacy));
+        contentCatalogService.hydrate(List.of(legacy));
+
+        // Assert
+        assertEquals("Titre historique", hydrated.get(0).getTitle());
+        assertEquals("http://example.com/legacy.jpg", hydrated.get(0).getThumbnailUrl());
+        verify(contentMetadataRepository, times(1)).findAllById(anyList());
+    }
+
+    @Test
+    @DisplayName("4. Mise à jour d'administration : métadonnées remplacées et servies sans relecture")
+    void update_ShouldReplaceMetadataAndRefreshCache() {
+        // Arrange
+        when(contentMetadataRepository.findAllById(anyList())).thenReturn(List.of(metadata("content1", "Ancien titre")));
+        contentCatalogService.getAll(List.of("content1"));
+        when(contentMetadataRepository.save(any(ContentMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        contentCatalogService.update("content1", UpdateContentMetadataRequest.builder()
+                .contentType(ContentType.COURSE)
+                .title("Nouveau titre")
+                .build());
+        List<FavoriteDto> hydrated = contentCatalogService.hydrate(List.of(favorite("fav1", "content1")));
+
+        // Assert
+        assertEquals("Nouveau titre", hydrated.get(0).getTitle());
+        verify(contentMetadataRepository).save(argThat(metadata ->
+                "content1".equals(metadata.getContentId()) && metadata.getUpdatedAt() != null));
+        verify(contentMetadataRepository, times(1)).findAllById(anyList());
+    }
+
+    @Test
+    @DisplayName("5. Enregistrement : métadonnées invalides ou vignette non autorisée refusées au catalogue")
+    @SuppressWarnings("unchecked")
+    void registerAll_InvalidMetadata_ShouldNotRegister() {
+        // Arrange
+        ContentCatalogService restricted = new ContentCatalogService(contentMetadataRepository, new SimpleMeterRegistry(),
+                1_000, Duration.ofMinutes(10), true, Set.of("cdn.example.com"));
+        when(contentMetadataRepository.findAllById(anyList())).thenReturn(List.of());
+        AddFavoriteRequest controlCharacter = request("content1", "Cours\u0000Java");
+        AddFavoriteRequest tooLong = request("content2", "x".repeat(ContentCatalogService.TITLE_MAX_LENGTH + 1));
+        AddFavoriteRequest untrustedHost = request("content3", "Cours Spring");
+        AddFavoriteRequest notHttps = request("content4", "Cours Kotlin");
+        notHttps.setThumbnailUrl("javascript:alert(1)");
+        AddFavoriteRequest valid = request("content5", "Cours Go");
+        valid.setDescription("Première ligne\nSeconde ligne");
+        valid.setThumbnailUrl("https://CDN.example.com/content5.jpg");
+
+        // Act
+        restricted.registerAll(List.of(controlCharacter, tooLong, untrustedHost, notHttps, valid));
+
+        // Assert
+        ArgumentCaptor<List<ContentMetadata>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(contentMetadataRepository).insertAllIfAbsent(inserted.capture());
+        assertEquals(List.of("content5"), inserted.getValue().stream().map(ContentMetadata::getContentId).toList());
+    }
+
+    @Test
+    @DisplayName("6. Enregistrement par les clients désactivé : catalogue alimenté par l'administration seule")
+    void registerAll_ClientRegistrationDisabled_ShouldIgnoreRequests() {
+        // Arrange
+        ContentCatalogService adminOnly = new ContentCatalogService(contentMetadataRepository, new SimpleMeterRegistry(),
+                1_000, Duration.ofMinutes(10), false, Set.of());
+
+        // Act
+        adminOnly.registerAll(List.of(request("content1", "Cours Java")));
+
+        // Assert
+        verifyNoInteractions(contentMetadataRepository);
+    }
+
+    private static ContentMetadata metadata(String contentId, String title) {
+        return ContentMetadata.builder()
+                .contentId(contentId)
+                .contentType(ContentType.COURSE)
+                .title(title)
+                .description("Description de " + title)
+                .thumbnailUrl("http://example.com/" + contentId + ".jpg")
+                .build();
+    }
+
+    private static AddFavoriteRequest request(String contentId, String title) {
+        return AddFavoriteRequest.builder()
+                .userId("user123")
+                .contentId(contentId)
+                .contentType(ContentType.COURSE)
+                .title(title)
+                .description("Description de " + title)
+                .thumbnailUrl("https://example.com/" + contentId + ".jpg")
+                .build();
+    }
+
+    private static FavoriteDto favorite(String id, String contentId) {
+        return FavoriteDto.builder()
+                .id(id)
+                .userId("user123")
+                .contentId(contentId)
+                .contentType(ContentType.COURSE)
+                .build();
+    }
+}
@@ -0,0 +1,175 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.ContentTypeMigrationResultDto;
+import com.formations.favoris.model.ContentMetadata;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.model.FavoriteBucket;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.DistinctIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ContentTypeMigrationServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private MongoCollection<Document> favorites;
+    private MongoCollection<Document> buckets;
+    private ContentTypeMigrationService migrationService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        favorites = mock(MongoCollection.class);
+        buckets = mock(MongoCollection.class);
+        when(mongoTemplate.getCollectionName(Favorite.class)).thenReturn("favorites");
+        when(mongoTemplate.getCollectionName(FavoriteBucket.class)).thenReturn("favorite_buckets");
+        when(mongoTemplate.getCollectionName(ContentMetadata.class)).thenReturn("content_catalog");
+        when(mongoTemplate.collectionExists("favorites")).thenReturn(true);
+        when(mongoTemplate.collectionExists("favorite_buckets")).thenReturn(true);
+        when(mongoTemplate.getCollection("favorites")).thenReturn(favorites);
+        when(mongoTemplate.getCollection("favorite_buckets")).thenReturn(buckets);
+        migrationService = new ContentTypeMigrationService(mongoTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("1. Valeurs non canoniques réécrites, documents aux valeurs inconnues mis en quarantaine")
+    void normalize_ShouldRewriteVariantsAndReportUnknownValues() {
+        // Arrange
+        DistinctIterable<BsonValue> favoriteTypes = distinct(new BsonString("COURSE"), new BsonString("video"),
+                new BsonString(" Article "), new BsonString("PODCAST"), new BsonInt32(3));
+        DistinctIterable<BsonValue> bucketTypes = distinct(new BsonString("course"));
+        when(favorites.distinct("contentType", BsonValue.class)).thenReturn(favoriteTypes);
+        when(favorites.updateMany(any(Bson.class), any(Bson.class)))
+                .thenReturn(UpdateResult.acknowledged(4, 4L, null), UpdateResult.acknowledged(2, 2L, null));
+        AggregateIterable<Document> merge = aggregate();
+        when(favorites.aggregate(anyList())).thenReturn(merge);
+        when(favorites.deleteMany(any(Bson.class))).thenReturn(DeleteResult.acknowledged(5));
+        when(buckets.distinct("items.contentType", BsonValue.class)).thenReturn(bucketTypes);
+        when(buckets.updateMany(any(Bson.class), any(Bson.class), any(UpdateOptions.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // Act
+        ContentTypeMigrationResultDto result = migrationService.normalize();
+
+        // Assert
+        assertEquals(7, result.getDocumentsNormalized());
+        assertEquals(Map.of("video", "VIDEO", " Article ", "ARTICLE", "course", "COURSE"), result.getNormalizedValues());
+        assertEquals(Map.of("PODCAST", 5L), result.getUnknownValues());
+        ArgumentCaptor<List<Bson>> pipeline = ArgumentCaptor.forClass(List.class);
+        verify(favorites).aggregate(pipeline.capture());
+        assertEquals("PODCAST", pipeline.getValue().get(0).toBsonDocument().getDocument("$match")
+                .getString("contentType").getValue());
+        assertEquals("favorites_quarantine", pipeline.getValue().get(1).toBsonDocument().getDocument("$merge")
+                .getString("into").getValue());
+        verify(merge).toCollection();
+        verify(favorites).deleteMany(Filters.eq("contentType", "PODCAST"));
+        ArgumentCaptor<Bson> updates = ArgumentCaptor.forClass(Bson.class);
+        verify(favorites, times(2)).updateMany(any(Bson.class), updates.capture());
+        assertEquals("VIDEO", updates.getAllValues().get(0).toBsonDocument().getDocument("$set")
+                .getString("contentType").getValue());
+        ArgumentCaptor<Bson> bucketUpdate = ArgumentCaptor.forClass(Bson.class);
+        verify(buckets).updateMany(any(Bson.class), bucketUpdate.capture(), any(UpdateOptions.class));
+        assertTrue(bucketUpdate.getValue().toBsonDocument().getDocument("$set").containsKey("items.$[item].contentType"));
+        verify(mongoTemplate, never()).getCollection("content_catalog");
+    }
+
+    @Test
+    @DisplayName("2. Données déjà normalisées : aucune écriture, migration relançable")
+    void normalize_WhenAlreadyCanonical_ShouldNotWrite() {
+        // Arrange
+        DistinctIterable<BsonValue> favoriteTypes = distinct(new BsonString("COURSE"), new BsonString("VIDEO"));
+        DistinctIterable<BsonValue> bucketTypes = distinct(new BsonString("ARTICLE"));
+        when(favorites.distinct("contentType", BsonValue.class)).thenReturn(favoriteTypes);
+        when(buckets.distinct("items.contentType", BsonValue.class)).thenReturn(bucketTypes);
+
+        // Act
+        ContentTypeMigrationResultDto result = migrationService.normalize();
+
+        // Assert
+        assertEquals(0, result.getDocumentsNormalized());
+        assertTrue(result.getNormalizedValues().isEmpty());
+        assertTrue(result.getUnknownValues().isEmpty());
+        verify(favorites, never()).updateMany(any(Bson.class), any(Bson.class));
+        verify(buckets, never()).updateMany(any(Bson.class), any(Bson.class), any(UpdateOptions.class));
+    }
+
+    @Test
+    @DisplayName("3. Bucket contenant un favori PODCAST : favori mis en quarantaine avec son utilisateur, retiré du bucket")
+    @SuppressWarnings("unchecked")
+    void normalize_UnknownBucketItem_ShouldQuarantineItem() {
+        // Arrange
+        DistinctIterable<BsonValue> favoriteTypes = distinct();
+        DistinctIterable<BsonValue> bucketTypes = distinct(new BsonString("COURSE"), new BsonString("PODCAST"));
+        when(favorites.distinct("contentType", BsonValue.class)).thenReturn(favoriteTypes);
+        when(buckets.distinct("items.contentType", BsonValue.class)).thenReturn(bucketTypes);
+        AggregateIterable<Document> count = aggregate(new Document("count", 2));
+        AggregateIterable<Document> merge = aggregate();
+        when(buckets.aggregate(anyList())).thenReturn(count, merge);
+        when(buckets.updateMany(any(Bson.class), anyList())).thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // Act
+        ContentTypeMigrationResultDto result = migrationService.normalize();
+
+        // Assert
+        assertEquals(Map.of("PODCAST", 2L), result.getUnknownValues());
+        ArgumentCaptor<List<Bson>> pipelines = ArgumentCaptor.forClass(List.class);
+        verify(buckets, times(2)).aggregate(pipelines.capture());
+        List<Bson> quarantine = pipelines.getAllValues().get(1);
+        assertTrue(quarantine.get(3).toBsonDocument().containsKey("$replaceRoot"));
+        assertEquals("favorites_quarantine", quarantine.get(4).toBsonDocument().getDocument("$merge")
+                .getString("into").getValue());
+        verify(merge).toCollection();
+        ArgumentCaptor<List<Bson>> update = ArgumentCaptor.forClass(List.class);
+        verify(buckets).updateMany(eq(Filters.eq("items.contentType", "PODCAST")), update.capture());
+        assertTrue(update.getValue().get(1).toBsonDocument().getDocument("$set").containsKey("count"));
+        verify(buckets, never()).updateMany(any(Bson.class), any(Bson.class), any(UpdateOptions.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AggregateIterable<Document> aggregate(Document... results) {
+        Iterator<Document> iterator = List.of(results).iterator();
+        MongoCursor<Document> cursor = mock(MongoCursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        AggregateIterable<Document> iterable = mock(AggregateIterable.class);
+        lenient().when(iterable.iterator()).thenReturn(cursor);
+        return iterable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DistinctIterable<BsonValue> distinct(BsonValue... values) {
+        Iterator<BsonValue> iterator = List.of(values).iterator();
+        MongoCursor<BsonValue> cursor = mock(MongoCursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        DistinctIterable<BsonValue> iterable = mock(DistinctIterable.class);
+        when(iterable.iterator()).thenReturn(cursor);
+        return iterable;
+    }
+}
@@ -0,0 +1,87 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.config.TwoTierCacheManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FavoriteCacheInvalidatorTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private FavoriteVersionService versionService;
+
+    private ConcurrentMapCacheManager remoteCacheManager;
+    private TwoTierCacheManager cacheManager;
+    private FavoriteCacheInvalidator invalidator;
+    private final String userId = "user123";
+
+    @BeforeEach
+    void setUp() {
+        remoteCacheManager = new ConcurrentMapCacheManager(FavoriteCacheInvalidator.FAVORITES_CACHE);
+        cacheManager = new TwoTierCacheManager(remoteCacheManager, redisTemplate, 100, Duration.ofMinutes(1));
+        cacheManager.afterPropertiesSet();
+        invalidator = new FavoriteCacheInvalidator(cacheManager, versionService);
+    }
+
+    @Test
+    @DisplayName("1. Version inchangée : le niveau local est servi")
+    void getETag_SameVersion_ShouldKeepLocalTier() {
+        // Arrange
+        when(versionService.getETag(userId)).thenReturn("\"1-1\"");
+        invalidator.getETag(userId);
+        cacheManager.getCache(FavoriteCacheInvalidator.FAVORITES_CACHE).put(userId, List.of("fav1"));
+
+        // Act
+        String eTag = invalidator.getETag(userId);
+
+        // Assert
+        assertEquals("\"1-1\"", eTag);
+        assertEquals(1, cacheManager.getStatistics().get(FavoriteCacheInvalidator.FAVORITES_CACHE).getLocalSize());
+    }
+
+    @Test
+    @DisplayName("2. Diffusion de l'invalidation perdue : version changée, ancienne liste locale écartée")
+    void getETag_VersionChangedWithoutBroadcast_ShouldDropLocalTier() {
+        // Arrange - liste en cache sur cette instance à la version 1
+        when(versionService.getETag(userId)).thenReturn("\"1-1\"", "\"1-2\"");
+        invalidator.getETag(userId);
+        Cache cache = cacheManager.getCache(FavoriteCacheInvalidator.FAVORITES_CACHE);
+        cache.put(userId, List.of("fav1"));
+        // Écriture sur une autre instance : Redis invalidé, version changée, message jamais reçu
+        remoteCacheManager.getCache(FavoriteCacheInvalidator.FAVORITES_CACHE).evict(userId);
+
+        // Act
+        String eTag = invalidator.getETag(userId);
+
+        // Assert
+        assertEquals("\"1-2\"", eTag);
+        assertNull(cache.get(userId));
+    }
+
+    @Test
+    @DisplayName("3. Changement de version impossible : échec de l'invalidation signalé")
+    void evictUser_BumpFailure_ShouldPropagate() {
+        // Arrange
+        doThrow(new RedisConnectionFailureException("Redis indisponible")).when(versionService).bump(userId);
+
+        // Act & Assert
+        assertThrows(RedisConnectionFailureException.class, () -> invalidator.evictUser(userId, List.of()));
+    }
+}
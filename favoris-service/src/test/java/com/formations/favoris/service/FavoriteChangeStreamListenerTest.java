@@ -0,0 +1,256 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.model.ChangeStreamToken;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.DocumentFavoriteStorage;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class FavoriteChangeStreamListenerTest {
+
+    /**
+     * Replica set local pour le test de bout en bout, par exemple le service mongodb-rs du
+     * docker-compose : {@code -Dfavoris.test.mongodb-replica-set-uri=mongodb://localhost:27018/?replicaSet=rs0}
+     */
+    private static final String REPLICA_SET_URI_PROPERTY = "favoris.test.mongodb-replica-set-uri";
+
+    private FavoriteCacheInvalidator cacheInvalidator;
+    private FavoriteChangeStreamListener listener;
+    private final String userId = "user123";
+
+    @BeforeEach
+    void setUp() {
+        cacheInvalidator = mock(FavoriteCacheInvalidator.class);
+        listener = listener(mock(MongoTemplate.class), cacheInvalidator, false, true);
+    }
+
+    @Test
+    @DisplayName("1. Insertion : caches de l'utilisateur et du type inséré invalidés")
+    void onChange_Insert_ShouldEvictUserType() {
+        // Arrange
+        ChangeStreamDocument<Document> change = change(OperationType.INSERT, null, favorite(userId, "COURSE"), null);
+
+        // Act
+        listener.onChange(change);
+
+        // Assert
+        verify(cacheInvalidator).evictUser(userId, Set.of(ContentType.COURSE));
+        verify(cacheInvalidator, never()).evictAll();
+    }
+
+    @Test
+    @DisplayName("2. Changement de type avec image préalable : ancien et nouveau type invalidés")
+    void onChange_UpdateWithPreImage_ShouldEvictBothTypes() {
+        // Arrange
+        ChangeStreamDocument<Document> change = change(OperationType.UPDATE, favorite(userId, "COURSE"),
+                favorite(userId, "VIDEO"), update("contentType"));
+
+        // Act
+        listener.onChange(change);
+
+        // Assert
+        verify(cacheInvalidator).evictUser(userId, Set.of(ContentType.COURSE, ContentType.VIDEO));
+        verify(cacheInvalidator, never()).evictAll();
+    }
+
+    @Test
+    @DisplayName("3. Mise à jour d'un titre sans image préalable : seul l'utilisateur est invalidé")
+    void onChange_UpdateOtherFieldWithoutPreImage_ShouldEvictUser() {
+        // Arrange
+        ChangeStreamDocument<Document> change = change(OperationType.UPDATE, null, favorite(userId, "COURSE"),
+                update("title"));
+
+        // Act
+        listener.onChange(change);
+
+        // Assert
+        verify(cacheInvalidator).evictUser(userId, Set.of(ContentType.COURSE));
+        verify(cacheInvalidator, never()).evictAll();
+    }
+
+    @Test
+    @DisplayName("4. Suppression ou changement de type sans image préalable : tous les caches vidés")
+    void onChange_UnknownPreviousState_ShouldEvictAll() {
+        // Act
+        listener.onChange(change(OperationType.DELETE, null, null, null));
+        listener.onChange(change(OperationType.UPDATE, null, favorite(userId, "VIDEO"), update("contentType")));
+        listener.onChange(change(OperationType.DROP, null, null, null));
+
+        // Assert
+        verify(cacheInvalidator, times(3)).evictAll();
+        verify(cacheInvalidator, never()).evictUser(anyString(), anyCollection());
+    }
+
+    @Test
+    @DisplayName("6. Bucket : ajout invalidé pour les types du bucket, retrait sans image préalable pour tous les types de l'utilisateur")
+    void onChange_BucketUpdates_ShouldEvictFromItems() {
+        // Arrange
+        Document bucket = new Document("userId", userId).append("count", 2).append("items", List.of(
+                new Document("contentId", "c1").append("contentType", "COURSE"),
+                new Document("contentId", "c2").append("contentType", "VIDEO")));
+        UpdateDescription push = new UpdateDescription(List.of(), new BsonDocument("items.1", new BsonDocument())
+                .append("count", new BsonInt32(2)));
+        UpdateDescription pull = new UpdateDescription(List.of(), new BsonDocument("items", new BsonArray())
+                .append("count", new BsonInt32(1)));
+
+        // Act
+        listener.onChange(change(OperationType.UPDATE, null, bucket, push));
+        listener.onChange(change(OperationType.UPDATE, null, bucket, pull));
+
+        // Assert
+        verify(cacheInvalidator).evictUser(userId, Set.of(ContentType.COURSE, ContentType.VIDEO));
+        verify(cacheInvalidator).evictUser(userId, EnumSet.allOf(ContentType.class));
+        verify(cacheInvalidator, never()).evictAll();
+    }
+
+    @Test
+    @DisplayName("7. Images préalables impossibles à activer ou désactivées : démarrage refusé")
+    void start_WithoutPreImages_ShouldFail() {
+        // Arrange
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.collectionExists("favorites")).thenReturn(true);
+        when(mongoTemplate.executeCommand(any(Document.class)))
+                .thenThrow(new UncategorizedMongoDbException("not authorized to execute command collMod", null))
+                .thenReturn(new Document("cursor", new Document("firstBatch", List.of(
+                        new Document("name", "favorites").append("options", new Document())))));
+
+        // Act & Assert - activation par le service
+        assertThrows(IllegalStateException.class, () -> listener(mongoTemplate, cacheInvalidator, true, true).start());
+
+        // Vérification seule, images préalables absentes des options de la collection
+        assertThrows(IllegalStateException.class, () -> listener(mongoTemplate, cacheInvalidator, true, false).start());
+        verify(mongoTemplate, never()).getCollection(anyString());
+    }
+
+    @Test
+    @DisplayName("8. Bail tenu par une autre instance : flux non consommé, prise du bail retentée")
+    void start_LeaseHeldElsewhere_ShouldNotWatch() {
+        // Arrange
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.collectionExists("favorites")).thenReturn(true);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(ChangeStreamToken.class))).thenThrow(new DuplicateKeyException("E11000 duplicate key error"));
+        FavoriteChangeStreamListener standby = listener(mongoTemplate, cacheInvalidator, true, true);
+
+        // Act
+        standby.start();
+        try {
+            // Assert
+            verify(mongoTemplate, timeout(2_000).atLeast(2)).findAndModify(any(Query.class), any(Update.class),
+                    any(FindAndModifyOptions.class), eq(ChangeStreamToken.class));
+            verify(mongoTemplate, never()).getCollection(anyString());
+            verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(ChangeStreamToken.class));
+        } finally {
+            standby.shutdown();
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = REPLICA_SET_URI_PROPERTY, matches = ".+")
+    @DisplayName("5. Replica set : écriture externe invalidée, reprise au jeton après redémarrage")
+    void changeStream_OnReplicaSet_ShouldEvictAndResume() throws Exception {
+        try (MongoClient client = MongoClients.create(System.getProperty(REPLICA_SET_URI_PROPERTY))) {
+            // Arrange
+            MongoTemplate mongoTemplate = new MongoTemplate(client, "favoris_change_stream_test");
+            mongoTemplate.dropCollection(Favorite.class);
+            mongoTemplate.dropCollection(ChangeStreamToken.class);
+            ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(FavoriteCacheInvalidator.FAVORITES_CACHE);
+            FavoriteCacheInvalidator invalidator = new FavoriteCacheInvalidator(cacheManager, mock(FavoriteVersionService.class));
+            FavoriteChangeStreamListener first = listener(mongoTemplate, invalidator, true, true);
+            first.start();
+            Thread.sleep(1_500); // ouverture du flux
+
+            // Act - écriture hors du service
+            cacheManager.getCache(FavoriteCacheInvalidator.FAVORITES_CACHE).put(userId, List.of());
+            mongoTemplate.insert(Favorite.builder().userId(userId).contentId("c1").contentType(ContentType.COURSE)
+                    .createdAt(LocalDateTime.now()).build());
+
+            // Assert
+            assertTrue(await(() -> cacheManager.getCache(FavoriteCacheInvalidator.FAVORITES_CACHE).get(userId) == null));
+
+            // Act - écriture pendant l'arrêt, rattrapée au redémarrage grâce au jeton enregistré
+            first.shutdown();
+            assertNotNull(mongoTemplate.findById("favoris-test", ChangeStreamToken.class));
+            mongoTemplate.insert(Favorite.builder().userId("user456").contentId("c2").contentType(ContentType.VIDEO)
+                    .createdAt(LocalDateTime.now()).build());
+            cacheManager.getCache(FavoriteCacheInvalidator.FAVORITES_CACHE).put("user456", List.of());
+            FavoriteChangeStreamListener second = listener(mongoTemplate, invalidator, true, true);
+            second.start();
+
+            // Assert
+            try {
+                assertTrue(await(() -> cacheManager.getCache(FavoriteCacheInvalidator.FAVORITES_CACHE).get("user456") == null));
+            } finally {
+                second.shutdown();
+            }
+        }
+    }
+
+    private static FavoriteChangeStreamListener listener(MongoTemplate mongoTemplate, FavoriteCacheInvalidator invalidator,
+                                                         boolean enabled, boolean enablePreImages) {
+        return new FavoriteChangeStreamListener(mongoTemplate, new DocumentFavoriteStorage(mongoTemplate), invalidator,
+                new SimpleMeterRegistry(), enabled,
+                "favoris-test", enablePreImages, Duration.ZERO, Duration.ofMillis(100), Duration.ofSeconds(30));
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(20);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamDocument<Document> change(OperationType operation, Document before, Document after,
+                                                         UpdateDescription update) {
+        ChangeStreamDocument<Document> change = mock(ChangeStreamDocument.class);
+        when(change.getOperationType()).thenReturn(operation);
+        when(change.getFullDocumentBeforeChange()).thenReturn(before);
+        when(change.getFullDocument()).thenReturn(after);
+        when(change.getUpdateDescription()).thenReturn(update);
+        return change;
+    }
+
+    private static Document favorite(String userId, String contentType) {
+        return new Document("userId", userId).append("contentType", contentType);
+    }
+
+    private static UpdateDescription update(String field) {
+        return new UpdateDescription(List.of(), new BsonDocument(field, new BsonString("nouvelle valeur")));
+    }
+}
@@ -0,0 +1,112 @@
+package com.formations.favoris.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.ContentMetadataRepository;
+import com.formations.favoris.repository.DocumentFavoriteStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FavoriteExportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private FavoriteExportService favoriteExportService;
+    private ObjectMapper objectMapper;
+    private final String userId = "user123";
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ContentCatalogService catalog = new ContentCatalogService(mock(ContentMetadataRepository.class),
+                new SimpleMeterRegistry(), 1_000, Duration.ofMinutes(10), true, Set.of());
+        favoriteExportService = new FavoriteExportService(new DocumentFavoriteStorage(mongoTemplate), objectMapper, catalog);
+    }
+
+    @Test
+    @DisplayName("1. Export NDJSON : un favori par ligne")
+    void exportUserFavorites_ShouldWriteOneJsonObjectPerLine() throws Exception {
+        // Arrange
+        when(mongoTemplate.stream(any(Query.class), eq(Favorite.class)))
+                .thenReturn(IntStream.range(0, 3).mapToObj(this::favorite));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = favoriteExportService.exportUserFavorites(userId, null, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, count);
+        assertEquals(3, lines.length);
+        assertEquals("content2", objectMapper.readTree(lines[2]).get("contentId").asText());
+    }
+
+    @Test
+    @DisplayName("2. Reprise après le dernier ID reçu")
+    void exportUserFavorites_WithResumeId_ShouldQueryAfterThatId() throws Exception {
+        // Arrange
+        String afterId = new ObjectId().toHexString();
+        when(mongoTemplate.stream(any(Query.class), eq(Favorite.class))).thenReturn(Stream.empty());
+
+        // Act
+        favoriteExportService.exportUserFavorites(userId, afterId, new ByteArrayOutputStream());
+
+        // Assert
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(Favorite.class));
+        assertEquals(userId, query.getValue().getQueryObject().get("userId"));
+        assertNotNull(query.getValue().getQueryObject().get("_id"));
+        assertEquals(1, query.getValue().getSortObject().getInteger("_id"));
+    }
+
+    @Test
+    @DisplayName("3. Point de reprise invalide")
+    void exportAllFavorites_WithInvalidResumeId_ShouldThrow() {
+        assertFalse(FavoriteExportService.isValidResumeId("not-an-id"));
+        assertThrows(IllegalArgumentException.class,
+                () -> favoriteExportService.exportAllFavorites("not-an-id", new ByteArrayOutputStream()));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private Favorite favorite(int i) {
+        LocalDateTime now = LocalDateTime.now();
+        return Favorite.builder()
+                .id(new ObjectId().toHexString())
+                .userId(userId)
+                .contentId("content" + i)
+                .contentType(ContentType.COURSE)
+                .title("Cours " + i)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.event.FavoriteChangedEvent;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.FavoriteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FavoriteMembershipServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @Mock
+    private FavoriteRepository favoriteRepository;
+
+    private FavoriteMembershipService membershipService;
+    private final String userId = "user123";
+    private final String key = FavoriteMembershipService.KEY_PREFIX + userId;
+
+    @BeforeEach
+    void setUp() {
+        membershipService = new FavoriteMembershipService(redisTemplate, favoriteRepository);
+    }
+
+    @Test
+    @DisplayName("1. Set chargé : une seule commande Redis, sans accès à Mongo")
+    void contains_WhenSetIsLoaded_ShouldAnswerFromRedis() {
+        // Arrange
+        Map<Object, Boolean> membership = new HashMap<>();
+        membership.put(FavoriteMembershipService.LOADED_MARKER, true);
+        membership.put("content1", true);
+        membership.put("content2", false);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.isMember(key, FavoriteMembershipService.LOADED_MARKER, "content1", "content2"))
+                .thenReturn(membership);
+
+        // Act
+        Map<String, Boolean> result = membershipService.contains(userId, List.of("content1", "content2"));
+
+        // Assert
+        assertEquals(List.of("content1", "content2"), List.copyOf(result.keySet()));
+        assertTrue(result.get("content1"));
+        assertFalse(result.get("content2"));
+        verifyNoInteractions(favoriteRepository);
+    }
+
+    @Test
+    @DisplayName("2. Set absent : chargement depuis Mongo avec le marqueur")
+    void contains_WhenSetIsMissing_ShouldLoadFromMongo() {
+        // Arrange
+        Map<Object, Boolean> membership = new HashMap<>();
+        membership.put(FavoriteMembershipService.LOADED_MARKER, false);
+        membership.put("content1", false);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.isMember(key, FavoriteMembershipService.LOADED_MARKER, "content1"))
+                .thenReturn(membership);
+        when(favoriteRepository.findContentIdsByUserId(userId))
+                .thenReturn(List.of(Favorite.builder().contentId("content1").build()));
+
+        // Act
+        Map<String, Boolean> result = membershipService.contains(userId, List.of("content1"));
+
+        // Assert
+        assertTrue(result.get("content1"));
+        verify(setOperations).add(key, FavoriteMembershipService.LOADED_MARKER, "content1");
+        verify(redisTemplate).expire(eq(key), any());
+    }
+
+    @Test
+    @DisplayName("3. Un événement met à jour le set seulement s'il est chargé")
+    @SuppressWarnings("unchecked")
+    void onFavoriteChanged_ShouldApplyConditionalScript() {
+        // Arrange
+        Favorite favorite = Favorite.builder().userId(userId).contentId("content1").contentType(ContentType.COURSE).build();
+
+        // Act
+        membershipService.onFavoriteChanged(FavoriteChangedEvent.added(favorite));
+
+        // Assert
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(key)), anyString());
+        verify(redisTemplate, never()).opsForSet();
+    }
+}
@@ -0,0 +1,159 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.FavoritePageDto;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.ContentMetadataRepository;
+import com.formations.favoris.repository.FavoriteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FavoritePageServiceTest {
+
+    @Mock
+    private FavoriteRepository favoriteRepository;
+
+    @Mock
+    private FavoriteVersionService versionService;
+
+    private FavoritePageService favoritePageService;
+    private final String userId = "user123";
+    private final LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(
+                FavoritePageService.HEAD_CACHE, FavoritePageService.PAGES_CACHE);
+        ContentCatalogService catalog = new ContentCatalogService(mock(ContentMetadataRepository.class),
+                new SimpleMeterRegistry(), 1_000, Duration.ofMinutes(10), true, Set.of());
+        favoritePageService = new FavoritePageService(favoriteRepository, cacheManager, catalog, versionService);
+    }
+
+    @Test
+    @DisplayName("1. Première page découpée depuis la fenêtre de tête en cache")
+    void getUserFavoritesPage_FirstPage_ShouldSliceCachedHeadWindow() {
+        // Arrange
+        when(favoriteRepository.findPageByUserId(eq(userId), isNull(), isNull(), anyInt()))
+                .thenReturn(favorites(0, 30));
+
+        // Act
+        FavoritePageDto small = favoritePageService.getUserFavoritesPage(userId, null, 10);
+        FavoritePageDto large = favoritePageService.getUserFavoritesPage(userId, null, 50);
+
+        // Assert
+        assertEquals(10, small.getItems().size());
+        assertTrue(small.isHasMore());
+        assertNotNull(small.getNextCursor());
+        assertEquals(30, large.getItems().size());
+        assertFalse(large.isHasMore());
+        verify(favoriteRepository, times(1)).findPageByUserId(userId, null, null, FavoritePageService.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test
+    @DisplayName("2. Le curseur reprend après le dernier élément de la page précédente")
+    void getUserFavoritesPage_WithCursor_ShouldResumeAfterLastItem() {
+        // Arrange
+        when(favoriteRepository.findPageByUserId(eq(userId), isNull(), isNull(), anyInt()))
+                .thenReturn(favorites(0, 30));
+        FavoritePageDto first = favoritePageService.getUserFavoritesPage(userId, null, 10);
+        Favorite last = favorites(9, 1).get(0);
+        when(favoriteRepository.findPageByUserId(userId, last.getCreatedAt(), last.getId(), 11))
+                .thenReturn(favorites(10, 11));
+        when(versionService.getVersion(userId)).thenReturn("1-1");
+
+        // Act
+        FavoritePageDto second = favoritePageService.getUserFavoritesPage(userId, first.getNextCursor(), 10);
+        favoritePageService.getUserFavoritesPage(userId, first.getNextCursor(), 10);
+
+        // Assert
+        assertEquals(10, second.getItems().size());
+        assertEquals("fav10", second.getItems().get(0).getId());
+        assertTrue(second.isHasMore());
+        verify(favoriteRepository, times(1)).findPageByUserId(userId, last.getCreatedAt(), last.getId(), 11);
+    }
+
+    @Test
+    @DisplayName("3. Curseur ou taille invalide")
+    void getUserFavoritesPage_WithInvalidArguments_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> favoritePageService.getUserFavoritesPage(userId, "not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> favoritePageService.getUserFavoritesPage(userId, null, 0));
+        verifyNoInteractions(favoriteRepository);
+    }
+
+    @Test
+    @DisplayName("4. Page suivante : clé versionnée, relue en base après une écriture (suppression comprise)")
+    void getUserFavoritesPage_AfterWrite_ShouldNotServePageOfPreviousVersion() {
+        // Arrange - la version change entre les deux lectures (favori supprimé)
+        Favorite last = favorites(9, 1).get(0);
+        String cursor = FavoritePageService.encodeCursor(FavoriteService.convertToDto(last));
+        when(favoriteRepository.findPageByUserId(userId, last.getCreatedAt(), last.getId(), 11))
+                .thenReturn(favorites(10, 11), favorites(11, 11));
+        when(versionService.getVersion(userId)).thenReturn("1-1", "1-2", "1-2");
+
+        // Act
+        FavoritePageDto before = favoritePageService.getUserFavoritesPage(userId, cursor, 10);
+        FavoritePageDto after = favoritePageService.getUserFavoritesPage(userId, cursor, 10);
+        FavoritePageDto cached = favoritePageService.getUserFavoritesPage(userId, cursor, 10);
+
+        // Assert
+        assertEquals("fav10", before.getItems().get(0).getId());
+        assertEquals("fav11", after.getItems().get(0).getId());
+        assertEquals(after, cached);
+        verify(favoriteRepository, times(2)).findPageByUserId(userId, last.getCreatedAt(), last.getId(), 11);
+        assertEquals("user123_1-2_" + cursor + "_10", FavoritePageService.pageKey(userId, "1-2", cursor, 10));
+    }
+
+    @Test
+    @DisplayName("5. Version illisible (Redis indisponible) : page lue en base sans cache")
+    void getUserFavoritesPage_VersionUnavailable_ShouldBypassCache() {
+        // Arrange
+        Favorite last = favorites(9, 1).get(0);
+        String cursor = FavoritePageService.encodeCursor(FavoriteService.convertToDto(last));
+        when(favoriteRepository.findPageByUserId(userId, last.getCreatedAt(), last.getId(), 11))
+                .thenReturn(favorites(10, 11));
+
+        // Act
+        favoritePageService.getUserFavoritesPage(userId, cursor, 10);
+        favoritePageService.getUserFavoritesPage(userId, cursor, 10);
+
+        // Assert
+        verify(favoriteRepository, times(2)).findPageByUserId(userId, last.getCreatedAt(), last.getId(), 11);
+    }
+
+    private List<Favorite> favorites(int from, int count) {
+        List<Favorite> favorites = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            favorites.add(Favorite.builder()
+                    .id("fav" + i)
+                    .userId(userId)
+                    .contentId("content" + i)
+                    .contentType(ContentType.COURSE)
+                    .title("Cours " + i)
+                    .createdAt(now.minusMinutes(i))
+                    .updatedAt(now.minusMinutes(i))
+                    .build());
+        }
+        return favorites;
+    }
+}
@@ -2,6 +2,7 @@ package com.formations.favoris.service;
 
 import com.formations.favoris.dto.AddFavoriteRequest;
 import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.model.ContentType;
 import com.formations.favoris.model.Favorite;
 import com.formations.favoris.repository.FavoriteRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -43,7 +44,7 @@ public class FavoriteServiceCacheTest {
     private AddFavoriteRequest testRequest;
     private final String userId = "user123";
     private final String contentId = "content456";
-    private final String contentType = "COURSE";
+    private final ContentType contentType = ContentType.COURSE;
 
     @BeforeEach
     void setUp() {
@@ -164,9 +165,8 @@ public class FavoriteServiceCacheTest {
         // Arrange
         when(favoriteRepository.findByUserId(userId))
                 .thenReturn(Arrays.asList(testFavorite));
-        when(favoriteRepository.findByUserIdAndContentId(userId, contentId))
+        when(favoriteRepository.findAndRemoveByUserIdAndContentId(userId, contentId))
                 .thenReturn(Optional.of(testFavorite));
-        doNothing().when(favoriteRepository).deleteByUserIdAndContentId(userId, contentId);
 
         // Act - Remplir le cache
         favoriteService.getUserFavorites(userId);
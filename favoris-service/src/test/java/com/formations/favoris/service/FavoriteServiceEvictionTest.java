@@ -0,0 +1,165 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.config.FavoritesByTypeKeyGenerator;
+import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.FavoriteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Invalidation des caches à travers le proxy {@code @Cacheable} / {@code @CacheEvict}, avec un
+ * cache en mémoire
+ */
+@SpringJUnitConfig(FavoriteServiceEvictionTest.CachingConfig.class)
+public class FavoriteServiceEvictionTest {
+
+    @Autowired
+    private FavoriteService favoriteService;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private FavoriteVersionService versionService;
+
+    @BeforeEach
+    void setUp() {
+        reset(favoriteRepository, versionService);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @DisplayName("1. La suppression n'invalide que la liste par type concernée")
+    void removeFavorite_ShouldOnlyEvictRemovedTypeOfThatUser() {
+        // Arrange
+        Favorite course = favorite("user1", "content1", ContentType.COURSE);
+        when(favoriteRepository.findByUserIdAndContentType(anyString(), any(ContentType.class)))
+                .thenAnswer(invocation -> List.of(favorite(invocation.getArgument(0), "other",
+                        invocation.getArgument(1))));
+        favoriteService.getUserFavoritesByType("user1", ContentType.COURSE);
+        favoriteService.getUserFavoritesByType("user1", ContentType.VIDEO);
+        favoriteService.getUserFavoritesByType("user2", ContentType.COURSE);
+        when(favoriteRepository.findByUserIdAndContentId("user1", "content1")).thenReturn(Optional.of(course));
+
+        // Act
+        boolean removed = favoriteService.removeFavorite("user1", "content1");
+
+        // Assert
+        assertTrue(removed);
+        Cache byType = cacheManager.getCache("favoritesByType");
+        assertNull(byType.get("user1_COURSE"));
+        assertNotNull(byType.get("user1_VIDEO"));
+        assertNotNull(byType.get("user2_COURSE"));
+        List<FavoriteDto> other = favoriteService.getUserFavoritesByType("user2", ContentType.COURSE);
+        assertEquals("user2", other.get(0).getUserId());
+        verify(favoriteRepository, times(1)).findByUserIdAndContentType("user2", ContentType.COURSE);
+    }
+
+    @Test
+    @DisplayName("2. Une suppression sans effet n'invalide aucune liste par type")
+    void removeFavorite_WhenMissing_ShouldKeepByTypeEntries() {
+        // Arrange
+        when(favoriteRepository.findByUserIdAndContentType("user1", ContentType.COURSE))
+                .thenReturn(List.of(favorite("user1", "content1", ContentType.COURSE)));
+        favoriteService.getUserFavoritesByType("user1", ContentType.COURSE);
+        when(favoriteRepository.findByUserIdAndContentId("user1", "unknown")).thenReturn(Optional.empty());
+
+        // Act
+        boolean removed = favoriteService.removeFavorite("user1", "unknown");
+
+        // Assert
+        assertFalse(removed);
+        assertNotNull(cacheManager.getCache("favoritesByType").get("user1_COURSE"));
+    }
+
+    @Test
+    @DisplayName("3. La version de l'utilisateur ne change qu'une fois ses listes invalidées")
+    void addFavorite_ShouldBumpVersionAfterEviction() {
+        // Arrange
+        when(favoriteRepository.findByUserId("user1")).thenReturn(List.of(favorite("user1", "content1", ContentType.COURSE)));
+        favoriteService.getUserFavorites("user1");
+        when(favoriteRepository.existsByUserIdAndContentId("user1", "content2")).thenReturn(false);
+        when(favoriteRepository.save(any(Favorite.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        List<Object> cachedAtBump = new ArrayList<>();
+        doAnswer(invocation -> cachedAtBump.add(cacheManager.getCache("favorites").get("user1")))
+                .when(versionService).bump("user1");
+
+        // Act
+        favoriteService.addFavorite(AddFavoriteRequest.builder()
+                .userId("user1")
+                .contentId("content2")
+                .contentType(ContentType.VIDEO)
+                .title("Titre content2")
+                .build());
+
+        // Assert
+        assertEquals(1, cachedAtBump.size());
+        assertNull(cachedAtBump.get(0));
+    }
+
+    private static Favorite favorite(String userId, String contentId, ContentType contentType) {
+        return Favorite.builder()
+                .id(userId + "_" + contentId)
+                .userId(userId)
+                .contentId(contentId)
+                .contentType(contentType)
+                .title("Titre " + contentId)
+                .build();
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("favorites", "favoritesByType", "favoritesHead",
+                    "favoritesIds", "favoritesSummary");
+        }
+
+        @Bean(FavoritesByTypeKeyGenerator.BEAN_NAME)
+        FavoritesByTypeKeyGenerator favoritesByTypeKeyGenerator() {
+            return new FavoritesByTypeKeyGenerator();
+        }
+
+        @Bean
+        FavoriteRepository favoriteRepository() {
+            return mock(FavoriteRepository.class);
+        }
+
+        @Bean
+        FavoriteVersionService versionService() {
+            return mock(FavoriteVersionService.class);
+        }
+
+        @Bean
+        FavoriteService favoriteService(FavoriteRepository favoriteRepository, CacheManager cacheManager,
+                                        FavoriteVersionService versionService) {
+            return new FavoriteService(favoriteRepository, new FavoriteCacheInvalidator(cacheManager, versionService),
+                    event -> { }, mock(FavoriteMembershipService.class), mock(FavoriteWriteBehindQueue.class),
+                    mock(ContentCatalogService.class));
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.formations.favoris.service;
 
 import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.dto.BatchFavoritesResponse;
+import com.formations.favoris.dto.BatchItemStatus;
 import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.dto.RemoveFavoriteRequest;
+import com.formations.favoris.event.FavoriteChangedEvent;
+import com.formations.favoris.model.ContentType;
 import com.formations.favoris.model.Favorite;
 import com.formations.favoris.repository.FavoriteRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,15 +16,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +39,21 @@ public class FavoriteServiceTest {
     @Mock
     private FavoriteRepository favoriteRepository;
 
+    @Mock
+    private FavoriteCacheInvalidator cacheInvalidator;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private FavoriteMembershipService membershipService;
+
+    @Mock
+    private FavoriteWriteBehindQueue writeBehindQueue;
+
+    @Mock
+    private ContentCatalogService contentCatalogService;
+
     @InjectMocks
     private FavoriteService favoriteService;
 
@@ -35,7 +61,7 @@ public class FavoriteServiceTest {
     private AddFavoriteRequest testRequest;
     private final String userId = "user123";
     private final String contentId = "content456";
-    private final String contentType = "COURSE";
+    private final ContentType contentType = ContentType.COURSE;
 
     @BeforeEach
     void setUp() {
@@ -133,6 +159,45 @@ public class FavoriteServiceTest {
         assertEquals(testFavorite.getTitle(), result.getTitle());
         verify(favoriteRepository).existsByUserIdAndContentId(userId, contentId);
         verify(favoriteRepository).save(any(Favorite.class));
+        verify(cacheInvalidator).evictUser(userId, List.of(testFavorite.getContentType()));
+        verify(eventPublisher).publishEvent(argThat((FavoriteChangedEvent event) ->
+                event.isAdded() && event.getContentId().equals(contentId)));
+    }
+
+    @Test
+    @DisplayName("2.1 Ajout en écriture différée - acquitté sans écriture en base")
+    void addFavorite_WithWriteBehind_ShouldQueueWithoutWriting() {
+        // Arrange
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+        when(membershipService.contains(userId, List.of(contentId))).thenReturn(Map.of(contentId, false));
+        when(writeBehindQueue.enqueue(any(Favorite.class))).thenReturn(FavoriteWriteBehindQueue.EnqueueResult.QUEUED);
+
+        // Act
+        FavoriteDto result = favoriteService.addFavorite(testRequest);
+
+        // Assert
+        assertNotNull(result.getId());
+        assertEquals(contentId, result.getContentId());
+        verify(favoriteRepository, never()).existsByUserIdAndContentId(any(), any());
+        verify(favoriteRepository, never()).save(any(Favorite.class));
+        verify(favoriteRepository, never()).insert(any(Favorite.class));
+        verify(eventPublisher).publishEvent(any(FavoriteChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("2.2 Ajout en écriture différée - file pleine, écriture synchrone")
+    void addFavorite_WithWriteBehindAndFullQueue_ShouldWriteSynchronously() {
+        // Arrange
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+        when(membershipService.contains(userId, List.of(contentId))).thenReturn(Map.of(contentId, false));
+        when(writeBehindQueue.enqueue(any(Favorite.class))).thenReturn(FavoriteWriteBehindQueue.EnqueueResult.REJECTED);
+
+        // Act
+        favoriteService.addFavorite(testRequest);
+
+        // Assert
+        verify(favoriteRepository).insert(any(Favorite.class));
+        verify(eventPublisher).publishEvent(any(FavoriteChangedEvent.class));
     }
 
     @Test
@@ -167,6 +232,9 @@ public class FavoriteServiceTest {
         assertTrue(result);
         verify(favoriteRepository).findByUserIdAndContentId(userId, contentId);
         verify(favoriteRepository).deleteByUserIdAndContentId(userId, contentId);
+        verify(cacheInvalidator).evictUser(userId, List.of(testFavorite.getContentType()));
+        verify(eventPublisher).publishEvent(argThat((FavoriteChangedEvent event) ->
+                !event.isAdded() && event.getContentId().equals(contentId)));
     }
 
     @Test
@@ -183,17 +251,16 @@ public class FavoriteServiceTest {
         assertFalse(result);
         verify(favoriteRepository).findByUserIdAndContentId(userId, contentId);
         verify(favoriteRepository, never()).deleteByUserIdAndContentId(any(), any());
+        verify(cacheInvalidator, never()).evictUser(any(), any());
     }
 
     @Test
     @DisplayName("6.1 Toggle - Ajout d'un favori inexistant")
     void toggleFavorite_WhenFavoriteDoesNotExist_ShouldAddFavorite() {
         // Arrange
-        when(favoriteRepository.findByUserIdAndContentId(userId, contentId))
+        when(favoriteRepository.findAndRemoveByUserIdAndContentId(userId, contentId))
                 .thenReturn(Optional.empty());
-        when(favoriteRepository.existsByUserIdAndContentId(userId, contentId))
-                .thenReturn(false);
-        when(favoriteRepository.save(any(Favorite.class)))
+        when(favoriteRepository.insert(any(Favorite.class)))
                 .thenReturn(testFavorite);
 
         // Act
@@ -202,26 +269,118 @@ public class FavoriteServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(testFavorite.getId(), result.getId());
-        verify(favoriteRepository).findByUserIdAndContentId(userId, contentId);
-        verify(favoriteRepository).existsByUserIdAndContentId(userId, contentId);
-        verify(favoriteRepository).save(any(Favorite.class));
+        verify(favoriteRepository).findAndRemoveByUserIdAndContentId(userId, contentId);
+        verify(favoriteRepository).insert(any(Favorite.class));
+        verify(favoriteRepository, never()).existsByUserIdAndContentId(any(), any());
     }
 
     @Test
     @DisplayName("6.2 Toggle - Suppression d'un favori existant")
     void toggleFavorite_WhenFavoriteExists_ShouldRemoveFavorite() {
         // Arrange
-        when(favoriteRepository.findByUserIdAndContentId(userId, contentId))
+        when(favoriteRepository.findAndRemoveByUserIdAndContentId(userId, contentId))
                 .thenReturn(Optional.of(testFavorite));
-        doNothing().when(favoriteRepository).deleteByUserIdAndContentId(userId, contentId);
 
         // Act
         FavoriteDto result = favoriteService.toggleFavorite(testRequest);
 
         // Assert
         assertNull(result);
-        verify(favoriteRepository).findByUserIdAndContentId(userId, contentId);
-        verify(favoriteRepository).deleteByUserIdAndContentId(userId, contentId);
+        verify(favoriteRepository).findAndRemoveByUserIdAndContentId(userId, contentId);
+        verify(favoriteRepository, never()).insert(any(Favorite.class));
         verify(favoriteRepository, never()).save(any(Favorite.class));
     }
+
+    @Test
+    @DisplayName("6.3 Toggle - Ajout concurrent détecté par l'index unique")
+    void toggleFavorite_WhenConcurrentlyAdded_ShouldRemoveIt() {
+        // Arrange
+        when(favoriteRepository.findAndRemoveByUserIdAndContentId(userId, contentId))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(testFavorite));
+        when(favoriteRepository.insert(any(Favorite.class)))
+                .thenThrow(new DuplicateKeyException("user_content_idx"));
+
+        // Act
+        FavoriteDto result = favoriteService.toggleFavorite(testRequest);
+
+        // Assert
+        assertNull(result);
+        verify(favoriteRepository, times(2)).findAndRemoveByUserIdAndContentId(userId, contentId);
+        verify(favoriteRepository, times(1)).insert(any(Favorite.class));
+    }
+
+    @Test
+    @DisplayName("7. Ajout groupé - doublon signalé par l'index unique")
+    void addFavorites_WhenOneItemIsDuplicate_ShouldReportPerItemStatus() {
+        // Arrange
+        AddFavoriteRequest otherRequest = AddFavoriteRequest.builder()
+                .userId(userId)
+                .contentId("content999")
+                .contentType(ContentType.VIDEO)
+                .title("Test Video")
+                .build();
+        when(favoriteRepository.insertAllUnordered(anyList()))
+                .thenReturn(Map.of(0, 11000));
+
+        // Act
+        BatchFavoritesResponse result = favoriteService.addFavorites(List.of(testRequest, otherRequest));
+
+        // Assert
+        assertEquals(1, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        assertEquals(BatchItemStatus.ALREADY_EXISTS, result.getResults().get(0).getStatus());
+        assertEquals(BatchItemStatus.CREATED, result.getResults().get(1).getStatus());
+        assertNotNull(result.getResults().get(1).getFavorite().getId());
+        verify(favoriteRepository).insertAllUnordered(anyList());
+        verify(favoriteRepository, never()).existsByUserIdAndContentId(any(), any());
+        verify(cacheInvalidator).evictUser(userId, Set.of(ContentType.VIDEO));
+    }
+
+    @Test
+    @DisplayName("7.1 Suppression groupée - favoris existants et inexistants")
+    void removeFavorites_ShouldDeleteExistingInOneCallAndReportMissing() {
+        // Arrange
+        when(favoriteRepository.findByUserContentPairs(any()))
+                .thenReturn(List.of(testFavorite));
+        when(favoriteRepository.deleteAllByIdIfPresent(anyList())).thenReturn(true);
+        List<RemoveFavoriteRequest> requests = List.of(
+                new RemoveFavoriteRequest(userId, contentId),
+                new RemoveFavoriteRequest(userId, "unknown"));
+
+        // Act
+        BatchFavoritesResponse result = favoriteService.removeFavorites(requests);
+
+        // Assert
+        assertEquals(BatchItemStatus.REMOVED, result.getResults().get(0).getStatus());
+        assertEquals(BatchItemStatus.NOT_FOUND, result.getResults().get(1).getStatus());
+        verify(favoriteRepository).deleteAllByIdIfPresent(List.of(testFavorite.getId()));
+        verify(favoriteRepository, never()).findAndRemoveByUserIdAndContentId(any(), any());
+        verify(cacheInvalidator).evictUser(userId, Set.of(contentType));
+    }
+
+    @Test
+    @DisplayName("7.2 Suppression groupée concurrente - seul l'auteur de chaque suppression la signale")
+    void removeFavorites_WhenConcurrentlyRemoved_ShouldFallBackToFindAndRemove() {
+        // Arrange - le second favori est supprimé par une autre requête entre la lecture et la suppression
+        Favorite other = Favorite.builder().id("fav790").userId(userId).contentId("content789")
+                .contentType(ContentType.VIDEO).build();
+        when(favoriteRepository.findByUserContentPairs(any())).thenReturn(List.of(testFavorite, other));
+        when(favoriteRepository.deleteAllByIdIfPresent(anyList())).thenReturn(false);
+        when(favoriteRepository.findAndRemoveByUserIdAndContentId(userId, contentId)).thenReturn(Optional.of(testFavorite));
+        when(favoriteRepository.findAndRemoveByUserIdAndContentId(userId, "content789")).thenReturn(Optional.empty());
+
+        // Act
+        BatchFavoritesResponse result = favoriteService.removeFavorites(List.of(
+                new RemoveFavoriteRequest(userId, contentId),
+                new RemoveFavoriteRequest(userId, "content789")));
+
+        // Assert
+        assertEquals(BatchItemStatus.REMOVED, result.getResults().get(0).getStatus());
+        assertEquals(BatchItemStatus.NOT_FOUND, result.getResults().get(1).getStatus());
+        verify(eventPublisher, times(1)).publishEvent(any(FavoriteChangedEvent.class));
+        verify(eventPublisher).publishEvent(argThat((FavoriteChangedEvent event) ->
+                !event.isAdded() && contentId.equals(event.getContentId())));
+        verify(cacheInvalidator).evictUser(userId, Set.of(contentType));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.FavoriteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Toggles concurrents sur un même couple utilisateur/contenu. Le repository simule les garanties
+ * de Mongo : findAndRemove atomique et index unique sur (userId, contentId). Chaque appel au
+ * repository compte pour un aller-retour.
+ */
+public class FavoriteServiceToggleConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int TOGGLES_PER_THREAD = 500;
+
+    private final Map<String, Favorite> collection = new ConcurrentHashMap<>();
+    private final AtomicInteger findAndRemoveCalls = new AtomicInteger();
+    private final AtomicInteger insertCalls = new AtomicInteger();
+    private final AtomicInteger duplicateKeyErrors = new AtomicInteger();
+
+    private FavoriteRepository favoriteRepository;
+    private FavoriteService favoriteService;
+
+    private final AddFavoriteRequest request = AddFavoriteRequest.builder()
+            .userId("user123")
+            .contentId("content456")
+            .contentType(ContentType.COURSE)
+            .title("Test Course")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        favoriteRepository = mock(FavoriteRepository.class);
+        when(favoriteRepository.findAndRemoveByUserIdAndContentId(anyString(), anyString()))
+                .thenAnswer(invocation -> {
+                    findAndRemoveCalls.incrementAndGet();
+                    String key = invocation.getArgument(0) + "|" + invocation.getArgument(1);
+                    return Optional.ofNullable(collection.remove(key));
+                });
+        when(favoriteRepository.insert(any(Favorite.class)))
+                .thenAnswer(invocation -> {
+                    insertCalls.incrementAndGet();
+                    Favorite favorite = invocation.getArgument(0);
+                    if (collection.putIfAbsent(favorite.getUserId() + "|" + favorite.getContentId(), favorite) != null) {
+                        duplicateKeyErrors.incrementAndGet();
+                        throw new DuplicateKeyException("user_content_idx");
+                    }
+                    return favorite;
+                });
+        favoriteService = new FavoriteService(favoriteRepository, mock(FavoriteCacheInvalidator.class),
+                mock(ApplicationEventPublisher.class), mock(FavoriteMembershipService.class),
+                mock(FavoriteWriteBehindQueue.class), mock(ContentCatalogService.class));
+    }
+
+    @Test
+    @DisplayName("Toggles concurrents : résultats cohérents et au plus deux allers-retours par tentative")
+    void toggleFavorite_UnderConcurrency_ShouldReportConsistentResults() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < TOGGLES_PER_THREAD; i++) {
+                    FavoriteDto result = favoriteService.toggleFavorite(request);
+                    (result != null ? added : removed).incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert - chaque toggle est soit un ajout soit une suppression, dans un ordre sériel valide
+        int toggles = THREADS * TOGGLES_PER_THREAD;
+        assertEquals(toggles, added.get() + removed.get());
+        assertEquals(collection.size(), added.get() - removed.get());
+
+        // Assert - allers-retours : un findAndRemove par tentative, un insert par ajout ou conflit
+        assertEquals(toggles + duplicateKeyErrors.get(), findAndRemoveCalls.get());
+        assertEquals(added.get() + duplicateKeyErrors.get(), insertCalls.get());
+        assertEquals(removed.get() + 2 * added.get() + 2 * duplicateKeyErrors.get(),
+                findAndRemoveCalls.get() + insertCalls.get());
+        verify(favoriteRepository, never()).existsByUserIdAndContentId(anyString(), anyString());
+        verify(favoriteRepository, never()).findByUserIdAndContentId(anyString(), anyString());
+        verify(favoriteRepository, never()).deleteByUserIdAndContentId(anyString(), anyString());
+    }
+}
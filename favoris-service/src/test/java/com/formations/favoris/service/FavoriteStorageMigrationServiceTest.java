@@ -0,0 +1,153 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.StorageMigrationStatusDto;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.FavoriteStorage;
+import com.formations.favoris.repository.MigratingFavoriteStorage;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class FavoriteStorageMigrationServiceTest {
+
+    private FavoriteStorage source;
+    private FavoriteStorage target;
+    private MigratingFavoriteStorage migrating;
+    private FavoriteStorageMigrationService migrationService;
+    private final String userId = "user123";
+
+    @BeforeEach
+    void setUp() {
+        source = mock(FavoriteStorage.class);
+        target = mock(FavoriteStorage.class);
+        migrating = new MigratingFavoriteStorage(source, target);
+        migrationService = new FavoriteStorageMigrationService(migrating, 100);
+    }
+
+    @Test
+    @DisplayName("1. Utilisateur : favoris manquants recopiés, favoris en trop supprimés de la cible")
+    void syncUser_ShouldCopyMissingAndRemoveExtra() {
+        // Arrange
+        Favorite kept = favorite("id1", "content1");
+        Favorite missing = favorite("id2", "content2");
+        Favorite extra = favorite("id3", "content3");
+        when(source.findByUserId(userId)).thenReturn(List.of(kept, missing));
+        when(target.findByUserId(userId)).thenReturn(List.of(kept, extra), List.of(kept, missing));
+        when(target.insertAllUnordered(any())).thenReturn(Map.of());
+
+        // Act
+        boolean consistent = migrationService.syncUser(source, target, userId);
+
+        // Assert
+        assertTrue(consistent);
+        verify(target).deleteAllById(List.of("id3"));
+        verify(target).insertAllUnordered(List.of(missing));
+        StorageMigrationStatusDto status = migrationService.getStatus();
+        assertEquals(1, status.getFavoritesCopied());
+        assertEquals(1, status.getFavoritesRemoved());
+    }
+
+    @Test
+    @DisplayName("2. Utilisateur toujours différent après les tentatives : signalé dans le statut")
+    void syncUser_StillDifferent_ShouldReportMismatch() {
+        // Arrange
+        when(source.findByUserId(userId)).thenReturn(List.of(favorite("id1", "content1")));
+        when(target.findByUserId(userId)).thenReturn(List.of());
+        when(target.insertAllUnordered(any())).thenReturn(Map.of(0, 11000));
+
+        // Act
+        boolean consistent = migrationService.syncUser(source, target, userId);
+
+        // Assert
+        assertFalse(consistent);
+        verify(target, times(FavoriteStorageMigrationService.MAX_ATTEMPTS)).insertAllUnordered(any());
+        assertEquals(List.of(userId), migrationService.getStatus().getMismatchedUsers());
+    }
+
+    @Test
+    @DisplayName("3. Double écriture : échec de la cible sans échec de la requête, utilisateur resynchronisé")
+    void migrate_ShouldRepairUsersWhoseMirrorFailed() {
+        // Arrange
+        Favorite favorite = favorite(null, "content1");
+        when(source.insert(favorite)).thenReturn(favorite);
+        when(target.insert(favorite)).thenThrow(new DataAccessResourceFailureException("cible indisponible"));
+        when(source.findUserIds(any(), anyInt())).thenReturn(List.of());
+        when(target.findUserIds(any(), anyInt())).thenReturn(List.of());
+        when(source.findByUserId(userId)).thenReturn(List.of(favorite));
+        when(target.findByUserId(userId)).thenReturn(List.of(), List.of(favorite));
+        when(target.insertAllUnordered(any())).thenReturn(Map.of());
+
+        // Act
+        migrating.insert(favorite);
+        migrationService.migrate(migrating, null);
+
+        // Assert
+        verify(target).insertAllUnordered(List.of(favorite));
+        assertEquals("COMPLETED", migrationService.getStatus().getState());
+        assertEquals(Set.of(), migrating.drainUsersToRepair());
+    }
+
+    @Test
+    @DisplayName("4. Parcours des utilisateurs par lots, utilisateurs absents de la source supprimés de la cible")
+    void migrate_ShouldWalkUsersAndRemoveTargetOnlyUsers() {
+        // Arrange
+        Favorite orphan = favorite("id9", "content9");
+        orphan.setUserId("user999");
+        when(source.findUserIds(isNull(), eq(100))).thenReturn(List.of(userId));
+        when(source.findUserIds(eq(userId), eq(100))).thenReturn(List.of());
+        when(target.findUserIds(isNull(), eq(100))).thenReturn(List.of(userId, "user999"));
+        when(target.findUserIds(eq("user999"), eq(100))).thenReturn(List.of());
+        when(source.findByUserId(eq(userId), any(Document.class))).thenReturn(List.of(favorite("id1", "content1")));
+        when(source.findByUserId(eq("user999"), any(Document.class))).thenReturn(List.of());
+        when(source.findByUserId(userId)).thenReturn(List.of(favorite("id1", "content1")));
+        when(target.findByUserId(userId)).thenReturn(List.of(favorite("id1", "content1")));
+        when(source.findByUserId("user999")).thenReturn(List.of());
+        when(target.findByUserId("user999")).thenReturn(List.of(orphan), List.of());
+
+        // Act
+        migrationService.migrate(migrating, null);
+
+        // Assert
+        verify(target).deleteAllById(List.of("id9"));
+        StorageMigrationStatusDto status = migrationService.getStatus();
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(2, status.getUsersProcessed());
+        assertEquals(userId, status.getLastUserId());
+    }
+
+    @Test
+    @DisplayName("5. Sans migration configurée : lancement refusé")
+    void start_WithoutMigration_ShouldThrow() {
+        // Arrange
+        FavoriteStorageMigrationService service = new FavoriteStorageMigrationService(source, 100);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> service.start(null));
+        assertEquals("IDLE", service.getStatus().getState());
+    }
+
+    private Favorite favorite(String id, String contentId) {
+        return Favorite.builder()
+                .id(id)
+                .userId(userId)
+                .contentId(contentId)
+                .contentType(ContentType.COURSE)
+                .createdAt(LocalDateTime.of(2024, 5, 1, 10, 0))
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.FavoriteSummaryDto;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.ContentMetadataRepository;
+import com.formations.favoris.repository.FavoriteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FavoriteSummaryServiceTest {
+
+    @Mock
+    private FavoriteRepository favoriteRepository;
+
+    private FavoriteSummaryService favoriteSummaryService;
+    private final String userId = "user123";
+    private final LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(
+                FavoriteSummaryService.IDS_CACHE, FavoriteSummaryService.SUMMARY_CACHE);
+        ContentCatalogService catalog = new ContentCatalogService(mock(ContentMetadataRepository.class),
+                new SimpleMeterRegistry(), 1_000, Duration.ofMinutes(10), true, Set.of());
+        favoriteSummaryService = new FavoriteSummaryService(favoriteRepository, cacheManager, catalog);
+    }
+
+    @Test
+    @DisplayName("1. Identifiants seuls depuis la projection contentId/contentType, mis en cache")
+    void getUserFavoriteSummaries_NoFields_ShouldReturnCachedIds() {
+        // Arrange
+        when(favoriteRepository.findIdsByUserId(userId)).thenReturn(List.of(
+                Favorite.builder().contentId("content1").contentType(ContentType.COURSE).build(),
+                Favorite.builder().contentId("content2").contentType(ContentType.VIDEO).build()));
+
+        // Act
+        List<FavoriteSummaryDto> first = favoriteSummaryService.getUserFavoriteSummaries(userId, List.of());
+        List<FavoriteSummaryDto> second = favoriteSummaryService.getUserFavoriteSummaries(userId, List.of("contentId"));
+
+        // Assert
+        assertEquals(List.of(
+                FavoriteSummaryDto.builder().contentId("content1").contentType(ContentType.COURSE).build(),
+                FavoriteSummaryDto.builder().contentId("content2").contentType(ContentType.VIDEO).build()), first);
+        assertEquals(first, second);
+        verify(favoriteRepository, times(1)).findIdsByUserId(userId);
+        verify(favoriteRepository, never()).findSummariesByUserId(anyString());
+        verify(favoriteRepository, never()).findByUserId(anyString());
+    }
+
+    @Test
+    @DisplayName("2. Champs choisis extraits du résumé en cache, les autres restent absents")
+    void getUserFavoriteSummaries_WithFields_ShouldReturnSelectedFieldsOnly() {
+        // Arrange
+        when(favoriteRepository.findSummariesByUserId(userId)).thenReturn(List.of(Favorite.builder()
+                .id("fav1")
+                .contentId("content1")
+                .contentType(ContentType.COURSE)
+                .title("Cours Java")
+                .thumbnailUrl("http://example.com/java.jpg")
+                .createdAt(now)
+                .build()));
+
+        // Act
+        List<FavoriteSummaryDto> titles = favoriteSummaryService.getUserFavoriteSummaries(userId, List.of("title"));
+        List<FavoriteSummaryDto> dated = favoriteSummaryService.getUserFavoriteSummaries(userId, List.of("id", "createdAt"));
+
+        // Assert
+        FavoriteSummaryDto title = titles.get(0);
+        assertEquals("Cours Java", title.getTitle());
+        assertEquals("content1", title.getContentId());
+        assertNull(title.getId());
+        assertNull(title.getThumbnailUrl());
+        assertNull(title.getCreatedAt());
+        assertEquals("fav1", dated.get(0).getId());
+        assertEquals(now, dated.get(0).getCreatedAt());
+        assertNull(dated.get(0).getTitle());
+        // Une seule entrée de résumé par utilisateur, quelle que soit la sélection
+        verify(favoriteRepository, times(1)).findSummariesByUserId(userId);
+    }
+
+    @Test
+    @DisplayName("3. Champ inconnu rejeté sans requête Mongo")
+    void getUserFavoriteSummaries_UnknownField_ShouldThrow() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> favoriteSummaryService.getUserFavoriteSummaries(userId, List.of("description")));
+        verifyNoInteractions(favoriteRepository);
+    }
+}
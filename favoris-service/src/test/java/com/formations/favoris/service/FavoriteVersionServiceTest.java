@@ -0,0 +1,78 @@
+package com.formations.favoris.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FavoriteVersionServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private FavoriteVersionService versionService;
+    private final String userId = "user123";
+
+    @BeforeEach
+    void setUp() {
+        versionService = new FavoriteVersionService(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("1. ETag composé de l'époque commune et de la version de l'utilisateur")
+    @SuppressWarnings("unchecked")
+    void getETag_ShouldCombineEpochAndUserVersion() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class),
+                eq(List.of(FavoriteVersionService.EPOCH_KEY, FavoriteVersionService.KEY_PREFIX + userId)), any()))
+                .thenReturn(List.of("1714557600000", "1714557600042"));
+
+        // Act
+        String eTag = versionService.getETag(userId);
+
+        // Assert
+        assertEquals("\"1714557600000-1714557600042\"", eTag);
+    }
+
+    @Test
+    @DisplayName("2. Redis indisponible : pas d'ETag, et l'échec d'un changement de version est signalé")
+    @SuppressWarnings("unchecked")
+    void redisUnavailable_ShouldReturnNoETagAndFailBump() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any()))
+                .thenThrow(new RedisConnectionFailureException("Redis indisponible"));
+
+        // Act & Assert
+        assertNull(versionService.getETag(userId));
+        assertThrows(RedisConnectionFailureException.class, () -> versionService.bump(userId));
+        assertThrows(RedisConnectionFailureException.class, () -> versionService.bumpAll());
+    }
+
+    @Test
+    @DisplayName("3. Changement de version : clé de l'utilisateur, ou époque commune pour tous")
+    void bump_ShouldIncrementUserKeyOrEpoch() {
+        // Act
+        versionService.bump(userId);
+        versionService.bumpAll();
+
+        // Assert
+        verify(redisTemplate).execute(eq(FavoriteVersionService.BUMP),
+                eq(List.of(FavoriteVersionService.KEY_PREFIX + userId)), any());
+        verify(redisTemplate).execute(eq(FavoriteVersionService.BUMP),
+                eq(List.of(FavoriteVersionService.EPOCH_KEY)), any());
+    }
+}
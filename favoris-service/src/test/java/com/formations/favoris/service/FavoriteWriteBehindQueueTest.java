@@ -0,0 +1,244 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.event.FavoriteChangedEvent;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.FavoriteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class FavoriteWriteBehindQueueTest {
+
+    private final FavoriteRepository favoriteRepository = mock(FavoriteRepository.class);
+    private final FavoriteCacheInvalidator cacheInvalidator = mock(FavoriteCacheInvalidator.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Integer> writtenBatchSizes = new CopyOnWriteArrayList<>();
+    private FavoriteWriteBehindQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("1. Les favoris en file sont écrits par lots bornés en taille")
+    void enqueue_ShouldGroupCommitInBoundedBatches() {
+        // Arrange - délai long : seuls la taille du lot et l'arrêt déclenchent l'écriture
+        recordBatches();
+        queue = newQueue(100, 10, Duration.ofSeconds(5), Duration.ofMillis(100));
+
+        // Act
+        for (int i = 0; i < 25; i++) {
+            assertEquals(FavoriteWriteBehindQueue.EnqueueResult.QUEUED, queue.enqueue(favorite("user" + i, "content1")));
+        }
+        queue.shutdown();
+
+        // Assert - lots d'au plus dix favoris, le reste étant vidé à l'arrêt
+        assertEquals(25, writtenBatchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(writtenBatchSizes.stream().allMatch(size -> size <= 10));
+        assertTrue(writtenBatchSizes.size() >= 3);
+        assertEquals(0, queue.getQueueDepth());
+        assertEquals(writtenBatchSizes.size(), meterRegistry.get("favoris.write_behind.flush").timer().count());
+        verify(cacheInvalidator, times(25)).evictUser(anyString(), anyCollection());
+    }
+
+    @Test
+    @DisplayName("2. Un lot incomplet est écrit après le délai maximal")
+    void enqueue_ShouldFlushPartialBatchAfterMaxDelay() throws Exception {
+        // Arrange
+        CountDownLatch written = new CountDownLatch(1);
+        when(favoriteRepository.insertAllUnordered(anyList())).thenAnswer(invocation -> {
+            written.countDown();
+            return Collections.emptyMap();
+        });
+        queue = newQueue(100, 50, Duration.ofMillis(20), Duration.ofMillis(100));
+
+        // Act
+        queue.enqueue(favorite("user1", "content1"));
+
+        // Assert
+        assertTrue(written.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("3. File pleine : l'appelant est renvoyé vers l'écriture synchrone")
+    void enqueue_WhenQueueIsFull_ShouldReject() throws Exception {
+        // Arrange - le flusher reste bloqué sur le premier lot
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(favoriteRepository.insertAllUnordered(anyList())).thenAnswer(invocation -> {
+            flushing.countDown();
+            release.await();
+            return Collections.emptyMap();
+        });
+        queue = newQueue(1, 1, Duration.ofMillis(1), Duration.ofMillis(10));
+        queue.enqueue(favorite("user1", "content1"));
+        assertTrue(flushing.await(2, TimeUnit.SECONDS));
+
+        // Act
+        FavoriteWriteBehindQueue.EnqueueResult second = queue.enqueue(favorite("user2", "content1"));
+        FavoriteWriteBehindQueue.EnqueueResult third = queue.enqueue(favorite("user3", "content1"));
+        release.countDown();
+
+        // Assert
+        assertEquals(FavoriteWriteBehindQueue.EnqueueResult.QUEUED, second);
+        assertEquals(FavoriteWriteBehindQueue.EnqueueResult.REJECTED, third);
+        assertEquals(1.0, meterRegistry.get("favoris.write_behind.rejected").counter().count());
+    }
+
+    @Test
+    @DisplayName("4. Doublon en attente et annulation avant écriture")
+    void cancel_BeforeFlush_ShouldDropPendingFavorite() {
+        // Arrange
+        recordBatches();
+        queue = newQueue(100, 10, Duration.ofSeconds(5), Duration.ofMillis(100));
+        queue.enqueue(favorite("user1", "content1"));
+        queue.enqueue(favorite("user1", "content2"));
+
+        // Act
+        FavoriteWriteBehindQueue.EnqueueResult duplicate = queue.enqueue(favorite("user1", "content1"));
+        Optional<Favorite> cancelled = queue.cancel("user1", "content1");
+        Optional<Favorite> unknown = queue.cancel("user1", "content3");
+        queue.shutdown();
+
+        // Assert
+        assertEquals(FavoriteWriteBehindQueue.EnqueueResult.DUPLICATE, duplicate);
+        assertTrue(cancelled.isPresent());
+        assertTrue(unknown.isEmpty());
+        assertEquals(List.of(1), writtenBatchSizes);
+    }
+
+    @Test
+    @DisplayName("5. Panne Mongo prolongée : le lot est retenté jusqu'au succès, sans perte")
+    void write_WhenMongoFailsRepeatedly_ShouldRetryUntilWritten() throws Exception {
+        // Arrange - dix échecs consécutifs (bascule du primaire), puis succès
+        CountDownLatch written = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        when(favoriteRepository.insertAllUnordered(anyList())).thenAnswer(invocation -> {
+            if (attempts.incrementAndGet() <= 10) {
+                throw new DataAccessResourceFailureException("Primaire indisponible");
+            }
+            written.countDown();
+            return Collections.emptyMap();
+        });
+        queue = newQueue(100, 10, Duration.ofMillis(1), Duration.ofMillis(100));
+
+        // Act
+        queue.enqueue(favorite("user1", "content1"));
+
+        // Assert
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        assertEquals(11, attempts.get());
+        verify(eventPublisher, never()).publishEvent(any());
+        assertEquals(0, meterRegistry.get("favoris.write_behind.lost").counter().count());
+    }
+
+    @Test
+    @DisplayName("6. Annulation pendant les nouvelles tentatives : immédiate, le favori n'est plus écrit")
+    void cancel_DuringRetries_ShouldNotWaitForMongo() throws Exception {
+        // Arrange
+        CountDownLatch failing = new CountDownLatch(2);
+        List<List<Favorite>> attempted = new CopyOnWriteArrayList<>();
+        when(favoriteRepository.insertAllUnordered(anyList())).thenAnswer(invocation -> {
+            attempted.add(List.copyOf(invocation.getArgument(0)));
+            failing.countDown();
+            throw new DataAccessResourceFailureException("Primaire indisponible");
+        });
+        queue = newQueue(100, 10, Duration.ofMillis(1), Duration.ofMillis(100));
+        queue.enqueue(favorite("user1", "content1"));
+        queue.enqueue(favorite("user1", "content2"));
+        assertTrue(failing.await(5, TimeUnit.SECONDS));
+
+        // Act
+        long start = System.nanoTime();
+        Optional<Favorite> cancelled = queue.cancel("user1", "content1");
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int attemptsAtCancel = attempted.size();
+        Thread.sleep(100);
+
+        // Assert
+        assertTrue(cancelled.isPresent());
+        assertTrue(waitedMillis < 1_000, waitedMillis + " ms");
+        assertTrue(attempted.size() > attemptsAtCancel);
+        assertEquals(List.of("content2"), attempted.get(attempted.size() - 1).stream().map(Favorite::getContentId).toList());
+    }
+
+    @Test
+    @DisplayName("7. Favori rejeté par la base : retiré des caches comme une suppression")
+    void write_WhenFavoriteCannotBeWritten_ShouldRollBackCaches() {
+        // Arrange - content1 est rejeté, content2 est un doublon, qu'ils soient écrits ensemble ou non
+        when(favoriteRepository.insertAllUnordered(anyList())).thenAnswer(invocation -> {
+            List<Favorite> batch = invocation.getArgument(0);
+            Map<Integer, Integer> errors = new HashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                errors.put(i, "content1".equals(batch.get(i).getContentId()) ? 121 : 11000);
+            }
+            return errors;
+        });
+        queue = newQueue(100, 10, Duration.ofSeconds(5), Duration.ofMillis(100));
+        queue.enqueue(favorite("user1", "content1"));
+        queue.enqueue(favorite("user1", "content2"));
+
+        // Act
+        queue.shutdown();
+
+        // Assert
+        ArgumentCaptor<FavoriteChangedEvent> event = ArgumentCaptor.forClass(FavoriteChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertFalse(event.getValue().isAdded());
+        assertEquals("content1", event.getValue().getContentId());
+        assertEquals(1, meterRegistry.get("favoris.write_behind.lost").counter().count());
+        verify(cacheInvalidator, atLeastOnce()).evictUser(eq("user1"), anyCollection());
+    }
+
+    private void recordBatches() {
+        when(favoriteRepository.insertAllUnordered(anyList())).thenAnswer(invocation -> {
+            List<Favorite> batch = invocation.getArgument(0);
+            writtenBatchSizes.add(batch.size());
+            return Collections.emptyMap();
+        });
+    }
+
+    private FavoriteWriteBehindQueue newQueue(int capacity, int batchSize, Duration maxDelay, Duration offerTimeout) {
+        FavoriteWriteBehindQueue created = new FavoriteWriteBehindQueue(favoriteRepository, cacheInvalidator,
+                eventPublisher, meterRegistry, true, capacity, batchSize, maxDelay, offerTimeout, Duration.ofMillis(20));
+        created.start();
+        return created;
+    }
+
+    private Favorite favorite(String userId, String contentId) {
+        return Favorite.builder()
+                .id(userId + "-" + contentId)
+                .userId(userId)
+                .contentId(contentId)
+                .contentType(ContentType.COURSE)
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.formations.favoris.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotUserTrackerTest {
+
+    @Test
+    @DisplayName("1. Utilisateurs fréquents retenus parmi de nombreux utilisateurs lus une seule fois")
+    void hottest_ShouldKeepFrequentUsersAmongOneOffReads() {
+        // Arrange
+        HotUserTracker tracker = new HotUserTracker(50);
+        Set<String> hot = users("hot", 50);
+
+        // Act
+        for (int round = 0; round < 20; round++) {
+            hot.forEach(tracker::recordAccess);
+            for (int i = 0; i < 250; i++) {
+                tracker.recordAccess("cold-" + round + "-" + i);
+            }
+        }
+
+        // Assert
+        List<String> hottest = tracker.hottest();
+        assertEquals(50, hottest.size());
+        assertEquals(hot, Set.copyOf(hottest));
+    }
+
+    @Test
+    @DisplayName("2. Mémoire bornée : candidats limités quel que soit le nombre d'utilisateurs distincts")
+    void recordAccess_ShouldBoundCandidates() {
+        // Arrange
+        HotUserTracker tracker = new HotUserTracker(100);
+
+        // Act
+        for (int i = 0; i < 50_000; i++) {
+            tracker.recordAccess("user-" + i);
+        }
+
+        // Assert
+        assertTrue(tracker.hottest().size() <= 100);
+    }
+
+    @Test
+    @DisplayName("3. Vieillissement : les anciens utilisateurs fréquents cèdent la place aux nouveaux")
+    void hottest_AfterTrafficShift_ShouldPreferRecentUsers() {
+        // Arrange
+        HotUserTracker tracker = new HotUserTracker(10);
+        Set<String> before = users("before", 10);
+        Set<String> after = users("after", 10);
+
+        // Act
+        for (int round = 0; round < 200; round++) {
+            before.forEach(tracker::recordAccess);
+        }
+        for (int round = 0; round < 300; round++) {
+            after.forEach(tracker::recordAccess);
+        }
+
+        // Assert
+        assertEquals(after, Set.copyOf(tracker.hottest()));
+        String anyBefore = before.iterator().next();
+        assertTrue(tracker.frequency(anyBefore) < 200);
+    }
+
+    @Test
+    @DisplayName("4. Instantané précédent repris au démarrage")
+    void seed_ShouldAddPreviousHotUsers() {
+        // Arrange
+        HotUserTracker tracker = new HotUserTracker(10);
+
+        // Act
+        tracker.seed(List.of("user1", "user2"));
+        tracker.recordAccess("user3");
+
+        // Assert
+        assertEquals(Set.of("user1", "user2", "user3"), Set.copyOf(tracker.hottest()));
+    }
+
+    private static Set<String> users(String prefix, int count) {
+        return IntStream.range(0, count).mapToObj(i -> prefix + "-" + i).collect(Collectors.toSet());
+    }
+}
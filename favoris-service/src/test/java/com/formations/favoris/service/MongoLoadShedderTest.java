@@ -0,0 +1,113 @@
+package com.formations.favoris.service;
+
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MongoLoadShedderTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MongoLoadShedder loadShedder =
+            new MongoLoadShedder(meterRegistry, true, Duration.ofMillis(50), 0.9, Duration.ofSeconds(1));
+
+    @Test
+    @DisplayName("1. Latence sous la cible : toutes les requêtes admises")
+    void tryAdmit_BelowTarget_ShouldAdmitAll() {
+        // Arrange
+        for (int i = 0; i < 100; i++) {
+            loadShedder.recordCommand(10 * MILLIS);
+            loadShedder.recordCheckout(MILLIS);
+        }
+
+        // Act & Assert
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(loadShedder.tryAdmit());
+        }
+        assertEquals(0, meterRegistry.get("favoris.load_shedding.rejected").counter().count());
+    }
+
+    @Test
+    @DisplayName("2. Latence au-dessus de la cible : part refusée proportionnelle à l'excès, puis retour à la normale")
+    void tryAdmit_AboveTarget_ShouldShedProportionallyAndRecover() {
+        // Arrange - 100 ms d'attente du pool + 100 ms de commande : 200 ms estimées, 75 % refusées
+        for (int i = 0; i < 200; i++) {
+            loadShedder.recordCommand(100 * MILLIS);
+            loadShedder.recordCheckout(100 * MILLIS);
+        }
+
+        // Act
+        int rejected = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (!loadShedder.tryAdmit()) {
+                rejected++;
+            }
+        }
+
+        // Assert
+        assertEquals(0.75, rejected / 10_000.0, 0.03);
+        assertEquals(rejected, meterRegistry.get("favoris.load_shedding.rejected").counter().count());
+        assertTrue(loadShedder.estimatedLatencyNanos(System.nanoTime() + TimeUnit.SECONDS.toNanos(5)) < 50 * MILLIS);
+        for (int i = 0; i < 100; i++) {
+            loadShedder.recordCommand(5 * MILLIS);
+            loadShedder.recordCheckout(0);
+        }
+        assertTrue(loadShedder.tryAdmit());
+    }
+
+    @Test
+    @DisplayName("3. Événements du driver : commandes et attentes du pool mesurées, getMore ignoré")
+    void driverEvents_ShouldFeedEstimateExceptGetMore() {
+        // Arrange - décroissance négligeable pendant le test
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MongoLoadShedder loadShedder =
+                new MongoLoadShedder(meterRegistry, true, Duration.ofMillis(50), 0.9, Duration.ofHours(1));
+        CommandSucceededEvent find = command("find", 80);
+        CommandSucceededEvent getMore = command("getMore", 1_000);
+        ConnectionCheckedOutEvent checkout = mock(ConnectionCheckedOutEvent.class);
+        when(checkout.getElapsedTime(TimeUnit.NANOSECONDS)).thenReturn(20 * MILLIS);
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            loadShedder.commandSucceeded(find);
+            loadShedder.commandSucceeded(getMore);
+            loadShedder.connectionCheckedOut(checkout);
+        }
+
+        // Assert
+        assertEquals(100 * MILLIS, loadShedder.estimatedLatencyNanos(System.nanoTime()), 2 * MILLIS);
+        assertEquals(0.1, meterRegistry.get("favoris.load_shedding.latency").gauge().value(), 0.002);
+    }
+
+    @Test
+    @DisplayName("4. Délestage désactivé : requêtes admises quelle que soit la latence")
+    void tryAdmit_Disabled_ShouldAdmitAll() {
+        // Arrange
+        MongoLoadShedder disabled =
+                new MongoLoadShedder(new SimpleMeterRegistry(), false, Duration.ofMillis(50), 0.9, Duration.ofSeconds(1));
+        for (int i = 0; i < 100; i++) {
+            disabled.recordCommand(1_000 * MILLIS);
+        }
+
+        // Act & Assert
+        for (int i = 0; i < 100; i++) {
+            assertTrue(disabled.tryAdmit());
+        }
+    }
+
+    private static CommandSucceededEvent command(String name, long elapsedMillis) {
+        CommandSucceededEvent event = mock(CommandSucceededEvent.class);
+        when(event.getCommandName()).thenReturn(name);
+        when(event.getElapsedTime(TimeUnit.NANOSECONDS)).thenReturn(elapsedMillis * MILLIS);
+        return event;
+    }
+}
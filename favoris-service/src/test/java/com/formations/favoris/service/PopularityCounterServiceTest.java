@@ -0,0 +1,208 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.event.FavoriteChangedEvent;
+import com.formations.favoris.model.ContentPopularity;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.ContentPopularityRepository;
+import com.formations.favoris.repository.FavoriteStorage;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PopularityCounterServiceTest {
+
+    @Mock
+    private ContentPopularityRepository popularityRepository;
+
+    @Mock
+    private FavoriteStorage favoriteStorage;
+
+    private PopularityCounterService popularityCounterService;
+
+    @BeforeEach
+    void setUp() {
+        popularityCounterService = new PopularityCounterService(popularityRepository, favoriteStorage, Duration.ofSeconds(5), 100);
+    }
+
+    @Test
+    @DisplayName("1. Les variations sont agrégées et écrites en un seul lot")
+    void flush_ShouldWriteAggregatedDeltasOnce() {
+        // Arrange
+        popularityCounterService.onFavoriteChanged(added("content1"));
+        popularityCounterService.onFavoriteChanged(added("content1"));
+        popularityCounterService.onFavoriteChanged(added("content2"));
+        popularityCounterService.onFavoriteChanged(removed("content2"));
+        popularityCounterService.onFavoriteChanged(removed("content3"));
+
+        // Act
+        int flushed = popularityCounterService.flush();
+        int flushedAgain = popularityCounterService.flush();
+
+        // Assert
+        assertEquals(2, flushed);
+        assertEquals(0, flushedAgain);
+        verify(popularityRepository, times(1)).incrementCounts(Map.of("content1", 2L, "content3", -1L));
+    }
+
+    @Test
+    @DisplayName("2. Un flush en échec conserve les variations pour le suivant")
+    void flush_WhenWriteFails_ShouldKeepDeltas() {
+        // Arrange
+        popularityCounterService.onFavoriteChanged(added("content1"));
+        doThrow(new RuntimeException("Mongo indisponible")).doNothing()
+                .when(popularityRepository).incrementCounts(anyMap());
+
+        // Act
+        int failed = popularityCounterService.flush();
+        int retried = popularityCounterService.flush();
+
+        // Assert
+        assertEquals(0, failed);
+        assertEquals(1, retried);
+        verify(popularityRepository, times(2)).incrementCounts(Map.of("content1", 1L));
+    }
+
+    @Test
+    @DisplayName("3. Aucun incrément n'est perdu pendant des flushs concurrents")
+    void onFavoriteChanged_UnderConcurrentFlushes_ShouldNotLoseIncrements() throws Exception {
+        // Arrange
+        long[] written = new long[1];
+        doAnswer(invocation -> {
+            Map<String, Long> deltas = invocation.getArgument(0);
+            synchronized (written) {
+                written[0] += deltas.getOrDefault("content1", 0L);
+            }
+            return null;
+        }).when(popularityRepository).incrementCounts(anyMap());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    popularityCounterService.onFavoriteChanged(added("content1"));
+                    if (i % 1000 == 0) {
+                        popularityCounterService.flush();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        popularityCounterService.flush();
+
+        // Assert
+        assertEquals(80_000L, written[0]);
+    }
+
+    @Test
+    @DisplayName("4. Les lectures groupées sont servies par la collection de compteurs puis le cache")
+    void getCounts_ShouldReadCountersOnceAndDefaultToZero() {
+        // Arrange
+        when(popularityRepository.findAllById(anyList()))
+                .thenReturn(List.of(ContentPopularity.builder().contentId("content1").count(42).build()));
+
+        // Act
+        Map<String, Long> first = popularityCounterService.getCounts(List.of("content1", "content2"));
+        Map<String, Long> second = popularityCounterService.getCounts(List.of("content2", "content1"));
+
+        // Assert
+        assertEquals(List.of("content1", "content2"), List.copyOf(first.keySet()));
+        assertEquals(42L, first.get("content1"));
+        assertEquals(0L, first.get("content2"));
+        assertEquals(first.get("content1"), second.get("content1"));
+        verify(popularityRepository, times(1)).findAllById(anyList());
+    }
+
+    @Test
+    @DisplayName("5. Échec partiel du lot : seules les variations en échec sont rejouées")
+    void flush_WhenSomeBulkOperationsFail_ShouldRetryOnlyFailedDeltas() {
+        // Arrange
+        popularityCounterService.onFavoriteChanged(added("content1"));
+        popularityCounterService.onFavoriteChanged(added("content2"));
+        popularityCounterService.onFavoriteChanged(added("content3"));
+        List<Map<String, Long>> written = new ArrayList<>();
+        String[] failedContentId = new String[1];
+        doAnswer(invocation -> {
+            Map<String, Long> deltas = invocation.getArgument(0);
+            written.add(Map.copyOf(deltas));
+            if (written.size() == 1) {
+                // L'opération d'index 1 échoue, les autres sont appliquées
+                failedContentId[0] = List.copyOf(deltas.keySet()).get(1);
+                throw new BulkOperationException("Échec partiel", new MongoBulkWriteException(
+                        BulkWriteResult.unacknowledged(),
+                        List.of(new BulkWriteError(11600, "interrupted", new BsonDocument(), 1)),
+                        null, new ServerAddress(), Set.of()));
+            }
+            return null;
+        }).when(popularityRepository).incrementCounts(anyMap());
+
+        // Act
+        int flushed = popularityCounterService.flush();
+        int retried = popularityCounterService.flush();
+
+        // Assert
+        assertEquals(2, flushed);
+        assertEquals(1, retried);
+        assertEquals(List.of(Map.of("content1", 1L, "content2", 1L, "content3", 1L), Map.of(failedContentId[0], 1L)),
+                written);
+    }
+
+    @Test
+    @DisplayName("6. Démarrage : compteurs reconstruits depuis les favoris une seule fois")
+    void backfill_ShouldMergeCountsOnlyWhenNeverDone() {
+        // Arrange
+        when(popularityRepository.existsById(PopularityCounterService.BACKFILL_MARKER)).thenReturn(false, true);
+
+        // Act
+        popularityCounterService.backfill();
+        popularityCounterService.backfill();
+
+        // Assert
+        verify(favoriteStorage, times(1)).mergeCountsByContent(ContentPopularity.COLLECTION);
+        verify(popularityRepository, times(1)).save(argThat(popularity ->
+                PopularityCounterService.BACKFILL_MARKER.equals(popularity.getContentId())));
+    }
+
+    private FavoriteChangedEvent added(String contentId) {
+        return FavoriteChangedEvent.added(favorite(contentId));
+    }
+
+    private FavoriteChangedEvent removed(String contentId) {
+        return FavoriteChangedEvent.removed(favorite(contentId));
+    }
+
+    private Favorite favorite(String contentId) {
+        return Favorite.builder().userId("user123").contentId(contentId).contentType(ContentType.COURSE).build();
+    }
+}
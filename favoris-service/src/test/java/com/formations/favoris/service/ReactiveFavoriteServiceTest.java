@@ -0,0 +1,175 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.AddFavoriteRequest;
+import com.formations.favoris.dto.FavoriteDto;
+import com.formations.favoris.event.FavoriteChangedEvent;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.ContentMetadataRepository;
+import com.formations.favoris.repository.ReactiveFavoriteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveFavoriteServiceTest {
+
+    @Mock
+    private ReactiveFavoriteRepository favoriteRepository;
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private ReactiveRedisTemplate<String, Object> favoritesReactiveRedisTemplate;
+
+    @Mock
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ReactiveValueOperations<String, Object> valueOperations;
+
+    private ReactiveFavoriteService reactiveFavoriteService;
+
+    private Favorite testFavorite;
+    private AddFavoriteRequest testRequest;
+    private final String userId = "user123";
+    private final String contentId = "content456";
+
+    @BeforeEach
+    void setUp() {
+        // Construction explicite : les deux templates Redis sont du même type pour Mockito
+        reactiveFavoriteService = new ReactiveFavoriteService(favoriteRepository, mongoTemplate,
+                favoritesReactiveRedisTemplate, stringRedisTemplate, eventPublisher,
+                new ContentCatalogService(mock(ContentMetadataRepository.class), new SimpleMeterRegistry(),
+                        1_000, Duration.ofMinutes(10), true, Set.of()));
+
+        LocalDateTime now = LocalDateTime.now();
+        testFavorite = Favorite.builder()
+                .id("fav789")
+                .userId(userId)
+                .contentId(contentId)
+                .contentType(ContentType.COURSE)
+                .title("Test Course")
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        testRequest = AddFavoriteRequest.builder()
+                .userId(userId)
+                .contentId(contentId)
+                .contentType(ContentType.COURSE)
+                .title("Test Course")
+                .build();
+    }
+
+    @Test
+    @DisplayName("1. Hit Redis : aucun accès à Mongo")
+    void getUserFavorites_WhenCached_ShouldNotQueryMongo() {
+        // Arrange
+        List<FavoriteDto> cached = new ArrayList<>(List.of(FavoriteService.convertToDto(testFavorite)));
+        when(favoritesReactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("favorites::" + userId)).thenReturn(Mono.just(cached));
+
+        // Act & Assert
+        StepVerifier.create(reactiveFavoriteService.getUserFavorites(userId))
+                .assertNext(favorites -> assertEquals("fav789", favorites.get(0).getId()))
+                .verifyComplete();
+        verify(favoriteRepository, never()).findByUserId(anyString());
+    }
+
+    @Test
+    @DisplayName("2. Miss Redis : chargement depuis Mongo puis mise en cache avec le TTL")
+    void getUserFavorites_WhenNotCached_ShouldLoadAndCache() {
+        // Arrange
+        when(favoritesReactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("favorites::" + userId)).thenReturn(Mono.empty());
+        when(valueOperations.set(eq("favorites::" + userId), any(), eq(Duration.ofMinutes(5)))).thenReturn(Mono.just(true));
+        when(favoriteRepository.findByUserId(userId)).thenReturn(Flux.just(testFavorite));
+
+        // Act & Assert
+        StepVerifier.create(reactiveFavoriteService.getUserFavorites(userId))
+                .assertNext(favorites -> assertEquals(1, favorites.size()))
+                .verifyComplete();
+        verify(valueOperations).set(eq("favorites::" + userId), any(), eq(Duration.ofMinutes(5)));
+    }
+
+    @Test
+    @DisplayName("3. Ajout d'un doublon : erreur IllegalStateException sans écriture")
+    void addFavorite_WhenFavoriteExists_ShouldFail() {
+        // Arrange
+        when(favoriteRepository.existsByUserIdAndContentId(userId, contentId)).thenReturn(Mono.just(true));
+
+        // Act & Assert
+        StepVerifier.create(reactiveFavoriteService.addFavorite(testRequest))
+                .expectError(IllegalStateException.class)
+                .verify();
+        verify(favoriteRepository, never()).insert(any(Favorite.class));
+    }
+
+    @Test
+    @DisplayName("4. Toggle : suppression atomique, invalidation diffusée et événement publié")
+    void toggleFavorite_WhenFavoriteExists_ShouldRemoveAndInvalidate() {
+        // Arrange
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(Favorite.class))).thenReturn(Mono.just(testFavorite));
+        when(favoritesReactiveRedisTemplate.delete(anyString())).thenReturn(Mono.just(1L));
+        when(stringRedisTemplate.convertAndSend(anyString(), anyString())).thenReturn(Mono.just(1L));
+        when(stringRedisTemplate.execute(eq(FavoriteVersionService.BUMP), anyList(), anyList())).thenReturn(Flux.just(2L));
+
+        // Act & Assert
+        StepVerifier.create(reactiveFavoriteService.toggleFavorite(testRequest))
+                .assertNext(added -> assertTrue(added.isEmpty()))
+                .verifyComplete();
+        verify(favoritesReactiveRedisTemplate).delete("favorites::" + userId);
+        verify(favoritesReactiveRedisTemplate).delete("favoritesByType::" + userId + "_COURSE");
+        verify(favoritesReactiveRedisTemplate).delete("favoritesIds::" + userId);
+        verify(favoritesReactiveRedisTemplate).delete("favoritesSummary::" + userId);
+        verify(stringRedisTemplate, times(5)).convertAndSend(eq("favoris:cache-invalidation"), anyString());
+        verify(stringRedisTemplate).execute(eq(FavoriteVersionService.BUMP), eq(List.of("favoris:version:" + userId)), anyList());
+        verify(eventPublisher).publishEvent(any(FavoriteChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("5. Toggle : conflits persistants signalés par IllegalStateException")
+    void toggleFavorite_WhenConflictPersists_ShouldFail() {
+        // Arrange
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(Favorite.class))).thenReturn(Mono.empty());
+        when(favoriteRepository.insert(any(Favorite.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("user_content_idx")));
+
+        // Act & Assert
+        StepVerifier.create(reactiveFavoriteService.toggleFavorite(testRequest))
+                .expectError(IllegalStateException.class)
+                .verify();
+        verify(favoriteRepository, times(3)).insert(any(Favorite.class));
+    }
+}
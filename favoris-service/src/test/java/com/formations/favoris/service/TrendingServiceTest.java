@@ -0,0 +1,104 @@
+package com.formations.favoris.service;
+
+import com.formations.favoris.dto.TrendingContentDto;
+import com.formations.favoris.event.FavoriteChangedEvent;
+import com.formations.favoris.model.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendingServiceTest {
+
+    private TrendingService trendingService;
+    private final Instant now = Instant.now();
+
+    @BeforeEach
+    void setUp() {
+        trendingService = new TrendingService(Duration.ofHours(1), 3);
+    }
+
+    @Test
+    @DisplayName("1. Les ajouts récents pèsent plus que les ajouts anciens")
+    void refresh_ShouldRankByDecayedCount() {
+        // Arrange - trois ajouts il y a deux demi-vies contre deux ajouts récents
+        for (int i = 0; i < 3; i++) {
+            trendingService.onFavoriteChanged(added("old", ContentType.COURSE, now.minus(Duration.ofHours(2))));
+        }
+        trendingService.onFavoriteChanged(added("recent", ContentType.COURSE, now));
+        trendingService.onFavoriteChanged(added("recent", ContentType.COURSE, now));
+        trendingService.onFavoriteChanged(added("video1", ContentType.VIDEO, now));
+
+        // Act
+        trendingService.refresh(now);
+        List<TrendingContentDto> courses = trendingService.getTrending(ContentType.COURSE, 10);
+
+        // Assert
+        assertEquals(List.of("recent", "old"), courses.stream().map(TrendingContentDto::getContentId).toList());
+        assertEquals(2.0, courses.get(0).getScore(), 1e-6);
+        assertEquals(0.75, courses.get(1).getScore(), 1e-6);
+        assertEquals(1, trendingService.getTrending(ContentType.VIDEO, 10).size());
+        assertTrue(trendingService.getTrending(ContentType.ARTICLE, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("2. Les suppressions sont ignorées et les lectures servent le dernier instantané")
+    void getTrending_ShouldServeLastSnapshot() {
+        // Arrange
+        trendingService.onFavoriteChanged(added("content1", ContentType.COURSE, now));
+        trendingService.refresh(now);
+
+        // Act
+        trendingService.onFavoriteChanged(added("content2", ContentType.COURSE, now));
+        trendingService.onFavoriteChanged(new FavoriteChangedEvent(FavoriteChangedEvent.ChangeType.REMOVED,
+                "user123", "content1", ContentType.COURSE, "Cours", now));
+        List<TrendingContentDto> beforeRefresh = trendingService.getTrending(ContentType.COURSE, 10);
+        trendingService.refresh(now);
+        List<TrendingContentDto> afterRefresh = trendingService.getTrending(ContentType.COURSE, 10);
+
+        // Assert
+        assertEquals(1, beforeRefresh.size());
+        assertEquals(2, afterRefresh.size());
+        assertEquals(1.0, afterRefresh.get(0).getScore(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("3. Le nombre de candidats par type est borné")
+    void refresh_ShouldKeepAtMostCapacityCandidates() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j <= i; j++) {
+                trendingService.onFavoriteChanged(added("content" + i, ContentType.COURSE, now));
+            }
+        }
+
+        // Act
+        trendingService.refresh(now);
+        trendingService.onFavoriteChanged(added("content0", ContentType.COURSE, now));
+        trendingService.refresh(now);
+
+        // Assert - content0 a été oublié au premier élagage : son score repart de 1
+        List<TrendingContentDto> courses = trendingService.getTrending(ContentType.COURSE, 10);
+        assertEquals(List.of("content4", "content3", "content2", "content0"),
+                courses.stream().map(TrendingContentDto::getContentId).toList());
+        assertEquals(1.0, courses.get(3).getScore(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("4. Limite invalide")
+    void getTrending_WithInvalidLimit_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> trendingService.getTrending(ContentType.COURSE, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> trendingService.getTrending(ContentType.COURSE, TrendingService.MAX_LIMIT + 1));
+    }
+
+    private FavoriteChangedEvent added(String contentId, ContentType contentType, Instant occurredAt) {
+        return new FavoriteChangedEvent(FavoriteChangedEvent.ChangeType.ADDED,
+                "user123", contentId, contentType, "Titre " + contentId, occurredAt);
+    }
+}
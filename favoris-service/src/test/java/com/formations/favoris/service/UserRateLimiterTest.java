@@ -0,0 +1,188 @@
+package com.formations.favoris.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class UserRateLimiterTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("1. Rafale acceptée puis refus avec délai avant le prochain jeton, seaux indépendants par utilisateur")
+    void acquireLocal_ShouldAllowBurstThenRejectUntilRefill() {
+        // Arrange - 10 écritures/s (un jeton toutes les 100 ms), rafale de 3
+        UserRateLimiter limiter = limiter("local", 10, 3);
+        long now = 1_000_000_000L;
+
+        // Act & Assert
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.acquireLocal("abuser", now));
+        }
+        assertEquals(100, limiter.acquireLocal("abuser", now));
+        assertEquals(40, limiter.acquireLocal("abuser", now + TimeUnit.MILLISECONDS.toNanos(60)));
+        assertEquals(0, limiter.acquireLocal("abuser", now + TimeUnit.MILLISECONDS.toNanos(100)));
+        assertEquals(0, limiter.acquireLocal("user123", now));
+    }
+
+    @Test
+    @DisplayName("2. Accès concurrents : exactement la rafale acceptée, refus comptés")
+    void tryAcquire_Concurrent_ShouldNeverExceedBurst() throws Exception {
+        // Arrange - un jeton par heure : seule la rafale peut passer pendant le test
+        UserRateLimiter limiter = limiter("local", 1.0 / 3600, 50);
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 100; i++) {
+                    if (limiter.tryAcquire("abuser") == 0) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        // Act
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Assert
+        assertEquals(50, accepted.get());
+        assertEquals(750, meterRegistry.get("favoris.rate_limit.rejected").counter().count());
+    }
+
+    @Test
+    @DisplayName("3. Mode global : seau dans Redis, limite locale si Redis est indisponible")
+    void tryAcquire_Global_ShouldUseRedisAndFallBackToLocal() {
+        // Arrange
+        UserRateLimiter limiter = limiter("redis", 10, 1);
+        when(redisTemplate.execute(eq(UserRateLimiter.ACQUIRE), anyList(), any(), any(), any()))
+                .thenReturn(250L)
+                .thenThrow(new RedisConnectionFailureException("Redis indisponible"));
+
+        // Act & Assert
+        assertEquals(250, limiter.tryAcquire("user123"));
+        assertEquals(0, limiter.tryAcquire("user123"));
+        assertTrue(limiter.tryAcquire("user123") > 0);
+        verify(redisTemplate, times(3)).execute(eq(UserRateLimiter.ACQUIRE),
+                eq(List.of(UserRateLimiter.KEY_PREFIX + "user123")), eq("100000"), eq("0"), eq("1"));
+    }
+
+    @Test
+    @DisplayName("4. Limitation désactivée : toutes les écritures acceptées")
+    void tryAcquire_Disabled_ShouldAlwaysAllow() {
+        // Arrange
+        UserRateLimiter limiter = new UserRateLimiter(redisTemplate, meterRegistry, false, "local", 1, 1, 100);
+
+        // Act & Assert
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.tryAcquire("user123"));
+        }
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("5. Écriture groupée : un jeton par élément, un lot plus grand que la rafale passe une fois puis attend")
+    void acquireLocal_Batch_ShouldChargeOneTokenPerItem() {
+        // Arrange - 10 écritures/s, rafale de 3
+        UserRateLimiter limiter = limiter("local", 10, 3);
+        long now = 1_000_000_000L;
+
+        // Act & Assert - un lot de 2 laisse un seul jeton
+        assertEquals(0, limiter.acquireLocal(Map.of("user123", 2), now));
+        assertEquals(0, limiter.acquireLocal("user123", now));
+        assertEquals(100, limiter.acquireLocal("user123", now));
+
+        // Un lot de 10 vide le seau et repousse la prochaine écriture de 10 intervalles
+        assertEquals(0, limiter.acquireLocal(Map.of("abuser", 10), now));
+        assertEquals(800, limiter.acquireLocal("abuser", now));
+        assertEquals(0, limiter.acquireLocal("abuser", now + TimeUnit.MILLISECONDS.toNanos(800)));
+    }
+
+    @Test
+    @DisplayName("6. Lot de plusieurs utilisateurs : aucun seau débité si l'un d'eux est vide")
+    void acquireLocal_MultiUserBatch_ShouldCheckAllBucketsBeforeConsuming() {
+        // Arrange - rafale de 2, abuser déjà vide
+        UserRateLimiter limiter = limiter("local", 10, 2);
+        long now = 1_000_000_000L;
+        limiter.acquireLocal(Map.of("abuser", 2), now);
+        Map<String, Integer> batch = new LinkedHashMap<>();
+        batch.put("user123", 2);
+        batch.put("abuser", 1);
+
+        // Act
+        long retryAfterMillis = limiter.acquireLocal(batch, now);
+
+        // Assert - user123 garde toute sa rafale
+        assertEquals(100, retryAfterMillis);
+        assertEquals(0, limiter.acquireLocal(Map.of("user123", 2), now));
+        assertEquals(100, limiter.acquireLocal("user123", now));
+    }
+
+    @Test
+    @DisplayName("7. Mode global : un seul script pour tous les utilisateurs du lot, avec le nombre d'éléments de chacun")
+    void tryAcquire_GlobalBatch_ShouldPassPermitsPerUser() {
+        // Arrange
+        UserRateLimiter limiter = limiter("redis", 10, 20);
+        Map<String, Integer> batch = new LinkedHashMap<>();
+        batch.put("user123", 3);
+        batch.put("user456", 1);
+        when(redisTemplate.execute(eq(UserRateLimiter.ACQUIRE), anyList(), any(), any(), any(), any()))
+                .thenReturn(0L);
+
+        // Act
+        long retryAfterMillis = limiter.tryAcquire(batch);
+
+        // Assert
+        assertEquals(0, retryAfterMillis);
+        verify(redisTemplate).execute(eq(UserRateLimiter.ACQUIRE),
+                eq(List.of(UserRateLimiter.KEY_PREFIX + "user123", UserRateLimiter.KEY_PREFIX + "user456")),
+                eq("100000"), eq("1900000"), eq("3"), eq("1"));
+    }
+
+    @Test
+    @DisplayName("8. Lot plus grand que la rafale : la dette survit à une inactivité plus longue qu'une rafale")
+    void tryAcquire_LargeBatch_ShouldKeepDebtAfterIdleRefillPeriod() throws InterruptedException {
+        // Arrange - 10 écritures/s, rafale de 2 : un seau plein se remplit en 200 ms
+        UserRateLimiter limiter = limiter("local", 10, 2);
+        assertEquals(0, limiter.tryAcquire(Map.of("abuser", 50)));
+
+        // Act - attente au-delà du remplissage d'une rafale, bien avant le remboursement du lot (5 s)
+        Thread.sleep(300);
+        long retryAfterMillis = limiter.tryAcquire("abuser");
+
+        // Assert
+        assertTrue(retryAfterMillis > 4_000, "délai restant: " + retryAfterMillis);
+    }
+
+    private UserRateLimiter limiter(String mode, double writesPerSecond, int burst) {
+        return new UserRateLimiter(redisTemplate, meterRegistry, true, mode, writesPerSecond, burst, 100);
+    }
+}
@@ -0,0 +1,196 @@
+package com.formations.favoris.config;
+
+import com.formations.favoris.benchmark.MongoBenchmarkSupport;
+import com.formations.favoris.model.ContentType;
+import com.formations.favoris.model.Favorite;
+import com.formations.favoris.repository.FavoriteRepository;
+import com.formations.favoris.service.FavoriteCacheInvalidator;
+import com.formations.favoris.service.FavoriteWriteBehindQueue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Vérifie qu'aucun appel bloquant du service n'épingle le thread porteur d'un thread virtuel
+ * (événement JFR jdk.VirtualThreadPinned, seuil nul). Compilé uniquement avec le profil java21.
+ * La seconde vérification utilise un Mongo et un Redis réels :
+ * {@code mvn test -Dtest=VirtualThreadPinningTest -Dfavoris.benchmark.mongodb-uri=mongodb://localhost:27017
+ * -Dfavoris.benchmark.redis-host=localhost}
+ */
+public class VirtualThreadPinningTest {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int TASKS = 2_000;
+
+    @Test
+    @DisplayName("Cache à deux niveaux et file d'écriture différée sans épinglage")
+    void inProcessPaths_ShouldNotPinCarrierThreads() throws Exception {
+        // Arrange - un cache distant qui charge hors verrou, comme RedisCache
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(new ConcurrentMapCacheManager() {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                return new UnlockedLoadingCache(name);
+            }
+        }, mock(StringRedisTemplate.class), 1_000, Duration.ofMinutes(1));
+        cacheManager.afterPropertiesSet();
+        Cache cache = cacheManager.getCache("favorites");
+        FavoriteWriteBehindQueue queue = new FavoriteWriteBehindQueue(mock(FavoriteRepository.class),
+                mock(FavoriteCacheInvalidator.class), mock(ApplicationEventPublisher.class), new SimpleMeterRegistry(),
+                true, 16, 8, Duration.ofMillis(5), Duration.ofMillis(50), Duration.ofSeconds(5));
+        queue.start();
+
+        // Act
+        List<RecordedEvent> pinned = recordPinning(() -> runOnVirtualThreads(i -> {
+            cache.get("user" + (i % 100), () -> {
+                Thread.sleep(2); // aller-retour simulé
+                return List.of("fav" + i);
+            });
+            queue.enqueue(Favorite.builder().userId("user" + i).contentId("content1").contentType(ContentType.COURSE).build());
+            if (i % 10 == 0) {
+                cache.evict("user" + (i % 100));
+            }
+            return null;
+        }));
+        queue.shutdown();
+
+        // Assert
+        assertTrue(pinned.isEmpty(), describe(pinned));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = MongoBenchmarkSupport.URI_PROPERTY, matches = ".+")
+    @EnabledIfSystemProperty(named = "favoris.benchmark.redis-host", matches = ".+")
+    @DisplayName("Driver Mongo et Lettuce sans épinglage")
+    void driverCalls_ShouldNotPinCarrierThreads() throws Exception {
+        // Arrange
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(System.getProperty("favoris.benchmark.redis-host")));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        RedisCacheManager redisCacheManager = RedisCacheManager.create(connectionFactory);
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(redisCacheManager, redisTemplate, 1_000, Duration.ofMinutes(1));
+        cacheManager.afterPropertiesSet();
+        Cache cache = cacheManager.getCache("pinning-check");
+
+        try (MongoBenchmarkSupport mongo = new MongoBenchmarkSupport()) {
+            mongo.resetFavorites();
+            FavoriteRepository repository = mongo.createFavoriteRepository();
+
+            // Act
+            List<RecordedEvent> pinned = recordPinning(() -> runOnVirtualThreads(i -> {
+                String userId = "pinning-user-" + (i % 200);
+                repository.insertAllUnordered(List.of(Favorite.builder()
+                        .userId(userId).contentId("content-" + i).contentType(ContentType.COURSE).build()));
+                cache.get(userId, () -> repository.findByUserId(userId).size());
+                redisTemplate.opsForValue().set("favoris:pinning:" + i, userId, Duration.ofMinutes(1));
+                repository.findAndRemoveByUserIdAndContentId(userId, "content-" + i);
+                return null;
+            }));
+
+            // Assert
+            assertTrue(pinned.isEmpty(), describe(pinned));
+        } finally {
+            connectionFactory.destroy();
+        }
+    }
+
+    private static List<RecordedEvent> recordPinning(Callable<Void> workload) throws Exception {
+        Path dump = Files.createTempFile("pinning", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            workload.call();
+            recording.stop();
+            recording.dump(dump);
+            return RecordingFile.readAllEvents(dump).stream()
+                    .filter(event -> event.getEventType().getName().equals(PINNED_EVENT))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    private static Void runOnVirtualThreads(Task task) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Callable<Void>> tasks = new ArrayList<>(TASKS);
+            for (int i = 0; i < TASKS; i++) {
+                int index = i;
+                tasks.add(() -> task.run(index));
+            }
+            for (var future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        }
+        return null;
+    }
+
+    private static String describe(List<RecordedEvent> pinned) {
+        return pinned.size() + " épinglages :\n" + pinned.stream()
+                .limit(5)
+                .map(event -> event.getStackTrace() == null ? "(pile absente)" : event.getStackTrace().getFrames().stream()
+                        .limit(8)
+                        .map(RecordedFrame::getMethod)
+                        .map(method -> "  " + method.getType().getName() + "." + method.getName())
+                        .collect(Collectors.joining("\n")))
+                .collect(Collectors.joining("\n---\n"));
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        Void run(int index) throws Exception;
+    }
+
+    /**
+     * Cache en mémoire dont le chargement se fait hors de tout verrou, comme RedisCache
+     * (ConcurrentMapCache charge dans computeIfAbsent, sous le verrou de la table)
+     */
+    private static final class UnlockedLoadingCache extends ConcurrentMapCache {
+
+        private UnlockedLoadingCache(String name) {
+            super(name);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            ValueWrapper wrapper = get(key);
+            if (wrapper != null) {
+                return (T) wrapper.get();
+            }
+            try {
+                T value = valueLoader.call();
+                put(key, value);
+                return value;
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }
+    }
+}